@@ -34,9 +34,11 @@ import org.opencb.opencga.core.response.OpenCGAResult;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.opencb.opencga.core.models.study.StudyAclEntry.StudyPermissions.*;
 
@@ -123,11 +125,63 @@ public interface AuthorizationManager {
     void checkIndividualPermission(long studyId, long individualId, String userId, IndividualAclEntry.IndividualPermissions permission)
             throws CatalogException;
 
+    /**
+     * Resolve in a single query which of the given files the user has the permission for.
+     *
+     * @param studyId    Study uid.
+     * @param fileUids   File uids to check.
+     * @param userId     User id.
+     * @param permission Permission to check.
+     * @return the subset of file uids the user has the permission for.
+     * @throws CatalogException if there is any database error.
+     */
+    Set<Long> getPermittedFileUids(long studyId, Collection<Long> fileUids, String userId, FileAclEntry.FilePermissions permission)
+            throws CatalogException;
+
+    /**
+     * Resolve in a single query which of the given samples the user has the permission for.
+     *
+     * @param studyId    Study uid.
+     * @param sampleUids Sample uids to check.
+     * @param userId     User id.
+     * @param permission Permission to check.
+     * @return the subset of sample uids the user has the permission for.
+     * @throws CatalogException if there is any database error.
+     */
+    Set<Long> getPermittedSampleUids(long studyId, Collection<Long> sampleUids, String userId,
+                                     SampleAclEntry.SamplePermissions permission) throws CatalogException;
+
+    /**
+     * Resolve in a single query which of the given individuals the user has the permission for.
+     *
+     * @param studyId        Study uid.
+     * @param individualUids Individual uids to check.
+     * @param userId         User id.
+     * @param permission     Permission to check.
+     * @return the subset of individual uids the user has the permission for.
+     * @throws CatalogException if there is any database error.
+     */
+    Set<Long> getPermittedIndividualUids(long studyId, Collection<Long> individualUids, String userId,
+                                         IndividualAclEntry.IndividualPermissions permission) throws CatalogException;
+
     void checkJobPermission(long studyId, long jobId, String userId, JobAclEntry.JobPermissions permission) throws CatalogException;
 
     void checkCohortPermission(long studyId, long cohortId, String userId, CohortAclEntry.CohortPermissions permission)
             throws CatalogException;
 
+    /**
+     * Resolve in a single query which of the given cohorts the user has the permission for.
+     *
+     * @param studyId    Study uid.
+     * @param cohortUids Cohort uids to check.
+     * @param userId     User id.
+     * @param permission Permission to check.
+     * @return the subset of cohort uids the user has the permission for.
+     * @throws CatalogException if there is any database error.
+     */
+    Set<Long> getPermittedCohortUids(long studyId, Collection<Long> cohortUids, String userId,
+                                     CohortAclEntry.CohortPermissions permission) throws CatalogException;
+
     void checkPanelPermission(long studyId, long panelId, String userId, PanelAclEntry.PanelPermissions permission)
             throws CatalogException;
 
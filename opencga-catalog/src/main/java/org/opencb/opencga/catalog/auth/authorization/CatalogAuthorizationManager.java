@@ -57,6 +57,8 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     public static final String MEMBERS_GROUP = ParamConstants.MEMBERS_GROUP;
     public static final String ADMINS_GROUP = ParamConstants.ADMINS_GROUP;
     private static final String OPENCGA = ParamConstants.OPENCGA_USER_ID;
+    // Maximum number of uids checked in a single query
+    private static final int PERMISSION_CHECK_BATCH_SIZE = 5000;
 
     private final Logger logger;
 
@@ -75,6 +77,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     private final boolean openRegister;
 
     private final AuthorizationDBAdaptor aclDBAdaptor;
+    private final StudyGroupsCache studyGroupsCache;
 
     public CatalogAuthorizationManager(DBAdaptorFactory dbFactory, Configuration configuration)
             throws CatalogDBException {
@@ -94,6 +97,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         panelDBAdaptor = dbFactory.getCatalogPanelDBAdaptor();
         familyDBAdaptor = dbFactory.getCatalogFamilyDBAdaptor();
         clinicalAnalysisDBAdaptor = dbFactory.getClinicalAnalysisDBAdaptor();
+
+        long refreshInterval = configuration.getOptimizations() != null
+                ? configuration.getOptimizations().getStudyGroupsCacheRefreshInterval()
+                : 0;
+        studyGroupsCache = new StudyGroupsCache(studyDBAdaptor, refreshInterval);
     }
 
     @Override
@@ -154,7 +162,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = studyGroupsCache.getOwnerId(studyId);
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only owners or administrative users are allowed to modify a study");
         }
@@ -166,7 +174,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = studyGroupsCache.getOwnerId(studyId);
         if (ownerId.equals(userId)) {
             return;
         }
@@ -183,7 +191,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = studyGroupsCache.getOwnerId(studyId);
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only owners or administrative users are allowed to modify a update permission rules");
         }
@@ -199,7 +207,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = studyGroupsCache.getOwnerId(studyId);
         if (!userId.equals(ownerId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only administrative users are allowed to create/remove groups.");
         }
@@ -213,7 +221,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     @Override
     public void checkUpdateGroupPermissions(long studyId, String userId, String group, ParamUtils.BasicUpdateAction action)
             throws CatalogException {
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = studyGroupsCache.getOwnerId(studyId);
 
         if (userId.equals(ownerId)) {
             // Granted permission but check it is a valid action
@@ -253,7 +261,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = studyGroupsCache.getOwnerId(studyId);
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only owners or administrative users are allowed to assign or see all permissions");
         }
@@ -265,7 +273,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = studyGroupsCache.getOwnerId(studyId);
 
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             throw new CatalogAuthorizationException("Only owners or administrative users are allowed to create/update/delete variable "
@@ -298,7 +306,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
 
     @Override
     public Boolean isOwnerOrAdmin(long studyId, String userId) throws CatalogException {
-        String ownerId = studyDBAdaptor.getOwnerId(studyId);
+        String ownerId = studyGroupsCache.getOwnerId(studyId);
 
         if (!ownerId.equals(userId) && !isAdministrativeUser(studyId, userId)) {
             return false;
@@ -370,6 +378,44 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Individual", individualId, null);
     }
 
+    @Override
+    public Set<Long> getPermittedFileUids(long studyId, Collection<Long> fileUids, String userId, FileAclEntry.FilePermissions permission)
+            throws CatalogException {
+        return getPermittedUids(studyId, fileUids, userId, permission.name(), FileDBAdaptor.QueryParams.UID.key(), fileDBAdaptor);
+    }
+
+    @Override
+    public Set<Long> getPermittedSampleUids(long studyId, Collection<Long> sampleUids, String userId,
+                                            SampleAclEntry.SamplePermissions permission) throws CatalogException {
+        return getPermittedUids(studyId, sampleUids, userId, permission.name(), SampleDBAdaptor.QueryParams.UID.key(), sampleDBAdaptor);
+    }
+
+    @Override
+    public Set<Long> getPermittedIndividualUids(long studyId, Collection<Long> individualUids, String userId,
+                                                IndividualAclEntry.IndividualPermissions permission) throws CatalogException {
+        return getPermittedUids(studyId, individualUids, userId, permission.name(), IndividualDBAdaptor.QueryParams.UID.key(),
+                individualDBAdaptor);
+    }
+
+    private Set<Long> getPermittedUids(long studyId, Collection<Long> uids, String userId, String permission, String uidKey,
+                                       CoreDBAdaptor<?> dbAdaptor) throws CatalogException {
+        if (uids.isEmpty()) {
+            return new HashSet<>();
+        }
+        if (isInstallationAdministrator(userId)) {
+            return new HashSet<>(uids);
+        }
+        List<Long> uniqueUids = new ArrayList<>(new HashSet<>(uids));
+        Set<Long> permittedUids = new HashSet<>(uniqueUids.size());
+        for (int i = 0; i < uniqueUids.size(); i += PERMISSION_CHECK_BATCH_SIZE) {
+            Query query = new Query()
+                    .append(uidKey, uniqueUids.subList(i, Math.min(i + PERMISSION_CHECK_BATCH_SIZE, uniqueUids.size())))
+                    .append(ParamConstants.ACL_PARAM, userId + ":" + permission);
+            permittedUids.addAll(dbAdaptor.distinct(studyId, uidKey, query, userId, Long.class).getResults());
+        }
+        return permittedUids;
+    }
+
     @Override
     public void checkJobPermission(long studyId, long jobId, String userId, JobAclEntry.JobPermissions permission) throws CatalogException {
         Query query = new Query()
@@ -398,6 +444,12 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
 
     }
 
+    @Override
+    public Set<Long> getPermittedCohortUids(long studyId, Collection<Long> cohortUids, String userId,
+                                            CohortAclEntry.CohortPermissions permission) throws CatalogException {
+        return getPermittedUids(studyId, cohortUids, userId, permission.name(), CohortDBAdaptor.QueryParams.UID.key(), cohortDBAdaptor);
+    }
+
     @Override
     public void checkPanelPermission(long studyId, long panelId, String userId, PanelAclEntry.PanelPermissions permission)
             throws CatalogException {
@@ -1186,7 +1238,8 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
      * @throws CatalogException when there is any database error.
      */
     OpenCGAResult<Group> getGroupBelonging(long studyId, List<String> members) throws CatalogException {
-        return studyDBAdaptor.getGroup(studyId, null, members);
+        List<Group> groups = studyGroupsCache.getGroups(studyId, members);
+        return new OpenCGAResult<>(0, Collections.emptyList(), groups.size(), groups, groups.size());
     }
 
     OpenCGAResult<Group> getGroupBelonging(long studyId, String members) throws CatalogException {
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.auth.authorization;
+
+import org.opencb.opencga.catalog.db.api.StudyDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.core.models.study.Group;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per JVM cache of the owner and the groups of each study, used to resolve the groups of a user without querying the groups of the
+ * study on every authorization check.
+ *
+ * Each entry keeps the version of the groups of the study, a counter increased in the study document every time any group is modified.
+ * The version is checked against the database at most once every refresh interval, and the entry is reloaded only if it has changed.
+ * With a refresh interval of 0, the version is checked on every access, so modifications are visible immediately.
+ */
+final class StudyGroupsCache {
+
+    private final StudyDBAdaptor studyDBAdaptor;
+    private final long refreshIntervalMillis;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    StudyGroupsCache(StudyDBAdaptor studyDBAdaptor, long refreshIntervalMillis) {
+        this.studyDBAdaptor = studyDBAdaptor;
+        this.refreshIntervalMillis = Math.max(0, refreshIntervalMillis);
+    }
+
+    String getOwnerId(long studyUid) throws CatalogDBException {
+        return getEntry(studyUid).ownerId;
+    }
+
+    /**
+     * Get the groups of the study containing any of the members.
+     *
+     * @param studyUid Study uid.
+     * @param members  List of users.
+     * @return the groups any of the members belong to.
+     * @throws CatalogDBException if the study does not exist.
+     */
+    List<Group> getGroups(long studyUid, List<String> members) throws CatalogDBException {
+        List<Group> groups = new ArrayList<>();
+        for (Group group : getEntry(studyUid).groups) {
+            if (group.getUserIds() != null && members.stream().anyMatch(group.getUserIds()::contains)) {
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
+    private Entry getEntry(long studyUid) throws CatalogDBException {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(studyUid);
+        if (entry != null && now - entry.validated < refreshIntervalMillis) {
+            return entry;
+        }
+
+        // Read the version before the groups. Any modification in between will reload the entry on the next check.
+        long version = studyDBAdaptor.getGroupsVersion(studyUid);
+        if (entry != null && entry.version == version) {
+            entry.validated = now;
+            return entry;
+        }
+        String ownerId = studyDBAdaptor.getOwnerId(studyUid);
+        List<Group> groups = studyDBAdaptor.getGroup(studyUid, null, Collections.emptyList()).getResults();
+        entry = new Entry(version, ownerId, Collections.unmodifiableList(new ArrayList<>(groups)), now);
+        entries.put(studyUid, entry);
+        return entry;
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final String ownerId;
+        private final List<Group> groups;
+        private volatile long validated;
+
+        private Entry(long version, String ownerId, List<Group> groups, long validated) {
+            this.version = version;
+            this.ownerId = ownerId;
+            this.groups = groups;
+            this.validated = validated;
+        }
+    }
+}
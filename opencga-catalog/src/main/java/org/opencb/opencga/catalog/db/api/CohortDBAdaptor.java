@@ -16,6 +16,7 @@
 
 package org.opencb.opencga.catalog.db.api;
 
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryParam;
@@ -139,6 +140,23 @@ public interface CohortDBAdaptor extends AnnotationSetDBAdaptor<Cohort> {
     OpenCGAResult<Cohort> get(long cohortId, QueryOptions options)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
 
+    /**
+     * Update a list of cohorts with the same parameters. All the cohorts are updated within a single transaction. If that
+     * transaction fails, each cohort is updated in its own transaction and the failures are reported as ERROR events with the
+     * cohort id.
+     *
+     * @param uids list of cohort uids.
+     * @param parameters parameters to be updated.
+     * @param variableSetList list of variable sets of the study.
+     * @param queryOptions query options.
+     * @return an OpenCGAResult with the aggregated result of the update.
+     * @throws CatalogDBException if there is any database error.
+     * @throws CatalogParameterException if there is any formatting error.
+     * @throws CatalogAuthorizationException if the user is not authorised to perform the update.
+     */
+    OpenCGAResult update(List<Long> uids, ObjectMap parameters, List<VariableSet> variableSetList, QueryOptions queryOptions)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
+
     OpenCGAResult<Cohort> getAllInStudy(long studyId, QueryOptions options)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
 
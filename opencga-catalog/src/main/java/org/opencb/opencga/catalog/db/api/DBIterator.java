@@ -25,6 +25,11 @@ import java.util.Iterator;
 public interface DBIterator<E> extends Iterator<E>, Closeable {
 
     String INCLUDE_ACLS = DBAdaptor.INCLUDE_ACLS;
+    /**
+     * QueryOptions key with the number of documents read at once by the iterators, resolving the references of the whole batch
+     * together.
+     */
+    String BATCH_SIZE = "iteratorBatchSize";
 
     @Override
     void close();
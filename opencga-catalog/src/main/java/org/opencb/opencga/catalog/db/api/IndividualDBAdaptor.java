@@ -17,6 +17,7 @@
 package org.opencb.opencga.catalog.db.api;
 
 import org.apache.commons.collections4.map.LinkedMap;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryParam;
@@ -164,6 +165,23 @@ public interface IndividualDBAdaptor extends AnnotationSetDBAdaptor<Individual>
     OpenCGAResult<Individual> get(long individualId, QueryOptions options)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
 
+    /**
+     * Update a list of individuals with the same parameters. All the individuals are updated within a single transaction. If that
+     * transaction fails, each individual is updated in its own transaction and the failures are reported as ERROR events with the
+     * individual id.
+     *
+     * @param uids list of individual uids.
+     * @param parameters parameters to be updated.
+     * @param variableSetList list of variable sets of the study.
+     * @param queryOptions query options.
+     * @return an OpenCGAResult with the aggregated result of the update.
+     * @throws CatalogDBException if there is any database error.
+     * @throws CatalogParameterException if there is any formatting error.
+     * @throws CatalogAuthorizationException if the user is not authorised to perform the update.
+     */
+    OpenCGAResult update(List<Long> uids, ObjectMap parameters, List<VariableSet> variableSetList, QueryOptions queryOptions)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
+
     long getStudyId(long individualId) throws CatalogDBException;
 
     OpenCGAResult updateProjectRelease(long studyId, int release)
@@ -17,6 +17,7 @@
 package org.opencb.opencga.catalog.db.api;
 
 import org.apache.commons.collections4.map.LinkedMap;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryParam;
@@ -155,6 +156,23 @@ public interface SampleDBAdaptor extends AnnotationSetDBAdaptor<Sample> {
     OpenCGAResult<Sample> get(long sampleId, QueryOptions options)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
 
+    /**
+     * Update a list of samples with the same parameters. All the samples are updated within a single transaction. If that
+     * transaction fails, each sample is updated in its own transaction and the failures are reported as ERROR events with the
+     * sample id.
+     *
+     * @param uids list of sample uids.
+     * @param parameters parameters to be updated.
+     * @param variableSetList list of variable sets of the study.
+     * @param queryOptions query options.
+     * @return an OpenCGAResult with the aggregated result of the update.
+     * @throws CatalogDBException if there is any database error.
+     * @throws CatalogParameterException if there is any formatting error.
+     * @throws CatalogAuthorizationException if the user is not authorised to perform the update.
+     */
+    OpenCGAResult update(List<Long> uids, ObjectMap parameters, List<VariableSet> variableSetList, QueryOptions queryOptions)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
+
     OpenCGAResult<Sample> getAllInStudy(long studyId, QueryOptions options) throws CatalogDBException;
 
     long getStudyId(long sampleId) throws CatalogDBException;
@@ -215,6 +215,15 @@ public interface StudyDBAdaptor extends Iterable<Study> {
 
     String getOwnerId(long studyId) throws CatalogDBException;
 
+    /**
+     * Get the version of the groups of the study. This is a counter increased every time any group of the study is modified.
+     *
+     * @param studyId Study uid.
+     * @return the current version of the groups.
+     * @throws CatalogDBException if the study does not exist.
+     */
+    long getGroupsVersion(long studyId) throws CatalogDBException;
+
     OpenCGAResult<Study> createGroup(long studyId, Group group) throws CatalogDBException;
 
     /**
@@ -270,6 +270,37 @@ public class CohortMongoDBAdaptor extends AnnotationMongoDBAdaptor<Cohort> imple
         return result;
     }
 
+    @Override
+    public OpenCGAResult update(List<Long> uids, ObjectMap parameters, List<VariableSet> variableSetList, QueryOptions queryOptions)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
+        if (uids.isEmpty()) {
+            return OpenCGAResult.empty();
+        }
+        Query query = new Query(QueryParams.UID.key(), uids);
+        if (uids.size() > 1 && parameters.containsKey(QueryParams.ID.key())) {
+            throw new CatalogDBException("Operation not supported: '" + QueryParams.ID.key() + "' can only be updated for one cohort");
+        }
+
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE,
+                Arrays.asList(QueryParams.ID.key(), QueryParams.UID.key(), QueryParams.STUDY_UID.key()));
+        List<Cohort> cohorts = get(query, options).getResults();
+
+        try {
+            return runTransaction(clientSession -> {
+                OpenCGAResult<Cohort> result = OpenCGAResult.empty();
+                for (Cohort cohort : cohorts) {
+                    result.append(privateUpdate(clientSession, cohort, parameters, variableSetList, queryOptions));
+                }
+                return result;
+            });
+        } catch (CatalogDBException | CatalogParameterException | CatalogAuthorizationException e) {
+            // Update them in separate transactions to report which ones failed
+            logger.warn("Could not update {} cohorts in a single transaction: {}. Updating them one by one", cohorts.size(),
+                    e.getMessage());
+            return update(query, parameters, variableSetList, queryOptions);
+        }
+    }
+
     private OpenCGAResult<Object> privateUpdate(ClientSession clientSession, Cohort cohort, ObjectMap parameters,
                                                 List<VariableSet> variableSetList, QueryOptions queryOptions)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
@@ -386,6 +386,38 @@ public class IndividualMongoDBAdaptor extends AnnotationMongoDBAdaptor<Individua
         return result;
     }
 
+    @Override
+    public OpenCGAResult update(List<Long> uids, ObjectMap parameters, List<VariableSet> variableSetList, QueryOptions queryOptions)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
+        if (uids.isEmpty()) {
+            return OpenCGAResult.empty();
+        }
+        Query query = new Query(QueryParams.UID.key(), uids);
+        if (uids.size() > 1 && parameters.containsKey(QueryParams.ID.key())) {
+            throw new CatalogDBException("Operation not supported: '" + QueryParams.ID.key()
+                    + "' can only be updated for one individual");
+        }
+
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE,
+                Arrays.asList(QueryParams.ID.key(), QueryParams.UID.key(), QueryParams.VERSION.key(), QueryParams.STUDY_UID.key()));
+        List<Individual> individuals = get(query, options).getResults();
+
+        try {
+            return runTransaction(clientSession -> {
+                OpenCGAResult<Individual> result = OpenCGAResult.empty();
+                for (Individual individual : individuals) {
+                    result.append(privateUpdate(clientSession, individual, parameters, variableSetList, queryOptions));
+                }
+                return result;
+            });
+        } catch (CatalogDBException | CatalogParameterException | CatalogAuthorizationException e) {
+            // Update them in separate transactions to report which ones failed
+            logger.warn("Could not update {} individuals in a single transaction: {}. Updating them one by one", individuals.size(),
+                    e.getMessage());
+            return update(query, parameters, variableSetList, queryOptions);
+        }
+    }
+
     OpenCGAResult<Object> privateUpdate(ClientSession clientSession, Individual individual, ObjectMap parameters,
                                         List<VariableSet> variableSetList, QueryOptions queryOptions)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
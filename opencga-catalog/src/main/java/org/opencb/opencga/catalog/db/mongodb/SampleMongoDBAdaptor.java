@@ -297,6 +297,38 @@ public class SampleMongoDBAdaptor extends AnnotationMongoDBAdaptor<Sample> imple
         return result;
     }
 
+    @Override
+    public OpenCGAResult update(List<Long> uids, ObjectMap parameters, List<VariableSet> variableSetList, QueryOptions queryOptions)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
+        if (uids.isEmpty()) {
+            return OpenCGAResult.empty();
+        }
+        Query query = new Query(QueryParams.UID.key(), uids);
+        if (uids.size() > 1 && parameters.containsKey(QueryParams.ID.key())) {
+            throw new CatalogDBException("Operation not supported: '" + QueryParams.ID.key() + "' can only be updated for one sample");
+        }
+
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE,
+                Arrays.asList(QueryParams.ID.key(), QueryParams.UID.key(), QueryParams.VERSION.key(), QueryParams.STUDY_UID.key(),
+                        PRIVATE_INDIVIDUAL_UID));
+        List<Document> sampleDocuments = nativeGet(query, options).getResults();
+
+        try {
+            return runTransaction(clientSession -> {
+                OpenCGAResult<Sample> result = OpenCGAResult.empty();
+                for (Document sampleDocument : sampleDocuments) {
+                    result.append(privateUpdate(clientSession, sampleDocument, parameters, variableSetList, queryOptions));
+                }
+                return result;
+            });
+        } catch (CatalogDBException | CatalogParameterException | CatalogAuthorizationException e) {
+            // Update them in separate transactions to report which ones failed
+            logger.warn("Could not update {} samples in a single transaction: {}. Updating them one by one", sampleDocuments.size(),
+                    e.getMessage());
+            return update(query, parameters, variableSetList, queryOptions);
+        }
+    }
+
     OpenCGAResult<Object> privateUpdate(ClientSession clientSession, Document sampleDocument, ObjectMap parameters,
                                         List<VariableSet> variableSetList, QueryOptions queryOptions)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
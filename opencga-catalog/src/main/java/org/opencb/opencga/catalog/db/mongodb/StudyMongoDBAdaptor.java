@@ -332,6 +332,29 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
         return documentDataResult.first().getString(PRIVATE_OWNER_ID);
     }
 
+    @Override
+    public long getGroupsVersion(long studyId) throws CatalogDBException {
+        // Direct query, as the native get would always include the groups
+        Bson query = Filters.eq(PRIVATE_UID, studyId);
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, PRIVATE_GROUPS_VERSION);
+        DataResult<Document> documentDataResult = studyCollection.find(query, options);
+        if (documentDataResult.getNumResults() == 0) {
+            throw CatalogDBException.uidNotFound("Study", studyId);
+        }
+        Number version = documentDataResult.first().get(PRIVATE_GROUPS_VERSION, Number.class);
+        return version == null ? 0 : version.longValue();
+    }
+
+    /**
+     * Add to the update an increment of the groups version, to invalidate the cached groups of the study.
+     *
+     * @param update Update modifying the groups.
+     * @return the update document.
+     */
+    private static Bson incGroupsVersion(Bson update) {
+        return Updates.combine(update, Updates.inc(PRIVATE_GROUPS_VERSION, 1));
+    }
+
     @Override
     public OpenCGAResult<Study> createGroup(long studyId, Group group) throws CatalogDBException {
         Document query = new Document()
@@ -339,7 +362,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                 .append(QueryParams.GROUP_ID.key(), new Document("$ne", group.getId()));
         Document update = new Document("$push", new Document(QueryParams.GROUPS.key(), getMongoDBDocument(group, "Group")));
 
-        DataResult result = studyCollection.update(query, update, null);
+        DataResult result = studyCollection.update(query, incGroupsVersion(update), null);
 
         if (result.getNumUpdated() != 1) {
             OpenCGAResult<Group> group1 = getGroup(studyId, group.getId(), Collections.emptyList());
@@ -397,7 +420,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                 .append(PRIVATE_UID, studyId)
                 .append(QueryParams.GROUP_ID.key(), groupId);
         Document update = new Document("$set", new Document("groups.$.userIds", members));
-        DataResult result = studyCollection.update(query, update, null);
+        DataResult result = studyCollection.update(query, incGroupsVersion(update), null);
 
         if (result.getNumMatches() != 1) {
             throw new CatalogDBException("Unable to set users to group " + groupId + ". The group does not exist.");
@@ -414,7 +437,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                 .append(PRIVATE_UID, studyId)
                 .append(QueryParams.GROUP_ID.key(), groupId);
         Document update = new Document("$addToSet", new Document("groups.$.userIds", new Document("$each", members)));
-        DataResult result = studyCollection.update(clientSession, query, update, null);
+        DataResult result = studyCollection.update(clientSession, query, incGroupsVersion(update), null);
 
         if (result.getNumMatches() != 1) {
             throw new CatalogDBException("Unable to add members to group " + groupId + ". The group does not exist.");
@@ -431,7 +454,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                 .append(PRIVATE_UID, studyId)
                 .append(QueryParams.GROUP_ID.key(), groupId);
         Document update = new Document("$addToSet", new Document("groups.$.userIds", new Document("$each", members)));
-        DataResult result = studyCollection.update(query, update, null);
+        DataResult result = studyCollection.update(query, incGroupsVersion(update), null);
 
         if (result.getNumMatches() != 1) {
             throw new CatalogDBException("Unable to add members to group " + groupId + ". The group does not exist.");
@@ -449,7 +472,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                 .append(PRIVATE_UID, studyId)
                 .append(QueryParams.GROUP_ID.key(), groupId);
         Bson pull = Updates.pullAll("groups.$.userIds", members);
-        DataResult update = studyCollection.update(query, pull, null);
+        DataResult update = studyCollection.update(query, incGroupsVersion(pull), null);
         if (update.getNumMatches() != 1) {
             throw new CatalogDBException("Unable to remove members from group " + groupId + ". The group does not exist.");
         }
@@ -471,7 +494,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                 Document query = new Document()
                         .append(PRIVATE_UID, studyId)
                         .append(QueryParams.GROUP_USER_IDS.key(), new Document("$in", users));
-                Bson pull = Updates.pullAll("groups.$.userIds", users);
+                Bson pull = incGroupsVersion(Updates.pullAll("groups.$.userIds", users));
 
                 // Pull those users while they are still there
                 DataResult update;
@@ -493,7 +516,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                 .append(PRIVATE_UID, studyId)
                 .append(QueryParams.GROUP_ID.key(), groupId);
         Document pull = new Document("$pull", new Document("groups", new Document("id", groupId)));
-        DataResult result = studyCollection.update(queryBson, pull, null);
+        DataResult result = studyCollection.update(queryBson, incGroupsVersion(pull), null);
 
         if (result.getNumUpdated() != 1) {
             throw new CatalogDBException("Could not remove the group " + groupId);
@@ -509,7 +532,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                 .append(PRIVATE_UID, studyId)
                 .append(QueryParams.GROUP_ID.key(), groupId);
         Document updates = new Document("$set", new Document("groups.$.syncedFrom", mongoDBDocument));
-        return new OpenCGAResult<>(studyCollection.update(query, updates, null));
+        return new OpenCGAResult<>(studyCollection.update(query, incGroupsVersion(updates), null));
     }
 
     // TODO: Make this transactional
@@ -526,7 +549,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                         .append("userIds", user)
                         .append("syncedFrom.authOrigin", authOrigin)
                 ));
-        Bson pull = Updates.pull("groups.$.userIds", user);
+        Bson pull = incGroupsVersion(Updates.pull("groups.$.userIds", user));
 
         // Pull the user while it still belongs to a synced group
         QueryOptions multi = new QueryOptions(MongoDBCollection.MULTI, true);
@@ -544,7 +567,7 @@ public class StudyMongoDBAdaptor extends MongoDBAdaptor implements StudyDBAdapto
                             .append("syncedFrom.remoteGroup", new Document("$in", groupList))
                             .append("syncedFrom.authOrigin", authOrigin)
                     ));
-            Document push = new Document("$addToSet", new Document("groups.$.userIds", user));
+            Bson push = incGroupsVersion(new Document("$addToSet", new Document("groups.$.userIds", user)));
             do {
                 update = studyCollection.update(query, push, multi);
             } while (update.getNumUpdated() > 0);
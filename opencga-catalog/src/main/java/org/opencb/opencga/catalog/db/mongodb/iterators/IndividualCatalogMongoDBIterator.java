@@ -22,6 +22,7 @@ import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.MongoDBIterator;
+import org.opencb.opencga.catalog.db.api.DBIterator;
 import org.opencb.opencga.catalog.db.api.IndividualDBAdaptor;
 import org.opencb.opencga.catalog.db.api.SampleDBAdaptor;
 import org.opencb.opencga.catalog.db.mongodb.IndividualMongoDBAdaptor;
@@ -51,10 +52,15 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
     private IndividualDBAdaptor individualDBAdaptor;
 
     private Queue<Document> individualListBuffer;
+    private final int bufferSize;
+
+    // Id and version of the parents already fetched. Parents are usually shared by several individuals of the same study
+    private final Map<Long, Document> parentCache;
 
     private Logger logger;
 
     private static final int BUFFER_SIZE = 100;
+    private static final int PARENT_CACHE_SIZE = 10000;
 
     public IndividualCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, AnnotableConverter<? extends Annotable> converter,
                                             Function<Document, Document> filter, MongoDBAdaptorFactory dbAdaptorFactory,
@@ -76,6 +82,13 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
         this.individualDBAdaptor = dbAdaptorFactory.getCatalogIndividualDBAdaptor();
 
         this.individualListBuffer = new LinkedList<>();
+        this.bufferSize = Math.max(1, this.options.getInt(DBIterator.BATCH_SIZE, BUFFER_SIZE));
+        this.parentCache = new LinkedHashMap<Long, Document>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Document> eldest) {
+                return size() > PARENT_CACHE_SIZE;
+            }
+        };
         this.logger = LoggerFactory.getLogger(IndividualCatalogMongoDBIterator.class);
     }
 
@@ -108,9 +121,9 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
         Set<String> sampleVersions = new HashSet<>();
         Map<Long, List<Document>> individualMap = new HashMap<>();
 
-        // Get next BUFFER_SIZE documents
+        // Get next bufferSize documents
         int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && counter < bufferSize) {
             Document individualDocument = (Document) mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
@@ -144,6 +157,17 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
             }
         }
 
+        // Fill the parents already fetched in previous batches
+        Iterator<Map.Entry<Long, List<Document>>> parentIterator = individualMap.entrySet().iterator();
+        while (parentIterator.hasNext()) {
+            Map.Entry<Long, List<Document>> entry = parentIterator.next();
+            Document individual = parentCache.get(entry.getKey());
+            if (individual != null) {
+                setParent(entry.getValue(), individual);
+                parentIterator.remove();
+            }
+        }
+
         if (!individualMap.isEmpty()) {
             // Obtain the parents
 
@@ -164,14 +188,9 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
                 }
 
                 for (Document individual : individualDataResult.getResults()) {
-                    List<Document> parentList =
-                            individualMap.get(((Number) individual.get(IndividualDBAdaptor.QueryParams.UID.key())).longValue());
-                    for (Document parentDocument : parentList) {
-                        parentDocument.put(IndividualDBAdaptor.QueryParams.ID.key(),
-                                individual.getString(IndividualDBAdaptor.QueryParams.ID.key()));
-                        parentDocument.put(IndividualDBAdaptor.QueryParams.VERSION.key(),
-                                individual.getInteger(IndividualDBAdaptor.QueryParams.VERSION.key()));
-                    }
+                    long uid = ((Number) individual.get(IndividualDBAdaptor.QueryParams.UID.key())).longValue();
+                    setParent(individualMap.get(uid), individual);
+                    parentCache.put(uid, individual);
                 }
 
             } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
@@ -235,6 +254,14 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
         }
     }
 
+    private void setParent(List<Document> parentList, Document individual) {
+        for (Document parentDocument : parentList) {
+            parentDocument.put(IndividualDBAdaptor.QueryParams.ID.key(), individual.getString(IndividualDBAdaptor.QueryParams.ID.key()));
+            parentDocument.put(IndividualDBAdaptor.QueryParams.VERSION.key(),
+                    individual.getInteger(IndividualDBAdaptor.QueryParams.VERSION.key()));
+        }
+    }
+
     private void addParentToMap(Map<Long, List<Document>> individualMap, Document parent) {
         if (parent != null && parent.size() > 0) {
             long uid = ((Number) parent.get("uid")).longValue();
@@ -21,6 +21,7 @@ import org.bson.Document;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.MongoDBIterator;
+import org.opencb.opencga.catalog.db.api.DBIterator;
 import org.opencb.opencga.catalog.db.api.IndividualDBAdaptor;
 import org.opencb.opencga.catalog.db.api.SampleDBAdaptor;
 import org.opencb.opencga.catalog.db.mongodb.IndividualMongoDBAdaptor;
@@ -47,6 +48,7 @@ public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
     private QueryOptions individualQueryOptions;
 
     private Queue<Document> sampleListBuffer;
+    private final int bufferSize;
 
     private Logger logger;
 
@@ -70,6 +72,7 @@ public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         this.individualQueryOptions = createIndividualQueryOptions();
 
         this.sampleListBuffer = new LinkedList<>();
+        this.bufferSize = Math.max(1, this.options.getInt(DBIterator.BATCH_SIZE, BUFFER_SIZE));
         this.logger = LoggerFactory.getLogger(SampleCatalogMongoDBIterator.class);
     }
 
@@ -100,11 +103,11 @@ public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
     }
 
     private void fetchNextBatch() {
-        Map<Long, Document> sampleUidMap = new HashMap<>(BUFFER_SIZE);
+        Map<Long, Document> sampleUidMap = new HashMap<>(bufferSize);
 
-        // Get next BUFFER_SIZE documents
+        // Get next bufferSize documents
         int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && counter < bufferSize) {
             Document sampleDocument = mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
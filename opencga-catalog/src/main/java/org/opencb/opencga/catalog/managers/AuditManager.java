@@ -38,7 +38,9 @@ import org.opencb.opencga.core.response.OpenCGAResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created on 18/08/15.
@@ -56,26 +58,54 @@ public class AuditManager {
     private final Map<String, List<AuditRecord>> auditRecordMap;
     private static final int MAX_BATCH_SIZE = 100;
 
+    // Only if the audit is asynchronous
+    private final AuditRecordWriter auditRecordWriter;
+
     public AuditManager(AuthorizationManager authorizationManager, CatalogManager catalogManager, DBAdaptorFactory catalogDBAdaptorFactory,
-                        Configuration configuration) {
+                        Configuration configuration) throws CatalogException {
         this.catalogManager = catalogManager;
         this.authorizationManager = authorizationManager;
         this.auditDBAdaptor = catalogDBAdaptorFactory.getCatalogAuditDbAdaptor();
-        this.auditRecordMap = new HashMap<>();
+        this.auditRecordMap = new ConcurrentHashMap<>();
+
+        if (configuration.getAudit() != null && configuration.getAudit().isAsync()) {
+            try {
+                this.auditRecordWriter = new AuditRecordWriter(auditDBAdaptor, configuration.getAudit());
+            } catch (IOException e) {
+                throw new CatalogException("Could not initialise the audit journal: " + e.getMessage(), e);
+            }
+        } else {
+            this.auditRecordWriter = null;
+        }
     }
 
     public void audit(AuditRecord auditRecord) throws CatalogException {
-        auditDBAdaptor.insertAuditRecord(auditRecord);
+        insertAuditRecords(Collections.singletonList(auditRecord));
     }
 
     public void audit(List<AuditRecord> auditRecordList) throws CatalogException {
-        for (AuditRecord auditRecord : auditRecordList) {
-            auditDBAdaptor.insertAuditRecord(auditRecord);
+        if (!auditRecordList.isEmpty()) {
+            insertAuditRecords(auditRecordList);
+        }
+    }
+
+    /**
+     * Write any pending audit record and stop the background writer, if any.
+     *
+     * @throws CatalogException if the audit journal could not be closed.
+     */
+    public void close() throws CatalogException {
+        if (auditRecordWriter != null) {
+            try {
+                auditRecordWriter.close();
+            } catch (IOException e) {
+                throw new CatalogException("Could not close the audit journal: " + e.getMessage(), e);
+            }
         }
     }
 
     public void initAuditBatch(String operationId) {
-        this.auditRecordMap.put(operationId, new LinkedList<>());
+        this.auditRecordMap.put(operationId, new ArrayList<>());
     }
 
     public void finishAuditBatch(String operationId) throws CatalogException {
@@ -84,7 +114,7 @@ public class AuditManager {
         }
         try {
             if (!this.auditRecordMap.get(operationId).isEmpty()) {
-                auditDBAdaptor.insertAuditRecords(this.auditRecordMap.get(operationId));
+                insertAuditRecords(this.auditRecordMap.get(operationId));
             }
         } catch (CatalogDBException e) {
             logger.error("Could not audit operation '{}' -> Error: {}", operationId, e.getMessage(), e);
@@ -192,27 +222,36 @@ public class AuditManager {
         AuditRecord auditRecord = new AuditRecord(auditId, operationId, userId, apiVersion, action, resource, resourceId, resourceUuid,
                 studyId, studyUuid, params, status, date, attributes);
 
-        if (this.auditRecordMap.containsKey(operationId)) {
-            this.auditRecordMap.get(operationId).add(auditRecord);
+        List<AuditRecord> auditRecordList = this.auditRecordMap.get(operationId);
+        if (auditRecordList != null) {
+            auditRecordList.add(auditRecord);
 
-            if (this.auditRecordMap.size() == MAX_BATCH_SIZE) {
+            if (auditRecordList.size() == MAX_BATCH_SIZE) {
                 try {
-                    auditDBAdaptor.insertAuditRecords(this.auditRecordMap.get(operationId));
+                    insertAuditRecords(new ArrayList<>(auditRecordList));
                 } catch (CatalogDBException e) {
                     logger.error("Could not audit operation '{}' -> Error: {}", operationId, e.getMessage(), e);
                 } finally {
-                    this.auditRecordMap.get(operationId).clear();
+                    auditRecordList.clear();
                 }
             }
         } else {
             try {
-                auditDBAdaptor.insertAuditRecord(auditRecord);
+                insertAuditRecords(Collections.singletonList(auditRecord));
             } catch (CatalogDBException e) {
                 logger.error("Could not audit '{}' -> Error: {}", auditRecord, e.getMessage(), e);
             }
         }
     }
 
+    private void insertAuditRecords(List<AuditRecord> auditRecordList) throws CatalogDBException {
+        if (auditRecordWriter != null) {
+            auditRecordWriter.write(auditRecordList);
+        } else {
+            auditDBAdaptor.insertAuditRecords(auditRecordList);
+        }
+    }
+
     public OpenCGAResult<AuditRecord> search(String studyStr, Query query, QueryOptions options, String token) throws CatalogException {
         query = ParamUtils.defaultObject(query, Query::new);
         options = ParamUtils.defaultObject(options, QueryOptions::new);
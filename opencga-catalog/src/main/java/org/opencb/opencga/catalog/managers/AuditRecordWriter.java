@@ -0,0 +1,359 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.managers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.core.common.JacksonUtils;
+import org.opencb.opencga.core.config.Audit;
+import org.opencb.opencga.core.models.audit.AuditRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the audit records from a background thread, so inserting them is not part of the latency of each request.
+ *
+ * Records are queued in a bounded queue and inserted in batches of up to {@link Audit#getBatchSize()} records, at least once every
+ * {@link Audit#getFlushInterval()} milliseconds. If the queue is full, records are inserted synchronously.
+ *
+ * If a journal directory is configured, records are appended to a journal segment before being queued. Each segment is deleted
+ * once all its records have been inserted, and any segment left by a previous process is inserted when the writer starts, so no
+ * record is lost if the process dies. Records recovered from the journal may be inserted twice.
+ *
+ * Journal writes are not forced to disk on every write, as that would add a disk sync to the latency of each request. A segment is
+ * forced when it is rotated or kept on close, so only the records of the current segment may be lost if the whole host crashes.
+ */
+final class AuditRecordWriter implements Closeable {
+
+    private static final String JOURNAL_PREFIX = "audit-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Logger logger = LoggerFactory.getLogger(AuditRecordWriter.class);
+    private final ObjectMapper objectMapper = JacksonUtils.getDefaultObjectMapper();
+
+    private final AuditDBAdaptor auditDBAdaptor;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final long flushInterval;
+    private final Thread flusher;
+    // Only modified while holding "this", so no record is queued after the flusher has seen it
+    private volatile boolean closed;
+
+    // Journal. All fields are guarded by "this"
+    private final Path journalDirectory;
+    private final int recordsPerSegment;
+    private final Map<Segment, Integer> pendingRecords = new HashMap<>();
+    private Segment segment;
+
+    AuditRecordWriter(AuditDBAdaptor auditDBAdaptor, Audit audit) throws IOException {
+        this.auditDBAdaptor = auditDBAdaptor;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, audit.getQueueSize()));
+        this.batchSize = Math.max(1, audit.getBatchSize());
+        this.flushInterval = Math.max(1, audit.getFlushInterval());
+        this.recordsPerSegment = Math.max(1, audit.getQueueSize());
+
+        if (StringUtils.isNotEmpty(audit.getJournalDirectory())) {
+            journalDirectory = Paths.get(audit.getJournalDirectory());
+            Files.createDirectories(journalDirectory);
+            recoverJournal();
+        } else {
+            journalDirectory = null;
+        }
+
+        flusher = new Thread(this::flushLoop, "audit-record-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Write the audit records. They will be inserted in the background unless the queue is full.
+     *
+     * @param auditRecords List of audit records.
+     * @throws CatalogDBException if the records could not be journaled, or could not be inserted synchronously.
+     */
+    void write(List<AuditRecord> auditRecords) throws CatalogDBException {
+        boolean queued = false;
+        List<Entry> rejected = new ArrayList<>();
+        // Check and queue under the same lock taken by close, so the flusher drains every queued record before exiting
+        synchronized (this) {
+            if (!closed) {
+                for (Entry entry : journal(auditRecords)) {
+                    if (!queue.offer(entry)) {
+                        rejected.add(entry);
+                    }
+                }
+                queued = true;
+            }
+        }
+        if (!queued) {
+            auditDBAdaptor.insertAuditRecords(auditRecords);
+            return;
+        }
+        if (!rejected.isEmpty()) {
+            logger.debug("Audit queue is full. Inserting {} audit records synchronously", rejected.size());
+            insert(rejected);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+        }
+        try {
+            flusher.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+            logger.warn("Audit records still pending after {}ms: {}", CLOSE_TIMEOUT_MILLIS, queue.size());
+        }
+
+        synchronized (this) {
+            Set<Segment> segments = new HashSet<>(pendingRecords.keySet());
+            if (segment != null) {
+                segments.add(segment);
+            }
+            for (Segment s : segments) {
+                // Keep the segments with records not inserted. They will be recovered on the next start
+                closeSegment(s, pendingRecords.getOrDefault(s, 0) == 0);
+            }
+            pendingRecords.clear();
+            segment = null;
+        }
+    }
+
+    private void flushLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    Entry entry = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                    if (entry == null) {
+                        continue;
+                    }
+                    batch.add(entry);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                insert(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (CatalogDBException | RuntimeException e) {
+                logger.error("Could not insert {} audit records -> Error: {}", batch.size(), e.getMessage(), e);
+                if (closed) {
+                    // Records are kept in the journal, if any
+                    return;
+                }
+                // Retry the same batch later. Meanwhile, the queue fills up and new records are inserted synchronously
+                try {
+                    Thread.sleep(flushInterval);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void insert(List<Entry> entries) throws CatalogDBException {
+        List<AuditRecord> auditRecords = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            auditRecords.add(entry.auditRecord);
+        }
+        auditDBAdaptor.insertAuditRecords(auditRecords);
+        release(entries);
+    }
+
+    private synchronized List<Entry> journal(List<AuditRecord> auditRecords) throws CatalogDBException {
+        List<Entry> entries = new ArrayList<>(auditRecords.size());
+        if (journalDirectory == null) {
+            for (AuditRecord auditRecord : auditRecords) {
+                entries.add(new Entry(auditRecord, null));
+            }
+            return entries;
+        }
+
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (AuditRecord auditRecord : auditRecords) {
+                sb.append(objectMapper.writeValueAsString(auditRecord)).append('\n');
+            }
+            if (segment == null || segment.records >= recordsPerSegment) {
+                rotateSegment();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                segment.channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new CatalogDBException("Could not journal audit records: " + e.getMessage(), e);
+        }
+
+        segment.records += auditRecords.size();
+        pendingRecords.merge(segment, auditRecords.size(), Integer::sum);
+        for (AuditRecord auditRecord : auditRecords) {
+            entries.add(new Entry(auditRecord, segment));
+        }
+        return entries;
+    }
+
+    private synchronized void release(List<Entry> entries) {
+        for (Entry entry : entries) {
+            if (entry.segment == null) {
+                continue;
+            }
+            int pending = pendingRecords.merge(entry.segment, -1, Integer::sum);
+            if (pending == 0 && entry.segment != segment) {
+                // All the records of a finished segment have been inserted
+                pendingRecords.remove(entry.segment);
+                closeSegment(entry.segment, true);
+            }
+        }
+    }
+
+    private void rotateSegment() throws IOException {
+        Segment previous = segment;
+        Path path = journalDirectory.resolve(JOURNAL_PREFIX + UUID.randomUUID() + JOURNAL_SUFFIX);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // Lock the segment so no other process recovers it while in use
+        segment = new Segment(path, channel, channel.lock());
+        if (previous != null) {
+            if (pendingRecords.getOrDefault(previous, 0) == 0) {
+                pendingRecords.remove(previous);
+                closeSegment(previous, true);
+            } else {
+                previous.channel.force(false);
+            }
+        }
+    }
+
+    private void closeSegment(Segment segment, boolean delete) {
+        try {
+            if (delete) {
+                Files.deleteIfExists(segment.path);
+            } else {
+                segment.channel.force(false);
+            }
+            segment.lock.release();
+            segment.channel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close audit journal '{}': {}", segment.path, e.getMessage(), e);
+        }
+    }
+
+    private void recoverJournal() throws IOException {
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(journalDirectory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path path : paths) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    FileLock lock;
+                    try {
+                        lock = channel.tryLock();
+                    } catch (OverlappingFileLockException e) {
+                        lock = null;
+                    }
+                    if (lock == null) {
+                        // Segment in use by another writer
+                        continue;
+                    }
+                    recoverSegment(path, channel);
+                    lock.release();
+                } catch (CatalogDBException e) {
+                    logger.error("Could not recover audit journal '{}'. It will be retried on the next start -> Error: {}", path,
+                            e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void recoverSegment(Path path, FileChannel channel) throws IOException, CatalogDBException {
+        List<AuditRecord> auditRecords = new ArrayList<>(batchSize);
+        int recovered = 0;
+        BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.name()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            try {
+                auditRecords.add(objectMapper.readValue(line, AuditRecord.class));
+            } catch (IOException e) {
+                // Most likely a line partially written when the process died
+                logger.warn("Skipping corrupted audit record from journal '{}': {}", path, e.getMessage());
+                continue;
+            }
+            if (auditRecords.size() == batchSize) {
+                auditDBAdaptor.insertAuditRecords(auditRecords);
+                recovered += auditRecords.size();
+                auditRecords.clear();
+            }
+        }
+        if (!auditRecords.isEmpty()) {
+            auditDBAdaptor.insertAuditRecords(auditRecords);
+            recovered += auditRecords.size();
+        }
+        Files.delete(path);
+        logger.info("Recovered {} audit records from journal '{}'", recovered, path);
+    }
+
+    private static final class Entry {
+        private final AuditRecord auditRecord;
+        private final Segment segment;
+
+        private Entry(AuditRecord auditRecord, Segment segment) {
+            this.auditRecord = auditRecord;
+            this.segment = segment;
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final FileLock lock;
+        private int records;
+
+        private Segment(Path path, FileChannel channel, FileLock lock) {
+            this.path = path;
+            this.channel = channel;
+            this.lock = lock;
+        }
+    }
+}
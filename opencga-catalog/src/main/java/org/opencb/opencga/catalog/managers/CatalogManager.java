@@ -272,6 +272,9 @@ public class CatalogManager implements AutoCloseable {
 
     @Override
     public void close() throws CatalogException {
+        if (auditManager != null) {
+            auditManager.close();
+        }
         catalogDBAdaptorFactory.close();
     }
 
@@ -864,33 +864,114 @@ public class CohortManager extends AnnotationSetManager<Cohort> {
 
         auditManager.initAuditBatch(operationId);
         OpenCGAResult<Cohort> result = OpenCGAResult.empty();
-        for (String id : cohortIds) {
-            String cohortId = id;
-            String cohortUuid = "";
 
-            try {
-                OpenCGAResult<Cohort> internalResult = internalGet(study.getUid(), id, INCLUDE_COHORT_STATUS, userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("Cohort '" + id + "' not found");
+        QueryOptions updateOptions = ParamUtils.defaultObject(options, QueryOptions::new);
+        ObjectMap parameters = null;
+        List<CohortAclEntry.CohortPermissions> permissions = null;
+        CatalogException parametersException = null;
+        try {
+            // Validate the update params only once, as they do not depend on the cohort
+            parameters = getUpdateParameters(study, updateParams, updateOptions, userId);
+            permissions = getUpdatePermissions(updateParams, parameters);
+        } catch (CatalogException e) {
+            parametersException = e;
+        }
+
+        for (int i = 0; i < cohortIds.size(); i += BATCH_OPERATION_SIZE) {
+            List<String> batch = cohortIds.subList(i, Math.min(i + BATCH_OPERATION_SIZE, cohortIds.size()));
+
+            // Resolve the cohorts and the permissions of the whole batch at once
+            Map<String, Cohort> cohorts = Collections.emptyMap();
+            Map<CohortAclEntry.CohortPermissions, Set<Long>> permittedUids = new EnumMap<>(CohortAclEntry.CohortPermissions.class);
+            CatalogException batchException = parametersException;
+            if (batchException == null) {
+                try {
+                    cohorts = internalGetByIdOrUuid(study.getUid(), batch, INCLUDE_COHORT_STATUS, userId);
+                    List<Long> cohortUids = cohorts.values().stream().map(Cohort::getUid).distinct().collect(Collectors.toList());
+                    for (CohortAclEntry.CohortPermissions permission : permissions) {
+                        permittedUids.put(permission, authorizationManager.getPermittedCohortUids(study.getUid(), cohortUids, userId,
+                                permission));
+                    }
+                } catch (CatalogException e) {
+                    batchException = e;
                 }
-                Cohort cohort = internalResult.first();
+            }
 
-                // We set the proper values for the audit
-                cohortId = cohort.getId();
-                cohortUuid = cohort.getUuid();
+            // Entries of the batch that can be updated
+            Map<String, Cohort> permittedCohorts = new LinkedHashMap<>();
+            for (String id : batch) {
+                String cohortId = id;
+                String cohortUuid = "";
 
-                OpenCGAResult<Cohort> updateResult = update(study, cohort, updateParams, allowModifyCohortAll, options, userId);
-                result.append(updateResult);
+                try {
+                    if (batchException != null) {
+                        throw batchException;
+                    }
+                    Cohort cohort = cohorts.get(id);
+                    if (cohort == null) {
+                        throw new CatalogException("Cohort '" + id + "' not found");
+                    }
+
+                    // We set the proper values for the audit
+                    cohortId = cohort.getId();
+                    cohortUuid = cohort.getUuid();
+
+                    for (CohortAclEntry.CohortPermissions permission : permissions) {
+                        if (!permittedUids.get(permission).contains(cohort.getUid())) {
+                            throw CatalogAuthorizationException.deny(userId, permission.toString(), "Cohort", cohort.getUid(), null);
+                        }
+                    }
 
-                auditManager.auditUpdate(operationId, userId, Enums.Resource.COHORT, cohort.getId(), cohort.getUuid(), study.getId(),
-                        study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                    if (isBulkUpdate(parameters)) {
+                        checkCanBeModified(cohort, allowModifyCohortAll);
+                        permittedCohorts.put(id, cohort);
+                        continue;
+                    }
+                    OpenCGAResult<Cohort> updateResult = update(study, cohort, parameters, allowModifyCohortAll, updateOptions, userId);
+                    result.append(updateResult);
+
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.COHORT, cohort.getId(), cohort.getUuid(), study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } catch (CatalogException e) {
+                    Event event = new Event(Event.Type.ERROR, cohortId, e.getMessage());
+                    result.getEvents().add(event);
+
+                    logger.error("Could not update cohort {}: {}", cohortId, e.getMessage(), e);
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.COHORT, cohortId, cohortUuid, study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                }
+            }
+
+            if (permittedCohorts.isEmpty()) {
+                continue;
+            }
+            // Write all the cohorts of the batch at once
+            Map<String, String> errors;
+            CatalogException bulkException = null;
+            try {
+                List<Long> uids = permittedCohorts.values().stream().map(Cohort::getUid).distinct().collect(Collectors.toList());
+                OpenCGAResult<Cohort> updateResult = cohortDBAdaptor.update(uids, parameters, study.getVariableSets(), updateOptions);
+                errors = extractUpdateErrors(updateResult);
+                result.append(updateResult);
             } catch (CatalogException e) {
-                Event event = new Event(Event.Type.ERROR, cohortId, e.getMessage());
-                result.getEvents().add(event);
+                errors = Collections.emptyMap();
+                bulkException = e;
+            }
+            for (Cohort cohort : permittedCohorts.values()) {
+                CatalogException e = bulkException;
+                if (e == null && errors.containsKey(cohort.getId())) {
+                    e = new CatalogException(errors.get(cohort.getId()));
+                }
+                if (e == null) {
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.COHORT, cohort.getId(), cohort.getUuid(), study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } else {
+                    result.getEvents().add(new Event(Event.Type.ERROR, cohort.getId(), e.getMessage()));
 
-                logger.error("Could not update cohort {}: {}", cohortId, e.getMessage(), e);
-                auditManager.auditUpdate(operationId, userId, Enums.Resource.COHORT, cohortId, cohortUuid, study.getId(),
-                        study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                    logger.error("Could not update cohort {}: {}", cohort.getId(), e.getMessage(), e);
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.COHORT, cohort.getId(), cohort.getUuid(), study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                }
             }
         }
         auditManager.finishAuditBatch(operationId);
@@ -980,6 +1061,29 @@ public class CohortManager extends AnnotationSetManager<Cohort> {
                                          QueryOptions options, String userId) throws CatalogException {
         options = ParamUtils.defaultObject(options, QueryOptions::new);
 
+        ObjectMap parameters = getUpdateParameters(study, updateParams, options, userId);
+
+        // Check permissions...
+        for (CohortAclEntry.CohortPermissions permission : getUpdatePermissions(updateParams, parameters)) {
+            authorizationManager.checkCohortPermission(study.getUid(), cohort.getUid(), userId, permission);
+        }
+
+        return update(study, cohort, parameters, allowModifyCohortAll, options, userId);
+    }
+
+    /**
+     * Validate the update params and build the map of parameters to be updated. These do not depend on the cohort being updated, so
+     * they are only obtained once when updating multiple cohorts.
+     *
+     * @param study        Study.
+     * @param updateParams Data model filled only with the parameters to be updated.
+     * @param options      QueryOptions object. The actions will be added if needed.
+     * @param userId       User id.
+     * @return the map of parameters to be updated.
+     * @throws CatalogException if any of the parameters is not valid.
+     */
+    private ObjectMap getUpdateParameters(Study study, CohortUpdateParams updateParams, QueryOptions options, String userId)
+            throws CatalogException {
         ObjectMap parameters = new ObjectMap();
         if (updateParams != null) {
             try {
@@ -999,33 +1103,59 @@ public class CohortManager extends AnnotationSetManager<Cohort> {
             }
         }
 
-        // Check permissions...
-        // Only check write annotation permissions if the user wants to update the annotation sets
-        if (updateParams != null && updateParams.getAnnotationSets() != null) {
-            authorizationManager.checkCohortPermission(study.getUid(), cohort.getUid(), userId,
-                    CohortAclEntry.CohortPermissions.WRITE_ANNOTATIONS);
-        }
-        // Only check update permissions if the user wants to update anything apart from the annotation sets
-        if ((parameters.size() == 1 && !parameters.containsKey(CohortDBAdaptor.QueryParams.ANNOTATION_SETS.key()))
-                || parameters.size() > 1) {
-            authorizationManager.checkCohortPermission(study.getUid(), cohort.getUid(), userId,
-                    CohortAclEntry.CohortPermissions.WRITE);
+        if (updateParams != null && ListUtils.isNotEmpty(updateParams.getSamples())) {
+            // Remove possible duplications
+            updateParams.setSamples(updateParams.getSamples().stream().distinct().collect(Collectors.toList()));
+
+            InternalGetDataResult<Sample> sampleResult = catalogManager.getSampleManager().internalGet(study.getUid(),
+                    updateParams.getSamples(), SampleManager.INCLUDE_SAMPLE_IDS, userId, false);
+
+            if (sampleResult.getNumResults() != updateParams.getSamples().size()) {
+                throw new CatalogException("Could not find all the samples introduced. Update was not performed.");
+            }
+
+            // Override sample list of ids with sample list
+            parameters.put(CohortDBAdaptor.QueryParams.SAMPLES.key(), sampleResult.getResults());
         }
 
+        return parameters;
+    }
+
+    /**
+     * Whether the parameters can be written to a list of cohorts at once. Annotation sets are checked against each cohort, and changing
+     * the samples or the id depends on the status of each cohort.
+     *
+     * @param parameters Map of parameters to be updated.
+     * @return true if the parameters do not depend on the cohort being updated.
+     */
+    private boolean isBulkUpdate(ObjectMap parameters) {
+        return !parameters.containsKey(CohortDBAdaptor.QueryParams.ANNOTATION_SETS.key())
+                && !parameters.containsKey(CohortDBAdaptor.QueryParams.SAMPLES.key())
+                && !parameters.containsKey(CohortDBAdaptor.QueryParams.ID.key());
+    }
+
+    private void checkCanBeModified(Cohort cohort, boolean allowModifyCohortAll) throws CatalogException {
         if (!allowModifyCohortAll) {
             if (StudyEntry.DEFAULT_COHORT.equals(cohort.getId())) {
                 throw new CatalogException("Unable to modify cohort " + StudyEntry.DEFAULT_COHORT);
             }
         }
+    }
+
+    private OpenCGAResult<Cohort> update(Study study, Cohort cohort, ObjectMap parameters, boolean allowModifyCohortAll,
+                                         QueryOptions options, String userId) throws CatalogException {
+        checkCanBeModified(cohort, allowModifyCohortAll);
 
-        if (updateParams != null && (ListUtils.isNotEmpty(updateParams.getSamples())
-                || StringUtils.isNotEmpty(updateParams.getId()))) {
+        // The status and annotation sets of the parameters depend on each cohort
+        ObjectMap cohortParameters = new ObjectMap(parameters);
+        if (cohortParameters.containsKey(CohortDBAdaptor.QueryParams.SAMPLES.key())
+                || StringUtils.isNotEmpty(cohortParameters.getString(CohortDBAdaptor.QueryParams.ID.key()))) {
             switch (cohort.getInternal().getStatus().getName()) {
                 case CohortStatus.CALCULATING:
                     throw new CatalogException("Unable to modify a cohort while it's in status \"" + CohortStatus.CALCULATING
                             + "\"");
                 case CohortStatus.READY:
-                    parameters.putIfAbsent(CohortDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), CohortStatus.INVALID);
+                    cohortParameters.putIfAbsent(CohortDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), CohortStatus.INVALID);
                     break;
                 case CohortStatus.NONE:
                 case CohortStatus.INVALID:
@@ -1033,25 +1163,25 @@ public class CohortManager extends AnnotationSetManager<Cohort> {
                 default:
                     break;
             }
+        }
 
-            if (ListUtils.isNotEmpty(updateParams.getSamples())) {
-                // Remove possible duplications
-                updateParams.setSamples(updateParams.getSamples().stream().distinct().collect(Collectors.toList()));
-
-                InternalGetDataResult<Sample> sampleResult = catalogManager.getSampleManager().internalGet(study.getUid(),
-                        updateParams.getSamples(), SampleManager.INCLUDE_SAMPLE_IDS, userId, false);
-
-                if (sampleResult.getNumResults() != updateParams.getSamples().size()) {
-                    throw new CatalogException("Could not find all the samples introduced. Update was not performed.");
-                }
+        checkUpdateAnnotations(study, cohort, cohortParameters, options, VariableSet.AnnotableDataModels.COHORT, cohortDBAdaptor,
+                userId);
+        return cohortDBAdaptor.update(cohort.getUid(), cohortParameters, study.getVariableSets(), options);
+    }
 
-                // Override sample list of ids with sample list
-                parameters.put(CohortDBAdaptor.QueryParams.SAMPLES.key(), sampleResult.getResults());
-            }
+    private List<CohortAclEntry.CohortPermissions> getUpdatePermissions(CohortUpdateParams updateParams, ObjectMap parameters) {
+        List<CohortAclEntry.CohortPermissions> permissions = new ArrayList<>(2);
+        // Only check write annotation permissions if the user wants to update the annotation sets
+        if (updateParams != null && updateParams.getAnnotationSets() != null) {
+            permissions.add(CohortAclEntry.CohortPermissions.WRITE_ANNOTATIONS);
         }
-
-        checkUpdateAnnotations(study, cohort, parameters, options, VariableSet.AnnotableDataModels.COHORT, cohortDBAdaptor, userId);
-        return cohortDBAdaptor.update(cohort.getUid(), parameters, study.getVariableSets(), options);
+        // Only check update permissions if the user wants to update anything apart from the annotation sets
+        if ((parameters.size() == 1 && !parameters.containsKey(CohortDBAdaptor.QueryParams.ANNOTATION_SETS.key()))
+                || parameters.size() > 1) {
+            permissions.add(CohortAclEntry.CohortPermissions.WRITE);
+        }
+        return permissions;
     }
 
     @Override
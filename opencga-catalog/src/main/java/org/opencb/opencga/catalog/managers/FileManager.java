@@ -1946,35 +1946,77 @@ public class FileManager extends AnnotationSetManager<File> {
                 .append("options", options)
                 .append("token", token);
 
+        List<FileAclEntry.FilePermissions> permissions = getUpdatePermissions(updateParams,
+                updateMap != null ? updateMap : new ObjectMap());
+
         auditManager.initAuditBatch(operationId);
         OpenCGAResult<File> result = OpenCGAResult.empty();
-        for (String id : fileIds) {
-            String fileId = id;
-            String fileUuid = "";
+        for (int i = 0; i < fileIds.size(); i += BATCH_OPERATION_SIZE) {
+            List<String> batch = fileIds.subList(i, Math.min(i + BATCH_OPERATION_SIZE, fileIds.size()));
 
+            // Files are resolved one by one, as paths may also be matched by name. Permissions are checked for the whole batch at once.
+            Map<String, File> files = new HashMap<>();
+            Map<String, CatalogException> errors = new HashMap<>();
+            for (String id : batch) {
+                try {
+                    OpenCGAResult<File> internalResult = internalGet(study.getUid(), id, EXCLUDE_FILE_ATTRIBUTES, userId);
+                    if (internalResult.getNumResults() == 0) {
+                        throw new CatalogException("File '" + id + "' not found");
+                    }
+                    files.put(id, internalResult.first());
+                } catch (CatalogException e) {
+                    errors.put(id, e);
+                }
+            }
+            Map<FileAclEntry.FilePermissions, Set<Long>> permittedUids = new EnumMap<>(FileAclEntry.FilePermissions.class);
+            CatalogException batchException = null;
             try {
-                OpenCGAResult<File> internalResult = internalGet(study.getUid(), fileId, EXCLUDE_FILE_ATTRIBUTES, userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("File '" + id + "' not found");
+                List<Long> fileUids = files.values().stream().map(File::getUid).distinct().collect(Collectors.toList());
+                for (FileAclEntry.FilePermissions permission : permissions) {
+                    permittedUids.put(permission, authorizationManager.getPermittedFileUids(study.getUid(), fileUids, userId, permission));
                 }
-                File file = internalResult.first();
+            } catch (CatalogException e) {
+                batchException = e;
+            }
 
-                // We set the proper values for the audit
-                fileId = file.getId();
-                fileUuid = file.getUuid();
+            for (String id : batch) {
+                String fileId = id;
+                String fileUuid = "";
 
-                OpenCGAResult<File> updateResult = update(study, file, updateParams, options, userId, token);
-                result.append(updateResult);
+                try {
+                    if (errors.containsKey(id)) {
+                        throw errors.get(id);
+                    }
+                    File file = files.get(id);
 
-                auditManager.auditUpdate(userId, Enums.Resource.FILE, file.getId(), file.getUuid(), study.getId(), study.getUuid(),
-                        auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
-            } catch (CatalogException e) {
-                Event event = new Event(Event.Type.ERROR, id, e.getMessage());
-                result.getEvents().add(event);
+                    // We set the proper values for the audit
+                    fileId = file.getId();
+                    fileUuid = file.getUuid();
 
-                logger.error("Cannot update file {}: {}", fileId, e.getMessage());
-                auditManager.auditUpdate(operationId, userId, Enums.Resource.FILE, fileId, fileUuid, study.getId(),
-                        study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                    if (batchException != null) {
+                        throw batchException;
+                    }
+                    for (FileAclEntry.FilePermissions permission : permissions) {
+                        if (!permittedUids.get(permission).contains(file.getUid())) {
+                            throw CatalogAuthorizationException.deny(userId, permission.toString(), "File", file.getUid(), null);
+                        }
+                    }
+
+                    // Permissions already checked for the whole batch. Files are still written one by one: the update of a file
+                    // depends on its path, type and related files, so it has no bulk write as samples, individuals or cohorts do.
+                    OpenCGAResult<File> updateResult = update(study, file, updateParams, options, userId, token, false);
+                    result.append(updateResult);
+
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.FILE, file.getId(), file.getUuid(), study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } catch (CatalogException e) {
+                    Event event = new Event(Event.Type.ERROR, id, e.getMessage());
+                    result.getEvents().add(event);
+
+                    logger.error("Cannot update file {}: {}", fileId, e.getMessage());
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.FILE, fileId, fileUuid, study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                }
             }
         }
         auditManager.finishAuditBatch(operationId);
@@ -1983,6 +2025,11 @@ public class FileManager extends AnnotationSetManager<File> {
 
     private OpenCGAResult<File> update(Study study, File file, FileUpdateParams updateParams, QueryOptions options, String userId,
                                        String token) throws CatalogException {
+        return update(study, file, updateParams, options, userId, token, true);
+    }
+
+    private OpenCGAResult<File> update(Study study, File file, FileUpdateParams updateParams, QueryOptions options, String userId,
+                                       String token, boolean checkPermissions) throws CatalogException {
         ObjectMap parameters = new ObjectMap();
         if (updateParams != null) {
             try {
@@ -2025,15 +2072,10 @@ public class FileManager extends AnnotationSetManager<File> {
         }
 
         // Check permissions...
-        // Only check write annotation permissions if the user wants to update the annotation sets
-        if (updateParams != null && updateParams.getAnnotationSets() != null) {
-            authorizationManager.checkFilePermission(study.getUid(), file.getUid(), userId,
-                    FileAclEntry.FilePermissions.WRITE_ANNOTATIONS);
-        }
-        // Only check update permissions if the user wants to update anything apart from the annotation sets
-        if ((parameters.size() == 1 && !parameters.containsKey(FileDBAdaptor.QueryParams.ANNOTATION_SETS.key()))
-                || parameters.size() > 1) {
-            authorizationManager.checkFilePermission(study.getUid(), file.getUid(), userId, FileAclEntry.FilePermissions.WRITE);
+        if (checkPermissions) {
+            for (FileAclEntry.FilePermissions permission : getUpdatePermissions(updateParams, parameters)) {
+                authorizationManager.checkFilePermission(study.getUid(), file.getUid(), userId, permission);
+            }
         }
 
         if (isRootFolder(file)) {
@@ -2058,6 +2100,20 @@ public class FileManager extends AnnotationSetManager<File> {
         return fileDBAdaptor.update(file.getUid(), parameters, study.getVariableSets(), options);
     }
 
+    private List<FileAclEntry.FilePermissions> getUpdatePermissions(FileUpdateParams updateParams, ObjectMap parameters) {
+        List<FileAclEntry.FilePermissions> permissions = new ArrayList<>(2);
+        // Only check write annotation permissions if the user wants to update the annotation sets
+        if (updateParams != null && updateParams.getAnnotationSets() != null) {
+            permissions.add(FileAclEntry.FilePermissions.WRITE_ANNOTATIONS);
+        }
+        // Only check update permissions if the user wants to update anything apart from the annotation sets
+        if ((parameters.size() == 1 && !parameters.containsKey(FileDBAdaptor.QueryParams.ANNOTATION_SETS.key()))
+                || parameters.size() > 1) {
+            permissions.add(FileAclEntry.FilePermissions.WRITE);
+        }
+        return permissions;
+    }
+
     @Deprecated
     public OpenCGAResult<File> update(String studyStr, String entryStr, ObjectMap parameters, QueryOptions options, String token)
             throws CatalogException {
@@ -2931,20 +2987,39 @@ public class FileManager extends AnnotationSetManager<File> {
 
             DBIterator<File> iterator = fileDBAdaptor.iterator(query, options);
             while (iterator.hasNext()) {
-                File tmpFile = iterator.next();
+                List<File> files = new ArrayList<>(BATCH_OPERATION_SIZE);
+                do {
+                    files.add(iterator.next());
+                } while (iterator.hasNext() && files.size() < BATCH_OPERATION_SIZE);
 
                 if (checkPermissions) {
-                    authorizationManager.checkFilePermission(study.getUid(), tmpFile.getUid(), userId, FileAclEntry.FilePermissions.DELETE);
-                    authorizationManager.checkFilePermission(study.getUid(), tmpFile.getUid(), userId, FileAclEntry.FilePermissions.WRITE);
+                    // Check the permissions of the whole batch at once
+                    List<Long> fileUids = files.stream().map(File::getUid).collect(Collectors.toList());
+                    Set<Long> deletableUids = authorizationManager.getPermittedFileUids(study.getUid(), fileUids, userId,
+                            FileAclEntry.FilePermissions.DELETE);
+                    Set<Long> writableUids = authorizationManager.getPermittedFileUids(study.getUid(), fileUids, userId,
+                            FileAclEntry.FilePermissions.WRITE);
+                    for (File tmpFile : files) {
+                        if (!deletableUids.contains(tmpFile.getUid())) {
+                            throw CatalogAuthorizationException.deny(userId, FileAclEntry.FilePermissions.DELETE.toString(), "File",
+                                    tmpFile.getUid(), null);
+                        }
+                        if (!writableUids.contains(tmpFile.getUid())) {
+                            throw CatalogAuthorizationException.deny(userId, FileAclEntry.FilePermissions.WRITE.toString(), "File",
+                                    tmpFile.getUid(), null);
+                        }
+                    }
                 }
 
-                // File must exist in the file system
-                if (!unlink && !ioManager.exists(tmpFile.getUri())) {
-                    throw new CatalogException("File " + tmpFile.getUri() + " not found in file system");
-                }
+                for (File tmpFile : files) {
+                    // File must exist in the file system
+                    if (!unlink && !ioManager.exists(tmpFile.getUri())) {
+                        throw new CatalogException("File " + tmpFile.getUri() + " not found in file system");
+                    }
 
-                checkValidStatusForDeletion(tmpFile, acceptedStatus);
-                indexFiles.addAll(getProducedFromIndexFiles(tmpFile));
+                    checkValidStatusForDeletion(tmpFile, acceptedStatus);
+                    indexFiles.addAll(getProducedFromIndexFiles(tmpFile));
+                }
             }
 
             // TODO: Validate no file/folder within any registered directory is not registered in OpenCGA
@@ -953,25 +953,51 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
 
         auditManager.initAuditBatch(operationUuid);
         while (iterator.hasNext()) {
-            Individual individual = iterator.next();
+            List<Individual> individuals = new ArrayList<>(BATCH_OPERATION_SIZE);
+            do {
+                individuals.add(iterator.next());
+            } while (iterator.hasNext() && individuals.size() < BATCH_OPERATION_SIZE);
+
+            // Check the permissions of the whole batch at once
+            Set<Long> permittedUids = null;
+            if (checkPermissions) {
+                try {
+                    permittedUids = authorizationManager.getPermittedIndividualUids(study.getUid(),
+                            individuals.stream().map(Individual::getUid).collect(Collectors.toList()), userId,
+                            IndividualAclEntry.IndividualPermissions.DELETE);
+                } catch (CatalogException e) {
+                    auditManager.auditDelete(operationUuid, userId, Enums.Resource.INDIVIDUAL, "", "", study.getId(), study.getUuid(),
+                            auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                    auditManager.finishAuditBatch(operationUuid);
+                    throw e;
+                }
+            }
 
-            try {
-                OpenCGAResult deleteResult = delete(study, individual, params, userId, checkPermissions);
+            for (Individual individual : individuals) {
+                try {
+                    if (permittedUids != null && !permittedUids.contains(individual.getUid())) {
+                        throw CatalogAuthorizationException.deny(userId, IndividualAclEntry.IndividualPermissions.DELETE.toString(),
+                                "Individual", individual.getUid(), null);
+                    }
+                    // Permissions already checked for the whole batch
+                    OpenCGAResult deleteResult = delete(study, individual, params, userId, false);
 
-                // Add the results to the current write result
-                result.append(deleteResult);
+                    // Add the results to the current write result
+                    result.append(deleteResult);
 
-                auditManager.auditDelete(operationUuid, userId, Enums.Resource.INDIVIDUAL, individual.getId(), individual.getUuid(),
-                        study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
-            } catch (CatalogException e) {
-                String errorMsg = "Cannot delete individual " + individual.getId() + ": " + e.getMessage();
+                    auditManager.auditDelete(operationUuid, userId, Enums.Resource.INDIVIDUAL, individual.getId(), individual.getUuid(),
+                            study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } catch (CatalogException e) {
+                    String errorMsg = "Cannot delete individual " + individual.getId() + ": " + e.getMessage();
 
-                Event event = new Event(Event.Type.ERROR, individual.getId(), e.getMessage());
-                result.getEvents().add(event);
+                    Event event = new Event(Event.Type.ERROR, individual.getId(), e.getMessage());
+                    result.getEvents().add(event);
 
-                logger.error(errorMsg);
-                auditManager.auditDelete(operationUuid, userId, Enums.Resource.INDIVIDUAL, individual.getId(), individual.getUuid(),
-                        study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                    logger.error(errorMsg);
+                    auditManager.auditDelete(operationUuid, userId, Enums.Resource.INDIVIDUAL, individual.getId(), individual.getUuid(),
+                            study.getId(), study.getUuid(), auditParams,
+                            new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                }
             }
         }
         auditManager.finishAuditBatch(operationUuid);
@@ -1244,33 +1270,118 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
 
         auditManager.initAuditBatch(operationId);
         OpenCGAResult<Individual> result = OpenCGAResult.empty();
-        for (String id : individualIds) {
-            String individualId = id;
-            String individualUuid = "";
 
-            try {
-                OpenCGAResult<Individual> internalResult = internalGet(study.getUid(), id, QueryOptions.empty(), userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("Individual '" + id + "' not found");
+        QueryOptions updateOptions = ParamUtils.defaultObject(options, QueryOptions::new);
+        ObjectMap parameters = null;
+        List<IndividualAclEntry.IndividualPermissions> permissions = null;
+        CatalogException parametersException = null;
+        try {
+            // Validate the update params only once, as they do not depend on the individual
+            parameters = getUpdateParameters(study, updateParams, updateOptions, userId);
+            permissions = getUpdatePermissions(updateParams, parameters);
+        } catch (CatalogException e) {
+            parametersException = e;
+        }
+
+        for (int i = 0; i < individualIds.size(); i += BATCH_OPERATION_SIZE) {
+            List<String> batch = individualIds.subList(i, Math.min(i + BATCH_OPERATION_SIZE, individualIds.size()));
+
+            // Resolve the individuals and the permissions of the whole batch at once
+            Map<String, Individual> individuals = Collections.emptyMap();
+            Map<IndividualAclEntry.IndividualPermissions, Set<Long>> permittedUids =
+                    new EnumMap<>(IndividualAclEntry.IndividualPermissions.class);
+            CatalogException batchException = parametersException;
+            if (batchException == null) {
+                try {
+                    individuals = internalGetByIdOrUuid(study.getUid(), batch, QueryOptions.empty(), userId);
+                    List<Long> individualUids = individuals.values().stream().map(Individual::getUid).distinct()
+                            .collect(Collectors.toList());
+                    for (IndividualAclEntry.IndividualPermissions permission : permissions) {
+                        permittedUids.put(permission,
+                                authorizationManager.getPermittedIndividualUids(study.getUid(), individualUids, userId, permission));
+                    }
+                } catch (CatalogException e) {
+                    batchException = e;
                 }
-                Individual individual = internalResult.first();
+            }
 
-                // We set the proper values for the audit
-                individualId = individual.getId();
-                individualUuid = individual.getUuid();
+            // Entries of the batch that can be updated
+            Map<String, Individual> permittedIndividuals = new LinkedHashMap<>();
+            for (String id : batch) {
+                String individualId = id;
+                String individualUuid = "";
 
-                OpenCGAResult updateResult = update(study, individual, updateParams, options, userId);
-                result.append(updateResult);
+                try {
+                    if (batchException != null) {
+                        throw batchException;
+                    }
+                    Individual individual = individuals.get(id);
+                    if (individual == null) {
+                        throw new CatalogException("Individual '" + id + "' not found");
+                    }
 
-                auditManager.auditUpdate(userId, Enums.Resource.INDIVIDUAL, individual.getId(), individual.getUuid(), study.getId(),
-                        study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                    // We set the proper values for the audit
+                    individualId = individual.getId();
+                    individualUuid = individual.getUuid();
+
+                    for (IndividualAclEntry.IndividualPermissions permission : permissions) {
+                        if (!permittedUids.get(permission).contains(individual.getUid())) {
+                            throw CatalogAuthorizationException.deny(userId, permission.toString(), "Individual", individual.getUid(),
+                                    null);
+                        }
+                    }
+
+                    if (isBulkUpdate(parameters)) {
+                        permittedIndividuals.put(id, individual);
+                        continue;
+                    }
+                    OpenCGAResult updateResult = update(study, individual, parameters, updateOptions, userId);
+                    result.append(updateResult);
+
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.INDIVIDUAL, individual.getId(), individual.getUuid(),
+                            study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } catch (CatalogException e) {
+                    Event event = new Event(Event.Type.ERROR, id, e.getMessage());
+                    result.getEvents().add(event);
+
+                    logger.error("Cannot update individual {}: {}", individualId, e.getMessage());
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.INDIVIDUAL, individualId, individualUuid, study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                }
+            }
+
+            if (permittedIndividuals.isEmpty()) {
+                continue;
+            }
+            // Write all the individuals of the batch at once
+            Map<String, String> errors;
+            CatalogException bulkException = null;
+            try {
+                List<Long> uids = permittedIndividuals.values().stream().map(Individual::getUid).distinct().collect(Collectors.toList());
+                OpenCGAResult updateResult = individualDBAdaptor.update(uids, parameters, study.getVariableSets(), updateOptions);
+                errors = extractUpdateErrors(updateResult);
+                result.append(updateResult);
             } catch (CatalogException e) {
-                Event event = new Event(Event.Type.ERROR, id, e.getMessage());
-                result.getEvents().add(event);
+                errors = Collections.emptyMap();
+                bulkException = e;
+            }
+            for (Map.Entry<String, Individual> entry : permittedIndividuals.entrySet()) {
+                Individual individual = entry.getValue();
+                CatalogException e = bulkException;
+                if (e == null && errors.containsKey(individual.getId())) {
+                    e = new CatalogException(errors.get(individual.getId()));
+                }
+                if (e == null) {
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.INDIVIDUAL, individual.getId(), individual.getUuid(),
+                            study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } else {
+                    result.getEvents().add(new Event(Event.Type.ERROR, entry.getKey(), e.getMessage()));
 
-                logger.error("Cannot update individual {}: {}", individualId, e.getMessage());
-                auditManager.auditUpdate(operationId, userId, Enums.Resource.INDIVIDUAL, individualId, individualUuid, study.getId(),
-                        study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                    logger.error("Cannot update individual {}: {}", individual.getId(), e.getMessage());
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.INDIVIDUAL, individual.getId(), individual.getUuid(),
+                            study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR,
+                                    e.getError()));
+                }
             }
         }
         auditManager.finishAuditBatch(operationId);
@@ -1280,6 +1391,31 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
 
     private OpenCGAResult update(Study study, Individual individual, IndividualUpdateParams updateParams, QueryOptions options,
                                  String userId) throws CatalogException {
+        options = ParamUtils.defaultObject(options, QueryOptions::new);
+
+        ObjectMap parameters = getUpdateParameters(study, updateParams, options, userId);
+
+        // Check permissions...
+        for (IndividualAclEntry.IndividualPermissions permission : getUpdatePermissions(updateParams, parameters)) {
+            authorizationManager.checkIndividualPermission(study.getUid(), individual.getUid(), userId, permission);
+        }
+
+        return update(study, individual, parameters, options, userId);
+    }
+
+    /**
+     * Validate the update params and build the map of parameters to be updated. These do not depend on the individual being updated, so
+     * they are only obtained once when updating multiple individuals.
+     *
+     * @param study        Study.
+     * @param updateParams Data model filled only with the parameters to be updated.
+     * @param options      QueryOptions object. The actions and the current release will be added if needed.
+     * @param userId       User id.
+     * @return the map of parameters to be updated.
+     * @throws CatalogException if any of the parameters is not valid.
+     */
+    private ObjectMap getUpdateParameters(Study study, IndividualUpdateParams updateParams, QueryOptions options, String userId)
+            throws CatalogException {
         ObjectMap parameters = new ObjectMap();
         if (updateParams != null) {
             try {
@@ -1289,8 +1425,6 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
             }
         }
 
-        options = ParamUtils.defaultObject(options, QueryOptions::new);
-
         if (parameters.isEmpty() && !options.getBoolean(Constants.INCREMENT_VERSION, false)) {
             ParamUtils.checkUpdateParametersMap(parameters);
         }
@@ -1306,20 +1440,6 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
         }
 
         long studyUid = study.getUid();
-        long individualUid = individual.getUid();
-
-        // Check permissions...
-        // Only check write annotation permissions if the user wants to update the annotation sets
-        if (updateParams != null && updateParams.getAnnotationSets() != null) {
-            authorizationManager.checkIndividualPermission(studyUid, individualUid, userId,
-                    IndividualAclEntry.IndividualPermissions.WRITE_ANNOTATIONS);
-        }
-        // Only check update permissions if the user wants to update anything apart from the annotation sets
-        if ((parameters.size() == 1 && !parameters.containsKey(IndividualDBAdaptor.QueryParams.ANNOTATION_SETS.key()))
-                || parameters.size() > 1) {
-            authorizationManager.checkIndividualPermission(studyUid, individualUid, userId,
-                    IndividualAclEntry.IndividualPermissions.WRITE);
-        }
 
         if (updateParams != null && StringUtils.isNotEmpty(updateParams.getId())) {
             ParamUtils.checkIdentifier(updateParams.getId(), "id");
@@ -1355,10 +1475,6 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
             List<Sample> sampleList = catalogManager.getSampleManager().internalGet(studyUid, idList, SampleManager.INCLUDE_SAMPLE_IDS,
                     userId, false).getResults();
 
-            // Check those samples are not in use by other individuals
-            checkSamplesNotInUseInOtherIndividual(sampleList.stream().map(Sample::getUid).collect(Collectors.toSet()), studyUid,
-                    individualUid);
-
             // Pass the DBAdaptor the corresponding list of Sample objects
             parameters.put(IndividualDBAdaptor.QueryParams.SAMPLES.key(), sampleList);
         }
@@ -1382,15 +1498,57 @@ public class IndividualManager extends AnnotationSetManager<Individual> {
             parameters.remove(IndividualDBAdaptor.QueryParams.MOTHER.key());
         }
 
-        checkUpdateAnnotations(study, individual, parameters, options, VariableSet.AnnotableDataModels.INDIVIDUAL, individualDBAdaptor,
-                userId);
-
         if (options.getBoolean(Constants.INCREMENT_VERSION)) {
             // We do need to get the current release to properly create a new version
             options.put(Constants.CURRENT_RELEASE, studyManager.getCurrentRelease(study));
         }
 
-        return individualDBAdaptor.update(individual.getUid(), parameters, study.getVariableSets(), options);
+        return parameters;
+    }
+
+    /**
+     * Whether the parameters can be written to a list of individuals at once. Annotation sets are checked against each individual, and
+     * the samples and the id can only be changed one individual at a time.
+     *
+     * @param parameters Map of parameters to be updated.
+     * @return true if the parameters do not depend on the individual being updated.
+     */
+    private boolean isBulkUpdate(ObjectMap parameters) {
+        return !parameters.containsKey(IndividualDBAdaptor.QueryParams.ANNOTATION_SETS.key())
+                && !parameters.containsKey(IndividualDBAdaptor.QueryParams.SAMPLES.key())
+                && !parameters.containsKey(IndividualDBAdaptor.QueryParams.ID.key());
+    }
+
+    private OpenCGAResult update(Study study, Individual individual, ObjectMap parameters, QueryOptions options, String userId)
+            throws CatalogException {
+        // The samples and annotation sets of the parameters are checked for each individual
+        ObjectMap individualParameters = new ObjectMap(parameters);
+        if (individualParameters.containsKey(IndividualDBAdaptor.QueryParams.SAMPLES.key())) {
+            List<Sample> sampleList = individualParameters.getAsList(IndividualDBAdaptor.QueryParams.SAMPLES.key(), Sample.class);
+            // Check those samples are not in use by other individuals
+            checkSamplesNotInUseInOtherIndividual(sampleList.stream().map(Sample::getUid).collect(Collectors.toSet()), study.getUid(),
+                    individual.getUid());
+        }
+
+        checkUpdateAnnotations(study, individual, individualParameters, options, VariableSet.AnnotableDataModels.INDIVIDUAL,
+                individualDBAdaptor, userId);
+
+        return individualDBAdaptor.update(individual.getUid(), individualParameters, study.getVariableSets(), options);
+    }
+
+    private List<IndividualAclEntry.IndividualPermissions> getUpdatePermissions(IndividualUpdateParams updateParams,
+                                                                              ObjectMap parameters) {
+        List<IndividualAclEntry.IndividualPermissions> permissions = new ArrayList<>(2);
+        // Only check write annotation permissions if the user wants to update the annotation sets
+        if (updateParams != null && updateParams.getAnnotationSets() != null) {
+            permissions.add(IndividualAclEntry.IndividualPermissions.WRITE_ANNOTATIONS);
+        }
+        // Only check update permissions if the user wants to update anything apart from the annotation sets
+        if ((parameters.size() == 1 && !parameters.containsKey(IndividualDBAdaptor.QueryParams.ANNOTATION_SETS.key()))
+                || parameters.size() > 1) {
+            permissions.add(IndividualAclEntry.IndividualPermissions.WRITE);
+        }
+        return permissions;
     }
 
     @Override
@@ -71,6 +71,56 @@ public abstract class ResourceManager<R extends IPrivateStudyUid> extends Abstra
     abstract InternalGetDataResult<R> internalGet(long studyUid, List<String> entryList, @Nullable Query query, QueryOptions options,
                                                    String user, boolean ignoreException) throws CatalogException;
 
+    /**
+     * Get the entries from a list of ids or uuids with one query for the ids and another one for the uuids. Used to resolve a whole
+     * batch of entries at once. Not valid for files, which are resolved by path.
+     *
+     * @param studyUid Study uid.
+     * @param entries  List of ids or uuids.
+     * @param options  QueryOptions object. Must include the id and uuid fields.
+     * @param user     User id.
+     * @return Map from each of the entries found to the entry.
+     * @throws CatalogException if there is any database error.
+     */
+    Map<String, R> internalGetByIdOrUuid(long studyUid, List<String> entries, QueryOptions options, String user)
+            throws CatalogException {
+        Map<Boolean, List<String>> entriesByType = entries.stream().collect(Collectors.partitioningBy(UuidUtils::isOpenCgaUuid));
+        Map<String, R> result = new HashMap<>();
+        for (Map.Entry<Boolean, List<String>> entry : entriesByType.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            Function<R, String> getId = entry.getKey() ? IPrivateStudyUid::getUuid : IPrivateStudyUid::getId;
+            for (R r : internalGet(studyUid, entry.getValue(), options, user, true).getResults()) {
+                result.put(getId.apply(r), r);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Take out the ERROR events reported by the DBAdaptor for the entries that could not be written in a bulk update.
+     *
+     * @param result OpenCGAResult of the bulk update. The ERROR events are removed from it.
+     * @return Map from the id of each entry that could not be updated to the error message.
+     */
+    static Map<String, String> extractUpdateErrors(OpenCGAResult<?> result) {
+        Map<String, String> errors = new HashMap<>();
+        if (result.getEvents() == null) {
+            return errors;
+        }
+        List<Event> events = new ArrayList<>(result.getEvents().size());
+        for (Event event : result.getEvents()) {
+            if (event.getType() == Event.Type.ERROR && event.getId() != null) {
+                errors.put(event.getId(), event.getMessage());
+            } else {
+                events.add(event);
+            }
+        }
+        result.setEvents(events);
+        return errors;
+    }
+
     /**
      * Create an entry in catalog.
      *
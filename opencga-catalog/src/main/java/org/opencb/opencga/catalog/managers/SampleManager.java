@@ -547,30 +547,51 @@ public class SampleManager extends AnnotationSetManager<Sample> {
 
         auditManager.initAuditBatch(operationUuid);
         while (iterator.hasNext()) {
-            Sample sample = iterator.next();
-
-            try {
-                if (checkPermissions) {
-                    authorizationManager.checkSamplePermission(study.getUid(), sample.getUid(), userId,
+            List<Sample> samples = new ArrayList<>(BATCH_OPERATION_SIZE);
+            do {
+                samples.add(iterator.next());
+            } while (iterator.hasNext() && samples.size() < BATCH_OPERATION_SIZE);
+
+            // Check the permissions of the whole batch at once
+            Set<Long> permittedUids = null;
+            if (checkPermissions) {
+                try {
+                    permittedUids = authorizationManager.getPermittedSampleUids(study.getUid(),
+                            samples.stream().map(Sample::getUid).collect(Collectors.toList()), userId,
                             SampleAclEntry.SamplePermissions.DELETE);
+                } catch (CatalogException e) {
+                    auditManager.auditDelete(operationUuid, userId, Enums.Resource.SAMPLE, "", "", study.getId(), study.getUuid(),
+                            auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                    auditManager.finishAuditBatch(operationUuid);
+                    throw e;
                 }
+            }
 
-                // Check if the sample can be deleted
-                checkSampleCanBeDeleted(study.getUid(), sample, params.getBoolean(Constants.FORCE, false));
+            for (Sample sample : samples) {
+                try {
+                    if (permittedUids != null && !permittedUids.contains(sample.getUid())) {
+                        throw CatalogAuthorizationException.deny(userId, SampleAclEntry.SamplePermissions.DELETE.toString(),
+                                "Sample", sample.getUid(), null);
+                    }
 
-                result.append(sampleDBAdaptor.delete(sample));
+                    // Check if the sample can be deleted
+                    checkSampleCanBeDeleted(study.getUid(), sample, params.getBoolean(Constants.FORCE, false));
 
-                auditManager.auditDelete(operationUuid, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(),
-                        study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
-            } catch (CatalogException e) {
-                String errorMsg = "Cannot delete sample " + sample.getId() + ": " + e.getMessage();
+                    result.append(sampleDBAdaptor.delete(sample));
 
-                Event event = new Event(Event.Type.ERROR, sample.getId(), e.getMessage());
-                result.getEvents().add(event);
+                    auditManager.auditDelete(operationUuid, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(),
+                            study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } catch (CatalogException e) {
+                    String errorMsg = "Cannot delete sample " + sample.getId() + ": " + e.getMessage();
 
-                logger.error(errorMsg);
-                auditManager.auditDelete(operationUuid, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(),
-                        study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                    Event event = new Event(Event.Type.ERROR, sample.getId(), e.getMessage());
+                    result.getEvents().add(event);
+
+                    logger.error(errorMsg);
+                    auditManager.auditDelete(operationUuid, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(),
+                            study.getId(), study.getUuid(), auditParams,
+                            new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                }
             }
         }
         auditManager.finishAuditBatch(operationUuid);
@@ -837,12 +858,30 @@ public class SampleManager extends AnnotationSetManager<Sample> {
             throw e;
         }
 
+        QueryOptions updateOptions = ParamUtils.defaultObject(options, QueryOptions::new);
+        ObjectMap parameters = null;
+        List<SampleAclEntry.SamplePermissions> permissions = null;
+        CatalogException parametersException = null;
+        try {
+            // Validate the update params only once, as they do not depend on the sample
+            parameters = getUpdateParameters(study, updateParams, updateOptions, userId);
+            permissions = getUpdatePermissions(updateParams, parameters);
+        } catch (CatalogException e) {
+            parametersException = e;
+        }
+
         auditManager.initAuditBatch(operationId);
         OpenCGAResult<Sample> result = OpenCGAResult.empty();
         while (iterator.hasNext()) {
             Sample sample = iterator.next();
             try {
-                OpenCGAResult updateResult = update(study, sample, updateParams, options, userId);
+                if (parametersException != null) {
+                    throw parametersException;
+                }
+                for (SampleAclEntry.SamplePermissions permission : permissions) {
+                    authorizationManager.checkSamplePermission(study.getUid(), sample.getUid(), userId, permission);
+                }
+                OpenCGAResult updateResult = update(study, sample, parameters, updateOptions, userId);
                 result.append(updateResult);
 
                 auditManager.auditUpdate(operationId, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(), study.getId(),
@@ -954,33 +993,113 @@ public class SampleManager extends AnnotationSetManager<Sample> {
 
         auditManager.initAuditBatch(operationId);
         OpenCGAResult<Sample> result = OpenCGAResult.empty();
-        for (String id : sampleIds) {
-            String sampleId = id;
-            String sampleUuid = "";
 
-            try {
-                OpenCGAResult<Sample> internalResult = internalGet(study.getUid(), id, INCLUDE_SAMPLE_IDS, userId);
-                if (internalResult.getNumResults() == 0) {
-                    throw new CatalogException("Sample '" + id + "' not found");
+        QueryOptions updateOptions = ParamUtils.defaultObject(options, QueryOptions::new);
+        ObjectMap parameters = null;
+        List<SampleAclEntry.SamplePermissions> permissions = null;
+        CatalogException parametersException = null;
+        try {
+            // Validate the update params only once, as they do not depend on the sample
+            parameters = getUpdateParameters(study, updateParams, updateOptions, userId);
+            permissions = getUpdatePermissions(updateParams, parameters);
+        } catch (CatalogException e) {
+            parametersException = e;
+        }
+
+        for (int i = 0; i < sampleIds.size(); i += BATCH_OPERATION_SIZE) {
+            List<String> batch = sampleIds.subList(i, Math.min(i + BATCH_OPERATION_SIZE, sampleIds.size()));
+
+            // Resolve the samples and the permissions of the whole batch at once
+            Map<String, Sample> samples = Collections.emptyMap();
+            Map<SampleAclEntry.SamplePermissions, Set<Long>> permittedUids = new EnumMap<>(SampleAclEntry.SamplePermissions.class);
+            CatalogException batchException = parametersException;
+            if (batchException == null) {
+                try {
+                    samples = internalGetByIdOrUuid(study.getUid(), batch, INCLUDE_SAMPLE_IDS, userId);
+                    List<Long> sampleUids = samples.values().stream().map(Sample::getUid).distinct().collect(Collectors.toList());
+                    for (SampleAclEntry.SamplePermissions permission : permissions) {
+                        permittedUids.put(permission,
+                                authorizationManager.getPermittedSampleUids(study.getUid(), sampleUids, userId, permission));
+                    }
+                } catch (CatalogException e) {
+                    batchException = e;
                 }
-                Sample sample = internalResult.first();
+            }
 
-                // We set the proper values for the audit
-                sampleId = sample.getId();
-                sampleUuid = sample.getUuid();
+            // Entries of the batch that can be updated
+            Map<String, Sample> permittedSamples = new LinkedHashMap<>();
+            for (String id : batch) {
+                String sampleId = id;
+                String sampleUuid = "";
 
-                OpenCGAResult updateResult = update(study, sample, updateParams, options, userId);
-                result.append(updateResult);
+                try {
+                    if (batchException != null) {
+                        throw batchException;
+                    }
+                    Sample sample = samples.get(id);
+                    if (sample == null) {
+                        throw new CatalogException("Sample '" + id + "' not found");
+                    }
 
-                auditManager.auditUpdate(operationId, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(), study.getId(),
-                        study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                    // We set the proper values for the audit
+                    sampleId = sample.getId();
+                    sampleUuid = sample.getUuid();
+
+                    for (SampleAclEntry.SamplePermissions permission : permissions) {
+                        if (!permittedUids.get(permission).contains(sample.getUid())) {
+                            throw CatalogAuthorizationException.deny(userId, permission.toString(), "Sample", sample.getUid(), null);
+                        }
+                    }
+
+                    if (isBulkUpdate(parameters)) {
+                        permittedSamples.put(id, sample);
+                        continue;
+                    }
+                    OpenCGAResult updateResult = update(study, sample, parameters, updateOptions, userId);
+                    result.append(updateResult);
+
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(), study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } catch (CatalogException e) {
+                    Event event = new Event(Event.Type.ERROR, sampleId, e.getMessage());
+                    result.getEvents().add(event);
+
+                    logger.error("Could not update sample {}: {}", sampleId, e.getMessage(), e);
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.SAMPLE, sampleId, sampleUuid, study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                }
+            }
+
+            if (permittedSamples.isEmpty()) {
+                continue;
+            }
+            // Write all the samples of the batch at once
+            Map<String, String> errors;
+            CatalogException bulkException = null;
+            try {
+                List<Long> uids = permittedSamples.values().stream().map(Sample::getUid).distinct().collect(Collectors.toList());
+                OpenCGAResult updateResult = sampleDBAdaptor.update(uids, parameters, study.getVariableSets(), updateOptions);
+                errors = extractUpdateErrors(updateResult);
+                result.append(updateResult);
             } catch (CatalogException e) {
-                Event event = new Event(Event.Type.ERROR, sampleId, e.getMessage());
-                result.getEvents().add(event);
+                errors = Collections.emptyMap();
+                bulkException = e;
+            }
+            for (Sample sample : permittedSamples.values()) {
+                CatalogException e = bulkException;
+                if (e == null && errors.containsKey(sample.getId())) {
+                    e = new CatalogException(errors.get(sample.getId()));
+                }
+                if (e == null) {
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(), study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+                } else {
+                    result.getEvents().add(new Event(Event.Type.ERROR, sample.getId(), e.getMessage()));
 
-                logger.error("Could not update sample {}: {}", sampleId, e.getMessage(), e);
-                auditManager.auditUpdate(operationId, userId, Enums.Resource.SAMPLE, sampleId, sampleUuid, study.getId(),
-                        study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                    logger.error("Could not update sample {}: {}", sample.getId(), e.getMessage(), e);
+                    auditManager.auditUpdate(operationId, userId, Enums.Resource.SAMPLE, sample.getId(), sample.getUuid(), study.getId(),
+                            study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.ERROR, e.getError()));
+                }
             }
         }
         auditManager.finishAuditBatch(operationId);
@@ -992,7 +1111,32 @@ public class SampleManager extends AnnotationSetManager<Sample> {
             throws CatalogException {
         options = ParamUtils.defaultObject(options, QueryOptions::new);
 
-        fixQualityControlUpdateParams(updateParams, options);
+        ObjectMap parameters = getUpdateParameters(study, updateParams, options, userId);
+
+        // Check permissions...
+        for (SampleAclEntry.SamplePermissions permission : getUpdatePermissions(updateParams, parameters)) {
+            authorizationManager.checkSamplePermission(study.getUid(), sample.getUid(), userId, permission);
+        }
+
+        return update(study, sample, parameters, options, userId);
+    }
+
+    /**
+     * Validate the update params and build the map of parameters to be updated. These do not depend on the sample being updated, so
+     * they are only obtained once when updating multiple samples.
+     *
+     * @param study        Study.
+     * @param updateParams Data model filled only with the parameters to be updated.
+     * @param options      QueryOptions object. The actions and the current release will be added if needed.
+     * @param userId       User id.
+     * @return the map of parameters to be updated.
+     * @throws CatalogException if any of the parameters is not valid.
+     */
+    private ObjectMap getUpdateParameters(Study study, SampleUpdateParams updateParams, QueryOptions options, String userId)
+            throws CatalogException {
+        if (updateParams != null) {
+            fixQualityControlUpdateParams(updateParams, options);
+        }
 
         ObjectMap parameters = new ObjectMap();
 
@@ -1018,19 +1162,6 @@ public class SampleManager extends AnnotationSetManager<Sample> {
             }
         }
 
-        // Check permissions...
-        // Only check write annotation permissions if the user wants to update the annotation sets
-        if (updateParams != null && updateParams.getAnnotationSets() != null) {
-            authorizationManager.checkSamplePermission(study.getUid(), sample.getUid(), userId,
-                    SampleAclEntry.SamplePermissions.WRITE_ANNOTATIONS);
-        }
-        // Only check update permissions if the user wants to update anything apart from the annotation sets
-        if ((parameters.size() == 1 && !parameters.containsKey(SampleDBAdaptor.QueryParams.ANNOTATION_SETS.key()))
-                || parameters.size() > 1) {
-            authorizationManager.checkSamplePermission(study.getUid(), sample.getUid(), userId,
-                    SampleAclEntry.SamplePermissions.WRITE);
-        }
-
         if (updateParams != null && StringUtils.isNotEmpty(updateParams.getId())) {
             ParamUtils.checkIdentifier(updateParams.getId(), SampleDBAdaptor.QueryParams.ID.key());
         }
@@ -1047,14 +1178,48 @@ public class SampleManager extends AnnotationSetManager<Sample> {
             parameters.put(SampleDBAdaptor.QueryParams.INDIVIDUAL_ID.key(), individualDataResult.first().getId());
         }
 
-        checkUpdateAnnotations(study, sample, parameters, options, VariableSet.AnnotableDataModels.SAMPLE, sampleDBAdaptor, userId);
-
         if (options.getBoolean(Constants.INCREMENT_VERSION)) {
             // We do need to get the current release to properly create a new version
             options.put(Constants.CURRENT_RELEASE, studyManager.getCurrentRelease(study));
         }
 
-        return sampleDBAdaptor.update(sample.getUid(), parameters, study.getVariableSets(), options);
+        return parameters;
+    }
+
+    private List<SampleAclEntry.SamplePermissions> getUpdatePermissions(SampleUpdateParams updateParams, ObjectMap parameters) {
+        List<SampleAclEntry.SamplePermissions> permissions = new ArrayList<>(2);
+        // Only check write annotation permissions if the user wants to update the annotation sets
+        if (updateParams != null && updateParams.getAnnotationSets() != null) {
+            permissions.add(SampleAclEntry.SamplePermissions.WRITE_ANNOTATIONS);
+        }
+        // Only check update permissions if the user wants to update anything apart from the annotation sets
+        if ((parameters.size() == 1 && !parameters.containsKey(SampleDBAdaptor.QueryParams.ANNOTATION_SETS.key()))
+                || parameters.size() > 1) {
+            permissions.add(SampleAclEntry.SamplePermissions.WRITE);
+        }
+        return permissions;
+    }
+
+    /**
+     * Whether the parameters can be written to a list of samples at once. Annotation sets are checked against each sample, and the id
+     * can only be changed one sample at a time.
+     *
+     * @param parameters Map of parameters to be updated.
+     * @return true if the parameters do not depend on the sample being updated.
+     */
+    private boolean isBulkUpdate(ObjectMap parameters) {
+        return !parameters.containsKey(SampleDBAdaptor.QueryParams.ANNOTATION_SETS.key())
+                && !parameters.containsKey(SampleDBAdaptor.QueryParams.ID.key());
+    }
+
+    private OpenCGAResult update(Study study, Sample sample, ObjectMap parameters, QueryOptions options, String userId)
+            throws CatalogException {
+        // The annotation sets of the parameters are replaced for each sample
+        ObjectMap sampleParameters = new ObjectMap(parameters);
+        checkUpdateAnnotations(study, sample, sampleParameters, options, VariableSet.AnnotableDataModels.SAMPLE, sampleDBAdaptor,
+                userId);
+
+        return sampleDBAdaptor.update(sample.getUid(), sampleParameters, study.getVariableSets(), options);
     }
 
     @Override
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.utils;
+
+import org.opencb.opencga.catalog.db.api.DBIterator;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads ahead the elements of a {@link DBIterator} from a background thread, so the next batch of documents, and their references,
+ * are fetched from the database while the current batch is being consumed.
+ *
+ * The iterator wrapped is only accessed from the background thread, and it is closed when this iterator is closed. Its number of
+ * matches is also obtained from the background thread, before reading the first element. Waiting for the next element fails if this
+ * iterator is closed or the background thread stops without reaching the end, instead of blocking forever.
+ *
+ * @param <E> Type of the elements.
+ */
+public class PrefetchDBIterator<E> implements DBIterator<E> {
+
+    private static final Object END = new Object();
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final DBIterator<E> iterator;
+    private final BlockingQueue<Object> queue;
+    private final Thread reader;
+    private final CountDownLatch numMatchesRead = new CountDownLatch(1);
+    private volatile long numMatches = -1;
+    private volatile boolean closed;
+    private volatile RuntimeException exception;
+
+    private Object next;
+
+    /**
+     * Start reading ahead the elements of the iterator.
+     *
+     * @param iterator      Iterator to read from.
+     * @param prefetchSize  Maximum number of elements read ahead.
+     */
+    public PrefetchDBIterator(DBIterator<E> iterator, int prefetchSize) {
+        this.iterator = iterator;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, prefetchSize));
+        this.reader = new Thread(this::read, "prefetch-db-iterator");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    private void read() {
+        try {
+            try {
+                numMatches = iterator.getNumMatches();
+            } finally {
+                numMatchesRead.countDown();
+            }
+            while (!closed && iterator.hasNext()) {
+                E element = iterator.next();
+                while (!queue.offer(element, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            exception = e;
+        } finally {
+            iterator.close();
+        }
+        // Blocks until there is space for the end marker, or the iterator is closed
+        try {
+            boolean added = false;
+            while (!closed && !added) {
+                added = queue.offer(END, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            try {
+                next = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading from the database", e);
+            }
+            if (next == null) {
+                if (closed) {
+                    throw new IllegalStateException("Iterator closed");
+                }
+                if (!reader.isAlive()) {
+                    // The reader may have added the last element right before finishing
+                    next = queue.poll();
+                    if (next == null) {
+                        throw new IllegalStateException("Stopped reading from the database unexpectedly", exception);
+                    }
+                }
+            }
+        }
+        if (next == END) {
+            if (exception != null) {
+                throw exception;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        E element = (E) next;
+        next = null;
+        return element;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Number of matches of the iterator wrapped, as obtained by the background thread before reading the first element.
+     *
+     * @return the number of matches, or -1 if it could not be obtained or this iterator was closed before.
+     */
+    @Override
+    public long getNumMatches() {
+        try {
+            while (!numMatchesRead.await(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed || !reader.isAlive()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading from the database", e);
+        }
+        return numMatches;
+    }
+}
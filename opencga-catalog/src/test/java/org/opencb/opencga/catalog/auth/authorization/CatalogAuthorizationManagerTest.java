@@ -39,6 +39,8 @@ import org.opencb.opencga.core.models.file.File;
 import org.opencb.opencga.core.models.file.FileAclEntry;
 import org.opencb.opencga.core.models.file.FileAclParams;
 import org.opencb.opencga.core.models.individual.Individual;
+import org.opencb.opencga.core.models.individual.IndividualAclEntry;
+import org.opencb.opencga.core.models.individual.IndividualAclParams;
 import org.opencb.opencga.core.models.job.Job;
 import org.opencb.opencga.core.models.project.Project;
 import org.opencb.opencga.core.models.sample.Sample;
@@ -262,6 +264,35 @@ public class CatalogAuthorizationManagerTest extends GenericTest {
         assertTrue(!groups.get(groupAdmin).getUserIds().contains(externalUser));
     }
 
+    @Test
+    public void groupBelongingAfterGroupUpdates() throws CatalogException {
+        CatalogAuthorizationManager authorizationManager = (CatalogAuthorizationManager) catalogManager.getAuthorizationManager();
+        assertTrue(authorizationManager.isOwnerOrAdmin(studyUid, ownerUser));
+        assertFalse(authorizationManager.isOwnerOrAdmin(studyUid, externalUser));
+        assertFalse(groupIds(authorizationManager.getGroupBelonging(studyUid, externalUser)).contains(groupMember));
+
+        // Group modifications are visible on the next check, without waiting for the refresh interval
+        catalogManager.getStudyManager().createGroup(studyFqn, new Group(groupMember, Collections.singletonList(externalUser)),
+                ownerSessionId);
+        assertTrue(groupIds(authorizationManager.getGroupBelonging(studyUid, externalUser)).contains(groupMember));
+
+        updateGroup(studyFqn, groupAdmin, externalUser, null, null, ownerSessionId);
+        assertTrue(authorizationManager.isOwnerOrAdmin(studyUid, externalUser));
+
+        updateGroup(studyFqn, groupAdmin, null, externalUser, null, ownerSessionId);
+        assertFalse(authorizationManager.isOwnerOrAdmin(studyUid, externalUser));
+        assertTrue(groupIds(authorizationManager.getGroupBelonging(studyUid, externalUser)).contains(groupMember));
+
+        // Removing from @members removes the user from every group
+        updateGroup(studyFqn, "@members", null, externalUser, null, ownerSessionId);
+        assertEquals(Collections.emptySet(), groupIds(authorizationManager.getGroupBelonging(studyUid, externalUser)));
+        assertTrue(authorizationManager.isOwnerOrAdmin(studyUid, ownerUser));
+    }
+
+    private static Set<String> groupIds(OpenCGAResult<Group> groups) {
+        return groups.getResults().stream().map(Group::getId).collect(Collectors.toSet());
+    }
+
     @Test
     public void adminUserRemovesFromAdminsGroup() throws CatalogException {
         thrown.expectMessage("Only the owner");
@@ -756,6 +787,81 @@ public class CatalogAuthorizationManagerTest extends GenericTest {
         catalogManager.getSampleManager().get(studyFqn, smp3.getId(), null, externalSessionId);
     }
 
+    @Test
+    public void getPermittedSampleUids() throws CatalogException {
+        Set<Long> permitted = catalogManager.getAuthorizationManager().getPermittedSampleUids(studyUid,
+                Arrays.asList(smp1.getUid(), smp2.getUid(), smp3.getUid()), externalUser, SampleAclEntry.SamplePermissions.VIEW);
+        assertEquals(Collections.singleton(smp1.getUid()), permitted);
+
+        assertEquals(Collections.emptySet(), catalogManager.getAuthorizationManager().getPermittedSampleUids(studyUid,
+                Collections.emptyList(), externalUser, SampleAclEntry.SamplePermissions.VIEW));
+    }
+
+    @Test
+    public void getPermittedSampleUidsLargeInput() throws CatalogException {
+        // More uids than the batch size, with the only permitted sample in the last batch
+        List<Long> sampleUids = new ArrayList<>();
+        for (long i = 0; i < 12000; i++) {
+            sampleUids.add(Long.MAX_VALUE - i);
+        }
+        sampleUids.add(smp3.getUid());
+        sampleUids.add(smp1.getUid());
+        sampleUids.add(smp1.getUid());
+
+        Set<Long> permitted = catalogManager.getAuthorizationManager().getPermittedSampleUids(studyUid, sampleUids, externalUser,
+                SampleAclEntry.SamplePermissions.VIEW);
+        assertEquals(Collections.singleton(smp1.getUid()), permitted);
+    }
+
+    @Test
+    public void getPermittedFileUids() throws CatalogException {
+        List<File> files = fileManager.search(studyFqn, new Query(), QueryOptions.empty(), ownerSessionId).getResults();
+        List<Long> fileUids = files.stream().map(File::getUid).collect(Collectors.toList());
+
+        for (FileAclEntry.FilePermissions permission : Arrays.asList(FileAclEntry.FilePermissions.VIEW,
+                FileAclEntry.FilePermissions.DELETE)) {
+            Set<Long> permitted = catalogManager.getAuthorizationManager().getPermittedFileUids(studyUid, fileUids, externalUser,
+                    permission);
+            // Same result as checking file by file
+            Set<Long> expected = new HashSet<>();
+            for (File file : files) {
+                try {
+                    catalogManager.getAuthorizationManager().checkFilePermission(studyUid, file.getUid(), externalUser, permission);
+                    expected.add(file.getUid());
+                } catch (CatalogAuthorizationException e) {
+                    // Not permitted
+                }
+            }
+            assertEquals(permission.name(), expected, permitted);
+        }
+        Set<Long> permittedPaths = catalogManager.getAuthorizationManager().getPermittedFileUids(studyUid, fileUids, externalUser,
+                FileAclEntry.FilePermissions.VIEW);
+        Map<String, Long> uidByPath = files.stream().collect(Collectors.toMap(File::getPath, File::getUid));
+        assertTrue(permittedPaths.contains(uidByPath.get(data_d1)));
+        assertFalse(permittedPaths.contains(uidByPath.get(data_d1_d2_d3)));
+
+        // Owner is permitted every file
+        assertEquals(new HashSet<>(fileUids), catalogManager.getAuthorizationManager().getPermittedFileUids(studyUid, fileUids,
+                ownerUser, FileAclEntry.FilePermissions.DELETE));
+    }
+
+    @Test
+    public void getPermittedIndividualUids() throws CatalogException {
+        catalogManager.getIndividualManager().updateAcl(studyFqn, Collections.singletonList(ind1), externalUser,
+                new IndividualAclParams("", IndividualAclEntry.IndividualPermissions.VIEW.name()), ParamUtils.AclAction.SET, false,
+                ownerSessionId);
+        long ind1Uid = catalogManager.getIndividualManager().get(studyFqn, ind1, QueryOptions.empty(), ownerSessionId).first().getUid();
+        long ind2Uid = catalogManager.getIndividualManager().get(studyFqn, ind2, QueryOptions.empty(), ownerSessionId).first().getUid();
+
+        assertEquals(Collections.singleton(ind1Uid), catalogManager.getAuthorizationManager().getPermittedIndividualUids(studyUid,
+                Arrays.asList(ind1Uid, ind2Uid), externalUser, IndividualAclEntry.IndividualPermissions.VIEW));
+        assertEquals(Collections.emptySet(), catalogManager.getAuthorizationManager().getPermittedIndividualUids(studyUid,
+                Arrays.asList(ind1Uid, ind2Uid), externalUser, IndividualAclEntry.IndividualPermissions.DELETE));
+        assertEquals(new HashSet<>(Arrays.asList(ind1Uid, ind2Uid)), catalogManager.getAuthorizationManager()
+                .getPermittedIndividualUids(studyUid, Arrays.asList(ind1Uid, ind2Uid), memberUser,
+                        IndividualAclEntry.IndividualPermissions.VIEW));
+    }
+
     @Test
     public void readSampleExternalUser() throws CatalogException, IOException {
         String newUser = "newUser";
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.auth.authorization;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.opencga.catalog.db.api.StudyDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.core.models.study.Group;
+import org.opencb.opencga.core.response.OpenCGAResult;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class StudyGroupsCacheTest {
+
+    private static final long STUDY_UID = 1;
+
+    private StudyDBAdaptor studyDBAdaptor;
+    private AtomicLong version;
+    private List<Group> groups;
+
+    @Before
+    public void setUp() throws Exception {
+        version = new AtomicLong();
+        groups = new ArrayList<>();
+        groups.add(new Group("@members", new ArrayList<>(Arrays.asList("owner", "user1", "user2"))));
+        groups.add(new Group("@admins", new ArrayList<>(Collections.singletonList("user1"))));
+
+        studyDBAdaptor = mock(StudyDBAdaptor.class);
+        when(studyDBAdaptor.getGroupsVersion(STUDY_UID)).then(invocation -> version.get());
+        when(studyDBAdaptor.getOwnerId(STUDY_UID)).thenReturn("owner");
+        when(studyDBAdaptor.getGroup(eq(STUDY_UID), isNull(), anyList())).then(invocation -> {
+            List<Group> copy = groups.stream().map(g -> new Group(g.getId(), new ArrayList<>(g.getUserIds())))
+                    .collect(Collectors.toList());
+            return new OpenCGAResult<>(0, Collections.emptyList(), copy.size(), copy, copy.size());
+        });
+    }
+
+    @Test
+    public void testGetGroups() throws CatalogDBException {
+        StudyGroupsCache cache = new StudyGroupsCache(studyDBAdaptor, 0);
+
+        assertEquals("owner", cache.getOwnerId(STUDY_UID));
+        assertEquals(Arrays.asList("@members", "@admins"), groupIds(cache.getGroups(STUDY_UID, Collections.singletonList("user1"))));
+        assertEquals(Collections.singletonList("@members"), groupIds(cache.getGroups(STUDY_UID, Arrays.asList("user2", "other"))));
+        assertEquals(Collections.emptyList(), groupIds(cache.getGroups(STUDY_UID, Collections.singletonList("other"))));
+    }
+
+    @Test
+    public void testReloadAfterVersionBump() throws CatalogDBException {
+        StudyGroupsCache cache = new StudyGroupsCache(studyDBAdaptor, 0);
+        assertEquals(Collections.singletonList("@members"), groupIds(cache.getGroups(STUDY_UID, Collections.singletonList("user2"))));
+
+        // Same version. The groups are not read again
+        cache.getGroups(STUDY_UID, Collections.singletonList("user2"));
+        cache.getOwnerId(STUDY_UID);
+        verify(studyDBAdaptor, times(1)).getGroup(eq(STUDY_UID), isNull(), anyList());
+        verify(studyDBAdaptor, times(3)).getGroupsVersion(STUDY_UID);
+
+        groups.get(1).getUserIds().add("user2");
+        version.incrementAndGet();
+
+        assertEquals(Arrays.asList("@members", "@admins"), groupIds(cache.getGroups(STUDY_UID, Collections.singletonList("user2"))));
+        verify(studyDBAdaptor, times(2)).getGroup(eq(STUDY_UID), isNull(), anyList());
+        verify(studyDBAdaptor, times(2)).getOwnerId(STUDY_UID);
+    }
+
+    @Test
+    public void testNoReloadWithinRefreshInterval() throws CatalogDBException {
+        StudyGroupsCache cache = new StudyGroupsCache(studyDBAdaptor, 60000);
+        assertEquals(Collections.singletonList("@members"), groupIds(cache.getGroups(STUDY_UID, Collections.singletonList("user2"))));
+
+        groups.get(1).getUserIds().add("user2");
+        version.incrementAndGet();
+
+        // The version is not checked until the refresh interval expires
+        assertEquals(Collections.singletonList("@members"), groupIds(cache.getGroups(STUDY_UID, Collections.singletonList("user2"))));
+        assertEquals("owner", cache.getOwnerId(STUDY_UID));
+        verify(studyDBAdaptor, times(1)).getGroupsVersion(STUDY_UID);
+        verify(studyDBAdaptor, times(1)).getGroup(eq(STUDY_UID), isNull(), anyList());
+    }
+
+    @Test(expected = CatalogDBException.class)
+    public void testMissingStudy() throws CatalogDBException {
+        when(studyDBAdaptor.getGroupsVersion(2)).thenThrow(CatalogDBException.uidNotFound("Study", 2));
+        new StudyGroupsCache(studyDBAdaptor, 0).getOwnerId(2);
+    }
+
+    private static List<String> groupIds(List<Group> groups) {
+        return groups.stream().map(Group::getId).collect(Collectors.toList());
+    }
+}
@@ -24,6 +24,7 @@ import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.catalog.db.api.DBIterator;
 import org.opencb.opencga.catalog.db.api.IndividualDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
 import org.opencb.opencga.catalog.exceptions.CatalogDBException;
@@ -36,6 +37,7 @@ import org.opencb.opencga.core.models.individual.Location;
 import org.opencb.opencga.core.models.sample.Sample;
 import org.opencb.opencga.core.models.sample.SampleInternal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -327,6 +329,39 @@ public class IndividualMongoDBAdaptorTest extends MongoDBAdaptorTest {
         assertEquals(studyId, studyIdByIndividualId);
     }
 
+    @Test
+    public void testIteratorParents() throws Exception {
+        long studyId = user3.getProjects().get(0).getStudies().get(0).getUid();
+        for (String id : Arrays.asList("father", "mother", "father2")) {
+            catalogIndividualDBAdaptor.insert(studyId, new Individual().setId(id), null, null);
+        }
+        Individual father = getIndividual(studyId, "father");
+        Individual mother = getIndividual(studyId, "mother");
+        Individual father2 = getIndividual(studyId, "father2");
+        for (int i = 0; i < 6; i++) {
+            // Most children share the same parents, so they are taken from the parent cache in the following batches
+            Individual child = new Individual().setId("child_" + i).setFather(i == 3 ? father2 : father).setMother(mother);
+            catalogIndividualDBAdaptor.insert(studyId, child, null, null);
+        }
+
+        // One individual per batch
+        Query query = new Query(IndividualDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
+                .append(IndividualDBAdaptor.QueryParams.ID.key(), "~^child_");
+        List<Individual> children = new ArrayList<>();
+        try (DBIterator<Individual> iterator = catalogIndividualDBAdaptor.iterator(query, new QueryOptions(DBIterator.BATCH_SIZE, 1))) {
+            iterator.forEachRemaining(children::add);
+        }
+
+        assertEquals(6, children.size());
+        for (Individual child : children) {
+            String expectedFather = child.getId().equals("child_3") ? "father2" : "father";
+            assertEquals(child.getId(), expectedFather, child.getFather().getId());
+            assertEquals(child.getId(), 1, child.getFather().getVersion());
+            assertEquals(child.getId(), "mother", child.getMother().getId());
+            assertEquals(child.getId(), 1, child.getMother().getVersion());
+        }
+    }
+
     @Test
     public void testNativeGet() throws Exception {
         long studyId = user4.getProjects().get(0).getStudies().get(0).getUid();
@@ -268,6 +268,27 @@ public class SampleMongoDBAdaptorTest {
         assertEquals(2, sampleDataResult.getNumResults());
     }
 
+    @Test
+    public void updateSampleListTest() throws Exception {
+        List<Long> uids = Arrays.asList(getSample(studyId, "s1", QueryOptions.empty()).first().getUid(),
+                getSample(studyId, "s2", QueryOptions.empty()).first().getUid());
+
+        DataResult result = catalogSampleDBAdaptor.update(uids, new ObjectMap(SampleDBAdaptor.QueryParams.DESCRIPTION.key(), "bulk"),
+                Collections.emptyList(), QueryOptions.empty());
+        assertEquals(2, result.getNumMatches());
+        assertEquals(2, result.getNumUpdated());
+        assertEquals("bulk", getSample(studyId, "s1", QueryOptions.empty()).first().getDescription());
+        assertEquals("bulk", getSample(studyId, "s2", QueryOptions.empty()).first().getDescription());
+
+        assertEquals(0, catalogSampleDBAdaptor.update(Collections.emptyList(), new ObjectMap(SampleDBAdaptor.QueryParams.DESCRIPTION.key(),
+                "none"), Collections.emptyList(), QueryOptions.empty()).getNumUpdated());
+
+        thrown.expect(CatalogDBException.class);
+        thrown.expectMessage("can only be updated for one sample");
+        catalogSampleDBAdaptor.update(uids, new ObjectMap(SampleDBAdaptor.QueryParams.ID.key(), "s3"), Collections.emptyList(),
+                QueryOptions.empty());
+    }
+
     @Test
     public void createSampleTest() throws Exception {
         long studyId = user3.getProjects().get(0).getStudies().get(0).getUid();
@@ -191,6 +191,17 @@ public class StudyMongoDBAdaptorTest extends MongoDBAdaptorTest {
         catalogStudyDBAdaptor.createGroup(5L, new Group("name", Arrays.asList("user1", "user2")));
     }
 
+    @Test
+    public void getGroupsVersion() throws CatalogDBException {
+        long version = catalogStudyDBAdaptor.getGroupsVersion(5L);
+        catalogStudyDBAdaptor.createGroup(5L, new Group("name", Arrays.asList("user1", "user2")));
+        assertEquals(version + 1, catalogStudyDBAdaptor.getGroupsVersion(5L));
+        catalogStudyDBAdaptor.addUsersToGroup(5L, "name", Collections.singletonList("user3"));
+        assertEquals(version + 2, catalogStudyDBAdaptor.getGroupsVersion(5L));
+        catalogStudyDBAdaptor.deleteGroup(5L, "name");
+        assertEquals(version + 3, catalogStudyDBAdaptor.getGroupsVersion(5L));
+    }
+
     @Test
     public void removeUsersFromAllGroups() throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
         catalogStudyDBAdaptor.createGroup(5L, new Group("name1", Arrays.asList("user1", "user2")));
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.managers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.core.common.JacksonUtils;
+import org.opencb.opencga.core.common.TimeUtils;
+import org.opencb.opencga.core.config.Audit;
+import org.opencb.opencga.core.models.audit.AuditRecord;
+import org.opencb.opencga.core.models.common.Enums;
+import org.opencb.opencga.core.response.OpenCGAResult;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class AuditRecordWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        File journalDirectory = temporaryFolder.newFolder();
+        RecordingAuditDBAdaptor auditDBAdaptor = new RecordingAuditDBAdaptor();
+        AuditRecordWriter writer = new AuditRecordWriter(auditDBAdaptor, new Audit().setAsync(true).setQueueSize(10).setBatchSize(3)
+                .setJournalDirectory(journalDirectory.getAbsolutePath()));
+
+        List<AuditRecord> auditRecords = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            auditRecords.add(auditRecord("op" + i));
+            writer.write(Collections.singletonList(auditRecords.get(i)));
+        }
+        writer.close();
+
+        // Records rejected by the full queue are inserted synchronously, so the order is not kept
+        assertEquals(auditRecords.size(), auditDBAdaptor.inserted.size());
+        assertEquals(new HashSet<>(ids(auditRecords)), new HashSet<>(ids(auditDBAdaptor.inserted)));
+        assertTrue(auditDBAdaptor.batchSizes.stream().allMatch(size -> size <= 3));
+        // Every record was inserted, so nothing is left in the journal
+        assertArrayEquals(new String[0], journalDirectory.list());
+    }
+
+    @Test
+    public void testRecoverJournal() throws Exception {
+        File journalDirectory = temporaryFolder.newFolder();
+        AuditRecord auditRecord = auditRecord("op1");
+        // Journal left by a process that died before inserting the record. The last line was partially written
+        Files.write(journalDirectory.toPath().resolve("audit-previous.journal"),
+                (JacksonUtils.getDefaultObjectMapper().writeValueAsString(auditRecord) + "\n{\"id\":").getBytes(StandardCharsets.UTF_8));
+
+        RecordingAuditDBAdaptor auditDBAdaptor = new RecordingAuditDBAdaptor();
+        AuditRecordWriter writer = new AuditRecordWriter(auditDBAdaptor, new Audit().setAsync(true)
+                .setJournalDirectory(journalDirectory.getAbsolutePath()));
+
+        assertEquals(Collections.singletonList(auditRecord.getId()), ids(auditDBAdaptor.inserted));
+        assertEquals("op1", auditDBAdaptor.inserted.get(0).getOperationId());
+        assertArrayEquals(new String[0], journalDirectory.list());
+        writer.close();
+    }
+
+    @Test
+    public void testKeepJournalIfNotInserted() throws Exception {
+        File journalDirectory = temporaryFolder.newFolder();
+        RecordingAuditDBAdaptor auditDBAdaptor = new RecordingAuditDBAdaptor();
+        auditDBAdaptor.fail = true;
+        AuditRecordWriter writer = new AuditRecordWriter(auditDBAdaptor, new Audit().setAsync(true).setFlushInterval(10)
+                .setJournalDirectory(journalDirectory.getAbsolutePath()));
+        AuditRecord auditRecord = auditRecord("op1");
+        writer.write(Collections.singletonList(auditRecord));
+        writer.close();
+
+        assertTrue(auditDBAdaptor.inserted.isEmpty());
+        assertEquals(1, journalDirectory.list().length);
+
+        // Recovered on the next start
+        auditDBAdaptor.fail = false;
+        new AuditRecordWriter(auditDBAdaptor, new Audit().setAsync(true).setJournalDirectory(journalDirectory.getAbsolutePath())).close();
+        assertEquals(Collections.singletonList(auditRecord.getId()), ids(auditDBAdaptor.inserted));
+        assertArrayEquals(new String[0], journalDirectory.list());
+    }
+
+    @Test
+    public void testWriteWhileClosing() throws Exception {
+        File journalDirectory = temporaryFolder.newFolder();
+        RecordingAuditDBAdaptor auditDBAdaptor = new RecordingAuditDBAdaptor();
+        AuditRecordWriter writer = new AuditRecordWriter(auditDBAdaptor, new Audit().setAsync(true).setQueueSize(50).setBatchSize(10)
+                .setFlushInterval(5).setJournalDirectory(journalDirectory.getAbsolutePath()));
+
+        int numThreads = 4;
+        int recordsPerThread = 500;
+        List<AuditRecord> auditRecords = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(numThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            futures.add(executor.submit(() -> {
+                started.countDown();
+                for (int i = 0; i < recordsPerThread; i++) {
+                    AuditRecord auditRecord = auditRecord("op" + i);
+                    auditRecords.add(auditRecord);
+                    writer.write(Collections.singletonList(auditRecord));
+                }
+                return null;
+            }));
+        }
+        started.await();
+        // Close while the writers are still writing. Records written after closing are inserted synchronously
+        writer.close();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(numThreads * recordsPerThread, auditRecords.size());
+        assertEquals(new HashSet<>(ids(auditRecords)), new HashSet<>(ids(auditDBAdaptor.inserted)));
+
+        // Every segment was closed and unlocked, so any segment left is recovered by the next writer
+        new AuditRecordWriter(auditDBAdaptor, new Audit().setAsync(true).setJournalDirectory(journalDirectory.getAbsolutePath())).close();
+        assertArrayEquals(new String[0], journalDirectory.list());
+    }
+
+    private static AuditRecord auditRecord(String operationId) {
+        return new AuditRecord(UUID.randomUUID().toString(), operationId, "user", "v1", Enums.Action.UPDATE, Enums.Resource.SAMPLE,
+                "sample", "", "study", "", new ObjectMap("key", "value"), new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS),
+                TimeUtils.getDate(), new ObjectMap());
+    }
+
+    private static List<String> ids(List<AuditRecord> auditRecords) {
+        return auditRecords.stream().map(AuditRecord::getId).collect(Collectors.toList());
+    }
+
+    private static class RecordingAuditDBAdaptor implements AuditDBAdaptor {
+        private final List<AuditRecord> inserted = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean fail;
+
+        @Override
+        public OpenCGAResult<AuditRecord> insertAuditRecord(AuditRecord auditRecord) throws CatalogDBException {
+            return insertAuditRecords(Collections.singletonList(auditRecord));
+        }
+
+        @Override
+        public OpenCGAResult<AuditRecord> insertAuditRecords(List<AuditRecord> auditRecords) throws CatalogDBException {
+            if (fail) {
+                throw new CatalogDBException("Database not available");
+            }
+            inserted.addAll(auditRecords);
+            batchSizes.add(auditRecords.size());
+            return OpenCGAResult.empty();
+        }
+
+        @Override
+        public OpenCGAResult<AuditRecord> get(Query query, QueryOptions queryOptions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public OpenCGAResult groupBy(Query query, List<String> fields, QueryOptions options) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.opencb.biodata.models.clinical.ClinicalComment;
 import org.opencb.biodata.models.clinical.Disorder;
 import org.opencb.biodata.models.clinical.Phenotype;
 import org.opencb.biodata.models.pedigree.IndividualProperty;
+import org.opencb.biodata.models.variant.StudyEntry;
 import org.opencb.commons.datastore.core.*;
 import org.opencb.opencga.catalog.db.api.*;
 import org.opencb.opencga.catalog.exceptions.*;
@@ -1356,6 +1357,49 @@ public class CatalogManagerTest extends AbstractManagerTest {
         assertTrue(myModifiedCohort.getSamples().stream().map(Sample::getUid).collect(Collectors.toList()).contains(sampleId1.getUid()));
     }
 
+    @Test
+    public void testUpdateMultipleCohorts() throws CatalogException {
+        catalogManager.getCohortManager().create(studyFqn, new Cohort().setId("cohort1"), null, token);
+        Cohort cohort2 = catalogManager.getCohortManager().create(studyFqn, new Cohort().setId("cohort2"), null, token).first();
+
+        catalogManager.getCohortManager().create(studyFqn, new Cohort().setId(StudyEntry.DEFAULT_COHORT), null, token);
+
+        OpenCGAResult<Cohort> result = catalogManager.getCohortManager().update(studyFqn,
+                Arrays.asList("cohort1", cohort2.getUuid(), "nonExisting", StudyEntry.DEFAULT_COHORT),
+                new CohortUpdateParams().setDescription("updated"), false, true, QueryOptions.empty(), token);
+        assertEquals(2, result.getNumUpdated());
+        assertEquals(2, result.getEvents().size());
+        assertEquals("nonExisting", result.getEvents().get(0).getId());
+        // The default cohort can not be modified, but it does not prevent the update of the rest
+        assertEquals(StudyEntry.DEFAULT_COHORT, result.getEvents().get(1).getId());
+        assertEquals(Event.Type.ERROR, result.getEvents().get(1).getType());
+
+        for (Cohort cohort : catalogManager.getCohortManager().get(studyFqn, Arrays.asList("cohort1", "cohort2"), QueryOptions.empty(),
+                token).getResults()) {
+            assertEquals("updated", cohort.getDescription());
+        }
+    }
+
+    @Test
+    public void testUpdateMultipleIndividuals() throws CatalogException {
+        catalogManager.getIndividualManager().create(studyFqn, new Individual().setId("individual1"), QueryOptions.empty(), token);
+        Individual individual2 = catalogManager.getIndividualManager().create(studyFqn, new Individual().setId("individual2"),
+                QueryOptions.empty(), token).first();
+
+        OpenCGAResult<Individual> result = catalogManager.getIndividualManager().update(studyFqn,
+                Arrays.asList("individual1", individual2.getUuid(), "nonExisting"), new IndividualUpdateParams().setName("updated"), true,
+                QueryOptions.empty(), token);
+        assertEquals(2, result.getNumUpdated());
+        assertEquals(1, result.getEvents().size());
+        assertEquals("nonExisting", result.getEvents().get(0).getId());
+
+        for (Individual individual : catalogManager.getIndividualManager().get(studyFqn, Arrays.asList("individual1", "individual2"),
+                QueryOptions.empty(), token).getResults()) {
+            assertEquals("updated", individual.getName());
+        }
+
+    }
+
     /*                    */
     /* Test util methods  */
     /*                    */
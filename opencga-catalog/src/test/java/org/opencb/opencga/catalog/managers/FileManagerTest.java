@@ -152,6 +152,33 @@ public class FileManagerTest extends AbstractManagerTest {
         fileManager.link(studyFqn, Paths.get(reference).toUri(), "", null, analystToken).first();
     }
 
+    @Test
+    public void testUpdateMultipleFiles() throws CatalogException {
+        String file2Uuid = fileManager.get(studyFqn, testFile2, QueryOptions.empty(), token).first().getUuid();
+
+        OpenCGAResult<File> result = fileManager.update(studyFqn, Arrays.asList(testFile1, file2Uuid, "data/nonExisting.txt"),
+                new FileUpdateParams().setDescription("updated"), true, QueryOptions.empty(), token);
+        assertEquals(2, result.getNumUpdated());
+        assertEquals(1, result.getEvents().size());
+        assertEquals("data/nonExisting.txt", result.getEvents().get(0).getId());
+
+        for (File file : fileManager.get(studyFqn, Arrays.asList(testFile1, testFile2), QueryOptions.empty(), token).getResults()) {
+            assertEquals("updated", file.getDescription());
+        }
+
+        // Users without write permissions get one error per file
+        catalogManager.getUserManager().create("view_user", "view_user", "a@mail.com", "view_user", "", 200000L,
+                Account.AccountType.GUEST, null);
+        catalogManager.getStudyManager().updateAcl(studyFqn, "view_user", new StudyAclParams("", "view_only"), ParamUtils.AclAction.SET,
+                token);
+        String viewToken = catalogManager.getUserManager().login("view_user", "view_user").getToken();
+        result = fileManager.update(studyFqn, Arrays.asList(testFile1, testFile2), new FileUpdateParams().setDescription("denied"), true,
+                QueryOptions.empty(), viewToken);
+        assertEquals(0, result.getNumUpdated());
+        assertEquals(2, result.getEvents().size());
+        assertEquals("updated", fileManager.get(studyFqn, testFile1, QueryOptions.empty(), token).first().getDescription());
+    }
+
     @Test
     public void testUpdateRelatedFiles() throws CatalogException {
         FileUpdateParams updateParams = new FileUpdateParams()
@@ -627,6 +627,26 @@ public class SampleManagerTest extends AbstractManagerTest {
         assertTrue(testSample.first().getProcessing().getAttributes().isEmpty());
     }
 
+    @Test
+    public void updateMultipleSamples() throws CatalogException {
+        catalogManager.getSampleManager().create(studyFqn, new Sample().setId("testSample1"), null, token);
+        Sample sample2 = catalogManager.getSampleManager().create(studyFqn, new Sample().setId("testSample2"), QueryOptions.empty(), token)
+                .first();
+
+        OpenCGAResult<Sample> result = catalogManager.getSampleManager().update(studyFqn,
+                Arrays.asList("testSample1", sample2.getUuid(), "nonExisting"), new SampleUpdateParams().setDescription("updated"), true,
+                QueryOptions.empty(), token);
+        assertEquals(2, result.getNumUpdated());
+        assertEquals(1, result.getEvents().size());
+        assertEquals("nonExisting", result.getEvents().get(0).getId());
+
+        result = catalogManager.getSampleManager().get(studyFqn, Arrays.asList("testSample1", "testSample2"), QueryOptions.empty(),
+                token);
+        for (Sample sample : result.getResults()) {
+            assertEquals("updated", sample.getDescription());
+        }
+    }
+
     @Test
     public void updateCollectionField() throws CatalogException {
         catalogManager.getSampleManager().create(studyFqn,
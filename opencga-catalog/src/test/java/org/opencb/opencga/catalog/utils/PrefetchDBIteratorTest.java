@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.opencb.opencga.catalog.db.api.DBIterator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class PrefetchDBIteratorTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testIterate() {
+        List<Integer> expected = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        ListDBIterator<Integer> iterator = new ListDBIterator<>(expected);
+
+        List<Integer> actual = new ArrayList<>();
+        try (PrefetchDBIterator<Integer> prefetchIterator = new PrefetchDBIterator<>(iterator, 10)) {
+            while (prefetchIterator.hasNext()) {
+                actual.add(prefetchIterator.next());
+            }
+            assertFalse(prefetchIterator.hasNext());
+        }
+        assertEquals(expected, actual);
+        assertEquals(0, iterator.closed.getCount());
+    }
+
+    @Test
+    public void testNumMatches() {
+        ListDBIterator<Integer> iterator = new ListDBIterator<>(IntStream.range(0, 10).boxed().collect(Collectors.toList()));
+        try (PrefetchDBIterator<Integer> prefetchIterator = new PrefetchDBIterator<>(iterator, 2)) {
+            assertEquals(10, prefetchIterator.getNumMatches());
+            // The iterator wrapped is only accessed from the background thread
+            assertNotEquals(Thread.currentThread(), iterator.numMatchesThread);
+            assertEquals("prefetch-db-iterator", iterator.numMatchesThread.getName());
+            assertEquals(0, prefetchIterator.next().intValue());
+            assertEquals(10, prefetchIterator.getNumMatches());
+        }
+    }
+
+    @Test
+    public void testCloseBeforeEnd() throws InterruptedException {
+        ListDBIterator<Integer> iterator = new ListDBIterator<>(IntStream.range(0, 1000).boxed().collect(Collectors.toList()));
+        PrefetchDBIterator<Integer> prefetchIterator = new PrefetchDBIterator<>(iterator, 10);
+        assertEquals(0, prefetchIterator.next().intValue());
+        prefetchIterator.close();
+
+        // The reader stops and closes the iterator wrapped
+        assertTrue(iterator.closed.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testException() {
+        DBIterator<Integer> iterator = new ListDBIterator<Integer>(IntStream.range(0, 10).boxed().collect(Collectors.toList())) {
+            @Override
+            public Integer next() {
+                Integer next = super.next();
+                if (next == 5) {
+                    throw new IllegalStateException("Database error");
+                }
+                return next;
+            }
+        };
+        try (PrefetchDBIterator<Integer> prefetchIterator = new PrefetchDBIterator<>(iterator, 10)) {
+            while (prefetchIterator.hasNext()) {
+                prefetchIterator.next();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testReaderStopped() {
+        DBIterator<Integer> iterator = new ListDBIterator<Integer>(IntStream.range(0, 10).boxed().collect(Collectors.toList())) {
+            @Override
+            public Integer next() {
+                Integer next = super.next();
+                if (next == 5) {
+                    // Not a RuntimeException, so the reader dies without adding the end marker
+                    throw new AssertionError("Unexpected error");
+                }
+                return next;
+            }
+        };
+        List<Integer> actual = new ArrayList<>();
+        try (PrefetchDBIterator<Integer> prefetchIterator = new PrefetchDBIterator<>(iterator, 10)) {
+            while (prefetchIterator.hasNext()) {
+                actual.add(prefetchIterator.next());
+            }
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Stopped reading from the database unexpectedly", e.getMessage());
+        }
+        assertEquals(IntStream.range(0, 5).boxed().collect(Collectors.toList()), actual);
+    }
+
+    @Test(timeout = 10000)
+    public void testHasNextAfterClose() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        DBIterator<Integer> iterator = new ListDBIterator<Integer>(IntStream.range(0, 10).boxed().collect(Collectors.toList())) {
+            @Override
+            public boolean hasNext() {
+                // Database not responding
+                blocked.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }
+        };
+        PrefetchDBIterator<Integer> prefetchIterator = new PrefetchDBIterator<>(iterator, 10);
+        blocked.await();
+        prefetchIterator.close();
+
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("Iterator closed");
+        prefetchIterator.hasNext();
+    }
+
+    private static class ListDBIterator<E> implements DBIterator<E> {
+        private final Iterator<E> iterator;
+        private final long numMatches;
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile Thread numMatchesThread;
+
+        ListDBIterator(List<E> list) {
+            this.iterator = list.iterator();
+            this.numMatches = list.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        @Override
+        public long getNumMatches() {
+            numMatchesThread = Thread.currentThread();
+            return numMatches;
+        }
+    }
+}
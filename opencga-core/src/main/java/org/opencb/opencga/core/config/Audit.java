@@ -25,6 +25,32 @@ public class Audit {
     private long maxDocuments;
     private long maxSize;
 
+    /**
+     * Write the audit records from a background thread instead of inserting them within each request. By default, false.
+     */
+    private boolean async;
+
+    /**
+     * Maximum number of audit records waiting to be written. When full, records are inserted synchronously.
+     */
+    private int queueSize = 10000;
+
+    /**
+     * Maximum number of audit records inserted at once.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Maximum time in milliseconds an audit record waits in the queue before being written.
+     */
+    private long flushInterval = 1000;
+
+    /**
+     * Directory where the queued audit records are journaled, so they can be recovered after a crash. If empty, records still in
+     * the queue are lost if the process dies.
+     */
+    private String journalDirectory;
+
     public Audit() {
     }
 
@@ -40,6 +66,11 @@ public class Audit {
         sb.append("manager='").append(manager).append('\'');
         sb.append(", maxDocuments=").append(maxDocuments);
         sb.append(", maxSize=").append(maxSize);
+        sb.append(", async=").append(async);
+        sb.append(", queueSize=").append(queueSize);
+        sb.append(", batchSize=").append(batchSize);
+        sb.append(", flushInterval=").append(flushInterval);
+        sb.append(", journalDirectory='").append(journalDirectory).append('\'');
         sb.append('}');
         return sb.toString();
     }
@@ -70,4 +101,49 @@ public class Audit {
         this.maxSize = maxSize;
         return this;
     }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public Audit setAsync(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public Audit setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Audit setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public Audit setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public String getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    public Audit setJournalDirectory(String journalDirectory) {
+        this.journalDirectory = journalDirectory;
+        return this;
+    }
 }
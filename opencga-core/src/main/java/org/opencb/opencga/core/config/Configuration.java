@@ -180,6 +180,9 @@ public class Configuration {
                     case "OPENCGA_OPTIMIZATIONS_SIMPLIFY_PERMISSIONS":
                         configuration.getOptimizations().setSimplifyPermissions(Boolean.parseBoolean(value));
                         break;
+                    case "OPENCGA_OPTIMIZATIONS_STUDY_GROUPS_CACHE_REFRESH_INTERVAL":
+                        configuration.getOptimizations().setStudyGroupsCacheRefreshInterval(Long.parseLong(value));
+                        break;
                     case "OPENCGA_SERVER_REST_PORT":
                         configuration.getServer().getRest().setPort(Integer.parseInt(value));
                         break;
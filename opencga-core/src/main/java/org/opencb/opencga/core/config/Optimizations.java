@@ -8,6 +8,12 @@ public class Optimizations {
      */
     private boolean simplifyPermissions;
 
+    /**
+     * Maximum time in milliseconds the cached groups of a study are used without checking if they have been modified. By default, 0,
+     * checking the version of the groups on every access.
+     */
+    private long studyGroupsCacheRefreshInterval;
+
     public Optimizations() {
     }
 
@@ -24,4 +30,13 @@ public class Optimizations {
         return this;
     }
 
+    public long getStudyGroupsCacheRefreshInterval() {
+        return studyGroupsCacheRefreshInterval;
+    }
+
+    public Optimizations setStudyGroupsCacheRefreshInterval(long studyGroupsCacheRefreshInterval) {
+        this.studyGroupsCacheRefreshInterval = studyGroupsCacheRefreshInterval;
+        return this;
+    }
+
 }
@@ -25,13 +25,38 @@ public class CacheConfiguration {
      * This field contain the host and port, ie. host[:port].
      */
     private String host;
+
+    /**
+     * Cached results are invalidated by the modifications of the variant storage metadata done from the same process, or from any
+     * other process using the same redis cache. Modifications from other processes (e.g. command line loads) are only visible once
+     * the entry expires, so the cache is disabled by default and has to be enabled per deployment.
+     */
     private boolean active;
 
+    /**
+     * Cache backend. Accepted values are: local (in-JVM), redis.
+     */
+    private String type;
+
+    /**
+     * Maximum weight of the local cache, measured as the total number of cached results.
+     */
+    private long maxWeight;
+
+    /**
+     * Time in seconds after which a cached entry expires.
+     */
+    private long expireAfterWrite;
+
     /**
      * Accepted values are: JSON, Kryo.
      */
     private String serialization;
     private int slowThreshold;
+
+    /**
+     * Maximum number of results of a cached query. Results with more elements are not cached. Zero or negative for no limit.
+     */
     private int maxResultSize;
     private String password;
 
@@ -40,12 +65,17 @@ public class CacheConfiguration {
      */
     private String allowedTypes;
 
-    public static final boolean DEFAULT_ACTVE = true;
+    public static final boolean DEFAULT_ACTVE = false;
     public static final String DEFAULT_SERIALIZATION = "json";
     public static final String DEFAULT_ALLOWED_TYPE = "aln,var";
     public static final String DEFAULT_HOST = "localhost:6379";
     public static final String DEFAULT_PASSWORD = "";
     public static final int DEFAULT_MAX_FILE_SIZE = 500;
+    public static final String LOCAL_TYPE = "local";
+    public static final String REDIS_TYPE = "redis";
+    public static final String DEFAULT_TYPE = LOCAL_TYPE;
+    public static final long DEFAULT_MAX_WEIGHT = 200000;
+    public static final long DEFAULT_EXPIRE_AFTER_WRITE = 600;
 
     public CacheConfiguration() {
         this(DEFAULT_HOST, DEFAULT_ACTVE, DEFAULT_SERIALIZATION, 50, DEFAULT_MAX_FILE_SIZE, DEFAULT_PASSWORD,
@@ -61,6 +91,9 @@ public class CacheConfiguration {
         this.maxResultSize = maxFileSize;
         this.password = password;
         this.allowedTypes = allowedTypes;
+        this.type = DEFAULT_TYPE;
+        this.maxWeight = DEFAULT_MAX_WEIGHT;
+        this.expireAfterWrite = DEFAULT_EXPIRE_AFTER_WRITE;
     }
 
     @Override
@@ -68,6 +101,9 @@ public class CacheConfiguration {
         final StringBuilder sb = new StringBuilder("CacheConfiguration{"
                 + "host='" + host + '\''
                 + ", active=" + active
+                + ", type='" + type + '\''
+                + ", maxWeight=" + maxWeight
+                + ", expireAfterWrite=" + expireAfterWrite
                 + ", serialization='" + serialization + '\''
                 + ", slowThreshold=" + slowThreshold
                 + ", maxResultSize=" + maxResultSize
@@ -94,6 +130,33 @@ public class CacheConfiguration {
         return this;
     }
 
+    public String getType() {
+        return type;
+    }
+
+    public CacheConfiguration setType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public CacheConfiguration setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        return this;
+    }
+
+    public long getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public CacheConfiguration setExpireAfterWrite(long expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+        return this;
+    }
+
     public String getSerialization() {
         return serialization;
     }
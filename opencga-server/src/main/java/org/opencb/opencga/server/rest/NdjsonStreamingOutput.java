@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.server.rest;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.catalog.db.api.DBIterator;
+import org.opencb.opencga.catalog.utils.PrefetchDBIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the elements of a {@link DBIterator} as newline delimited JSON, one element per line.
+ *
+ * The elements are read ahead with a {@link PrefetchDBIterator}, started only once the response is being written. The iterator is
+ * closed when the response is written, or when this output is closed if the response is never written.
+ */
+class NdjsonStreamingOutput implements StreamingOutput, Closeable {
+
+    private final DBIterator<?> iterator;
+    private final ObjectWriter objectWriter;
+    private final int prefetchSize;
+    private final String description;
+    private final Logger logger = LoggerFactory.getLogger(NdjsonStreamingOutput.class);
+
+    private DBIterator<?> prefetchIterator;
+    private boolean closed;
+
+    NdjsonStreamingOutput(DBIterator<?> iterator, ObjectWriter objectWriter, int prefetchSize, String description) {
+        this.iterator = iterator;
+        this.objectWriter = objectWriter;
+        this.prefetchSize = prefetchSize;
+        this.description = description;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        DBIterator<?> it;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Response of " + description + " already closed");
+            }
+            prefetchIterator = new PrefetchDBIterator<>(iterator, prefetchSize);
+            it = prefetchIterator;
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            try {
+                while (it.hasNext()) {
+                    writer.write(objectWriter.writeValueAsString(it.next()));
+                    writer.write('\n');
+                }
+            } catch (RuntimeException e) {
+                logger.error("Error streaming the response of {}: {}", description, e.getMessage(), e);
+                writer.write(objectWriter.writeValueAsString(new ObjectMap("error", e.getMessage())));
+                writer.write('\n');
+                writer.flush();
+                throw new IOException("Response aborted after a database error: " + e.getMessage(), e);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Close the iterator. Called once the response is written, and again when the request is completed, whether the response was
+     * written or not.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (prefetchIterator != null) {
+            // The background reader closes the iterator wrapped
+            prefetchIterator.close();
+        } else {
+            iterator.close();
+        }
+    }
+}
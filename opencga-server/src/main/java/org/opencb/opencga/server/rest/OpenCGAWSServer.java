@@ -26,12 +26,14 @@ import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Configurator;
+import org.glassfish.jersey.server.CloseableService;
 import org.glassfish.jersey.server.ParamException;
 import org.opencb.biodata.models.variant.Genotype;
 import org.opencb.biodata.models.variant.stats.VariantStats;
 import org.opencb.commons.datastore.core.*;
 import org.opencb.commons.utils.ListUtils;
 import org.opencb.opencga.analysis.variant.manager.VariantStorageManager;
+import org.opencb.opencga.catalog.db.api.DBIterator;
 import org.opencb.opencga.catalog.db.api.StudyDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthenticationException;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
@@ -110,6 +112,9 @@ public class OpenCGAWSServer {
 
     protected UriInfo uriInfo;
     protected HttpServletRequest httpServletRequest;
+    // Closes the resources registered when the request is completed
+    @Context
+    protected CloseableService closeableService;
     protected ObjectMap params;
     private String requestDescription;
 
@@ -138,6 +143,9 @@ public class OpenCGAWSServer {
 
     private static final int DEFAULT_LIMIT = AbstractManager.DEFAULT_LIMIT;
     private static final int MAX_LIMIT = AbstractManager.MAX_LIMIT;
+    protected static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    // Number of documents read ahead by the export endpoints
+    protected static final int EXPORT_PREFETCH_SIZE = 1000;
     private static final int MAX_ID_SIZE = 100;
     static final String CURRENT_VERSION = "v2";
 
@@ -651,6 +659,42 @@ public class OpenCGAWSServer {
         }
     }
 
+    /**
+     * Query options of the export endpoints. Unlike the search endpoints, all the matching entries are returned unless a limit is
+     * provided, and references are resolved in larger batches.
+     *
+     * @return the query options to be used by the iterator.
+     */
+    protected QueryOptions getExportQueryOptions() {
+        QueryOptions options = new QueryOptions(queryOptions);
+        if (!uriInfo.getQueryParameters().containsKey(QueryOptions.LIMIT)) {
+            options.remove(QueryOptions.LIMIT);
+        }
+        options.put(DBIterator.BATCH_SIZE, EXPORT_PREFETCH_SIZE);
+        return options;
+    }
+
+    /**
+     * Stream the elements of the iterator as newline delimited JSON, one element per line, instead of building the whole response in
+     * memory. The elements are read ahead from the database while the previous ones are being written.
+     *
+     * The status code is sent before the first element is read, so a database error in the middle of the stream can not change it.
+     * Instead, a last line {"error": "..."} is written and the response is aborted, so it can not be taken for a complete one.
+     *
+     * @param iterator Iterator with the elements to return. It will be closed once the request is completed, even if the response is
+     *                 never written.
+     * @return the streamed response.
+     */
+    protected Response createNdjsonResponse(DBIterator<?> iterator) {
+        NdjsonStreamingOutput output = new NdjsonStreamingOutput(iterator, jsonObjectWriter, EXPORT_PREFETCH_SIZE, requestDescription);
+        if (closeableService != null) {
+            closeableService.add(output);
+        }
+        Response response = buildResponse(Response.ok(output, NDJSON_MEDIA_TYPE));
+        logResponse(response.getStatusInfo());
+        return response;
+    }
+
     protected Response createOkResponse(InputStream o1, MediaType o2, String fileName) {
         return buildResponse(Response.ok(o1, o2).header("content-disposition", "attachment; filename =" + fileName));
     }
@@ -82,6 +82,7 @@ import org.opencb.opencga.server.WebServiceException;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.annotation.VariantAnnotationManager;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.core.variant.query.executors.VariantQueryPlanner;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.*;
@@ -218,6 +219,8 @@ public class VariantWebService extends AnalysisWebService {
             @ApiImplicitParam(name = "approximateCount", value = "Get an approximate count, instead of an exact total count. Reduces execution time", dataType = "boolean", paramType = "query"),
             @ApiImplicitParam(name = "approximateCountSamplingSize", value = "Sampling size to get the approximate count. "
                     + "Larger values increase accuracy but also increase execution time", dataType = "integer", paramType = "query"),
+            @ApiImplicitParam(name = VariantQueryPlanner.EXPLAIN, value = "Add to the result attributes the query plan, with the estimated cost "
+                    + "of each query executor", dataType = "boolean", paramType = "query"),
 
             @ApiImplicitParam(name = "savedFilter", value = SAVED_FILTER_DESCR, dataType = "string", paramType = "query"),
 
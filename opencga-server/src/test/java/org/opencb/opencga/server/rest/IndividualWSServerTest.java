@@ -24,8 +24,10 @@ import org.opencb.biodata.models.pedigree.IndividualProperty;
 import org.opencb.biodata.models.variant.Genotype;
 import org.opencb.biodata.models.variant.stats.VariantStats;
 import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResponse;
+import org.opencb.opencga.catalog.db.api.IndividualDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.managers.CatalogManagerTest;
 import org.opencb.opencga.core.models.individual.Individual;
@@ -39,6 +41,7 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.HttpHeaders;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -185,6 +188,32 @@ public class IndividualWSServerTest {
 
     }
 
+    @Test
+    public void exportIndividualTest() throws Exception {
+        // in1 is the child of in2, so the parents are also exported
+        OpenCGAWSServer.catalogManager.getIndividualManager().update(studyId, "in1", new IndividualUpdateParams().setFather("in2"),
+                QueryOptions.empty(), sessionId);
+
+        String ndjson = webTarget.path("individuals").path("export")
+                .queryParam("study", studyId)
+                .request()
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + sessionId)
+                .get(String.class);
+
+        List<Individual> actual = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            actual.add(jsonObjectMapper.readValue(line, Individual.class));
+        }
+        List<String> expected = OpenCGAWSServer.catalogManager.getIndividualManager()
+                .search(studyId, new Query(), new QueryOptions(QueryOptions.INCLUDE, IndividualDBAdaptor.QueryParams.ID.key()), sessionId)
+                .getResults().stream().map(Individual::getId).collect(Collectors.toList());
+        assertEquals(expected, actual.stream().map(Individual::getId).collect(Collectors.toList()));
+        assertTrue(expected.containsAll(Arrays.asList("in1", "in2", "in3", "in4")));
+
+        Individual individual = actual.stream().filter(i -> i.getId().equals("in1")).findFirst().get();
+        assertEquals("in2", individual.getFather().getId());
+    }
+
     @Test
     public void updateIndividualTest() throws IOException {
         ObjectMap params = new ObjectMap()
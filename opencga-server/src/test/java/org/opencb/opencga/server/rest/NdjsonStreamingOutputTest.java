@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.server.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.opencb.opencga.catalog.db.api.DBIterator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class NdjsonStreamingOutputTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testWrite() throws Exception {
+        ListDBIterator iterator = new ListDBIterator(Arrays.asList("a", "b", "c"), -1);
+        NdjsonStreamingOutput output = new NdjsonStreamingOutput(iterator, objectMapper.writer(), 2, "test");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        output.write(outputStream);
+
+        assertEquals("\"a\"\n\"b\"\n\"c\"\n", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+        assertTrue(iterator.closed.await(10, TimeUnit.SECONDS));
+
+        // Closing again once the request is completed does nothing
+        output.close();
+    }
+
+    @Test
+    public void testCloseNotWritten() throws Exception {
+        ListDBIterator iterator = new ListDBIterator(Arrays.asList("a", "b", "c"), -1);
+        NdjsonStreamingOutput output = new NdjsonStreamingOutput(iterator, objectMapper.writer(), 2, "test");
+
+        // The request is completed without writing the response
+        output.close();
+        assertEquals(0, iterator.closed.getCount());
+
+        thrown.expect(IOException.class);
+        output.write(new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void testWriteError() throws Exception {
+        ListDBIterator iterator = new ListDBIterator(Arrays.asList("a", "b", "c"), 2);
+        NdjsonStreamingOutput output = new NdjsonStreamingOutput(iterator, objectMapper.writer(), 1, "test");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            output.write(outputStream);
+            fail("Expected " + IOException.class);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Connection lost"));
+        }
+
+        String[] lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("\"a\"", lines[0]);
+        assertEquals("\"b\"", lines[1]);
+        assertEquals("Connection lost", objectMapper.readTree(lines[2]).get("error").asText());
+        assertTrue(iterator.closed.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Iterator over a list of strings that fails after the given number of elements, if positive.
+     */
+    private static class ListDBIterator implements DBIterator<String> {
+        private final Iterator<String> iterator;
+        private final long numMatches;
+        private final int failAfter;
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private int read;
+
+        ListDBIterator(List<String> list, int failAfter) {
+            this.iterator = list.iterator();
+            this.numMatches = list.size();
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public String next() {
+            if (read == failAfter) {
+                throw new IllegalStateException("Connection lost");
+            }
+            read++;
+            return iterator.next();
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        @Override
+        public long getNumMatches() {
+            return numMatches;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package org.opencb.opencga.server.rest;
 
 import org.junit.*;
 import org.junit.rules.ExpectedException;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.catalog.db.api.SampleDBAdaptor;
 import org.opencb.opencga.catalog.managers.CatalogManagerTest;
@@ -28,8 +30,14 @@ import org.opencb.opencga.core.models.sample.Sample;
 
 import javax.ws.rs.client.WebTarget;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.opencb.opencga.core.common.JacksonUtils.getExternalOpencgaObjectMapper;
 
 /**
  * Created by jacobo on 25/06/15.
@@ -97,6 +105,23 @@ public class SampleWSServerTest {
 //        queryResult = WSServerTestUtils.parseResult(json, Sample.class).getResponse().get(0);
     }
 
+    @Test
+    public void export() throws Exception {
+        String ndjson = webTarget.path("samples").path("export").queryParam("sid", sessionId)
+                .queryParam("study", studyId)
+                .request().get(String.class);
+
+        List<String> actual = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            actual.add(getExternalOpencgaObjectMapper().readTree(line).get("id").asText());
+        }
+        List<String> expected = OpenCGAWSServer.catalogManager.getSampleManager()
+                .search(studyId, new Query(), new QueryOptions(QueryOptions.INCLUDE, SampleDBAdaptor.QueryParams.ID.key()), sessionId)
+                .getResults().stream().map(Sample::getId).collect(Collectors.toList());
+        assertEquals(expected, actual);
+        assertTrue(actual.containsAll(Arrays.asList("s1", "s2", "s3", "s4")));
+    }
+
 //    @Test
 //    public void updateGet() throws IOException {
 //        String json = webTarget.path("samples").path(Long.toString(s1)).path("update")
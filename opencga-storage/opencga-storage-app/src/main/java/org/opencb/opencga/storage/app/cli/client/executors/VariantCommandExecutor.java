@@ -68,6 +68,7 @@ import java.util.function.Function;
 
 import static org.opencb.opencga.storage.app.cli.client.options.StorageVariantCommandOptions.AggregateFamilyCommandOptions.AGGREGATE_FAMILY_COMMAND;
 import static org.opencb.opencga.storage.app.cli.client.options.StorageVariantCommandOptions.AggregateCommandOptions.AGGREGATE_COMMAND;
+import static org.opencb.opencga.storage.app.cli.client.options.StorageVariantCommandOptions.EncodeGenotypesCommandOptions.ENCODE_GENOTYPES_COMMAND;
 import static org.opencb.opencga.storage.app.cli.client.options.StorageVariantCommandOptions.GenericAnnotationDeleteCommandOptions.ANNOTATION_DELETE_COMMAND;
 import static org.opencb.opencga.storage.app.cli.client.options.StorageVariantCommandOptions.GenericAnnotationMetadataCommandOptions.ANNOTATION_METADATA_COMMAND;
 import static org.opencb.opencga.storage.app.cli.client.options.StorageVariantCommandOptions.GenericAnnotationQueryCommandOptions.ANNOTATION_QUERY_COMMAND;
@@ -186,6 +187,11 @@ public class VariantCommandExecutor extends CommandExecutor {
                         variantCommandOptions.fillMissingCommandOptions.dbName);
                 fillMissing();
                 break;
+            case ENCODE_GENOTYPES_COMMAND:
+                configure(variantCommandOptions.encodeGenotypesCommandOptions.commonOptions,
+                        variantCommandOptions.encodeGenotypesCommandOptions.dbName);
+                encodeGenotypes();
+                break;
             case "export":
                 configure(variantCommandOptions.exportVariantsCommandOptions.queryOptions.commonOptions,
                         variantCommandOptions.exportVariantsCommandOptions.queryOptions.commonQueryOptions.dbName);
@@ -622,6 +628,13 @@ public class VariantCommandExecutor extends CommandExecutor {
         variantStorageEngine.aggregate(cliOptions.study, cliOptions.overwrite, options);
     }
 
+    private void encodeGenotypes() throws StorageEngineException {
+        StorageVariantCommandOptions.EncodeGenotypesCommandOptions cliOptions = variantCommandOptions.encodeGenotypesCommandOptions;
+
+        variantStorageEngine.getOptions().putAll(cliOptions.commonOptions.params);
+        variantStorageEngine.encodeGenotypes(cliOptions.study, !cliOptions.decode);
+    }
+
     private void export() throws URISyntaxException, StorageEngineException, IOException {
         StorageVariantCommandOptions.VariantExportCommandOptions exportVariantsCommandOptions = variantCommandOptions.exportVariantsCommandOptions;
 //
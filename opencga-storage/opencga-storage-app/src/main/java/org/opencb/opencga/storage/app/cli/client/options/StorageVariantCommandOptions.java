@@ -52,6 +52,7 @@ public class StorageVariantCommandOptions {
     public final VariantStatsCommandOptions statsVariantsCommandOptions;
     public final AggregateFamilyCommandOptions fillGapsCommandOptions;
     public final AggregateCommandOptions fillMissingCommandOptions;
+    public final EncodeGenotypesCommandOptions encodeGenotypesCommandOptions;
     public final VariantExportCommandOptions exportVariantsCommandOptions;
     public final VariantSearchCommandOptions searchVariantsCommandOptions;
 
@@ -79,6 +80,7 @@ public class StorageVariantCommandOptions {
         this.statsVariantsCommandOptions = new VariantStatsCommandOptions();
         this.fillGapsCommandOptions = new AggregateFamilyCommandOptions();
         this.fillMissingCommandOptions = new AggregateCommandOptions();
+        this.encodeGenotypesCommandOptions = new EncodeGenotypesCommandOptions();
         this.exportVariantsCommandOptions = new VariantExportCommandOptions();
         this.searchVariantsCommandOptions = new VariantSearchCommandOptions();
     }
@@ -786,6 +788,26 @@ public class StorageVariantCommandOptions {
         public boolean overwrite;
     }
 
+    @Parameters(commandNames = {EncodeGenotypesCommandOptions.ENCODE_GENOTYPES_COMMAND}, commandDescription = EncodeGenotypesCommandOptions.ENCODE_GENOTYPES_COMMAND_DESCRIPTION)
+    public class EncodeGenotypesCommandOptions {
+
+        public static final String ENCODE_GENOTYPES_COMMAND = "encode-genotypes";
+        public static final String ENCODE_GENOTYPES_COMMAND_DESCRIPTION = "[MongoDB] Store the samples of the most frequent genotypes of a study as bitmaps. "
+                + "Files can not be loaded or removed while the genotypes are encoded as bitmaps.";
+
+        @ParametersDelegate
+        public GeneralCliOptions.CommonOptions commonOptions = commonCommandOptions;
+
+        @Parameter(names = {"--study"}, description = "Study", required = true, arity = 1)
+        public String study;
+
+        @Parameter(names = {"--decode"}, description = "Decode all the bitmaps back to lists of samples")
+        public boolean decode;
+
+        @Parameter(names = {"-d", "--database"}, description = "DataBase name", required = true, arity = 1)
+        public String dbName;
+    }
+
     /**
      *  benchmark: specific options
      */
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2017 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.cache;
+
+import java.io.Closeable;
+import java.util.regex.Pattern;
+
+/**
+ * Storage backend used by the {@link CacheManager}.
+ */
+public interface CacheBackend extends Closeable {
+
+    /**
+     * Get a cached value.
+     *
+     * @param key Cache key
+     * @param <T> Value type
+     * @return    The cached value, or null if missing
+     */
+    <T> T get(String key);
+
+    /**
+     * Add a new value to the cache.
+     *
+     * @param key    Cache key
+     * @param value  Value to cache
+     * @param weight Weight of the value. Used by bounded backends.
+     */
+    void put(String key, Object value, int weight);
+
+    /**
+     * Remove all the entries with the given prefix.
+     *
+     * @param keyPrefix Key prefix
+     */
+    void invalidate(String keyPrefix);
+
+    /**
+     * Remove all the entries whose key matches the given regular expression.
+     *
+     * @param keyPattern Regular expression matching the whole key
+     */
+    void invalidate(Pattern keyPattern);
+
+    /**
+     * Remove all the entries.
+     */
+    void clear();
+
+    /**
+     * @return If the backend is available.
+     */
+    boolean isAvailable();
+
+    /**
+     * @return Number of entries evicted by the backend due to size or expiration.
+     */
+    long getEvictionCount();
+
+    /**
+     * @return Number of entries in the cache. -1 if unknown.
+     */
+    long size();
+
+    @Override
+    void close();
+
+}
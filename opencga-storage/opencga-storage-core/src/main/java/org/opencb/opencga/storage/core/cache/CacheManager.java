@@ -18,21 +18,19 @@ package org.opencb.opencga.storage.core.cache;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantAvro;
+import org.opencb.commons.datastore.core.DataResult;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.core.config.storage.CacheConfiguration;
 import org.opencb.opencga.core.config.storage.StorageConfiguration;
-import org.redisson.Config;
-import org.redisson.Redisson;
-import org.redisson.RedissonClient;
-import org.redisson.client.RedisConnectionException;
-import org.redisson.codec.JsonJacksonCodec;
-import org.redisson.codec.KryoCodec;
-import org.redisson.core.RKeys;
-import org.redisson.core.RMap;
+import org.opencb.opencga.core.response.VariantQueryResult;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 /**
@@ -40,15 +38,19 @@ import java.util.regex.Pattern;
  */
 public class CacheManager {
 
-    private StorageConfiguration storageConfiguration;
+    public static final String CACHE = "cache";
+    public static final String ALL_STUDIES = "*";
+    static final String PREFIX_DATABASE_KEY = "ocga:";
 
-    private Config redissonConfig;
-    private Set<String> allowedTypesSet;
-    private RedissonClient redissonClient;
-    private boolean redisState;
+    private StorageConfiguration storageConfiguration;
 
+    private Set<String> allowedTypesSet = Collections.emptySet();
+    private CacheBackend backend;
 
-    private static final String PREFIX_DATABASE_KEY = "ocga:";
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong putCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
 
     public CacheManager() {
     }
@@ -62,89 +64,79 @@ public class CacheManager {
             this.storageConfiguration = configuration;
 
             cache = configuration.getCache();
-            redissonConfig = new Config();
-
-            String host = (StringUtils.isNotEmpty(cache.getHost()))
-                    ? cache.getHost()
-                    : CacheConfiguration.DEFAULT_HOST;
-            redissonConfig.useSingleServer().setAddress(host);
-
-            String codec = (StringUtils.isNotEmpty(cache.getSerialization()))
-                    ? cache.getSerialization()
-                    : CacheConfiguration.DEFAULT_SERIALIZATION;
 
-            this.allowedTypesSet = new HashSet<>(Arrays.asList(cache.getAllowedTypes().split(",")));
-
-
-            if (StringUtils.isNotEmpty(cache.getPassword())) {
-                redissonConfig.useSingleServer().setPassword(cache.getPassword());
+            if (StringUtils.isNotEmpty(cache.getAllowedTypes())) {
+                this.allowedTypesSet = new HashSet<>(Arrays.asList(cache.getAllowedTypes().split(",")));
             }
 
-            if ("KRYO".equalsIgnoreCase(codec)) {
-                redissonConfig.setCodec(new KryoCodec());
+            String type = StringUtils.isNotEmpty(cache.getType()) ? cache.getType() : CacheConfiguration.DEFAULT_TYPE;
+            if (CacheConfiguration.REDIS_TYPE.equalsIgnoreCase(type)) {
+                backend = new RedisCacheBackend(cache);
+            } else if (CacheConfiguration.LOCAL_TYPE.equalsIgnoreCase(type)) {
+                backend = new LocalCacheBackend(cache.getMaxWeight(), cache.getExpireAfterWrite());
             } else {
-                redissonConfig.setCodec(new JsonJacksonCodec());
+                throw new IllegalArgumentException("Unknown cache type '" + type + "'. Accepted values: "
+                        + CacheConfiguration.LOCAL_TYPE + ", " + CacheConfiguration.REDIS_TYPE);
             }
-
-            redisState = true;
-
-//            redissonClient = Redisson.create(redissonConfig);
-            redissonClient = null;
         }
     }
 
-
-    public <T> QueryResult<T> get(String key) {
-
-        QueryResult<T> queryResult = new QueryResult<>();
+    /**
+     * Get a result from the cache.
+     * The result is a copy of the cached one, so it can be modified by the caller.
+     *
+     * @param key Key created with {@link #createKey}
+     * @param <T> Result type
+     * @return    The cached result, or null if missing.
+     */
+    public <T> T get(String key) {
         if (isActive()) {
-            long start = System.currentTimeMillis();
-            RMap<Integer, Map<String, Object>> map = getRedissonClient().getMap(key);
-
-            try {
-                // We only retrieve the first field of the HASH, which is the only one that exist.
-                Map<Integer, Map<String, Object>> result = map.getAll(new HashSet<>(Collections.singletonList(0)));
-
-                if (result != null && !result.isEmpty()) {
-                    Object resultMap = result.get(0).get("result");
-                    queryResult = (QueryResult<T>) resultMap;
-                    queryResult.setDbTime((int) (System.currentTimeMillis() - start));
-                }
-            } catch (RedisConnectionException e) {
-                redisState = false;
-                queryResult.setWarningMsg("Unable to connect to Redis Cache, Please query WITHOUT Cache (Falling back to Database)");
-                return queryResult;
+            T result = backend.get(key);
+            if (result == null) {
+                missCount.incrementAndGet();
+            } else {
+                hitCount.incrementAndGet();
             }
+            return copy(result);
         }
-        return queryResult;
+        return null;
     }
 
-    public void set(String key, Query query, QueryResult queryResult) {
+    /**
+     * Add a copy of the result to the cache, only if the query was slow enough and the result is not too big.
+     * See {@link CacheConfiguration#getMaxResultSize()}.
+     *
+     * @param key    Key created with {@link #createKey}
+     * @param result Result to cache
+     * @return       If the result was added to the cache
+     */
+    public boolean set(String key, DataResult<?> result) {
+        return set(key, result, result.getTime(), result.getNumResults());
+    }
 
+    public boolean set(String key, Query query, QueryResult queryResult) {
+        return set(key, queryResult, queryResult.getDbTime(), queryResult.getNumResults());
+    }
+
+    private boolean set(String key, Object result, long time, int numResults) {
         if (isActive()) {
-            if (queryResult.getDbTime() >= storageConfiguration.getCache().getSlowThreshold()
-                    && queryResult.getResult().size() >= storageConfiguration.getCache().getMaxResultSize()) {
-                RMap<Integer, Map<String, Object>> map = getRedissonClient().getMap(key);
-                Map<String, Object> record = new HashMap<>();
-                record.put("query", query);
-                record.put("result", queryResult);
-                try {
-                    map.fastPut(0, record);
-                } catch (RedisConnectionException e) {
-                    redisState = false;
-                    queryResult.setWarningMsg("Unable to connect to Redis Cache, Please query WITHOUT Cache (Falling back to Database)");
-                }
+            CacheConfiguration cache = storageConfiguration.getCache();
+            if (time >= cache.getSlowThreshold() && (cache.getMaxResultSize() <= 0 || numResults <= cache.getMaxResultSize())) {
+                backend.put(key, copy(result), numResults + 1);
+                putCount.incrementAndGet();
+                return true;
             }
         }
+        return false;
     }
 
     public String createKey(String studyId, String allowedType, Query query, QueryOptions queryOptions) {
 
-        queryOptions.remove("cache");
+        queryOptions.remove(CACHE);
         queryOptions.remove("sId");
 
-        StringBuilder key = new StringBuilder(PREFIX_DATABASE_KEY);
-        key.append(studyId).append(":").append(allowedType);
+        StringBuilder key = new StringBuilder(getKeyPrefix(studyId));
+        key.append(allowedType);
         SortedMap<String, SortedSet<Object>> map = new TreeMap<>();
 
         for (String item : query.keySet()) {
@@ -158,40 +150,107 @@ public class CacheManager {
         String sha1 = DigestUtils.sha1Hex(map.toString());
         key.append(":").append(sha1);
 
-        queryOptions.add("cache", "true");
+        queryOptions.add(CACHE, "true");
         return key.toString();
     }
 
     public boolean isActive() {
-        return storageConfiguration.getCache().isActive() && redisState;
+        return backend != null && storageConfiguration.getCache().isActive() && backend.isAvailable();
     }
 
     public boolean isTypeAllowed(String type) {
         return allowedTypesSet.contains(type);
     }
 
+    /**
+     * Remove all the cached results from one study.
+     * Results from queries without a specific study are removed as well.
+     *
+     * @param studyId Study
+     */
+    public void invalidate(String studyId) {
+        if (isActive()) {
+            backend.invalidate(getKeyPrefix(studyId));
+            backend.invalidate(getKeyPrefix(ALL_STUDIES));
+            invalidationCount.incrementAndGet();
+        }
+    }
+
+    public CacheMetrics getMetrics() {
+        String type = storageConfiguration == null ? null : storageConfiguration.getCache().getType();
+        return new CacheMetrics(type, hitCount.get(), missCount.get(), putCount.get(),
+                backend == null ? 0 : backend.getEvictionCount(), invalidationCount.get(), backend == null ? 0 : backend.size());
+    }
+
     public void clear() {
-        RKeys redisKeys = getRedissonClient().getKeys();
-        redisKeys.deleteByPattern(PREFIX_DATABASE_KEY + "*");
+        if (backend != null) {
+            backend.clear();
+            invalidationCount.incrementAndGet();
+        }
     }
 
+    /**
+     * Remove all the cached results whose key matches the given regular expression.
+     *
+     * @param pattern Regular expression matching the whole key
+     */
     public void clear(Pattern pattern) {
-        RKeys redisKeys = getRedissonClient().getKeys();
-        redisKeys.deleteByPattern(pattern.toString());
+        if (backend != null) {
+            backend.invalidate(pattern);
+            invalidationCount.incrementAndGet();
+        }
     }
 
     public void close() {
-        if (redissonClient != null) {
-            redissonClient.shutdown();
-            redissonClient = null;
+        if (backend != null) {
+            backend.close();
         }
     }
 
-    private synchronized RedissonClient getRedissonClient() {
-        if (redissonClient == null) {
-            redissonClient = Redisson.create(redissonConfig);
+    /**
+     * Copy the results, so the cached ones are never shared with the callers.
+     * Variants are copied as well, as they are mutable. Other values are assumed to be immutable.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T value) {
+        if (value instanceof VariantQueryResult) {
+            VariantQueryResult<Object> result = (VariantQueryResult<Object>) value;
+            VariantQueryResult<Object> copy = new VariantQueryResult<>(result);
+            copy.setAttributes(result.getAttributes() == null ? null : new ObjectMap(result.getAttributes()));
+            copy.setEvents(result.getEvents() == null ? null : new ArrayList<>(result.getEvents()));
+            copy.setResults(copyResults(result.getResults()));
+            return (T) copy;
+        } else if (value instanceof DataResult) {
+            DataResult<Object> result = (DataResult<Object>) value;
+            return (T) new DataResult<>(result.getTime(), result.getEvents() == null ? null : new ArrayList<>(result.getEvents()),
+                    result.getNumResults(), copyResults(result.getResults()), result.getNumMatches(),
+                    result.getAttributes() == null ? null : new ObjectMap(result.getAttributes()));
+        } else if (value instanceof QueryResult) {
+            QueryResult<Object> result = (QueryResult<Object>) value;
+            return (T) new QueryResult<>(result.getId(), result.getDbTime(), result.getNumResults(), result.getNumTotalResults(),
+                    result.getWarningMsg(), result.getErrorMsg(), copyResults(result.getResult()));
+        } else {
+            return value;
         }
-        return redissonClient;
+    }
+
+    private static List<Object> copyResults(List<Object> results) {
+        if (results == null) {
+            return null;
+        }
+        List<Object> copy = new ArrayList<>(results.size());
+        for (Object result : results) {
+            if (result instanceof Variant) {
+                copy.add(new Variant(VariantAvro.newBuilder(((Variant) result).getImpl()).build()));
+            } else {
+                copy.add(result);
+            }
+        }
+        return copy;
+    }
+
+    private static String getKeyPrefix(String studyId) {
+        return PREFIX_DATABASE_KEY + (StringUtils.isEmpty(studyId) ? ALL_STUDIES : studyId) + ":";
     }
 
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015-2017 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.cache;
+
+/**
+ * Snapshot of the {@link CacheManager} usage counters.
+ */
+public class CacheMetrics {
+
+    private final String type;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+    private final long size;
+
+    public CacheMetrics(String type, long hitCount, long missCount, long putCount, long evictionCount, long invalidationCount,
+                        long size) {
+        this.type = type;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+        this.size = size;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CacheMetrics{");
+        sb.append("type='").append(type).append('\'');
+        sb.append(", hitCount=").append(hitCount);
+        sb.append(", missCount=").append(missCount);
+        sb.append(", hitRate=").append(getHitRate());
+        sb.append(", putCount=").append(putCount);
+        sb.append(", evictionCount=").append(evictionCount);
+        sb.append(", invalidationCount=").append(invalidationCount);
+        sb.append(", size=").append(size);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015-2017 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * In-JVM cache backend, bounded by the total weight of the cached entries.
+ */
+public class LocalCacheBackend implements CacheBackend {
+
+    private final Cache<String, WeightedValue> cache;
+
+    public LocalCacheBackend(long maxWeight, long expireAfterWriteSeconds) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+        if (maxWeight > 0) {
+            builder.maximumWeight(maxWeight);
+            builder.weigher((String key, WeightedValue value) -> value.weight);
+        }
+        if (expireAfterWriteSeconds > 0) {
+            builder.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS);
+        }
+        cache = builder.build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key) {
+        WeightedValue value = cache.getIfPresent(key);
+        return value == null ? null : (T) value.value;
+    }
+
+    @Override
+    public void put(String key, Object value, int weight) {
+        cache.put(key, new WeightedValue(value, Math.max(1, weight)));
+    }
+
+    @Override
+    public void invalidate(String keyPrefix) {
+        cache.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    @Override
+    public void invalidate(Pattern keyPattern) {
+        cache.asMap().keySet().removeIf(key -> keyPattern.matcher(key).matches());
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long size() {
+        return cache.size();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        cache.cleanUp();
+    }
+
+    private static final class WeightedValue {
+        private final Object value;
+        private final int weight;
+
+        private WeightedValue(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
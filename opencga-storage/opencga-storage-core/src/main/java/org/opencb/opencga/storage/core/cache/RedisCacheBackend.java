@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015-2017 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.cache;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.opencga.core.config.storage.CacheConfiguration;
+import org.redisson.Config;
+import org.redisson.Redisson;
+import org.redisson.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.codec.JsonJacksonCodec;
+import org.redisson.codec.KryoCodec;
+import org.redisson.core.RKeys;
+import org.redisson.core.RMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Redis cache backend.
+ *
+ * If the connection with Redis fails, the backend is disabled for a while, and tried again afterwards.
+ */
+public class RedisCacheBackend implements CacheBackend {
+
+    private static final long RETRY_CONNECTION_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Config redissonConfig;
+    private final long expireAfterWriteSeconds;
+    private RedissonClient redissonClient;
+    private volatile long unavailableSince = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(RedisCacheBackend.class);
+
+    public RedisCacheBackend(CacheConfiguration cache) {
+        redissonConfig = new Config();
+        expireAfterWriteSeconds = cache.getExpireAfterWrite();
+
+        String host = (StringUtils.isNotEmpty(cache.getHost()))
+                ? cache.getHost()
+                : CacheConfiguration.DEFAULT_HOST;
+        redissonConfig.useSingleServer().setAddress(host);
+
+        String codec = (StringUtils.isNotEmpty(cache.getSerialization()))
+                ? cache.getSerialization()
+                : CacheConfiguration.DEFAULT_SERIALIZATION;
+
+        if (StringUtils.isNotEmpty(cache.getPassword())) {
+            redissonConfig.useSingleServer().setPassword(cache.getPassword());
+        }
+
+        if ("KRYO".equalsIgnoreCase(codec)) {
+            redissonConfig.setCodec(new KryoCodec());
+        } else {
+            redissonConfig.setCodec(new JsonJacksonCodec());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key) {
+        try {
+            RMap<Integer, Map<String, Object>> map = getRedissonClient().getMap(key);
+            // We only retrieve the first field of the HASH, which is the only one that exist.
+            Map<Integer, Map<String, Object>> result = map.getAll(new HashSet<>(Collections.singletonList(0)));
+            if (result != null && !result.isEmpty()) {
+                return (T) result.get(0).get("result");
+            }
+        } catch (RedisConnectionException e) {
+            markUnavailable(e);
+        }
+        return null;
+    }
+
+    @Override
+    public void put(String key, Object value, int weight) {
+        try {
+            RMap<Integer, Map<String, Object>> map = getRedissonClient().getMap(key);
+            Map<String, Object> record = new HashMap<>();
+            record.put("result", value);
+            map.fastPut(0, record);
+            if (expireAfterWriteSeconds > 0) {
+                // Bound the staleness of the entries not invalidated, e.g. modified from a process not using this cache
+                map.expire(expireAfterWriteSeconds, TimeUnit.SECONDS);
+            }
+        } catch (RedisConnectionException e) {
+            markUnavailable(e);
+        }
+    }
+
+    @Override
+    public void invalidate(String keyPrefix) {
+        try {
+            getRedissonClient().getKeys().deleteByPattern(keyPrefix + "*");
+        } catch (RedisConnectionException e) {
+            markUnavailable(e);
+        }
+    }
+
+    @Override
+    public void invalidate(Pattern keyPattern) {
+        try {
+            RKeys keys = getRedissonClient().getKeys();
+            List<String> matchingKeys = new ArrayList<>();
+            for (String key : keys.findKeysByPattern(CacheManager.PREFIX_DATABASE_KEY + "*")) {
+                if (keyPattern.matcher(key).matches()) {
+                    matchingKeys.add(key);
+                }
+            }
+            if (!matchingKeys.isEmpty()) {
+                keys.delete(matchingKeys.toArray(new String[0]));
+            }
+        } catch (RedisConnectionException e) {
+            markUnavailable(e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        invalidate(CacheManager.PREFIX_DATABASE_KEY);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        if (unavailableSince < 0) {
+            return true;
+        } else if (System.currentTimeMillis() - unavailableSince > RETRY_CONNECTION_MILLIS) {
+            // Try again
+            unavailableSince = -1;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public long getEvictionCount() {
+        // Evictions are managed by the Redis server
+        return 0;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+            redissonClient = null;
+        }
+    }
+
+    private void markUnavailable(RedisConnectionException e) {
+        logger.warn("Unable to connect to Redis Cache. Disable cache for the next {}s : {}",
+                TimeUnit.MILLISECONDS.toSeconds(RETRY_CONNECTION_MILLIS), e.getMessage());
+        unavailableSince = System.currentTimeMillis();
+    }
+
+    private synchronized RedissonClient getRedissonClient() {
+        if (redissonClient == null) {
+            redissonClient = Redisson.create(redissonConfig);
+        }
+        return redissonClient;
+    }
+}
@@ -48,6 +48,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
@@ -93,6 +94,8 @@ public class VariantStorageMetadataManager implements AutoCloseable {
     private final int lockDuration;
     private final int lockTimeout;
 
+    private final List<ModificationListener> modificationListeners = new CopyOnWriteArrayList<>();
+
     public VariantStorageMetadataManager(VariantStorageMetadataDBAdaptorFactory dbAdaptorFactory) {
         this.projectDBAdaptor = dbAdaptorFactory.buildProjectMetadataDBAdaptor();
         this.studyDBAdaptor = dbAdaptorFactory.buildStudyMetadataDBAdaptor();
@@ -229,6 +232,45 @@ public class VariantStorageMetadataManager implements AutoCloseable {
         return exists() && getStudyIdOrNull(studyName) != null;
     }
 
+    /**
+     * Listener notified after any modification of the metadata that may change the result of a variant query.
+     * e.g. new tasks (load, remove, ...), new cohort stats or new variant annotations.
+     */
+    public interface ModificationListener {
+        void studyModified(int studyId);
+
+        void projectModified();
+    }
+
+    public VariantStorageMetadataManager addModificationListener(ModificationListener listener) {
+        modificationListeners.add(Objects.requireNonNull(listener));
+        return this;
+    }
+
+    public boolean removeModificationListener(ModificationListener listener) {
+        return modificationListeners.remove(listener);
+    }
+
+    private void notifyStudyModified(int studyId) {
+        for (ModificationListener listener : modificationListeners) {
+            try {
+                listener.studyModified(studyId);
+            } catch (RuntimeException e) {
+                logger.warn("Error notifying modification of study " + studyId, e);
+            }
+        }
+    }
+
+    private void notifyProjectModified() {
+        for (ModificationListener listener : modificationListeners) {
+            try {
+                listener.projectModified();
+            } catch (RuntimeException e) {
+                logger.warn("Error notifying modification of project", e);
+            }
+        }
+    }
+
     public interface UpdateFunction<T, E extends Exception> {
         T update(T t) throws E;
     }
@@ -524,6 +566,7 @@ public class VariantStorageMetadataManager implements AutoCloseable {
 
             lock.checkLocked();
             projectDBAdaptor.updateProjectMetadata(projectMetadata, updateCounters);
+            notifyProjectModified();
             return projectMetadata;
         } finally {
             lock.unlock();
@@ -614,6 +657,7 @@ public class VariantStorageMetadataManager implements AutoCloseable {
     public void unsecureUpdateFileMetadata(int studyId, FileMetadata file) {
         file.setStudyId(studyId);
         fileDBAdaptor.updateFileMetadata(studyId, file, null);
+        notifyStudyModified(studyId);
     }
 
     public <E extends Exception> FileMetadata updateFileMetadata(int studyId, int fileId, UpdateFunction<FileMetadata, E> update)
@@ -958,6 +1002,7 @@ public class VariantStorageMetadataManager implements AutoCloseable {
     public void unsecureUpdateCohortMetadata(int studyId, CohortMetadata cohort) {
         cohort.setStudyId(studyId);
         cohortDBAdaptor.updateCohortMetadata(studyId, cohort, null);
+        notifyStudyModified(studyId);
     }
 
     public <E extends Exception> CohortMetadata updateCohortMetadata(int studyId, int cohortId, UpdateFunction<CohortMetadata, E> update)
@@ -1195,6 +1240,7 @@ public class VariantStorageMetadataManager implements AutoCloseable {
             task.setId(newTaskId(studyId));
         }
         taskDBAdaptor.updateTask(studyId, task, null);
+        notifyStudyModified(studyId);
     }
 
     public <E extends Exception> TaskMetadata updateTask(int studyId, int taskId, UpdateFunction<TaskMetadata, E> update)
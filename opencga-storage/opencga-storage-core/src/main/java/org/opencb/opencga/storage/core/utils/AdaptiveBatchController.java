@@ -0,0 +1,306 @@
+package org.opencb.opencga.storage.core.utils;
+
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.io.DataReader;
+import org.opencb.commons.run.Task;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.*;
+
+/**
+ * Adapt the batch size of a {@link org.opencb.commons.run.ParallelTaskRunner} to the observed heap footprint
+ * and latency of each batch.
+ *
+ * The reader and the tasks of the ParallelTaskRunner must be wrapped with this controller. The wrapped reader ignores
+ * the configured batch size, and reads batches of {@link #getBatchSize()} elements.
+ * Each batch read is registered with a token, released by the wrapped task when that same batch is completed,
+ * as batches may complete in any order.
+ * The wrapped tasks measure the time spent processing each batch:
+ * <ul>
+ *     <li>Batches faster than half the target latency double the batch size.
+ *         Batches slower than twice the target latency halve it, never below the initial batch size.</li>
+ *     <li>The batch size never exceeds the heap budget divided between all the batches that can be in flight.</li>
+ *     <li>The reader waits before reading a new batch while the estimated footprint of the batches in flight
+ *         exceeds the heap budget.</li>
+ * </ul>
+ *
+ * The footprint of a batch is the estimated retained size of its input and output elements.
+ * See {@link RetainedSizeEstimator}.
+ * Disabled by default. If disabled, the wrap methods return the given reader or task.
+ */
+public class AdaptiveBatchController {
+
+    private static final double EWMA_ALPHA = 0.3;
+    private static final long WAIT_MILLIS = 1000;
+
+    private final boolean enabled;
+    private final String name;
+    private final int minBatchSize;
+    // Slow batches do not shrink the batch size below this value. Only the heap budget can.
+    private final int minLatencyBatchSize;
+    private final int maxBatchSize;
+    private final long heapBudget;
+    private final int maxInFlightBatches;
+    private final long targetLatencyNanos;
+
+    private volatile int batchSize;
+    // Estimated heap footprint per element, retained by the input and the output of the tasks. 0 if unknown
+    private double readBytesPerElement;
+    private double taskBytesPerElement;
+    private long inFlightBytes;
+    private long nextToken;
+    // Estimated footprint of each batch in flight, by token
+    private final Map<Long, Long> inFlightBatches = new HashMap<>();
+    // Token of each batch returned by the wrapped reader, by identity. Guarded by this
+    private final Map<List<?>, Long> batchTokens = new IdentityHashMap<>();
+
+    private final Logger logger = LoggerFactory.getLogger(AdaptiveBatchController.class);
+
+    protected AdaptiveBatchController(boolean enabled, String name, int batchSize, int minBatchSize, int maxBatchSize,
+                                      long heapBudget, int maxInFlightBatches, long targetLatency, TimeUnit timeUnit) {
+        this.enabled = enabled;
+        this.name = name;
+        this.batchSize = Math.max(minBatchSize, Math.min(batchSize, maxBatchSize));
+        this.minBatchSize = minBatchSize;
+        this.minLatencyBatchSize = this.batchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.heapBudget = heapBudget;
+        this.maxInFlightBatches = Math.max(1, maxInFlightBatches);
+        this.targetLatencyNanos = timeUnit.toNanos(targetLatency);
+    }
+
+    /**
+     * Build a controller from the storage options.
+     *
+     * @param options     Options. See {@link org.opencb.opencga.storage.core.variant.VariantStorageOptions#BATCH_ADAPTIVE}
+     * @param name        Name of the pipeline, for logging
+     * @param targetLatencyOption Option with the target latency of the tasks of this pipeline, in milliseconds
+     * @param batchSize   Initial batch size
+     * @param numTasks    Number of tasks of the ParallelTaskRunner
+     * @param capacity    Capacity of the ParallelTaskRunner queues
+     * @return            Batch controller
+     */
+    public static AdaptiveBatchController create(ObjectMap options, String name, VariantStorageOptions targetLatencyOption,
+                                                 int batchSize, int numTasks, int capacity) {
+        boolean enabled = options.getBoolean(BATCH_ADAPTIVE.key(), BATCH_ADAPTIVE.defaultValue());
+        double heapFraction = options.getDouble(BATCH_ADAPTIVE_HEAP_FRACTION.key(), BATCH_ADAPTIVE_HEAP_FRACTION.defaultValue());
+        int maxBatchSize = Math.max(batchSize,
+                options.getInt(BATCH_ADAPTIVE_MAX_BATCH_SIZE.key(), BATCH_ADAPTIVE_MAX_BATCH_SIZE.defaultValue()));
+        long targetLatency = options.getLong(targetLatencyOption.key(), targetLatencyOption.<Number>defaultValue().longValue());
+        long heapBudget = (long) (Runtime.getRuntime().maxMemory() * heapFraction);
+        // Batches in the read queue, being processed by the tasks, and in the write queue
+        int maxInFlightBatches = numTasks + capacity * 2;
+        return new AdaptiveBatchController(enabled, name, batchSize, 1, maxBatchSize, heapBudget, maxInFlightBatches,
+                targetLatency, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    public synchronized double getBytesPerElement() {
+        return readBytesPerElement + taskBytesPerElement;
+    }
+
+    public <T> DataReader<T> wrap(DataReader<T> reader) {
+        if (!enabled) {
+            return reader;
+        }
+        return new DataReader<T>() {
+            @Override
+            public boolean open() {
+                return reader.open();
+            }
+
+            @Override
+            public boolean pre() {
+                return reader.pre();
+            }
+
+            @Override
+            public List<T> read() {
+                return read(batchSize);
+            }
+
+            @Override
+            public List<T> read(int ignoredBatchSize) {
+                waitForHeapBudget();
+                List<T> batch = reader.read(batchSize);
+                if (!batch.isEmpty()) {
+                    long token = onBatchRead(batch.size(), RetainedSizeEstimator.estimateBatch(batch));
+                    synchronized (AdaptiveBatchController.this) {
+                        batchTokens.put(batch, token);
+                    }
+                }
+                return batch;
+            }
+
+            @Override
+            public boolean post() {
+                return reader.post();
+            }
+
+            @Override
+            public boolean close() {
+                return reader.close();
+            }
+        };
+    }
+
+    public <I, O> Supplier<Task<I, O>> wrap(Supplier<Task<I, O>> taskSupplier) {
+        if (!enabled) {
+            return taskSupplier;
+        }
+        return () -> wrap(taskSupplier.get());
+    }
+
+    public <I, O> Task<I, O> wrap(Task<I, O> task) {
+        if (!enabled) {
+            return task;
+        }
+        return new Task<I, O>() {
+            @Override
+            public void pre() throws Exception {
+                task.pre();
+            }
+
+            @Override
+            public List<O> apply(List<I> batch) throws Exception {
+                long token;
+                synchronized (AdaptiveBatchController.this) {
+                    token = batchTokens.getOrDefault(batch, -1L);
+                    batchTokens.remove(batch);
+                }
+                long start = System.nanoTime();
+                List<O> result = null;
+                try {
+                    result = task.apply(batch);
+                    return result;
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    onBatchCompleted(token, batch.size(), RetainedSizeEstimator.estimateBatch(result), nanos, result != null);
+                }
+            }
+
+            @Override
+            public List<O> drain() throws Exception {
+                return task.drain();
+            }
+
+            @Override
+            public void post() throws Exception {
+                task.post();
+            }
+        };
+    }
+
+    private synchronized void waitForHeapBudget() {
+        // Always allow at least one batch in flight
+        while (!inFlightBatches.isEmpty() && inFlightBytes + batchSize * getBytesPerElement() > heapBudget) {
+            try {
+                wait(WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Register a new batch in flight.
+     *
+     * @param size          Number of elements of the batch
+     * @param retainedBytes Estimated retained size of the batch
+     * @return              Token identifying this batch, to be released with {@link #onBatchCompleted}
+     */
+    protected synchronized long onBatchRead(int size, long retainedBytes) {
+        if (retainedBytes > 0) {
+            readBytesPerElement = ewma(readBytesPerElement, retainedBytes / (double) size);
+        }
+        long estimatedBytes = (long) (size * getBytesPerElement());
+        long token = nextToken++;
+        inFlightBatches.put(token, estimatedBytes);
+        inFlightBytes += estimatedBytes;
+        return token;
+    }
+
+    /**
+     * Release a batch in flight, and adapt the batch size.
+     *
+     * @param token         Token of the batch, as returned by {@link #onBatchRead}. Negative if unknown
+     * @param size          Number of elements of the batch
+     * @param retainedBytes Estimated retained size of the output of the task
+     * @param nanos         Time spent processing the batch
+     * @param completed     If the batch was processed successfully
+     */
+    protected synchronized void onBatchCompleted(long token, int size, long retainedBytes, long nanos, boolean completed) {
+        Long estimatedBytes = inFlightBatches.remove(token);
+        if (estimatedBytes != null) {
+            inFlightBytes -= estimatedBytes;
+        }
+        notifyAll();
+        if (!completed || size == 0) {
+            return;
+        }
+        if (retainedBytes > 0) {
+            taskBytesPerElement = ewma(taskBytesPerElement, retainedBytes / (double) size);
+        }
+
+        double bytesPerElement = getBytesPerElement();
+        int newBatchSize = batchSize;
+        if (nanos < targetLatencyNanos / 2) {
+            newBatchSize = Math.max(newBatchSize, size * 2);
+        } else if (nanos > targetLatencyNanos * 2) {
+            newBatchSize = Math.min(newBatchSize, Math.max(size / 2, minLatencyBatchSize));
+        }
+        if (bytesPerElement > 0) {
+            long maxBatchSizeByHeap = (long) (heapBudget / (maxInFlightBatches * bytesPerElement));
+            newBatchSize = (int) Math.min(newBatchSize, maxBatchSizeByHeap);
+        }
+        newBatchSize = Math.max(minBatchSize, Math.min(newBatchSize, maxBatchSize));
+        if (newBatchSize != batchSize) {
+            logger.debug("{} : batch size {} -> {}. Batch latency {}ms, {} bytes per element", name, batchSize, newBatchSize,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), (long) bytesPerElement);
+            batchSize = newBatchSize;
+        }
+    }
+
+    private static double ewma(double current, double value) {
+        if (current == 0) {
+            return value;
+        } else {
+            return EWMA_ALPHA * value + (1 - EWMA_ALPHA) * current;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AdaptiveBatchController{");
+        sb.append("enabled=").append(enabled);
+        sb.append(", name='").append(name).append('\'');
+        sb.append(", batchSize=").append(batchSize);
+        sb.append(", maxBatchSize=").append(maxBatchSize);
+        sb.append(", heapBudget=").append(heapBudget);
+        sb.append(", maxInFlightBatches=").append(maxInFlightBatches);
+        sb.append(", targetLatencyMillis=").append(TimeUnit.NANOSECONDS.toMillis(targetLatencyNanos));
+        sb.append('}');
+        return sb.toString();
+    }
+}
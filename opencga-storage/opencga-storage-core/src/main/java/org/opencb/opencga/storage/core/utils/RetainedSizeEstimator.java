@@ -0,0 +1,112 @@
+package org.opencb.opencga.storage.core.utils;
+
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.IndexedRecord;
+import org.opencb.biodata.models.variant.Variant;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rough estimation of the heap retained by the elements of a batch.
+ *
+ * Walks strings, boxed primitives, arrays, collections, maps and Avro records (which back most of the biodata models),
+ * assuming a 64-bit JVM with compressed oops. Unknown objects count as an empty object.
+ * Only a sample of the elements of each batch is walked, and the result is extrapolated to the whole batch.
+ */
+final class RetainedSizeEstimator {
+
+    static final int OBJECT_HEADER = 16;
+    static final int REFERENCE = 4;
+    private static final int MAX_SAMPLES = 16;
+    private static final int MAX_DEPTH = 32;
+
+    private RetainedSizeEstimator() {
+    }
+
+    /**
+     * Estimate the retained size of a batch, walking at most {@link #MAX_SAMPLES} evenly spaced elements.
+     *
+     * @param batch Batch of elements
+     * @return      Estimated retained bytes
+     */
+    static long estimateBatch(List<?> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        int samples = Math.min(batch.size(), MAX_SAMPLES);
+        int step = batch.size() / samples;
+        long sampledBytes = 0;
+        for (int i = 0; i < samples; i++) {
+            sampledBytes += estimate(batch.get(i * step));
+        }
+        return sampledBytes * batch.size() / samples + align(OBJECT_HEADER + (long) REFERENCE * batch.size());
+    }
+
+    static long estimate(Object o) {
+        return estimate(o, 0);
+    }
+
+    private static long estimate(Object o, int depth) {
+        if (o == null) {
+            return 0;
+        }
+        if (depth > MAX_DEPTH) {
+            return OBJECT_HEADER;
+        }
+        if (o instanceof CharSequence) {
+            // String object + char array
+            return align(OBJECT_HEADER + 8) + align(OBJECT_HEADER + 2L * ((CharSequence) o).length());
+        } else if (o instanceof Number || o instanceof Boolean || o instanceof Character || o instanceof Enum) {
+            return OBJECT_HEADER;
+        } else if (o instanceof byte[]) {
+            return align(OBJECT_HEADER + ((byte[]) o).length);
+        } else if (o instanceof ByteBuffer) {
+            return align(OBJECT_HEADER + 32) + align(OBJECT_HEADER + ((ByteBuffer) o).capacity());
+        } else if (o instanceof Variant) {
+            return align(OBJECT_HEADER + REFERENCE) + estimate(((Variant) o).getImpl(), depth + 1);
+        } else if (o instanceof GenericData.EnumSymbol) {
+            return OBJECT_HEADER;
+        } else if (o instanceof IndexedRecord) {
+            IndexedRecord record = (IndexedRecord) o;
+            int numFields = record.getSchema().getFields().size();
+            long size = align(OBJECT_HEADER + (long) REFERENCE * numFields);
+            for (int i = 0; i < numFields; i++) {
+                size += estimate(record.get(i), depth + 1);
+            }
+            return size;
+        } else if (o instanceof Collection) {
+            Collection<?> collection = (Collection<?>) o;
+            long size = align(OBJECT_HEADER + 16) + align(OBJECT_HEADER + (long) REFERENCE * collection.size());
+            for (Object element : collection) {
+                size += estimate(element, depth + 1);
+            }
+            return size;
+        } else if (o instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) o;
+            // Map object + table + one node per entry
+            long size = align(OBJECT_HEADER + 32) + align(OBJECT_HEADER + (long) REFERENCE * map.size() * 2)
+                    + (long) align(OBJECT_HEADER + 16) * map.size();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimate(entry.getKey(), depth + 1);
+                size += estimate(entry.getValue(), depth + 1);
+            }
+            return size;
+        } else if (o instanceof Object[]) {
+            Object[] array = (Object[]) o;
+            long size = align(OBJECT_HEADER + (long) REFERENCE * array.length);
+            for (Object element : array) {
+                size += estimate(element, depth + 1);
+            }
+            return size;
+        } else {
+            return OBJECT_HEADER;
+        }
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -32,6 +32,7 @@ import org.opencb.opencga.core.common.TimeUtils;
 import org.opencb.opencga.core.response.VariantQueryResult;
 import org.opencb.opencga.storage.core.StorageEngine;
 import org.opencb.opencga.storage.core.StoragePipelineResult;
+import org.opencb.opencga.storage.core.cache.CacheManager;
 import org.opencb.opencga.core.config.storage.StorageConfiguration;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.exceptions.StoragePipelineException;
@@ -71,6 +72,7 @@ import org.opencb.opencga.storage.core.variant.stats.VariantStatisticsManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
@@ -90,8 +92,12 @@ import static org.opencb.opencga.storage.core.variant.search.VariantSearchUtils.
 public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdaptor> implements VariantIterable {
 
     private final AtomicReference<VariantSearchManager> variantSearchManager = new AtomicReference<>();
+    private final AtomicReference<CacheManager> cacheManager = new AtomicReference<>();
+    private VariantStorageMetadataManager cacheInvalidationMetadataManager;
+    private VariantStorageMetadataManager.ModificationListener cacheInvalidationListener;
     private final List<VariantQueryExecutor> lazyVariantQueryExecutorsList = new ArrayList<>();
     private final List<VariantAggregationExecutor> lazyVariantAggregationExecutorsList = new ArrayList<>();
+    private final AtomicReference<VariantQueryPlanner> variantQueryPlanner = new AtomicReference<>();
     private CellBaseUtils cellBaseUtils;
 
     public static final String REMOVE_OPERATION_NAME = TaskMetadata.Type.REMOVE.name().toLowerCase();
@@ -562,6 +568,18 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
         throw new UnsupportedOperationException("Unsupported familyIndex");
     }
 
+    /**
+     * Change the storage encoding of the genotypes of a study. For advanced users only.
+     * Only supported by some storage engines.
+     *
+     * @param study   Study
+     * @param bitmap  Encode the samples of each genotype as bitmaps, or decode them back to lists
+     * @throws StorageEngineException in an error occurs
+     */
+    public void encodeGenotypes(String study, boolean bitmap) throws StorageEngineException {
+        throw new UnsupportedOperationException("Unsupported encodeGenotypes");
+    }
+
     /**
      * Provide a new VariantStatisticsManager for creating and loading statistics.
      *
@@ -616,8 +634,10 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
         queryOptions.put(QueryOptions.EXCLUDE, Arrays.asList(VariantField.STUDIES_SAMPLES, VariantField.STUDIES_FILES));
         try (VariantDBIterator iterator = getVariantsToIndex(overwrite, query, queryOptions, dbAdaptor)) {
             ProgressLogger progressLogger = new ProgressLogger("Variants loaded in Solr:");
+            ObjectMap loadOptions = new ObjectMap(getOptions());
+            loadOptions.putAll(queryOptions);
             VariantSearchLoadResult load = variantSearchManager.load(dbName, iterator, progressLogger,
-                    newVariantSearchLoadListener(overwrite));
+                    newVariantSearchLoadListener(overwrite), loadOptions);
 
             if (isValidParam(query, VariantQueryParam.REGION)) {
                 logger.info("Partial secondary index. Do not update {} timestamp", SEARCH_INDEX_LAST_TIMESTAMP.key());
@@ -688,7 +708,8 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
                 VariantDBIterator iterator = dbAdaptor.iterator(query, queryOptions);
 
                 ProgressLogger progressLogger = new ProgressLogger("Variants loaded in Solr:", () -> dbAdaptor.count(query).first(), 200);
-                variantSearchManager.load(collectionName, iterator, progressLogger, VariantSearchLoadListener.empty(false));
+                variantSearchManager.load(collectionName, iterator, progressLogger, VariantSearchLoadListener.empty(false),
+                        getOptions());
             } else {
                 throw new StorageEngineException("Solr is not alive!");
             }
@@ -960,6 +981,74 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
         return variantSearchManager.get();
     }
 
+    public CacheManager getCacheManager() throws StorageEngineException {
+        if (cacheManager.get() == null) {
+            synchronized (cacheManager) {
+                if (cacheManager.get() == null) {
+                    CacheManager newCacheManager = new CacheManager(configuration);
+                    VariantStorageMetadataManager metadataManager = getMetadataManager();
+                    cacheInvalidationListener = new VariantStorageMetadataManager.ModificationListener() {
+                        @Override
+                        public void studyModified(int studyId) {
+                            newCacheManager.invalidate(metadataManager.getStudyName(studyId));
+                        }
+
+                        @Override
+                        public void projectModified() {
+                            newCacheManager.clear();
+                        }
+                    };
+                    metadataManager.addModificationListener(cacheInvalidationListener);
+                    cacheInvalidationMetadataManager = metadataManager;
+                    cacheManager.set(newCacheManager);
+                }
+            }
+        }
+        return cacheManager.get();
+    }
+
+    /**
+     * Get the cache manager to use with the given query, if the cache should be used.
+     *
+     * @param options   Query options
+     * @return          Cache manager, or null if the result should not be cached.
+     */
+    private CacheManager getQueryCacheManager(QueryOptions options) {
+        if (!options.getBoolean(CacheManager.CACHE, getOptions().getBoolean(QUERY_CACHE.key(), QUERY_CACHE.defaultValue()))) {
+            return null;
+        }
+        try {
+            CacheManager cache = getCacheManager();
+            if (!cache.isActive() || !cache.isTypeAllowed("var")) {
+                return null;
+            }
+            return cache;
+        } catch (StorageEngineException | RuntimeException e) {
+            logger.warn("Unable to use query cache", e);
+            return null;
+        }
+    }
+
+    /**
+     * Build the key to cache the result of the given query.
+     *
+     * @param cache     Cache manager
+     * @param operation Operation name
+     * @param query     Preprocessed query
+     * @param options   Query options
+     * @return          Cache key, or null if the result should not be cached.
+     */
+    private String getCacheKey(CacheManager cache, String operation, Query query, QueryOptions options) {
+        try {
+            StudyMetadata defaultStudy = getVariantQueryParser().getDefaultStudy(query);
+            String study = defaultStudy == null ? CacheManager.ALL_STUDIES : defaultStudy.getName();
+            return cache.createKey(study, "var", query, new QueryOptions(options).append("operation", operation));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to use query cache", e);
+            return null;
+        }
+    }
+
     public VariantQueryResult<Variant> getPhased(String variant, String studyName, String sampleName, QueryOptions options, int windowsSize)
             throws StorageEngineException {
         VariantQueryExecutor.setDefaultTimeout(options, getOptions());
@@ -991,7 +1080,30 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
         addDefaultLimit(options, getOptions());
         addDefaultSampleLimit(query, getOptions());
         query = preProcessQuery(query, options);
-        return getVariantQueryExecutor(query, options).get(query, options);
+        boolean explain = options.getBoolean(VariantQueryPlanner.EXPLAIN, false);
+        // Keep a reference to the cache manager, as it may be removed by a concurrent close.
+        // Explain queries skip the cache, as they must describe an actual execution.
+        CacheManager cache = explain ? null : getQueryCacheManager(options);
+        String cacheKey = cache == null ? null : getCacheKey(cache, "get", query, options);
+        if (cacheKey != null) {
+            VariantQueryResult<Variant> cachedResult = cache.get(cacheKey);
+            if (cachedResult != null) {
+                return cachedResult;
+            }
+        }
+        VariantQueryPlan plan = getVariantQueryPlan(query, options);
+        StopWatch stopWatch = StopWatch.createStarted();
+        VariantQueryResult<Variant> result = plan.getExecutor().get(query, options);
+        int limit = options.getInt(QueryOptions.LIMIT, -1);
+        getVariantQueryPlanner().onQueryExecuted(plan, stopWatch.getTime(TimeUnit.MILLISECONDS),
+                limit < 0 || result.getNumResults() < limit);
+        if (cacheKey != null) {
+            cache.set(cacheKey, result);
+        }
+        if (explain) {
+            result.getAttributes().put(VariantQueryPlanner.EXPLAIN, plan);
+        }
+        return result;
     }
 
     @Override
@@ -1043,17 +1155,35 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
      * @return VariantQueryExecutor to use
      */
     public VariantQueryExecutor getVariantQueryExecutor(Query query, QueryOptions options) {
+        return getVariantQueryPlan(query, options).getExecutor();
+    }
+
+    /**
+     * Build the execution plan for the given query. See {@link VariantQueryPlanner}.
+     *
+     * @param query   Query to execute
+     * @param options Options for the query
+     * @return VariantQueryPlan with the executor to use
+     */
+    public VariantQueryPlan getVariantQueryPlan(Query query, QueryOptions options) {
+        VariantQueryPlan plan;
         try {
-            for (VariantQueryExecutor executor : getVariantQueryExecutors()) {
-                if (executor.canUseThisExecutor(query, options)) {
-                    return executor;
-                }
-            }
+            plan = getVariantQueryPlanner().plan(getVariantQueryExecutors(), query, options == null ? new QueryOptions() : options);
         } catch (StorageEngineException e) {
             throw VariantQueryException.internalException(e);
         }
-        // This should never happen, as the DBAdaptorVariantQueryExecutor can always run the query
-        throw new VariantQueryException("No VariantQueryExecutor found to run the query!");
+        if (plan == null) {
+            // This should never happen, as the DBAdaptorVariantQueryExecutor can always run the query
+            throw new VariantQueryException("No VariantQueryExecutor found to run the query!");
+        }
+        return plan;
+    }
+
+    protected final VariantQueryPlanner getVariantQueryPlanner() {
+        if (variantQueryPlanner.get() == null) {
+            variantQueryPlanner.compareAndSet(null, new VariantQueryPlanner(getOptions()));
+        }
+        return variantQueryPlanner.get();
     }
 
     public Query preProcessQuery(Query originalQuery, QueryOptions options) {
@@ -1099,8 +1229,21 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
 
     public DataResult<Long> count(Query query) throws StorageEngineException {
         query = preProcessQuery(query, QueryOptions.empty());
-        VariantQueryExecutor variantQueryExecutor = getVariantQueryExecutor(query, new QueryOptions(QueryOptions.COUNT, true));
-        return variantQueryExecutor.count(query);
+        QueryOptions options = new QueryOptions(QueryOptions.COUNT, true);
+        CacheManager cache = getQueryCacheManager(options);
+        String cacheKey = cache == null ? null : getCacheKey(cache, "count", query, options);
+        if (cacheKey != null) {
+            DataResult<Long> cachedResult = cache.get(cacheKey);
+            if (cachedResult != null) {
+                return cachedResult;
+            }
+        }
+        VariantQueryExecutor variantQueryExecutor = getVariantQueryExecutor(query, options);
+        DataResult<Long> result = variantQueryExecutor.count(query);
+        if (cacheKey != null) {
+            cache.set(cacheKey, result);
+        }
+        return result;
     }
 
 
@@ -1182,7 +1325,24 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
                 variantSearchManager.set(null);
             }
         }
-        lazyVariantQueryExecutorsList.clear();
+        if (cacheManager.get() != null) {
+            try {
+                cacheInvalidationMetadataManager.removeModificationListener(cacheInvalidationListener);
+                cacheManager.get().close();
+            } finally {
+                cacheManager.set(null);
+                cacheInvalidationMetadataManager = null;
+                cacheInvalidationListener = null;
+            }
+        }
+        synchronized (lazyVariantQueryExecutorsList) {
+            for (VariantQueryExecutor executor : lazyVariantQueryExecutorsList) {
+                if (executor instanceof Closeable) {
+                    ((Closeable) executor).close();
+                }
+            }
+            lazyVariantQueryExecutorsList.clear();
+        }
     }
 }
 
@@ -77,6 +77,22 @@ public enum VariantStorageOptions implements ConfigurationOption {
     ANNOTATOR_CELLBASE_STAR_ALTERNATE("annotator.cellbase.starAlternate", false),
 
     INDEX_SEARCH("indexSearch", false), // Build secondary indexes using search engine.
+    SEARCH_LOAD_THREADS("search.load.numThreads", 4), // Number of concurrent update streams to the search engine
+    SEARCH_LOAD_COMMIT_POLICY("search.load.commit.policy", "BATCH"), // One of BATCH, DOCS or TIME
+    SEARCH_LOAD_COMMIT_DOCS("search.load.commit.docs", 100000), // Commit every N docs when using the DOCS or TIME policies
+    SEARCH_LOAD_COMMIT_WITHIN("search.load.commit.within", 60000), // millis. Max time until commit when using the TIME policy
+
+    EXPORT_THREADS("export.numThreads", 1), // Read regions concurrently when exporting. The output keeps the order of the regions
+    EXPORT_REGION_CHUNK_SIZE("export.regionChunkSize", 5000000),
+
+    // Adapt the batch size of transform, annotation and stats pipelines to the heap usage and latency of each batch
+    BATCH_ADAPTIVE("batch.adaptive", false),
+    BATCH_ADAPTIVE_HEAP_FRACTION("batch.adaptive.heapFraction", 0.4), // Fraction of the max heap to be used by the batches in flight
+    BATCH_ADAPTIVE_MAX_BATCH_SIZE("batch.adaptive.maxBatchSize", 5000),
+    // Target latency of each batch, in millis. Slower batches halve the batch size, faster batches double it.
+    TRANSFORM_BATCH_ADAPTIVE_TARGET_LATENCY("transform.batch.adaptive.targetLatency", 500),
+    ANNOTATION_BATCH_ADAPTIVE_TARGET_LATENCY("annotation.batch.adaptive.targetLatency", 20000),
+    STATS_CALCULATE_BATCH_ADAPTIVE_TARGET_LATENCY("stats.calculate.batch.adaptive.targetLatency", 2000),
 
     METADATA_LOCK_DURATION("metadata.lock.duration", 5000),
     METADATA_LOCK_TIMEOUT("metadata.lock.timeout", 60000),
@@ -87,11 +103,18 @@ public enum VariantStorageOptions implements ConfigurationOption {
     QUERY_LIMIT_MAX("query.limit.max", 5000),
     QUERY_SAMPLE_LIMIT_DEFAULT("query.sample.limit.default", 100),
     QUERY_SAMPLE_LIMIT_MAX("query.sample.limit.max", 1000),
+    QUERY_CACHE("query.cache", false),                    // Use the query result cache by default. Can be overwritten with "cache"
+    QUERY_PLANNER_ACTIVE("query.planner.active", false),  // Select the query executor by estimated cost. Can be overwritten per query
 
     // Search intersect options
     INTERSECT_ACTIVE("search.intersect.active", true),                       // Allow intersect queries with the SearchEngine (Solr)
     INTERSECT_ALWAYS("search.intersect.always", false),                      // Force intersect queries
     INTERSECT_PARAMS_THRESHOLD("search.intersect.params.threshold", 3),      // Minimum number of QueryParams in the query to intersect
+    INTERSECT_EXPORT("search.intersect.export", false),                      // Stream IDs from the "/export" handler on large intersects
+    // Concurrent queries to the storage while reading the IDs from the search engine. 0 to read and fetch sequentially
+    INTERSECT_PIPELINE_THREADS("search.intersect.pipeline.numThreads", 0),
+    INTERSECT_PIPELINE_BATCH_SIZE("search.intersect.pipeline.batchSize", 1000),
+    INTERSECT_PIPELINE_POOL_SIZE("search.intersect.pipeline.poolSize", 16), // Threads shared by the queries of all the pipelined joins
 
     APPROXIMATE_COUNT_SAMPLING_SIZE("approximateCountSamplingSize", 1000),
     @Deprecated
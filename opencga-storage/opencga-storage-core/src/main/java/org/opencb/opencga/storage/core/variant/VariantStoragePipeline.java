@@ -63,6 +63,7 @@ import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.metadata.models.CohortMetadata;
 import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
 import org.opencb.opencga.storage.core.metadata.models.TaskMetadata;
+import org.opencb.opencga.storage.core.utils.AdaptiveBatchController;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.io.VariantReaderUtils;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
@@ -300,11 +301,14 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
             normalizer = initNormalizer(metadata);
         }
 
-        Supplier<Task<String, Variant>> task = () ->
+        AdaptiveBatchController batchController = AdaptiveBatchController.create(options, "Transform",
+                TRANSFORM_BATCH_ADAPTIVE_TARGET_LATENCY, batchSize, numTasks, capacity);
+        DataReader<String> reader = batchController.wrap(stringReader);
+        Supplier<Task<String, Variant>> task = batchController.wrap(() ->
                 new VariantTransformTask(header.getKey(), header.getValue(), studyId, metadata, statsCalculator, normalizer)
                 .setFailOnError(failOnError)
                 .addMalformedErrorHandler(malformedHandler)
-                .setIncludeSrc(false);
+                .setIncludeSrc(false));
 
         ParallelTaskRunner ptr;
         if ("avro".equals(format)) {
@@ -324,7 +328,7 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
                 throw StorageEngineException.ioException(e);
             }
 
-            ptr = buildTransformPtr(parallelParse, stringReader, task, encoder, dataWriter, config);
+            ptr = buildTransformPtr(parallelParse, reader, task, encoder, dataWriter, config);
         } else if ("json".equals(format)) {
             Supplier<Task<Variant, String>> encoder = () -> Task.forEach(Variant::toJson);
 
@@ -341,9 +345,9 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
                 }
             }
 
-            ptr = buildTransformPtr(parallelParse, stringReader, task, encoder, dataWriter, config);
+            ptr = buildTransformPtr(parallelParse, reader, task, encoder, dataWriter, config);
         } else if ("proto".equals(format)) {
-            ptr = transformProto(metadata, outputVariantsFile, stringReader, task);
+            ptr = transformProto(metadata, outputVariantsFile, reader, task);
         } else {
             throw new IllegalArgumentException("Unknown format " + format);
         }
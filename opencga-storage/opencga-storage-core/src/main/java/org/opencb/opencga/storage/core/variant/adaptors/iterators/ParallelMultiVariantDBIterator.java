@@ -0,0 +1,281 @@
+package org.opencb.opencga.storage.core.variant.adaptors.iterators;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+
+/**
+ * Pipelined version of {@link MultiVariantDBIterator}.
+ *
+ * The variants iterator is read in batches, and a query for each batch is submitted to a shared executor. Up to
+ * "numThreads" batches are fetched concurrently while the consumer iterates the previous ones. The pending batches are
+ * kept in the same order as they were read, so the order of the variants iterator is preserved, and the variants iterator
+ * is not read too far ahead from the consumer.
+ *
+ * If a reader executor is provided, the variants iterator is read from a background task, that submits the batches and
+ * fills a bounded queue, so reading the variants iterator (e.g. a stream of IDs from the search engine) overlaps with the
+ * consumer. Otherwise, the variants iterator is read from the consumer thread. The reader executor must not be the
+ * executor of the queries, as the reader task blocks while the queue is full.
+ *
+ * Limit and skip are applied in the client side.
+ */
+public class ParallelMultiVariantDBIterator extends VariantDBIterator {
+
+    private final Iterator<?> variantsIterator;
+    private final Query query;
+    private final QueryOptions options;
+    private final BiFunction<Query, QueryOptions, VariantDBIterator> iteratorFactory;
+    private final int batchSize;
+    private final int numThreads;
+    private final ExecutorService executor;
+    private final ExecutorService readerExecutor;
+    // Batches submitted by the consumer thread. Only if there is no reader executor
+    private final Queue<Future<List<Variant>>> pendingBatches = new ArrayDeque<>();
+    // Batches submitted by the reader task, followed by endOfBatches. Only if there is a reader executor
+    private final BlockingQueue<Future<List<Variant>>> readBatches;
+    private final Future<List<Variant>> endOfBatches = CompletableFuture.completedFuture(Collections.emptyList());
+    private Future<?> reader;
+    private boolean readerFinished;
+
+    private final int limit;
+    private final int skip;
+    private int skipped;
+    private int numResults;
+    private volatile int numQueries;
+    private Iterator<Variant> currentBatch = Collections.emptyIterator();
+    private volatile boolean closed;
+
+    /**
+     * Creates a pipelined multi iterator given a iterator of variants.
+     *
+     * @param variantsIterator  Iterator with all the variants to filter.
+     * @param batchSize         Number of variants to use in each query
+     * @param numThreads        Max number of concurrent queries from this iterator
+     * @param query             Base query.
+     * @param options           Query options to be used with the iterator factory
+     * @param iteratorFactory   Iterator factory. Must be thread safe.
+     * @param executor          Executor to run the queries. Not closed by this iterator.
+     */
+    public ParallelMultiVariantDBIterator(Iterator<?> variantsIterator, int batchSize, int numThreads,
+                                          Query query, QueryOptions options,
+                                          BiFunction<Query, QueryOptions, VariantDBIterator> iteratorFactory,
+                                          ExecutorService executor) {
+        this(variantsIterator, batchSize, numThreads, query, options, iteratorFactory, executor, null);
+    }
+
+    /**
+     * Creates a pipelined multi iterator given a iterator of variants, read from a background task.
+     *
+     * @param variantsIterator  Iterator with all the variants to filter.
+     * @param batchSize         Number of variants to use in each query
+     * @param numThreads        Max number of concurrent queries from this iterator
+     * @param query             Base query.
+     * @param options           Query options to be used with the iterator factory
+     * @param iteratorFactory   Iterator factory. Must be thread safe.
+     * @param executor          Executor to run the queries. Not closed by this iterator.
+     * @param readerExecutor    Executor to read the variants iterator. Not closed by this iterator.
+     *                          If null, the variants iterator is read from the consumer thread.
+     */
+    public ParallelMultiVariantDBIterator(Iterator<?> variantsIterator, int batchSize, int numThreads,
+                                          Query query, QueryOptions options,
+                                          BiFunction<Query, QueryOptions, VariantDBIterator> iteratorFactory,
+                                          ExecutorService executor, ExecutorService readerExecutor) {
+        this.variantsIterator = Objects.requireNonNull(variantsIterator);
+        this.batchSize = batchSize;
+        this.numThreads = Math.max(1, numThreads);
+        this.query = query;
+        this.options = options == null ? new QueryOptions() : new QueryOptions(options);
+        this.iteratorFactory = Objects.requireNonNull(iteratorFactory);
+        this.executor = Objects.requireNonNull(executor);
+        this.readerExecutor = readerExecutor;
+        this.readBatches = readerExecutor == null ? null : new LinkedBlockingQueue<>(this.numThreads);
+
+        int limit = this.options.getInt(QueryOptions.LIMIT, -1);
+        this.limit = limit < 0 ? Integer.MAX_VALUE : limit;
+        this.skip = Math.max(0, this.options.getInt(QueryOptions.SKIP, 0));
+        // Client side limit+skip. Remove from QueryOptions
+        this.options.remove(QueryOptions.LIMIT);
+        this.options.remove(QueryOptions.SKIP);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (numResults >= limit) {
+            return false;
+        }
+        while (skipped < skip && nextAvailable()) {
+            currentBatch.next();
+            skipped++;
+        }
+        return nextAvailable();
+    }
+
+    @Override
+    public Variant next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        numResults++;
+        return currentBatch.next();
+    }
+
+    @Override
+    public int getCount() {
+        return numResults;
+    }
+
+    public int getNumQueries() {
+        return numQueries;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (!closed) {
+            closed = true;
+            if (reader != null) {
+                reader.cancel(true);
+            }
+            for (Future<List<Variant>> future : pendingBatches) {
+                future.cancel(true);
+            }
+            pendingBatches.clear();
+            if (readBatches != null) {
+                List<Future<List<Variant>>> futures = new ArrayList<>();
+                readBatches.drainTo(futures);
+                for (Future<List<Variant>> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            if (variantsIterator instanceof AutoCloseable) {
+                ((AutoCloseable) variantsIterator).close();
+            }
+        }
+        super.close();
+    }
+
+    private boolean nextAvailable() {
+        while (!currentBatch.hasNext()) {
+            if (closed || readerFinished) {
+                return false;
+            }
+            Future<List<Variant>> future;
+            if (readerExecutor == null) {
+                submitBatches();
+                future = pendingBatches.poll();
+                if (future == null) {
+                    return false;
+                }
+                // Keep the pipeline full while waiting for this batch
+                submitBatches();
+            } else {
+                future = takeReadBatch();
+                if (future == endOfBatches) {
+                    readerFinished = true;
+                    return false;
+                }
+            }
+            currentBatch = getBatch(future).iterator();
+        }
+        return true;
+    }
+
+    private void submitBatches() {
+        long start = System.nanoTime();
+        try {
+            while (pendingBatches.size() < numThreads && variantsIterator.hasNext()) {
+                pendingBatches.add(submitNextBatch());
+            }
+        } finally {
+            timeFetching += System.nanoTime() - start;
+        }
+    }
+
+    private Future<List<Variant>> submitNextBatch() {
+        List<Object> variants = new ArrayList<>(batchSize);
+        do {
+            variants.add(variantsIterator.next());
+        } while (variantsIterator.hasNext() && variants.size() < batchSize);
+        Query batchQuery = query == null ? new Query() : new Query(query);
+        batchQuery.put(VariantQueryParam.ID.key(), variants);
+        numQueries++;
+        return executor.submit(() -> fetchBatch(batchQuery));
+    }
+
+    private Future<List<Variant>> takeReadBatch() {
+        long start = System.nanoTime();
+        try {
+            if (reader == null) {
+                reader = readerExecutor.submit(this::readBatches);
+            }
+            return readBatches.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw VariantQueryException.internalException(e);
+        } finally {
+            timeFetching += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Background task reading the variants iterator. Blocks while there are "numThreads" batches pending to be consumed.
+     * Errors reading the variants iterator are given to the consumer as a failed batch.
+     */
+    private void readBatches() {
+        try {
+            while (!closed && variantsIterator.hasNext()) {
+                Future<List<Variant>> future = submitNextBatch();
+                readBatches.put(future);
+                if (closed) {
+                    future.cancel(true);
+                }
+            }
+            readBatches.put(endOfBatches);
+        } catch (InterruptedException e) {
+            // Closed
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            CompletableFuture<List<Variant>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            try {
+                readBatches.put(failed);
+                readBatches.put(endOfBatches);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<Variant> getBatch(Future<List<Variant>> future) {
+        // Only the time waiting for the batches is accounted. The rest is overlapped with the consumer.
+        long start = System.nanoTime();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw VariantQueryException.internalException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof VariantQueryException) {
+                throw (VariantQueryException) e.getCause();
+            }
+            throw VariantQueryException.internalException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        } finally {
+            timeFetching += System.nanoTime() - start;
+        }
+    }
+
+    private List<Variant> fetchBatch(Query batchQuery) throws Exception {
+        List<Variant> variants = new ArrayList<>(batchSize);
+        try (VariantDBIterator iterator = iteratorFactory.apply(batchQuery, options)) {
+            while (iterator.hasNext()) {
+                variants.add(iterator.next());
+            }
+        }
+        return variants;
+    }
+}
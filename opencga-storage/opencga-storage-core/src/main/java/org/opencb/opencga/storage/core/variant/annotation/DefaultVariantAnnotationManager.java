@@ -45,6 +45,7 @@ import org.opencb.opencga.storage.core.io.managers.IOConnectorProvider;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.metadata.models.FileMetadata;
 import org.opencb.opencga.storage.core.metadata.models.TaskMetadata;
+import org.opencb.opencga.storage.core.utils.AdaptiveBatchController;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
@@ -271,8 +272,10 @@ public class DefaultVariantAnnotationManager extends VariantAnnotationManager {
                     .setAbortOnFail(true)
                     .setReadQueuePutTimeout(timeoutSeconds, TimeUnit.SECONDS)
                     .setSorted(false).build();
-            ParallelTaskRunner<Variant, VariantAnnotation> parallelTaskRunner =
-                    new ParallelTaskRunner<>(variantDataReader, annotationTask, variantAnnotationDataWriter, config);
+            AdaptiveBatchController batchController = AdaptiveBatchController.create(params, "Annotation",
+                    VariantStorageOptions.ANNOTATION_BATCH_ADAPTIVE_TARGET_LATENCY, batchSize, numThreads, numThreads * 2);
+            ParallelTaskRunner<Variant, VariantAnnotation> parallelTaskRunner = new ParallelTaskRunner<>(
+                    batchController.wrap(variantDataReader), batchController.wrap(annotationTask), variantAnnotationDataWriter, config);
             parallelTaskRunner.run();
         } catch (ExecutionException e) {
             throw new VariantAnnotatorException("Error creating annotations", e);
@@ -18,13 +18,16 @@ package org.opencb.opencga.storage.core.variant.io;
 
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
 import org.opencb.biodata.formats.variant.vcf4.io.VariantVcfReader;
+import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.metadata.Individual;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.VariantFileMetadata;
 import org.opencb.biodata.models.variant.metadata.VariantMetadata;
 import org.opencb.biodata.models.variant.metadata.VariantStudyMetadata;
 import org.opencb.commons.ProgressLogger;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.io.DataWriter;
@@ -34,21 +37,28 @@ import org.opencb.opencga.core.common.UriUtils;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.io.managers.IOConnectorProvider;
 import org.opencb.opencga.storage.core.metadata.VariantMetadataFactory;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
 import org.opencb.opencga.storage.core.variant.io.VariantWriterFactory.VariantOutputFormat;
 import org.opencb.opencga.storage.core.variant.io.db.VariantDBReader;
+import org.opencb.opencga.storage.core.variant.io.db.VariantDBRegionParallelReader;
 import org.opencb.opencga.storage.core.variant.query.ParsedVariantQuery;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryParser;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.*;
 import java.net.URI;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.EXPORT_REGION_CHUNK_SIZE;
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.EXPORT_THREADS;
+
 /**
  * Prints the result of a given query in the selected output format, and the associated metadata.
  *
@@ -67,6 +77,18 @@ public class VariantExporter {
     protected final VariantMetadataFactory metadataFactory;
     protected final IOConnectorProvider ioConnectorProvider;
 
+    protected static final int BATCH_SIZE = 10;
+    // Max number of batches buffered per region, when reading multiple regions concurrently
+    protected static final int REGION_BUFFER_BATCHES = 100;
+    // Regions without an end are split up to this position. Covers the largest human chromosome.
+    protected static final int MAX_SPLIT_POSITION = 250_000_000;
+    protected static final long MIN_VARIANTS_TO_SPLIT_CHROMOSOME = 10000;
+    // Numeric chromosomes first, in numeric order
+    private static final Comparator<String> CHROMOSOME_COMPARATOR = Comparator
+            .comparing((String chr) -> !StringUtils.isNumeric(chr))
+            .thenComparing(chr -> StringUtils.isNumeric(chr) ? Integer.valueOf(chr) : 0)
+            .thenComparing(Comparator.naturalOrder());
+
     private final Logger logger = LoggerFactory.getLogger(VariantExporter.class);
 
     public VariantExporter(VariantStorageEngine engine, IOConnectorProvider ioConnectorProvider) throws StorageEngineException {
@@ -103,6 +125,11 @@ public class VariantExporter {
             boolean logProgress = !VariantWriterFactory.isStandardOutput(outputFile);
             exportData(os, outputFormat, variantsFile, query.getInputQuery(), query.getInputOptions(), logProgress);
         }
+        exportMetadata(outputFile, outputFormat, query);
+    }
+
+    protected void exportMetadata(@Nullable URI outputFile, VariantOutputFormat outputFormat, ParsedVariantQuery query)
+            throws IOException, StorageEngineException {
         if (metadataFactory != null && !VariantWriterFactory.isStandardOutput(outputFile)) {
             VariantMetadata metadata = metadataFactory.makeVariantMetadata(query.getInputQuery(), query.getInputOptions());
             String metaFilename = outputFile.getPath() + METADATA_FILE_EXTENSION;
@@ -122,6 +149,31 @@ public class VariantExporter {
         if (queryOptions == null) {
             queryOptions = new QueryOptions();
         }
+        DataWriter<Variant> variantDataWriter = variantWriterFactory.newDataWriter(outputFormat, outputStream, query, queryOptions);
+        exportData(variantDataWriter, variantsFile, query, queryOptions, logProgress);
+    }
+
+    /**
+     * Exports the result of the given query into the given writer.
+     * Allows exporting into formats that can not be written as a plain {@link OutputStream}.
+     *
+     * @param variantDataWriter Variants writer
+     * @param variantsFile      Optional variants file.
+     * @param query             Query with the variants to export
+     * @param queryOptions      Query options
+     * @param logProgress       Log the progress of the export
+     * @throws IOException  If there is any IO error
+     * @throws StorageEngineException  If there is any error exporting variants
+     */
+    protected void exportData(DataWriter<Variant> variantDataWriter, URI variantsFile,
+                              Query query, QueryOptions queryOptions, boolean logProgress)
+            throws StorageEngineException, IOException {
+        if (query == null) {
+            query = new Query();
+        }
+        if (queryOptions == null) {
+            queryOptions = new QueryOptions();
+        }
 
         // DataReader
         VariantDBReader variantDBReader;
@@ -129,7 +181,21 @@ public class VariantExporter {
             Iterator<Variant> variants = toVariantsIterator(variantsFile);
             variantDBReader = new VariantDBReader(engine.iterator(variants, query, queryOptions));
         } else {
-            variantDBReader = new VariantDBReader(engine, query, queryOptions);
+            ObjectMap options = new ObjectMap(engine.getOptions());
+            options.putAll(queryOptions);
+            int numThreads = options.getInt(EXPORT_THREADS.key(), EXPORT_THREADS.defaultValue());
+            List<Region> chunks = null;
+            if (numThreads > 1) {
+                chunks = getRegionChunks(query, queryOptions,
+                        options.getInt(EXPORT_REGION_CHUNK_SIZE.key(), EXPORT_REGION_CHUNK_SIZE.defaultValue()));
+            }
+            if (chunks != null && chunks.size() > 1) {
+                logger.info("Export variants from " + chunks.size() + " regions using " + numThreads + " threads");
+                variantDBReader = new VariantDBRegionParallelReader(engine, query, queryOptions, chunks, numThreads,
+                        BATCH_SIZE, REGION_BUFFER_BATCHES);
+            } else {
+                variantDBReader = new VariantDBReader(engine, query, queryOptions);
+            }
         }
 
         // TaskMetadata<Variant, Variant>
@@ -155,10 +221,7 @@ public class VariantExporter {
             progressTask = batch -> batch;
         }
 
-        // DataWriter
-        DataWriter<Variant> variantDataWriter = variantWriterFactory.newDataWriter(outputFormat, outputStream, query, queryOptions);
-
-        ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder().setNumTasks(1).setBatchSize(10).build();
+        ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder().setNumTasks(1).setBatchSize(BATCH_SIZE).build();
 
         ParallelTaskRunner<Variant, Variant> ptr = new ParallelTaskRunner<>(variantDBReader, progressTask, variantDataWriter, config);
         try {
@@ -172,6 +235,94 @@ public class VariantExporter {
 
     }
 
+    /**
+     * Split the query into sorted, non overlapping region chunks, to be read concurrently.
+     *
+     * The regions are taken from the region filter. If missing, the chromosomes are read from the stats of the loaded files.
+     * Regions without an end (e.g. whole chromosomes) are split up to {@link #MAX_SPLIT_POSITION}, and end with an unbounded chunk.
+     *
+     * @param query         Query
+     * @param queryOptions  Query options
+     * @param chunkSize     Size of each chunk, in bases
+     * @return  List of region chunks, or null if the query can not be split
+     * @throws StorageEngineException if there is an error reading the metadata
+     */
+    protected List<Region> getRegionChunks(Query query, QueryOptions queryOptions, int chunkSize) throws StorageEngineException {
+        if (queryOptions.getInt(QueryOptions.SKIP, 0) > 0 || queryOptions.getInt(QueryOptions.LIMIT, 0) > 0) {
+            return null;
+        }
+        // Genes, ids and xrefs are combined with the regions using an OR. Can not split the query by region.
+        ParsedVariantQuery.VariantQueryXref xrefs = VariantQueryParser.parseXrefs(query);
+        if (!xrefs.getGenes().isEmpty() || !xrefs.getVariants().isEmpty()
+                || !xrefs.getIds().isEmpty() || !xrefs.getOtherXrefs().isEmpty()) {
+            return null;
+        }
+
+        List<Region> regions;
+        Map<String, Long> chromosomeCounts = null;
+        if (VariantQueryUtils.isValidParam(query, VariantQueryParam.REGION)) {
+            regions = VariantQueryUtils.mergeRegions(Region.parseRegions(query.getString(VariantQueryParam.REGION.key()), true));
+        } else {
+            chromosomeCounts = getChromosomeCounts();
+            if (chromosomeCounts == null) {
+                return null;
+            }
+            regions = new ArrayList<>(chromosomeCounts.size());
+            for (String chromosome : chromosomeCounts.keySet()) {
+                regions.add(new Region(chromosome));
+            }
+        }
+        regions.sort(Comparator.comparing(Region::getChromosome, CHROMOSOME_COMPARATOR)
+                .thenComparing(Region::getStart));
+
+        List<Region> chunks = new ArrayList<>();
+        for (Region region : regions) {
+            int start = Math.max(region.getStart(), 1);
+            boolean smallChromosome = chromosomeCounts != null
+                    && chromosomeCounts.get(region.getChromosome()) < MIN_VARIANTS_TO_SPLIT_CHROMOSOME;
+            if (smallChromosome) {
+                chunks.add(new Region(region.getChromosome(), start, region.getEnd()));
+                continue;
+            }
+            int end = Math.min(region.getEnd(), MAX_SPLIT_POSITION);
+            while (start <= end) {
+                int chunkEnd = (int) Math.min((long) start + chunkSize - 1, end);
+                chunks.add(new Region(region.getChromosome(), start, chunkEnd));
+                start = chunkEnd + 1;
+            }
+            if (region.getEnd() > MAX_SPLIT_POSITION) {
+                chunks.add(new Region(region.getChromosome(), Math.max(start, MAX_SPLIT_POSITION + 1), region.getEnd()));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Sum the chromosome counts from the stats of all the files from all the studies.
+     *
+     * @return Number of variants per chromosome, or null if any file is missing the stats
+     * @throws StorageEngineException if there is an error reading the metadata
+     */
+    private Map<String, Long> getChromosomeCounts() throws StorageEngineException {
+        VariantStorageMetadataManager metadataManager = engine.getMetadataManager();
+        Map<String, Long> chromosomeCounts = new HashMap<>();
+        for (Integer studyId : metadataManager.getStudyIds()) {
+            Iterator<VariantFileMetadata> iterator = metadataManager.variantFileMetadataIterator(studyId, new QueryOptions());
+            while (iterator.hasNext()) {
+                VariantFileMetadata fileMetadata = iterator.next();
+                if (fileMetadata.getStats() == null || fileMetadata.getStats().getChromosomeCount() == null
+                        || fileMetadata.getStats().getChromosomeCount().isEmpty()) {
+                    logger.info("Missing chromosome stats for file " + fileMetadata.getPath() + ". Unable to split export by region");
+                    return null;
+                }
+                for (Map.Entry<String, Long> entry : fileMetadata.getStats().getChromosomeCount().entrySet()) {
+                    chromosomeCounts.merge(Region.normalizeChromosome(entry.getKey()), entry.getValue(), Long::sum);
+                }
+            }
+        }
+        return chromosomeCounts.isEmpty() ? null : chromosomeCounts;
+    }
+
     protected void writeMetadata(VariantMetadata metadata, URI metadataFile) throws IOException {
         if (metadataFile.toString().endsWith(TFAM_FILE_EXTENSION)) {
             // Write .tfam file
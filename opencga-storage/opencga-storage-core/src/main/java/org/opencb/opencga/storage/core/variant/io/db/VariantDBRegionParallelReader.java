@@ -0,0 +1,202 @@
+package org.opencb.opencga.storage.core.variant.io.db;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantIterable;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the variants from a list of sorted, non overlapping region chunks, running one {@link VariantDBIterator}
+ * per chunk concurrently. Variants are returned in the same order as the chunks.
+ *
+ * At most numThreads chunks are read at the same time. Each chunk buffers up to a fixed number of batches,
+ * so the memory usage is bounded even if the chunks are larger than the buffer.
+ *
+ * Variants overlapping two chunks are only returned by the first one.
+ */
+public class VariantDBRegionParallelReader extends VariantDBReader {
+
+    private static final List<Variant> END_OF_CHUNK = Collections.emptyList();
+
+    private final VariantIterable iterable;
+    private final Query query;
+    private final QueryOptions options;
+    private final List<Region> chunks;
+    private final int numThreads;
+    private final int batchSize;
+    private final int bufferBatches;
+
+    private ExecutorService executor;
+    private final List<ChunkReader> chunkReaders = new ArrayList<>();
+    private int currentChunk;
+    private int nextChunkToSubmit;
+    private final AtomicLong timeFetching = new AtomicLong();
+    private final AtomicLong timeConverting = new AtomicLong();
+
+    /**
+     * @param iterable      Variants source
+     * @param query         Query. The region filter is replaced by each chunk
+     * @param options       Query options
+     * @param chunks        Sorted and non overlapping regions to read
+     * @param numThreads    Number of chunks to read concurrently
+     * @param batchSize     Size of the batches to buffer
+     * @param bufferBatches Max number of batches buffered per chunk
+     */
+    public VariantDBRegionParallelReader(VariantIterable iterable, Query query, QueryOptions options, List<Region> chunks,
+                                         int numThreads, int batchSize, int bufferBatches) {
+        super(iterable, query, options);
+        this.iterable = iterable;
+        this.query = query;
+        this.options = options == null ? new QueryOptions() : options;
+        this.chunks = chunks;
+        this.numThreads = numThreads;
+        this.batchSize = batchSize;
+        this.bufferBatches = bufferBatches;
+    }
+
+    @Override
+    public boolean open() {
+        executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("variant-export-region-%d")
+                .build());
+        for (int i = 0; i < chunks.size(); i++) {
+            Region chunk = chunks.get(i);
+            Region prev = i == 0 ? null : chunks.get(i - 1);
+            // Variants starting before this position were already returned by the previous chunk
+            int minStart = prev != null && prev.getChromosome().equals(chunk.getChromosome()) ? prev.getEnd() + 1 : Integer.MIN_VALUE;
+            chunkReaders.add(new ChunkReader(chunk, minStart));
+        }
+        currentChunk = 0;
+        nextChunkToSubmit = 0;
+        while (nextChunkToSubmit < numThreads && nextChunkToSubmit < chunkReaders.size()) {
+            submitNextChunk();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Variant> read(int batchSize) {
+        while (currentChunk < chunkReaders.size()) {
+            List<Variant> batch = chunkReaders.get(currentChunk).take();
+            if (batch == END_OF_CHUNK) {
+                // Release the buffer. Start reading the next pending chunk
+                chunkReaders.set(currentChunk, null);
+                currentChunk++;
+                if (nextChunkToSubmit < chunkReaders.size()) {
+                    submitNextChunk();
+                }
+            } else {
+                return batch;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.warn("Timeout waiting for region readers to finish");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getTimeConverting(TimeUnit timeUnit) {
+        return timeUnit.convert(timeConverting.get(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getTimeFetching(TimeUnit timeUnit) {
+        return timeUnit.convert(timeFetching.get(), TimeUnit.MILLISECONDS);
+    }
+
+    private void submitNextChunk() {
+        ChunkReader chunkReader = chunkReaders.get(nextChunkToSubmit++);
+        executor.submit(chunkReader);
+    }
+
+    private final class ChunkReader implements Runnable {
+        private final Region region;
+        private final int minStart;
+        private final BlockingQueue<List<Variant>> queue;
+        private volatile Throwable error;
+
+        private ChunkReader(Region region, int minStart) {
+            this.region = region;
+            this.minStart = minStart;
+            this.queue = new ArrayBlockingQueue<>(bufferBatches);
+        }
+
+        @Override
+        public void run() {
+            Query chunkQuery = new Query(query);
+            chunkQuery.put(VariantQueryParam.REGION.key(), region.toString());
+            try (VariantDBIterator iterator = iterable.iterator(chunkQuery, new QueryOptions(options))) {
+                try {
+                    List<Variant> batch = new ArrayList<>(batchSize);
+                    while (iterator.hasNext()) {
+                        Variant variant = iterator.next();
+                        if (variant.getStart() < minStart) {
+                            continue;
+                        }
+                        batch.add(variant);
+                        if (batch.size() == batchSize) {
+                            queue.put(batch);
+                            batch = new ArrayList<>(batchSize);
+                        }
+                    }
+                    if (!batch.isEmpty()) {
+                        queue.put(batch);
+                    }
+                } finally {
+                    timeFetching.addAndGet(iterator.getTimeFetching(TimeUnit.MILLISECONDS));
+                    timeConverting.addAndGet(iterator.getTimeConverting(TimeUnit.MILLISECONDS));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = e;
+            } catch (Exception | Error e) {
+                error = e;
+            } finally {
+                try {
+                    queue.put(END_OF_CHUNK);
+                } catch (InterruptedException e) {
+                    // Reader closed. Nobody is waiting for this chunk
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private List<Variant> take() {
+            List<Variant> batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading region " + region, e);
+            }
+            if (batch == END_OF_CHUNK && error != null) {
+                throw new IllegalStateException("Error reading variants from region " + region, error);
+            }
+            return batch;
+        }
+    }
+}
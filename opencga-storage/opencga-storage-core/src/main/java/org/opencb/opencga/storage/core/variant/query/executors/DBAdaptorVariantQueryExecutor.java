@@ -1,16 +1,19 @@
 package org.opencb.opencga.storage.core.variant.query.executors;
 
+import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.commons.datastore.core.*;
 import org.opencb.opencga.core.response.VariantQueryResult;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+import org.opencb.opencga.storage.core.variant.query.ParsedVariantQuery;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryParser;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 
 /**
  * Simplest implementation of the VariantQueryExecutor.
@@ -22,6 +25,8 @@ import java.util.List;
  */
 public class DBAdaptorVariantQueryExecutor extends VariantQueryExecutor {
 
+    private static final int VARIANTS_PER_GENE = 1000;
+
     private final VariantDBAdaptor dbAdaptor;
     private Logger logger = LoggerFactory.getLogger(DBAdaptorVariantQueryExecutor.class);
     private static final List<QueryParam> UNSUPPORTED_PARAMS = Arrays.asList(
@@ -53,6 +58,47 @@ public class DBAdaptorVariantQueryExecutor extends VariantQueryExecutor {
         return dbAdaptor.count(query);
     }
 
+    /**
+     * Estimate the number of variants read from the variants storage using the variant density of the regions from the query,
+     * obtained from the stats of the files of the queried studies. Genes, ids and xrefs are resolved with secondary indexes.
+     * Without region filters, all the variants of the queried studies are scanned.
+     *
+     * @param query    Query to execute
+     * @param options  Options for the query
+     * @return         Estimated number of variants, or -1 if the files stats are not available
+     * @throws StorageEngineException if there is an error reading the metadata
+     */
+    @Override
+    public long estimateReadVariants(Query query, QueryOptions options) throws StorageEngineException {
+        List<Integer> studyIds = getQueriedStudies(query);
+        Map<String, Long> chromosomeCounts = getChromosomeCounts(studyIds);
+        if (chromosomeCounts == null) {
+            return -1;
+        }
+        ParsedVariantQuery.VariantQueryXref xrefs = VariantQueryParser.parseXrefs(query);
+        long xrefsCount = xrefs.getVariants().size() + xrefs.getIds().size() + xrefs.getOtherXrefs().size()
+                + ((long) xrefs.getGenes().size()) * VARIANTS_PER_GENE;
+        if (!VariantQueryUtils.isValidParam(query, VariantQueryParam.REGION)) {
+            // Regions and xrefs are combined with an OR. Without regions, only the xrefs are read
+            if (xrefsCount > 0) {
+                return xrefsCount;
+            }
+            long totalCount = 0;
+            for (Long count : chromosomeCounts.values()) {
+                totalCount += count;
+            }
+            return totalCount;
+        }
+        List<Region> regions = Region.parseRegions(query.getString(VariantQueryParam.REGION.key()), true);
+        return estimateRegionsCount(chromosomeCounts, getChromosomeLengths(studyIds), regions) + xrefsCount;
+    }
+
+    @Override
+    public double getDefaultCostPerVariant() {
+        // Sequential scan
+        return 0.01;
+    }
+
     @Override
     public boolean canUseThisExecutor(Query query, QueryOptions options) {
         for (QueryParam unsupportedParam : UNSUPPORTED_PARAMS) {
@@ -1,6 +1,10 @@
 package org.opencb.opencga.storage.core.variant.query.executors;
 
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.metadata.VariantFileHeaderComplexLine;
+import org.opencb.biodata.models.variant.metadata.VariantFileMetadata;
 import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
@@ -8,11 +12,19 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.core.response.VariantQueryResult;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantIterable;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.query.ParsedVariantQuery;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryParser;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 
-import java.util.Collections;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
 import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.QUERY_DEFAULT_TIMEOUT;
 import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.QUERY_MAX_TIMEOUT;
@@ -28,6 +40,12 @@ public abstract class VariantQueryExecutor implements VariantIterable {
     protected final String storageEngineId;
     private final ObjectMap options;
 
+    protected static final long GENOME_LENGTH = 3100000000L;
+    private static final long CHROMOSOME_COUNTS_TTL = TimeUnit.MINUTES.toMillis(10);
+    // Min fraction of the variants of the chromosome counted by estimateFromSingleChromosome
+    private static final double MIN_SAMPLED_FRACTION = 0.01;
+    private final Map<Integer, ChromosomeCounts> chromosomeCounts = new ConcurrentHashMap<>();
+
     public VariantQueryExecutor(VariantStorageMetadataManager metadataManager, String storageEngineId, ObjectMap options) {
         this.metadataManager = metadataManager;
         this.storageEngineId = storageEngineId;
@@ -77,6 +95,218 @@ public abstract class VariantQueryExecutor implements VariantIterable {
      */
     public abstract boolean canUseThisExecutor(Query query, QueryOptions options) throws StorageEngineException;
 
+    /**
+     * Estimate the number of variants that this executor would read to run the query.
+     * Used by the {@link VariantQueryPlanner} to compare the executors able to run the query.
+     *
+     * @param query    Query to execute
+     * @param options  Options for the query
+     * @return         Estimated number of variants, or -1 if unknown
+     * @throws StorageEngineException if there is an error
+     */
+    public long estimateReadVariants(Query query, QueryOptions options) throws StorageEngineException {
+        return -1;
+    }
+
+    /**
+     * Initial cost, in milliseconds, of reading one variant with this executor.
+     * Replaced by the observed latencies once the executor has run some queries.
+     *
+     * @return Cost per variant
+     */
+    public double getDefaultCostPerVariant() {
+        return 0.1;
+    }
+
+    /**
+     * Estimate the number of variants matching the query counting only the variants of one chromosome, and extrapolating to
+     * the rest of chromosomes with the chromosome counts of the queried studies. See {@link #getChromosomeCounts}.
+     *
+     * The counted chromosome is the smallest one with at least 1% of the variants of the queried regions.
+     * Queries by gene, id or xref are counted completely, as they are already restricted to a few variants.
+     *
+     * @param query    Query to execute
+     * @param count    Count the variants of a query
+     * @return         Estimated number of variants, or -1 if the chromosome counts are not available
+     * @throws StorageEngineException if there is an error reading the metadata
+     */
+    protected long estimateFromSingleChromosome(Query query, ToLongFunction<Query> count) throws StorageEngineException {
+        ParsedVariantQuery.VariantQueryXref xrefs = VariantQueryParser.parseXrefs(query);
+        if (!xrefs.getGenes().isEmpty() || !xrefs.getVariants().isEmpty() || !xrefs.getIds().isEmpty()
+                || !xrefs.getOtherXrefs().isEmpty()) {
+            return count.applyAsLong(query);
+        }
+        List<Integer> studyIds = getQueriedStudies(query);
+        Map<String, Long> counts = getChromosomeCounts(studyIds);
+        if (counts == null) {
+            return -1;
+        }
+        Map<String, List<Region>> regionsByChromosome = null;
+        Map<String, Long> weights;
+        if (VariantQueryUtils.isValidParam(query, VariantQueryParam.REGION)) {
+            regionsByChromosome = new HashMap<>();
+            for (Region region : Region.parseRegions(query.getString(VariantQueryParam.REGION.key()), true)) {
+                regionsByChromosome.computeIfAbsent(region.getChromosome(), k -> new ArrayList<>()).add(region);
+            }
+            Map<String, Long> lengths = getChromosomeLengths(studyIds);
+            weights = new HashMap<>();
+            for (Map.Entry<String, List<Region>> entry : regionsByChromosome.entrySet()) {
+                weights.put(entry.getKey(), estimateRegionsCount(counts, lengths, entry.getValue()));
+            }
+        } else {
+            weights = counts;
+        }
+
+        long total = 0;
+        for (Long weight : weights.values()) {
+            total += weight;
+        }
+        String chromosome = null;
+        for (Map.Entry<String, Long> entry : weights.entrySet()) {
+            long weight = entry.getValue();
+            if (weight > 0 && weight >= total * MIN_SAMPLED_FRACTION
+                    && (chromosome == null || weight < weights.get(chromosome))) {
+                chromosome = entry.getKey();
+            }
+        }
+        if (chromosome == null) {
+            // No variants in the queried regions
+            return 0;
+        }
+
+        Query chromosomeQuery = new Query(query);
+        if (regionsByChromosome == null) {
+            chromosomeQuery.put(VariantQueryParam.REGION.key(), chromosome);
+        } else {
+            chromosomeQuery.put(VariantQueryParam.REGION.key(), regionsByChromosome.get(chromosome));
+        }
+        long chromosomeCount = count.applyAsLong(chromosomeQuery);
+        return (long) (chromosomeCount * (total / (double) weights.get(chromosome)));
+    }
+
+    /**
+     * Estimate the number of variants in the regions from the variant density of their chromosomes.
+     * Chromosomes without a known length use the average density of the genome.
+     *
+     * @param chromosomeCounts  Number of variants per chromosome
+     * @param chromosomeLengths Length of each chromosome. See {@link #getChromosomeLengths}
+     * @param regions           Regions
+     * @return                  Estimated number of variants
+     */
+    protected static long estimateRegionsCount(Map<String, Long> chromosomeCounts, Map<String, Long> chromosomeLengths,
+                                               List<Region> regions) {
+        long totalCount = 0;
+        for (Long count : chromosomeCounts.values()) {
+            totalCount += count;
+        }
+        double genomeDensity = totalCount / (double) GENOME_LENGTH;
+        long regionsCount = 0;
+        for (Region region : VariantQueryUtils.mergeRegions(regions)) {
+            long chromosomeCount = chromosomeCounts.getOrDefault(region.getChromosome(), 0L);
+            long chromosomeLength = chromosomeLengths.getOrDefault(region.getChromosome(), 0L);
+            double density = chromosomeLength > 0 ? chromosomeCount / (double) chromosomeLength : genomeDensity;
+            long regionLength = (long) region.getEnd() - region.getStart() + 1;
+            regionsCount += Math.min(chromosomeCount, (long) (regionLength * density));
+        }
+        return regionsCount;
+    }
+
+    /**
+     * Read the length of the chromosomes from the contig lines of the header of the given studies.
+     *
+     * @param studyIds Studies
+     * @return Length of each chromosome. Chromosomes without a contig line with length are missing
+     */
+    protected Map<String, Long> getChromosomeLengths(Collection<Integer> studyIds) {
+        Map<String, Long> lengths = new HashMap<>();
+        for (Integer studyId : studyIds) {
+            StudyMetadata studyMetadata = getMetadataManager().getStudyMetadata(studyId);
+            if (studyMetadata == null || studyMetadata.getVariantHeader() == null) {
+                continue;
+            }
+            for (VariantFileHeaderComplexLine contig : studyMetadata.getVariantHeaderLines("contig").values()) {
+                String length = contig.getGenericFields() == null ? null : contig.getGenericFields().get("length");
+                if (StringUtils.isNumeric(length)) {
+                    lengths.merge(Region.normalizeChromosome(contig.getId()), Long.valueOf(length), Math::max);
+                }
+            }
+        }
+        return lengths;
+    }
+
+    /**
+     * Studies filtered by the query, or all the studies if none.
+     *
+     * @param query Query
+     * @return      List of study ids
+     */
+    protected List<Integer> getQueriedStudies(Query query) {
+        if (VariantQueryUtils.isValidParam(query, VariantQueryParam.STUDY)) {
+            String value = query.getString(VariantQueryParam.STUDY.key());
+            List<String> studies = new ArrayList<>();
+            for (String study : VariantQueryUtils.splitValue(value, VariantQueryUtils.checkOperator(value))) {
+                if (!VariantQueryUtils.isNegated(study)) {
+                    studies.add(study);
+                }
+            }
+            if (!studies.isEmpty()) {
+                return getMetadataManager().getStudyIds(studies);
+            }
+        }
+        return getMetadataManager().getStudyIds();
+    }
+
+    /**
+     * Number of variants per chromosome of the given studies, from the stats of their files.
+     * Files of the same study share most of their variants, so the count of each study is the largest count of its files.
+     * This is a lower bound of the variants in the study. The counts of different studies are added.
+     * The counts of each study are cached for a few minutes.
+     *
+     * @param studyIds Studies
+     * @return Number of variants per chromosome, or null if any file is missing the stats
+     * @throws StorageEngineException if there is an error reading the metadata
+     */
+    protected Map<String, Long> getChromosomeCounts(Collection<Integer> studyIds) throws StorageEngineException {
+        Map<String, Long> counts = new HashMap<>();
+        for (Integer studyId : studyIds) {
+            ChromosomeCounts studyCounts = chromosomeCounts.get(studyId);
+            if (studyCounts == null || studyCounts.timestamp + CHROMOSOME_COUNTS_TTL < System.currentTimeMillis()) {
+                studyCounts = new ChromosomeCounts(readChromosomeCounts(studyId));
+                chromosomeCounts.put(studyId, studyCounts);
+            }
+            if (studyCounts.counts == null) {
+                return null;
+            }
+            studyCounts.counts.forEach((chromosome, count) -> counts.merge(chromosome, count, Long::sum));
+        }
+        return counts.isEmpty() ? null : counts;
+    }
+
+    private Map<String, Long> readChromosomeCounts(int studyId) throws StorageEngineException {
+        Map<String, Long> counts = new HashMap<>();
+        Iterator<VariantFileMetadata> iterator = getMetadataManager().variantFileMetadataIterator(studyId, new QueryOptions());
+        while (iterator.hasNext()) {
+            VariantFileMetadata fileMetadata = iterator.next();
+            if (fileMetadata.getStats() == null || fileMetadata.getStats().getChromosomeCount() == null
+                    || fileMetadata.getStats().getChromosomeCount().isEmpty()) {
+                return null;
+            }
+            for (Map.Entry<String, Long> entry : fileMetadata.getStats().getChromosomeCount().entrySet()) {
+                counts.merge(Region.normalizeChromosome(entry.getKey()), entry.getValue(), Math::max);
+            }
+        }
+        return counts;
+    }
+
+    private static final class ChromosomeCounts {
+        private final Map<String, Long> counts;
+        private final long timestamp = System.currentTimeMillis();
+
+        private ChromosomeCounts(Map<String, Long> counts) {
+            this.counts = counts;
+        }
+    }
+
     public DataResult<Long> count(Query query) {
         VariantQueryResult<Variant> result = get(query, new QueryOptions(QueryOptions.COUNT, true).append(QueryOptions.LIMIT, 0));
         return new DataResult<>(
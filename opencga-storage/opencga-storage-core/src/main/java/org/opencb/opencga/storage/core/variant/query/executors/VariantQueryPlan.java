@@ -0,0 +1,142 @@
+package org.opencb.opencga.storage.core.variant.query.executors;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executor selected to run a variant query, with the cost estimation of each of the candidates.
+ *
+ * Returned to the user with the query result when the query option {@link VariantQueryPlanner#EXPLAIN} is set.
+ */
+public class VariantQueryPlan {
+
+    private final VariantQueryExecutor executor;
+    private final String selectedExecutor;
+    private final boolean costBased;
+    private final List<Candidate> candidates;
+    private long planTimeMillis;
+
+    public VariantQueryPlan(VariantQueryExecutor executor, boolean costBased, List<Candidate> candidates) {
+        this.executor = executor;
+        this.selectedExecutor = executor.getClass().getSimpleName();
+        this.costBased = costBased;
+        this.candidates = candidates == null ? new ArrayList<>() : candidates;
+    }
+
+    @JsonIgnore
+    public VariantQueryExecutor getExecutor() {
+        return executor;
+    }
+
+    public String getSelectedExecutor() {
+        return selectedExecutor;
+    }
+
+    public boolean isCostBased() {
+        return costBased;
+    }
+
+    public List<Candidate> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @return Candidate of the selected executor. Null if the cost of the selected executor was not estimated
+     */
+    @JsonIgnore
+    public Candidate getSelectedCandidate() {
+        for (Candidate candidate : candidates) {
+            if (candidate.isSelected()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public long getPlanTimeMillis() {
+        return planTimeMillis;
+    }
+
+    public VariantQueryPlan setPlanTimeMillis(long planTimeMillis) {
+        this.planTimeMillis = planTimeMillis;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("VariantQueryPlan{");
+        sb.append("selectedExecutor='").append(selectedExecutor).append('\'');
+        sb.append(", costBased=").append(costBased);
+        sb.append(", candidates=").append(candidates);
+        sb.append(", planTimeMillis=").append(planTimeMillis);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static class Candidate {
+        private final String executor;
+        private final long estimatedVariants;
+        private final double costPerVariant;
+        private final int observations;
+        private boolean selected;
+
+        public Candidate(String executor, long estimatedVariants, double costPerVariant, int observations) {
+            this.executor = executor;
+            this.estimatedVariants = estimatedVariants;
+            this.costPerVariant = costPerVariant;
+            this.observations = observations;
+        }
+
+        public String getExecutor() {
+            return executor;
+        }
+
+        /**
+         * @return Estimated number of variants to be read by the executor
+         */
+        public long getEstimatedVariants() {
+            return estimatedVariants;
+        }
+
+        /**
+         * @return Cost in milliseconds of reading one variant. Default value until the first observation.
+         */
+        public double getCostPerVariant() {
+            return costPerVariant;
+        }
+
+        public int getObservations() {
+            return observations;
+        }
+
+        /**
+         * @return Estimated time to run the query, in milliseconds
+         */
+        public double getEstimatedCost() {
+            return estimatedVariants * costPerVariant;
+        }
+
+        public boolean isSelected() {
+            return selected;
+        }
+
+        public Candidate setSelected(boolean selected) {
+            this.selected = selected;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Candidate{");
+            sb.append("executor='").append(executor).append('\'');
+            sb.append(", estimatedVariants=").append(estimatedVariants);
+            sb.append(", costPerVariant=").append(costPerVariant);
+            sb.append(", observations=").append(observations);
+            sb.append(", selected=").append(selected);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
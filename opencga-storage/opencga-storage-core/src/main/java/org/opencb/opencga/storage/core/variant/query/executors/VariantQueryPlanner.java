@@ -0,0 +1,175 @@
+package org.opencb.opencga.storage.core.variant.query.executors;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.QUERY_PLANNER_ACTIVE;
+
+/**
+ * Select the {@link VariantQueryExecutor} to run a query.
+ *
+ * By default, the first executor that can run the query is selected.
+ * If {@link org.opencb.opencga.storage.core.variant.VariantStorageOptions#QUERY_PLANNER_ACTIVE} is enabled, the cost of
+ * each executor is estimated as the number of variants it would read (see {@link VariantQueryExecutor#estimateReadVariants})
+ * multiplied by its cost per variant.
+ * The cost per variant starts with {@link VariantQueryExecutor#getDefaultCostPerVariant()}, and is updated with the
+ * observed latency of every completed query.
+ *
+ * Executors without estimation (e.g. compound heterozygous, or queries requiring the search engine) are selected as soon
+ * as they are the first executor able to run the query, as in the default behaviour.
+ */
+public class VariantQueryPlanner {
+
+    public static final String EXPLAIN = "explain";
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final ObjectMap options;
+    private final Map<String, ExecutorStatistics> statistics = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(VariantQueryPlanner.class);
+
+    public VariantQueryPlanner(ObjectMap options) {
+        this.options = options;
+    }
+
+    /**
+     * Build the execution plan of a query.
+     *
+     * @param executors Executors sorted by priority. The last one must be able to run any query
+     * @param query     Query to execute
+     * @param options   Query options
+     * @return          Execution plan
+     * @throws StorageEngineException if there is an error estimating the cost
+     */
+    public VariantQueryPlan plan(List<VariantQueryExecutor> executors, Query query, QueryOptions options)
+            throws StorageEngineException {
+        StopWatch stopWatch = StopWatch.createStarted();
+        boolean explain = options.getBoolean(EXPLAIN, false);
+        boolean costBased = options.getBoolean(QUERY_PLANNER_ACTIVE.key(),
+                this.options.getBoolean(QUERY_PLANNER_ACTIVE.key(), QUERY_PLANNER_ACTIVE.defaultValue()));
+
+        List<VariantQueryExecutor> usableExecutors = new ArrayList<>(executors.size());
+        for (VariantQueryExecutor executor : executors) {
+            if (executor.canUseThisExecutor(query, options)) {
+                usableExecutors.add(executor);
+                if (!costBased && !explain) {
+                    // Default behaviour. First executor wins
+                    break;
+                }
+            }
+        }
+        if (usableExecutors.isEmpty()) {
+            return null;
+        }
+        VariantQueryExecutor first = usableExecutors.get(0);
+        if (usableExecutors.size() == 1) {
+            return new VariantQueryPlan(first, false, null).setPlanTimeMillis(stopWatch.getTime(TimeUnit.MILLISECONDS));
+        }
+
+        List<VariantQueryPlan.Candidate> candidates = new ArrayList<>(usableExecutors.size());
+        VariantQueryExecutor cheapestExecutor = null;
+        VariantQueryPlan.Candidate cheapest = null;
+        VariantQueryPlan.Candidate firstCandidate = null;
+        for (VariantQueryExecutor executor : usableExecutors) {
+            long estimatedVariants = executor.estimateReadVariants(query, options);
+            if (estimatedVariants < 0) {
+                if (executor == first) {
+                    // Mandatory executor. Do not look for other executors
+                    break;
+                } else {
+                    // Unknown cost. Discard executor
+                    continue;
+                }
+            }
+            ExecutorStatistics stats = getStatistics(executor);
+            VariantQueryPlan.Candidate candidate = new VariantQueryPlan.Candidate(executor.getClass().getSimpleName(),
+                    estimatedVariants, stats.getCostPerVariant(), stats.getObservations());
+            candidates.add(candidate);
+            if (executor == first) {
+                firstCandidate = candidate;
+            }
+            if (cheapest == null || candidate.getEstimatedCost() < cheapest.getEstimatedCost()) {
+                cheapest = candidate;
+                cheapestExecutor = executor;
+            }
+        }
+
+        VariantQueryPlan plan;
+        if (costBased && cheapestExecutor != null) {
+            cheapest.setSelected(true);
+            plan = new VariantQueryPlan(cheapestExecutor, true, candidates);
+        } else {
+            if (firstCandidate != null) {
+                firstCandidate.setSelected(true);
+            }
+            plan = new VariantQueryPlan(first, false, candidates);
+        }
+        plan.setPlanTimeMillis(stopWatch.getTime(TimeUnit.MILLISECONDS));
+        logger.debug("Query plan: {}", plan);
+        return plan;
+    }
+
+    /**
+     * Update the cost per variant of the selected executor with the observed latency.
+     * Only complete executions are used, as queries stopped by the limit do not read all the estimated variants.
+     *
+     * @param plan         Executed plan
+     * @param timeMillis   Execution time
+     * @param completed    If the query read all the variants, i.e. the results were not truncated by the limit
+     */
+    public void onQueryExecuted(VariantQueryPlan plan, long timeMillis, boolean completed) {
+        if (plan == null || !completed) {
+            return;
+        }
+        VariantQueryPlan.Candidate candidate = plan.getSelectedCandidate();
+        if (candidate == null || candidate.getEstimatedVariants() <= 0) {
+            return;
+        }
+        getStatistics(plan.getExecutor()).addObservation(timeMillis / (double) candidate.getEstimatedVariants());
+    }
+
+    public Map<String, ExecutorStatistics> getStatistics() {
+        return statistics;
+    }
+
+    private ExecutorStatistics getStatistics(VariantQueryExecutor executor) {
+        return statistics.computeIfAbsent(executor.getClass().getName(),
+                k -> new ExecutorStatistics(executor.getDefaultCostPerVariant()));
+    }
+
+    public static class ExecutorStatistics {
+        private double costPerVariant;
+        private int observations;
+
+        public ExecutorStatistics(double costPerVariant) {
+            this.costPerVariant = costPerVariant;
+        }
+
+        public synchronized double getCostPerVariant() {
+            return costPerVariant;
+        }
+
+        public synchronized int getObservations() {
+            return observations;
+        }
+
+        synchronized void addObservation(double observedCostPerVariant) {
+            if (observations == 0) {
+                costPerVariant = observedCostPerVariant;
+            } else {
+                costPerVariant = EWMA_ALPHA * observedCostPerVariant + (1 - EWMA_ALPHA) * costPerVariant;
+            }
+            observations++;
+        }
+    }
+}
@@ -1,21 +1,40 @@
 package org.opencb.opencga.storage.core.variant.search;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opencb.biodata.models.variant.Variant;
 import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.core.config.storage.StorageConfiguration;
+import org.opencb.opencga.core.response.VariantQueryResult;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.ParallelMultiVariantDBIterator;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 import org.opencb.opencga.storage.core.variant.query.executors.VariantQueryExecutor;
 import org.opencb.opencga.storage.core.variant.search.solr.VariantSearchManager;
 
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.INTERSECT_PIPELINE_BATCH_SIZE;
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.INTERSECT_PIPELINE_POOL_SIZE;
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.INTERSECT_PIPELINE_THREADS;
+
 /**
  * Created on 01/04/19.
  *
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
-public abstract class AbstractSearchIndexVariantQueryExecutor extends VariantQueryExecutor {
+public abstract class AbstractSearchIndexVariantQueryExecutor extends VariantQueryExecutor implements Closeable {
     protected final VariantSearchManager searchManager;
     protected final String dbName;
     protected final VariantDBAdaptor dbAdaptor;
     private final StorageConfiguration configuration;
+    private ExecutorService pipelineExecutor;
+    private ExecutorService pipelineReaderExecutor;
 
     public AbstractSearchIndexVariantQueryExecutor(
             VariantDBAdaptor dbAdaptor, VariantSearchManager searchManager, String storageEngineId, String dbName,
@@ -27,6 +46,76 @@ public abstract class AbstractSearchIndexVariantQueryExecutor extends VariantQue
         this.configuration = configuration;
     }
 
+    /**
+     * Fetch from the {@link VariantDBAdaptor} the variants from an iterator of variant IDs, keeping the order of the iterator.
+     * If {@link org.opencb.opencga.storage.core.variant.VariantStorageOptions#INTERSECT_PIPELINE_THREADS} is positive, the
+     * variant IDs iterator is read from a background thread while the previous batches are being fetched by concurrent queries.
+     * The queries of all the pipelined joins share a pool of
+     * {@link org.opencb.opencga.storage.core.variant.VariantStorageOptions#INTERSECT_PIPELINE_POOL_SIZE} threads.
+     *
+     * @param variantsIterator  Iterator of variant IDs, usually from the search engine
+     * @param query             Query to apply over the variants in the storage
+     * @param options           Query options
+     * @return                  Variants iterator
+     */
+    protected VariantDBIterator joinIterator(Iterator<?> variantsIterator, Query query, QueryOptions options) {
+        int numThreads = getPipelineThreads(options);
+        if (numThreads > 0) {
+            int batchSize = options.getInt(INTERSECT_PIPELINE_BATCH_SIZE.key(),
+                    getOptions().getInt(INTERSECT_PIPELINE_BATCH_SIZE.key(), INTERSECT_PIPELINE_BATCH_SIZE.defaultValue()));
+            return new ParallelMultiVariantDBIterator(variantsIterator, batchSize, numThreads, query, options,
+                    (q, o) -> dbAdaptor.iterator(q, o), getPipelineExecutor(), getPipelineReaderExecutor());
+        } else {
+            return dbAdaptor.iterator(variantsIterator, query, options);
+        }
+    }
+
+    protected VariantQueryResult<Variant> joinGet(Iterator<?> variantsIterator, Query query, QueryOptions options) {
+        if (getPipelineThreads(options) > 0) {
+            return VariantQueryUtils.addSamplesMetadataIfRequested(joinIterator(variantsIterator, query, options).toDataResult(),
+                    query, options, getMetadataManager());
+        } else {
+            return dbAdaptor.get(variantsIterator, query, options);
+        }
+    }
+
+    private int getPipelineThreads(QueryOptions options) {
+        return options.getInt(INTERSECT_PIPELINE_THREADS.key(),
+                getOptions().getInt(INTERSECT_PIPELINE_THREADS.key(), INTERSECT_PIPELINE_THREADS.defaultValue()));
+    }
+
+    private synchronized ExecutorService getPipelineExecutor() {
+        if (pipelineExecutor == null) {
+            // Fixed size, independent of the threads requested by each query
+            int poolSize = Math.max(1,
+                    getOptions().getInt(INTERSECT_PIPELINE_POOL_SIZE.key(), INTERSECT_PIPELINE_POOL_SIZE.defaultValue()));
+            pipelineExecutor = Executors.newFixedThreadPool(poolSize,
+                    new ThreadFactoryBuilder().setNameFormat("variant-search-join-%d").setDaemon(true).build());
+        }
+        return pipelineExecutor;
+    }
+
+    private synchronized ExecutorService getPipelineReaderExecutor() {
+        if (pipelineReaderExecutor == null) {
+            // One thread per open iterator. Can not share the pool of the queries, as the readers block until the queries are consumed
+            pipelineReaderExecutor = Executors.newCachedThreadPool(
+                    new ThreadFactoryBuilder().setNameFormat("variant-search-join-reader-%d").setDaemon(true).build());
+        }
+        return pipelineReaderExecutor;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (pipelineExecutor != null) {
+            pipelineExecutor.shutdownNow();
+            pipelineExecutor = null;
+        }
+        if (pipelineReaderExecutor != null) {
+            pipelineReaderExecutor.shutdownNow();
+            pipelineReaderExecutor = null;
+        }
+    }
+
     protected boolean searchActiveAndAlive() {
         return searchActiveAndAlive(dbName);
     }
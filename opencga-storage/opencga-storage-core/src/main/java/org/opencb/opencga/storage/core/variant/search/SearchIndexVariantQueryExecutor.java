@@ -47,6 +47,7 @@ public class SearchIndexVariantQueryExecutor extends AbstractSearchIndexVariantQ
     private boolean intersectActive;
     private boolean intersectAlways;
     private int intersectParamsThreshold;
+    private boolean intersectExport;
 
     public SearchIndexVariantQueryExecutor(VariantDBAdaptor dbAdaptor, VariantSearchManager searchManager,
                                            String storageEngineId, String dbName, StorageConfiguration configuration,
@@ -55,6 +56,7 @@ public class SearchIndexVariantQueryExecutor extends AbstractSearchIndexVariantQ
         intersectActive = getOptions().getBoolean(INTERSECT_ACTIVE.key(), INTERSECT_ACTIVE.defaultValue());
         intersectAlways = getOptions().getBoolean(INTERSECT_ALWAYS.key(), INTERSECT_ALWAYS.defaultValue());
         intersectParamsThreshold = getOptions().getInt(INTERSECT_PARAMS_THRESHOLD.key(), INTERSECT_PARAMS_THRESHOLD.defaultValue());
+        intersectExport = getOptions().getBoolean(INTERSECT_EXPORT.key(), INTERSECT_EXPORT.defaultValue());
     }
 
     public SearchIndexVariantQueryExecutor setIntersectActive(boolean intersectActive) {
@@ -72,11 +74,47 @@ public class SearchIndexVariantQueryExecutor extends AbstractSearchIndexVariantQ
         return this;
     }
 
+    public SearchIndexVariantQueryExecutor setIntersectExport(boolean intersectExport) {
+        this.intersectExport = intersectExport;
+        return this;
+    }
+
     @Override
     public boolean canUseThisExecutor(Query query, QueryOptions options) throws StorageEngineException {
         return doQuerySearchManager(query, options) || doIntersectWithSearch(query, options);
     }
 
+    /**
+     * Number of variants returned by the search engine. Fetched with a count query (Solr numFound) over only one chromosome.
+     * See {@link #estimateFromSingleChromosome}.
+     *
+     * @param query    Query to execute
+     * @param options  Options for the query
+     * @return         Estimated number of variants, or -1 if the search engine is mandatory for this query
+     * @throws StorageEngineException if there is an error reading the metadata
+     */
+    @Override
+    public long estimateReadVariants(Query query, QueryOptions options) throws StorageEngineException {
+        if (VariantStorageEngine.UseSearchIndex.from(options).equals(VariantStorageEngine.UseSearchIndex.YES)
+                || VariantQueryUtils.isValidParam(query, VariantQueryParam.ANNOT_TRAIT)) {
+            return -1;
+        }
+        return estimateFromSingleChromosome(query, q -> {
+            Query searchEngineQuery = doQuerySearchManager(q, options) ? q : getSearchEngineQuery(q);
+            try {
+                return searchManager.count(dbName, searchEngineQuery);
+            } catch (IOException | VariantSearchException e) {
+                throw new VariantQueryException("Error querying Solr", e);
+            }
+        });
+    }
+
+    @Override
+    public double getDefaultCostPerVariant() {
+        // Read from the search engine, and join with the variants storage
+        return 0.2;
+    }
+
     @Override
     public DataResult<Long> count(Query query) {
         try {
@@ -159,10 +197,10 @@ public class SearchIndexVariantQueryExecutor extends AbstractSearchIndexVariantQ
 
             logger.debug("Intersect query " + engineQuery.toJson() + " options " + options.toJson());
             if (iterator) {
-                return dbAdaptor.iterator(variantsIterator, engineQuery, options);
+                return joinIterator(variantsIterator, engineQuery, options);
             } else {
                 setDefaultTimeout(options);
-                VariantQueryResult<Variant> queryResult = dbAdaptor.get(variantsIterator, engineQuery, options);
+                VariantQueryResult<Variant> queryResult = joinGet(variantsIterator, engineQuery, options);
                 if (numTotalResults != null) {
                     queryResult.setApproximateCount(approxCount);
                     queryResult.setApproximateCountSamplingSize(approxCountSamplingSize);
@@ -314,6 +352,12 @@ public class SearchIndexVariantQueryExecutor extends AbstractSearchIndexVariantQ
                         .stream()
                         .map(VariantSearchModel::getId)
                         .iterator();
+            } else if (intersectExport) {
+                // Stream only the IDs. The iterator is consumed lazily by the storage engine while Solr keeps exporting.
+                if (numTotalResults != null) {
+                    numTotalResults.set(searchManager.count(dbName, query));
+                }
+                variantsIterator = searchManager.exportIdIterator(dbName, query, limit, skip);
             } else {
                 SolrNativeIterator nativeIterator = searchManager.nativeIterator(dbName, query, queryOptions);
                 if (numTotalResults != null) {
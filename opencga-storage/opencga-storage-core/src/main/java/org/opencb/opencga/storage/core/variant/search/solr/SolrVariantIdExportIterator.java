@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015-2017 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.search.solr;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.InputStreamResponseParser;
+import org.apache.solr.client.solrj.io.stream.JSONTupleStream;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterate over the IDs of the variants matching a Solr query using the streaming "/export" handler.
+ *
+ * Unlike {@link SolrNativeIterator}, the results are not paginated. The IDs are read from the docValues of the "id" field
+ * while Solr writes them, so the consumer can start fetching the variants from the primary storage without waiting for
+ * any page. When connected to a SolrCloud, the export is requested through the "/stream" handler, that merges the
+ * exports from all the shards.
+ */
+public class SolrVariantIdExportIterator implements Iterator<String>, AutoCloseable {
+
+    public static final String EXPORT_HANDLER = "/export";
+    public static final String STREAM_HANDLER = "/stream";
+
+    private static final String ID_FIELD = "id";
+    private static final String EOF = "EOF";
+    private static final String EXCEPTION = "EXCEPTION";
+
+    private final JSONTupleStream tupleStream;
+    private String next;
+    private int remaining;
+    private boolean closed;
+
+    public SolrVariantIdExportIterator(SolrClient solrClient, String collection, SolrQuery solrQuery, int limit, int skip)
+            throws SolrServerException {
+        this.remaining = limit < 0 ? Integer.MAX_VALUE : limit;
+
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        if (solrClient instanceof CloudSolrClient) {
+            params.set("expr", buildSearchExpression(collection, solrQuery));
+            params.set(CommonParams.QT, STREAM_HANDLER);
+        } else {
+            params.set(CommonParams.Q, solrQuery.getQuery());
+            if (solrQuery.getFilterQueries() != null) {
+                params.set(CommonParams.FQ, solrQuery.getFilterQueries());
+            }
+            params.set(CommonParams.FL, ID_FIELD);
+            params.set(CommonParams.SORT, ID_FIELD + " asc");
+            params.set(CommonParams.QT, EXPORT_HANDLER);
+        }
+        params.set(CommonParams.WT, CommonParams.JSON);
+
+        QueryRequest request = new QueryRequest(params);
+        request.setResponseParser(new InputStreamResponseParser(CommonParams.JSON));
+        try {
+            NamedList<Object> response = solrClient.request(request, collection);
+            InputStream stream = (InputStream) response.get("stream");
+            tupleStream = new JSONTupleStream(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new VariantQueryException("Error exporting variants from Solr", e);
+        }
+
+        // The export handler does not support skip
+        for (int i = 0; i < skip && fetchNext(); i++) {
+            next = null;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null || fetchNext();
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String id = next;
+        next = null;
+        remaining--;
+        return id;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            tupleStream.close();
+        }
+    }
+
+    private boolean fetchNext() {
+        if (closed) {
+            return false;
+        }
+        try {
+            if (remaining <= 0) {
+                close();
+                return false;
+            }
+            Map<String, Object> tuple = tupleStream.next();
+            // Exception tuples are also marked as EOF
+            if (tuple != null && tuple.containsKey(EXCEPTION)) {
+                close();
+                throw new VariantQueryException("Error exporting variants from Solr: " + tuple.get(EXCEPTION));
+            }
+            if (tuple == null || tuple.containsKey(EOF)) {
+                close();
+                return false;
+            }
+            next = tuple.get(ID_FIELD).toString();
+            return true;
+        } catch (IOException e) {
+            throw new VariantQueryException("Error exporting variants from Solr", e);
+        }
+    }
+
+    static String buildSearchExpression(String collection, SolrQuery solrQuery) {
+        StringBuilder expr = new StringBuilder("search(").append(collection);
+        expr.append(", q=").append(quote(solrQuery.getQuery()));
+        if (solrQuery.getFilterQueries() != null) {
+            for (String fq : solrQuery.getFilterQueries()) {
+                expr.append(", fq=").append(quote(fq));
+            }
+        }
+        expr.append(", fl=").append(quote(ID_FIELD));
+        expr.append(", sort=").append(quote(ID_FIELD + " asc"));
+        expr.append(", qt=").append(quote(EXPORT_HANDLER));
+        return expr.append(')').toString();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
@@ -36,6 +36,7 @@ import org.opencb.cellbase.core.result.CellBaseDataResponse;
 import org.opencb.commons.ProgressLogger;
 import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.FacetField;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.solr.FacetQueryParser;
@@ -51,6 +52,7 @@ import org.opencb.opencga.core.config.storage.StorageConfiguration;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.exceptions.VariantSearchException;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
 import org.opencb.opencga.storage.core.variant.io.VariantReaderUtils;
@@ -62,10 +64,14 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.*;
 
 
 /**
@@ -88,6 +94,24 @@ public class VariantSearchManager {
     public static final String USE_SEARCH_INDEX = "useSearchIndex";
     public static final int DEFAULT_INSERT_BATCH_SIZE = 10000;
 
+    /**
+     * When to commit the documents sent to the search engine while loading variants.
+     *
+     * Variants are notified to the {@link VariantSearchLoadListener#postLoad} only after being committed, so they are kept in
+     * memory until the next commit.
+     */
+    public enum CommitPolicy {
+        /** Commit after every batch. Default. */
+        BATCH,
+        /** Commit every {@link VariantStorageOptions#SEARCH_LOAD_COMMIT_DOCS} documents. */
+        DOCS,
+        /**
+         * Let the search engine commit within {@link VariantStorageOptions#SEARCH_LOAD_COMMIT_WITHIN} milliseconds.
+         * An explicit commit is still executed every {@link VariantStorageOptions#SEARCH_LOAD_COMMIT_DOCS} documents.
+         */
+        TIME
+    }
+
     public VariantSearchManager(VariantStorageMetadataManager variantStorageMetadataManager, StorageConfiguration storageConfiguration) {
         this.storageConfiguration = storageConfiguration;
 
@@ -175,17 +199,22 @@ public class VariantSearchManager {
      * @throws SolrServerException SolrServerException
      */
     public void insert(String collection, List<Variant> variants) throws IOException, SolrServerException {
+        UpdateResponse updateResponse = insert(collection, variants, variantSearchToVariantConverter, -1);
+        if (updateResponse != null && updateResponse.getStatus() == 0) {
+            solrManager.getSolrClient().commit(collection);
+        }
+    }
+
+    private UpdateResponse insert(String collection, List<Variant> variants, VariantSearchToVariantConverter converter,
+                                  int commitWithin) throws IOException, SolrServerException {
         if (CollectionUtils.isNotEmpty(variants)) {
-            List<VariantSearchModel> variantSearchModels = variantSearchToVariantConverter.convertListToStorageType(variants);
+            List<VariantSearchModel> variantSearchModels = converter.convertListToStorageType(variants);
 
             if (!variantSearchModels.isEmpty()) {
-                UpdateResponse updateResponse;
-                updateResponse = solrManager.getSolrClient().addBeans(collection, variantSearchModels);
-                if (updateResponse.getStatus() == 0) {
-                    solrManager.getSolrClient().commit(collection);
-                }
+                return solrManager.getSolrClient().addBeans(collection, variantSearchModels, commitWithin);
             }
         }
+        return null;
     }
 
     /**
@@ -231,12 +260,51 @@ public class VariantSearchManager {
      */
     public VariantSearchLoadResult load(String collection, VariantDBIterator variantDBIterator, ProgressLogger progressLogger,
                                         VariantSearchLoadListener loadListener) throws VariantSearchException {
+        return load(collection, variantDBIterator, progressLogger, loadListener, new ObjectMap());
+    }
+
+    /**
+     * Load a Solr core/collection from a variant DB iterator.
+     *
+     * Variants are read in batches from the iterator, and sent to the search engine using
+     * {@link VariantStorageOptions#SEARCH_LOAD_THREADS} concurrent update streams. As the iterator returns sorted variants,
+     * each stream receives a contiguous genomic range, and the SolrCloud client routes every document to its shard leader.
+     * The read queue is bounded, so the reader is blocked while all the streams are busy.
+     *
+     * Commits are issued according to the {@link CommitPolicy} defined at {@link VariantStorageOptions#SEARCH_LOAD_COMMIT_POLICY}.
+     * A final commit is always executed at the end of the load. The load listener is notified only after the variants are
+     * committed, so a failed load never marks as synchronized a variant that is not in the search engine.
+     *
+     * @param collection        Collection name
+     * @param variantDBIterator Iterator to retrieve the variants to load
+     * @param progressLogger    Progress logger
+     * @param loadListener      Load listener
+     * @param options           Load options
+     * @return VariantSearchLoadResult
+     * @throws VariantSearchException VariantSearchException
+     */
+    public VariantSearchLoadResult load(String collection, VariantDBIterator variantDBIterator, ProgressLogger progressLogger,
+                                        VariantSearchLoadListener loadListener, ObjectMap options) throws VariantSearchException {
         if (variantDBIterator == null) {
             throw new VariantSearchException("Missing variant DB iterator when loading Solr variant collection");
         }
 
+        int numThreads = Math.max(1, options.getInt(SEARCH_LOAD_THREADS.key(), SEARCH_LOAD_THREADS.defaultValue()));
+        CommitPolicy commitPolicy = CommitPolicy.valueOf(options.getString(SEARCH_LOAD_COMMIT_POLICY.key(),
+                SEARCH_LOAD_COMMIT_POLICY.defaultValue()).toUpperCase());
+        int commitDocs = options.getInt(SEARCH_LOAD_COMMIT_DOCS.key(), SEARCH_LOAD_COMMIT_DOCS.defaultValue());
+        int commitWithin = commitPolicy == CommitPolicy.TIME
+                ? options.getInt(SEARCH_LOAD_COMMIT_WITHIN.key(), SEARCH_LOAD_COMMIT_WITHIN.defaultValue())
+                : -1;
+        logger.info("Loading variants into Solr collection '{}' with {} update streams. Commit policy: {}",
+                collection, numThreads, commitPolicy);
+
+        SolrClient solrClient = solrManager.getSolrClient();
         AtomicInteger count = new AtomicInteger();
         AtomicInteger numLoadedVariants = new AtomicInteger();
+        // Variants sent and not committed yet. Only accessed from the writer thread
+        List<List<Variant>> uncommitted = new ArrayList<>();
+        AtomicLong uncommittedDocs = new AtomicLong();
 
         ParallelTaskRunner<Variant, Variant> ptr = new ParallelTaskRunner<>((n) -> {
             List<Variant> batch = new ArrayList<>(n);
@@ -244,30 +312,59 @@ public class VariantSearchManager {
                 batch.add(variantDBIterator.next());
             }
             count.addAndGet(batch.size());
-            return batch;
-        }, batch -> {
-            progressLogger.increment(batch.size(), () -> "up to position " + batch.get(batch.size() - 1).toString());
-            return batch;
-        }, batch -> {
+            if (!batch.isEmpty()) {
+                progressLogger.increment(batch.size(), () -> "up to position " + batch.get(batch.size() - 1).toString());
+            }
             try {
+                // Listeners are not thread safe. Filter variants from the single reader thread
                 loadListener.preLoad(batch);
-                numLoadedVariants.addAndGet(batch.size());
-                insert(collection, batch);
-                loadListener.postLoad(batch);
-            } catch (SolrServerException | IOException e) {
-                throw new RuntimeException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return batch;
+        }, () -> {
+            VariantSearchToVariantConverter converter = new VariantSearchToVariantConverter();
+            return batch -> {
+                if (batch.isEmpty()) {
+                    return batch;
+                }
+                try {
+                    UpdateResponse updateResponse = insert(collection, batch, converter, commitWithin);
+                    if (updateResponse != null && updateResponse.getStatus() != 0) {
+                        throw new VariantSearchException("Error loading variants into Solr collection '" + collection + "'. "
+                                + "Status " + updateResponse.getStatus());
+                    }
+                } catch (SolrServerException | IOException | VariantSearchException e) {
+                    throw new RuntimeException(e);
+                }
+                return batch;
+            };
+        }, batch -> {
+            // Commit from the single writer thread. Every batch received here has been already accepted by the search engine
+            numLoadedVariants.addAndGet(batch.size());
+            uncommitted.add(batch);
+            if (commitPolicy == CommitPolicy.BATCH || uncommittedDocs.addAndGet(batch.size()) >= commitDocs) {
+                try {
+                    commit(solrClient, collection, uncommitted, loadListener);
+                } catch (SolrServerException | IOException e) {
+                    throw new RuntimeException(e);
+                }
+                uncommittedDocs.set(0);
             }
             return true;
         }, ParallelTaskRunner.Config.builder()
                 .setBatchSize(insertBatchSize)
-                .setCapacity(2)
-                .setNumTasks(1)
+                .setCapacity(numThreads * 2)
+                .setNumTasks(numThreads)
+                .setAbortOnFail(true)
+                .setSorted(false)
                 .build());
 
         StopWatch stopWatch = StopWatch.createStarted();
         try {
             ptr.run();
-        } catch (ExecutionException e) {
+            commit(solrClient, collection, uncommitted, loadListener);
+        } catch (ExecutionException | SolrServerException | IOException e) {
             throw new VariantSearchException("Error loading secondary index", e);
         }
 
@@ -278,6 +375,16 @@ public class VariantSearchManager {
     }
 
 
+    private void commit(SolrClient solrClient, String collection, List<List<Variant>> uncommitted, VariantSearchLoadListener loadListener)
+            throws SolrServerException, IOException {
+        solrClient.commit(collection);
+        // Mark as synchronized only the variants already committed
+        for (List<Variant> batch : uncommitted) {
+            loadListener.postLoad(batch);
+        }
+        uncommitted.clear();
+    }
+
     /**
      * Delete variants a Solr core/collection from a variant DB iterator.
      *
@@ -407,6 +514,27 @@ public class VariantSearchManager {
         }
     }
 
+    /**
+     * Return an iterator over the IDs of the variants from a Solr core/collection matching the given query.
+     * The IDs are streamed using the "/export" handler, with no pagination.
+     *
+     * @param collection   Collection name
+     * @param query        Query
+     * @param limit        Max number of IDs to return
+     * @param skip         Number of IDs to skip
+     * @return Solr variant ID iterator
+     * @throws VariantSearchException VariantSearchException
+     */
+    public SolrVariantIdExportIterator exportIdIterator(String collection, Query query, int limit, int skip)
+            throws VariantSearchException {
+        try {
+            SolrQuery solrQuery = solrQueryParser.parse(query, new QueryOptions());
+            return new SolrVariantIdExportIterator(solrManager.getSolrClient(), collection, solrQuery, limit, skip);
+        } catch (SolrServerException e) {
+            throw new VariantSearchException("Error getting variant id iterator (export)", e);
+        }
+    }
+
     /**
      *
      * @param collection Collection name
@@ -42,6 +42,7 @@ import org.opencb.opencga.storage.core.io.plain.StringDataWriter;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.metadata.models.CohortMetadata;
 import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.utils.AdaptiveBatchController;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
@@ -212,12 +213,14 @@ public class DefaultVariantStatisticsManager extends VariantStatisticsManager {
         QueryOptions readerOptions = new QueryOptions(QueryOptions.SORT, true)
                 .append(QueryOptions.EXCLUDE, VariantField.ANNOTATION);
         logger.info("ReaderQueryOptions: " + readerOptions.toJson());
-        VariantDBReader reader = new VariantDBReader(variantDBAdaptor, readerQuery, readerOptions);
+        AdaptiveBatchController batchController = AdaptiveBatchController.create(options, "Stats",
+                VariantStorageOptions.STATS_CALCULATE_BATCH_ADAPTIVE_TARGET_LATENCY, batchSize, numTasks, numTasks * 2);
+        DataReader<Variant> reader = batchController.wrap(new VariantDBReader(variantDBAdaptor, readerQuery, readerOptions));
         List<Task<Variant, String>> tasks = new ArrayList<>(numTasks);
         ProgressLogger progressLogger = buildCreateStatsProgressLogger(dbAdaptor, readerQuery, readerOptions);
         for (int i = 0; i < numTasks; i++) {
-            tasks.add(new VariantStatsWrapperTask(overwrite, cohorts, studyMetadata, tagmap, progressLogger,
-                    aggregation));
+            tasks.add(batchController.wrap(new VariantStatsWrapperTask(overwrite, cohorts, studyMetadata, tagmap, progressLogger,
+                    aggregation)));
         }
         StringDataWriter writer = buildVariantStatsStringDataWriter(output);
 
@@ -0,0 +1,124 @@
+package org.opencb.opencga.storage.core.cache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.DataResult;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.config.storage.CacheConfiguration;
+import org.opencb.opencga.core.config.storage.StorageConfiguration;
+import org.opencb.opencga.core.response.VariantQueryResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+public class CacheManagerTest {
+
+    private CacheManager cacheManager;
+
+    @Before
+    public void setUp() throws Exception {
+        StorageConfiguration configuration = new StorageConfiguration();
+        configuration.setCache(new CacheConfiguration()
+                .setActive(true)
+                .setType(CacheConfiguration.LOCAL_TYPE)
+                .setSlowThreshold(0)
+                .setMaxResultSize(10)
+                .setMaxWeight(100));
+        cacheManager = new CacheManager(configuration);
+    }
+
+    @Test
+    public void testGetSet() {
+        String key = cacheManager.createKey("s1", "var", new Query("gene", "BRCA2"), new QueryOptions());
+        Assert.assertNull(cacheManager.get(key));
+
+        DataResult<Long> result = new DataResult<>(10, Collections.emptyList(), 1, Collections.singletonList(5L), 1);
+        Assert.assertTrue(cacheManager.set(key, result));
+        DataResult<Long> cachedResult = cacheManager.get(key);
+        Assert.assertNotSame(result, cachedResult);
+        Assert.assertEquals(result.getResults(), cachedResult.getResults());
+        Assert.assertEquals(result.getNumMatches(), cachedResult.getNumMatches());
+
+        CacheMetrics metrics = cacheManager.getMetrics();
+        Assert.assertEquals(1, metrics.getHitCount());
+        Assert.assertEquals(1, metrics.getMissCount());
+        Assert.assertEquals(1, metrics.getPutCount());
+    }
+
+    @Test
+    public void testDefensiveCopy() {
+        String key = cacheManager.createKey("s1", "var", new Query(), new QueryOptions());
+        Variant variant = new Variant("1:100:A:C");
+        VariantQueryResult<Variant> result = new VariantQueryResult<>(10, 1, 1, new ArrayList<>(),
+                new ArrayList<>(Collections.singletonList(variant)));
+        Assert.assertTrue(cacheManager.set(key, result));
+
+        // Modifications of the results do not modify the cached ones
+        variant.setId("modified");
+        result.getAttributes().put("explain", "plan");
+        VariantQueryResult<Variant> cachedResult = cacheManager.get(key);
+        Assert.assertEquals("1:100:A:C", cachedResult.first().getId());
+        Assert.assertFalse(cachedResult.getAttributes().containsKey("explain"));
+
+        cachedResult.first().setId("modified");
+        cachedResult.getResults().clear();
+        cachedResult = cacheManager.get(key);
+        Assert.assertEquals(1, cachedResult.getNumResults());
+        Assert.assertEquals("1:100:A:C", cachedResult.first().getId());
+    }
+
+    @Test
+    public void testKeyIndependentOfOrder() {
+        String key1 = cacheManager.createKey("s1", "var", new Query("gene", "BRCA2,BRCA1").append("region", "1"), new QueryOptions());
+        String key2 = cacheManager.createKey("s1", "var", new Query("region", "1").append("gene", "BRCA1,BRCA2"), new QueryOptions());
+        Assert.assertEquals(key1, key2);
+    }
+
+    @Test
+    public void testInvalidate() {
+        DataResult<Long> result = new DataResult<>(10, Collections.emptyList(), 1, Collections.singletonList(5L), 1);
+        String keyS1 = cacheManager.createKey("s1", "var", new Query(), new QueryOptions());
+        String keyS2 = cacheManager.createKey("s2", "var", new Query(), new QueryOptions());
+        String keyAll = cacheManager.createKey(CacheManager.ALL_STUDIES, "var", new Query(), new QueryOptions());
+        cacheManager.set(keyS1, result);
+        cacheManager.set(keyS2, result);
+        cacheManager.set(keyAll, result);
+
+        cacheManager.invalidate("s1");
+
+        Assert.assertNull(cacheManager.get(keyS1));
+        Assert.assertNull(cacheManager.get(keyAll));
+        Assert.assertNotNull(cacheManager.get(keyS2));
+    }
+
+    @Test
+    public void testClearPattern() {
+        DataResult<Long> result = new DataResult<>(10, Collections.emptyList(), 1, Collections.singletonList(5L), 1);
+        String keyS1 = cacheManager.createKey("s1", "var", new Query(), new QueryOptions());
+        String keyS12 = cacheManager.createKey("s12", "var", new Query(), new QueryOptions());
+        String keyS2 = cacheManager.createKey("s2", "var", new Query(), new QueryOptions());
+        cacheManager.set(keyS1, result);
+        cacheManager.set(keyS12, result);
+        cacheManager.set(keyS2, result);
+
+        // Regular expression, not a prefix
+        cacheManager.clear(Pattern.compile(".*:s1[0-9]*:var:.*"));
+
+        Assert.assertNull(cacheManager.get(keyS1));
+        Assert.assertNull(cacheManager.get(keyS12));
+        Assert.assertNotNull(cacheManager.get(keyS2));
+    }
+
+    @Test
+    public void testSkipLargeResults() {
+        String key = cacheManager.createKey("s1", "var", new Query(), new QueryOptions());
+        DataResult<Integer> result = new DataResult<>(10, Collections.emptyList(), 20, Collections.nCopies(20, 1), 20);
+        Assert.assertFalse(cacheManager.set(key, result));
+        Assert.assertNull(cacheManager.get(key));
+    }
+
+}
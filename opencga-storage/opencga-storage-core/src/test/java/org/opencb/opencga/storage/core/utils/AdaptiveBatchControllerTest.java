@@ -0,0 +1,149 @@
+package org.opencb.opencga.storage.core.utils;
+
+import org.junit.Test;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.io.DataReader;
+import org.opencb.commons.run.Task;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveBatchControllerTest {
+
+    @Test
+    public void testDisabled() {
+        AdaptiveBatchController controller = AdaptiveBatchController.create(new ObjectMap(), "test",
+                VariantStorageOptions.TRANSFORM_BATCH_ADAPTIVE_TARGET_LATENCY, 100, 4, 8);
+        assertFalse(controller.isEnabled());
+        DataReader<Integer> reader = n -> new ArrayList<>();
+        Task<Integer, Integer> task = batch -> batch;
+        assertSame(reader, controller.wrap(reader));
+        assertSame(task, controller.wrap(task));
+    }
+
+    @Test
+    public void testGrowWithFastBatches() {
+        AdaptiveBatchController controller = newController(10, 1000, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            int size = controller.getBatchSize();
+            long token = controller.onBatchRead(size, 0);
+            controller.onBatchCompleted(token, size, 0, TimeUnit.MILLISECONDS.toNanos(1), true);
+        }
+        assertEquals(1000, controller.getBatchSize());
+        assertEquals(0, controller.getInFlightBytes());
+    }
+
+    @Test
+    public void testShrinkWithSlowBatches() {
+        AdaptiveBatchController controller = newController(10, 1000, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            int size = controller.getBatchSize();
+            long token = controller.onBatchRead(size, 0);
+            controller.onBatchCompleted(token, size, 0, TimeUnit.MILLISECONDS.toNanos(1), true);
+        }
+        assertEquals(1000, controller.getBatchSize());
+        for (int i = 0; i < 20; i++) {
+            int size = controller.getBatchSize();
+            long token = controller.onBatchRead(size, 0);
+            controller.onBatchCompleted(token, size, 0, TimeUnit.SECONDS.toNanos(10), true);
+        }
+        // Slow batches never shrink below the initial batch size
+        assertEquals(10, controller.getBatchSize());
+    }
+
+    @Test
+    public void testOutOfOrderCompletion() {
+        AdaptiveBatchController controller = newController(10, 10, Long.MAX_VALUE);
+        long token1 = controller.onBatchRead(10, 10 * 100L);
+        long token2 = controller.onBatchRead(10, 10 * 100L);
+        controller.onBatchCompleted(token2, 10, 10 * 300L, TimeUnit.MILLISECONDS.toNanos(100), true);
+        long token3 = controller.onBatchRead(10, 10 * 100L);
+        assertEquals(1000 + 10 * 400, controller.getInFlightBytes());
+
+        // Release the estimate registered for each batch, regardless of the completion order
+        controller.onBatchCompleted(token3, 10, 10 * 300L, TimeUnit.MILLISECONDS.toNanos(100), true);
+        assertEquals(1000, controller.getInFlightBytes());
+        // Unknown tokens do not release anything
+        controller.onBatchCompleted(-1, 10, 0, TimeUnit.MILLISECONDS.toNanos(100), false);
+        assertEquals(1000, controller.getInFlightBytes());
+        controller.onBatchCompleted(token1, 10, 10 * 300L, TimeUnit.MILLISECONDS.toNanos(100), true);
+        assertEquals(0, controller.getInFlightBytes());
+    }
+
+    @Test
+    public void testTargetLatencyPerPipeline() {
+        ObjectMap options = new ObjectMap(VariantStorageOptions.BATCH_ADAPTIVE.key(), true)
+                .append(VariantStorageOptions.ANNOTATION_BATCH_ADAPTIVE_TARGET_LATENCY.key(), 10000);
+        AdaptiveBatchController annotation = AdaptiveBatchController.create(options, "Annotation",
+                VariantStorageOptions.ANNOTATION_BATCH_ADAPTIVE_TARGET_LATENCY, 100, 4, 8);
+        AdaptiveBatchController transform = AdaptiveBatchController.create(options, "Transform",
+                VariantStorageOptions.TRANSFORM_BATCH_ADAPTIVE_TARGET_LATENCY, 100, 4, 8);
+
+        for (AdaptiveBatchController controller : Arrays.asList(annotation, transform)) {
+            long token = controller.onBatchRead(100, 0);
+            controller.onBatchCompleted(token, 100, 0, TimeUnit.MILLISECONDS.toNanos(1), true);
+            assertEquals(200, controller.getBatchSize());
+            // 5 seconds per batch is fine for the annotation, but slow for the transform
+            token = controller.onBatchRead(200, 0);
+            controller.onBatchCompleted(token, 200, 0, TimeUnit.SECONDS.toNanos(5), true);
+        }
+        assertEquals(200, annotation.getBatchSize());
+        assertEquals(100, transform.getBatchSize());
+    }
+
+    @Test
+    public void testLimitByHeapBudget() {
+        // 10 batches in flight, 1000 bytes per element -> 100 elements per batch
+        AdaptiveBatchController controller = newController(10, 1000, 1000 * 1000);
+        for (int i = 0; i < 10; i++) {
+            int size = controller.getBatchSize();
+            long token = controller.onBatchRead(size, size * 400L);
+            controller.onBatchCompleted(token, size, size * 600L, TimeUnit.MILLISECONDS.toNanos(1), true);
+        }
+        assertEquals(1000, controller.getBytesPerElement(), 1);
+        assertEquals(100, controller.getBatchSize(), 1);
+    }
+
+    @Test
+    public void testReadAll() throws Exception {
+        AdaptiveBatchController controller = AdaptiveBatchController.create(new ObjectMap()
+                        .append(VariantStorageOptions.BATCH_ADAPTIVE.key(), true)
+                        .append(VariantStorageOptions.BATCH_ADAPTIVE_MAX_BATCH_SIZE.key(), 50),
+                "test", VariantStorageOptions.TRANSFORM_BATCH_ADAPTIVE_TARGET_LATENCY, 5, 1, 2);
+        assertTrue(controller.isEnabled());
+        List<Integer> elements = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        DataReader<Integer> reader = controller.wrap(new DataReader<Integer>() {
+            private int i = 0;
+
+            @Override
+            public List<Integer> read(int batchSize) {
+                List<Integer> batch = new ArrayList<>(elements.subList(i, Math.min(i + batchSize, elements.size())));
+                i += batch.size();
+                return batch;
+            }
+        });
+        Task<Integer, Integer> task = controller.wrap((Task<Integer, Integer>) batch -> batch);
+
+        List<Integer> actual = new ArrayList<>();
+        List<Integer> batch = reader.read(1);
+        while (!batch.isEmpty()) {
+            assertTrue(batch.size() <= 50);
+            actual.addAll(task.apply(batch));
+            batch = reader.read(1);
+        }
+        assertEquals(elements, actual);
+        assertEquals(50, controller.getBatchSize());
+        assertEquals(0, controller.getInFlightBytes());
+    }
+
+    private AdaptiveBatchController newController(int batchSize, int maxBatchSize, long heapBudget) {
+        return new AdaptiveBatchController(true, "test", batchSize, 1, maxBatchSize, heapBudget, 10, 100, TimeUnit.MILLISECONDS);
+    }
+}
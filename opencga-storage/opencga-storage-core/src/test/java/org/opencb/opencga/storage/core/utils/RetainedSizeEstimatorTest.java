@@ -0,0 +1,56 @@
+package org.opencb.opencga.storage.core.utils;
+
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.VariantBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RetainedSizeEstimatorTest {
+
+    @Test
+    public void testStrings() {
+        assertTrue(RetainedSizeEstimator.estimate("A") > 0);
+        assertEquals(RetainedSizeEstimator.estimate("A") + 2 * 1000, RetainedSizeEstimator.estimate(new String(new char[1001])), 8);
+        assertEquals(0, RetainedSizeEstimator.estimate(null));
+    }
+
+    @Test
+    public void testVariants() {
+        Variant small = variant(1);
+        Variant large = variant(100);
+        long smallSize = RetainedSizeEstimator.estimate(small);
+        long largeSize = RetainedSizeEstimator.estimate(large);
+        assertTrue(smallSize > RetainedSizeEstimator.estimate(small.toString()));
+        // The sample data dominates the size of the variant
+        assertTrue(largeSize > smallSize * 5);
+    }
+
+    @Test
+    public void testBatch() {
+        List<Variant> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(variant(10));
+        }
+        long elementSize = RetainedSizeEstimator.estimate(batch.get(0));
+        long batchSize = RetainedSizeEstimator.estimateBatch(batch);
+        // Extrapolated from a sample of the batch, plus the list
+        assertEquals(elementSize * 1000 + RetainedSizeEstimator.OBJECT_HEADER + RetainedSizeEstimator.REFERENCE * 1000, batchSize);
+        assertEquals(0, RetainedSizeEstimator.estimateBatch(Collections.emptyList()));
+        assertEquals(0, RetainedSizeEstimator.estimateBatch(null));
+    }
+
+    private static Variant variant(int numSamples) {
+        VariantBuilder builder = Variant.newBuilder("1:100:A:C")
+                .setStudyId("S")
+                .setSampleDataKeys("GT", "DP");
+        for (int i = 0; i < numSamples; i++) {
+            builder.addSample("sample_" + i, "0/1", "20");
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,265 @@
+package org.opencb.opencga.storage.core.variant.adaptors.iterators;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ParallelMultiVariantDBIteratorTest {
+
+    private ExecutorService executor;
+    private ExecutorService readerExecutor;
+
+    // Return only the even positions, with a random delay, to shuffle the completion order of the batches
+    private final BiFunction<Query, QueryOptions, VariantDBIterator> factory = (query, options) -> {
+        List<Variant> variants = new ArrayList<>();
+        for (Object id : query.getAsList(VariantQueryParam.ID.key())) {
+            Variant variant = new Variant(id.toString());
+            if (variant.getStart() % 2 == 0) {
+                variants.add(variant);
+            }
+        }
+        try {
+            Thread.sleep(RandomUtils.nextInt(0, 20));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return VariantDBIterator.wrapper(variants.iterator());
+    };
+
+    @Before
+    public void setUp() {
+        // Less threads than the concurrent queries of each iterator
+        executor = Executors.newFixedThreadPool(2);
+        readerExecutor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        readerExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        List<String> ids = ids(1000);
+        ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(ids.iterator(), 10, 4, new Query(),
+                new QueryOptions(), factory, executor);
+
+        List<String> result = new ArrayList<>();
+        iterator.forEachRemaining(v -> result.add(v.toString()));
+
+        assertEquals(expected(ids), result);
+        assertEquals(100, iterator.getNumQueries());
+        assertEquals(500, iterator.getCount());
+    }
+
+    @Test
+    public void testLimitSkip() throws Exception {
+        List<String> ids = ids(1000);
+        QueryOptions options = new QueryOptions(QueryOptions.LIMIT, 30).append(QueryOptions.SKIP, 200);
+        ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(ids.iterator(), 10, 4, new Query(), options, factory,
+                executor);
+
+        List<String> result = new ArrayList<>();
+        iterator.forEachRemaining(v -> result.add(v.toString()));
+
+        assertEquals(expected(ids).subList(200, 230), result);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(new ArrayList<>().iterator(), 10, 4, new Query(),
+                new QueryOptions(), factory, executor);
+
+        assertEquals(false, iterator.hasNext());
+        iterator.close();
+    }
+
+    @Test
+    public void testRethrowVariantQueryException() throws Exception {
+        VariantQueryException exception = VariantQueryException.malformedParam(VariantQueryParam.ID, "1:1:A:C");
+        ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(ids(100).iterator(), 10, 4, new Query(),
+                new QueryOptions(), (query, options) -> {
+                    throw exception;
+                }, executor);
+        try {
+            iterator.hasNext();
+            fail("Expected " + VariantQueryException.class);
+        } catch (VariantQueryException e) {
+            assertSame(exception, e);
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void testOrderWithReader() throws Exception {
+        List<String> ids = ids(1000);
+        Set<Thread> readerThreads = Collections.synchronizedSet(new HashSet<>());
+        Iterator<String> idsIterator = new Iterator<String>() {
+            private final Iterator<String> it = ids.iterator();
+
+            @Override
+            public boolean hasNext() {
+                readerThreads.add(Thread.currentThread());
+                return it.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return it.next();
+            }
+        };
+        ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(idsIterator, 10, 4, new Query(),
+                new QueryOptions(), factory, executor, readerExecutor);
+
+        List<String> result = new ArrayList<>();
+        iterator.forEachRemaining(v -> result.add(v.toString()));
+        iterator.close();
+
+        assertEquals(expected(ids), result);
+        assertEquals(100, iterator.getNumQueries());
+        assertEquals(500, iterator.getCount());
+        assertFalse(iterator.hasNext());
+        // The IDs are never read from the consumer thread
+        assertFalse(readerThreads.isEmpty());
+        assertFalse(readerThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void testLimitSkipWithReader() throws Exception {
+        List<String> ids = ids(1000);
+        for (int skip : Arrays.asList(0, 5, 200, 499, 500, 600)) {
+            QueryOptions options = new QueryOptions(QueryOptions.LIMIT, 30).append(QueryOptions.SKIP, skip);
+            ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(ids.iterator(), 10, 4, new Query(), options,
+                    factory, executor, readerExecutor);
+
+            List<String> result = new ArrayList<>();
+            iterator.forEachRemaining(v -> result.add(v.toString()));
+            iterator.close();
+
+            List<String> expected = expected(ids);
+            assertEquals(expected.subList(Math.min(skip, expected.size()), Math.min(skip + 30, expected.size())), result);
+        }
+    }
+
+    @Test
+    public void testEmptyWithReader() throws Exception {
+        ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(new ArrayList<>().iterator(), 10, 4, new Query(),
+                new QueryOptions(), factory, executor, readerExecutor);
+
+        assertFalse(iterator.hasNext());
+        assertFalse(iterator.hasNext());
+        assertEquals(0, iterator.getNumQueries());
+        iterator.close();
+    }
+
+    @Test
+    public void testReaderException() throws Exception {
+        VariantQueryException exception = VariantQueryException.internalException(new IllegalStateException("Boom"));
+        Iterator<String> idsIterator = new Iterator<String>() {
+            private final Iterator<String> it = ids(100).iterator();
+            private int count = 0;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (count++ == 25) {
+                    throw exception;
+                }
+                return it.next();
+            }
+        };
+        ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(idsIterator, 10, 4, new Query(),
+                new QueryOptions(), factory, executor, readerExecutor);
+        List<String> result = new ArrayList<>();
+        try {
+            iterator.forEachRemaining(v -> result.add(v.toString()));
+            fail("Expected " + VariantQueryException.class);
+        } catch (VariantQueryException e) {
+            assertSame(exception, e);
+        } finally {
+            iterator.close();
+        }
+        // The batches read before the error are returned
+        assertEquals(expected(ids(20)), result);
+    }
+
+    @Test
+    public void testCloseWithReader() throws Exception {
+        AtomicBoolean idsClosed = new AtomicBoolean();
+        CloseableIterator idsIterator = new CloseableIterator(ids(100000).iterator(), idsClosed);
+        ParallelMultiVariantDBIterator iterator = new ParallelMultiVariantDBIterator(idsIterator, 10, 2, new Query(),
+                new QueryOptions(), factory, executor, readerExecutor);
+
+        assertTrue(iterator.hasNext());
+        iterator.next();
+        // The reader does not read far ahead from the consumer
+        assertTrue(iterator.getNumQueries() <= 4);
+        iterator.close();
+
+        assertTrue(idsClosed.get());
+        assertFalse(iterator.hasNext());
+        // The reader task is stopped
+        readerExecutor.shutdown();
+        assertTrue(readerExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(iterator.getNumQueries() <= 4);
+    }
+
+    private static class CloseableIterator implements Iterator<String>, AutoCloseable {
+        private final Iterator<String> it;
+        private final AtomicBoolean closed;
+
+        CloseableIterator(Iterator<String> it, AtomicBoolean closed) {
+            this.it = it;
+            this.closed = closed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !closed.get() && it.hasNext();
+        }
+
+        @Override
+        public String next() {
+            return it.next();
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+
+    private List<String> ids(int n) {
+        List<String> ids = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            ids.add("1:" + i + ":A:C");
+        }
+        return ids;
+    }
+
+    private List<String> expected(List<String> ids) {
+        return ids.stream().filter(id -> new Variant(id).getStart() % 2 == 0).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,82 @@
+package org.opencb.opencga.storage.core.variant.io.db;
+
+import org.junit.Test;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantIterable;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class VariantDBRegionParallelReaderTest {
+
+    private final List<Variant> variants = Arrays.asList(
+            new Variant("1:10:A:C"),
+            new Variant("1:95:A:C"),
+            // Deletion overlapping two chunks
+            new Variant("1:98:AAAAAAAAAA:-"),
+            new Variant("1:100:A:C"),
+            new Variant("1:101:A:C"),
+            new Variant("1:250:A:C"),
+            new Variant("2:50:A:C"),
+            new Variant("2:150:A:C"),
+            new Variant("X:1000:A:C"));
+
+    // Return the variants overlapping the region, as the storage engines do
+    private final VariantIterable iterable = (query, options) -> {
+        Region region = Region.parseRegion(query.getString(VariantQueryParam.REGION.key()));
+        return VariantDBIterator.wrapper(variants.stream()
+                .filter(v -> region.overlaps(v.getChromosome(), v.getStart(), v.getEnd()))
+                .collect(Collectors.toList())
+                .iterator());
+    };
+
+    @Test
+    public void testReadInOrder() {
+        List<Region> chunks = Arrays.asList(
+                new Region("1", 1, 100),
+                new Region("1", 101, 200),
+                new Region("1", 201, 300),
+                new Region("2", 1, 100),
+                new Region("2", 101, 200),
+                new Region("X", 1, Integer.MAX_VALUE));
+
+        for (int numThreads : new int[]{1, 2, 4}) {
+            List<String> actual = readAll(new VariantDBRegionParallelReader(iterable, new Query(), new QueryOptions(), chunks,
+                    numThreads, 1, 1));
+            assertEquals(variants.stream().map(Variant::toString).collect(Collectors.toList()), actual);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailOnError() {
+        VariantIterable failingIterable = (query, options) -> {
+            throw new IllegalArgumentException("Expected error");
+        };
+        readAll(new VariantDBRegionParallelReader(failingIterable, new Query(), new QueryOptions(),
+                Arrays.asList(new Region("1", 1, 100), new Region("1", 101, 200)), 2, 10, 10));
+    }
+
+    private List<String> readAll(VariantDBRegionParallelReader reader) {
+        List<String> actual = new ArrayList<>();
+        reader.open();
+        try {
+            List<Variant> batch = reader.read(1);
+            while (!batch.isEmpty()) {
+                batch.forEach(v -> actual.add(v.toString()));
+                batch = reader.read(1);
+            }
+        } finally {
+            reader.close();
+        }
+        return actual;
+    }
+}
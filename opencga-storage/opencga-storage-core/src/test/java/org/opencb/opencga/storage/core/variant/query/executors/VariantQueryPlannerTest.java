@@ -0,0 +1,260 @@
+package org.opencb.opencga.storage.core.variant.query.executors;
+
+import org.junit.Test;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.variant.metadata.VariantFileHeaderComplexLine;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageMetadataDBAdaptorFactory;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.QUERY_PLANNER_ACTIVE;
+
+public class VariantQueryPlannerTest {
+
+    @Test
+    public void testDefaultFirstExecutor() throws Exception {
+        VariantQueryExecutor sampleIndex = new EstimatedExecutor("sampleIndex", true, 1000, 0.05);
+        VariantQueryExecutor dbAdaptor = new EstimatedExecutor("dbAdaptor", true, 10, 0.01);
+        VariantQueryPlanner planner = new VariantQueryPlanner(new ObjectMap());
+
+        VariantQueryPlan plan = planner.plan(Arrays.asList(sampleIndex, dbAdaptor), new Query(), new QueryOptions());
+        assertSame(sampleIndex, plan.getExecutor());
+        assertFalse(plan.isCostBased());
+        assertTrue(plan.getCandidates().isEmpty());
+    }
+
+    @Test
+    public void testExplain() throws Exception {
+        VariantQueryExecutor sampleIndex = new EstimatedExecutor("sampleIndex", true, 1000, 0.05);
+        VariantQueryExecutor dbAdaptor = new EstimatedExecutor("dbAdaptor", true, 10, 0.01);
+        VariantQueryPlanner planner = new VariantQueryPlanner(new ObjectMap());
+
+        VariantQueryPlan plan = planner.plan(Arrays.asList(sampleIndex, dbAdaptor), new Query(),
+                new QueryOptions(VariantQueryPlanner.EXPLAIN, true));
+        assertSame(sampleIndex, plan.getExecutor());
+        assertFalse(plan.isCostBased());
+        assertEquals(2, plan.getCandidates().size());
+        assertEquals(1000, plan.getSelectedCandidate().getEstimatedVariants());
+    }
+
+    @Test
+    public void testCostBased() throws Exception {
+        VariantQueryExecutor sampleIndex = new EstimatedExecutor("sampleIndex", true, 1000, 0.05);
+        VariantQueryExecutor dbAdaptor = new EstimatedExecutor("dbAdaptor", true, 10, 0.01);
+        VariantQueryPlanner planner = new VariantQueryPlanner(new ObjectMap(QUERY_PLANNER_ACTIVE.key(), true));
+
+        VariantQueryPlan plan = planner.plan(Arrays.asList(sampleIndex, dbAdaptor), new Query(), new QueryOptions());
+        assertSame(dbAdaptor, plan.getExecutor());
+        assertTrue(plan.isCostBased());
+
+        // Can be disabled per query
+        plan = planner.plan(Arrays.asList(sampleIndex, dbAdaptor), new Query(), new QueryOptions(QUERY_PLANNER_ACTIVE.key(), false));
+        assertSame(sampleIndex, plan.getExecutor());
+    }
+
+    @Test
+    public void testMandatoryExecutor() throws Exception {
+        VariantQueryExecutor compHet = new EstimatedExecutor("compHet", true, -1, 0.1);
+        VariantQueryExecutor dbAdaptor = new EstimatedExecutor("dbAdaptor", true, 10, 0.01);
+        VariantQueryPlanner planner = new VariantQueryPlanner(new ObjectMap(QUERY_PLANNER_ACTIVE.key(), true));
+
+        VariantQueryPlan plan = planner.plan(Arrays.asList(compHet, dbAdaptor), new Query(), new QueryOptions());
+        assertSame(compHet, plan.getExecutor());
+    }
+
+    @Test
+    public void testSkipUnusableExecutors() throws Exception {
+        VariantQueryExecutor sampleIndex = new EstimatedExecutor("sampleIndex", false, 1, 0.05);
+        VariantQueryExecutor dbAdaptor = new EstimatedExecutor("dbAdaptor", true, 10, 0.01);
+        VariantQueryPlanner planner = new VariantQueryPlanner(new ObjectMap(QUERY_PLANNER_ACTIVE.key(), true));
+
+        VariantQueryPlan plan = planner.plan(Arrays.asList(sampleIndex, dbAdaptor), new Query(), new QueryOptions());
+        assertSame(dbAdaptor, plan.getExecutor());
+
+        assertNull(planner.plan(Arrays.asList(sampleIndex), new Query(), new QueryOptions()));
+    }
+
+    @Test
+    public void testLearnCostPerVariant() throws Exception {
+        VariantQueryExecutor sampleIndex = new EstimatedExecutor("sampleIndex", true, 1000, 0.05);
+        VariantQueryExecutor dbAdaptor = new SlowExecutor("dbAdaptor", true, 100, 0.01);
+        VariantQueryPlanner planner = new VariantQueryPlanner(new ObjectMap(QUERY_PLANNER_ACTIVE.key(), true));
+        List<VariantQueryExecutor> executors = Arrays.asList(sampleIndex, dbAdaptor);
+
+        VariantQueryPlan plan = planner.plan(executors, new Query(), new QueryOptions());
+        assertSame(dbAdaptor, plan.getExecutor());
+
+        // Observed 10ms per variant. Incomplete executions are ignored
+        planner.onQueryExecuted(plan, 1000, false);
+        assertSame(dbAdaptor, planner.plan(executors, new Query(), new QueryOptions()).getExecutor());
+        planner.onQueryExecuted(plan, 1000, true);
+        assertEquals(10, planner.getStatistics().get(SlowExecutor.class.getName()).getCostPerVariant(), 0.0001);
+        assertEquals(1, planner.getStatistics().get(SlowExecutor.class.getName()).getObservations());
+
+        assertSame(sampleIndex, planner.plan(executors, new Query(), new QueryOptions()).getExecutor());
+    }
+
+    @Test
+    public void testEstimateFromSingleChromosome() throws Exception {
+        DummyVariantStorageMetadataDBAdaptorFactory.clear();
+        VariantStorageMetadataManager metadataManager =
+                new VariantStorageMetadataManager(new DummyVariantStorageMetadataDBAdaptorFactory());
+        metadataManager.createStudy("S");
+        Map<String, Long> chromosomeCounts = new HashMap<>();
+        chromosomeCounts.put("1", 1000L);
+        chromosomeCounts.put("2", 500L);
+        chromosomeCounts.put("X", 300L);
+        chromosomeCounts.put("MT", 5L);
+        VariantQueryExecutor executor = new EstimatedExecutor(metadataManager, "e", true, -1, 0.1) {
+            @Override
+            protected Map<String, Long> getChromosomeCounts(Collection<Integer> studyIds) {
+                return chromosomeCounts;
+            }
+        };
+        List<Query> counted = new ArrayList<>();
+
+        // Smallest chromosome with at least 1% of the variants
+        long estimate = executor.estimateFromSingleChromosome(new Query(), q -> {
+            counted.add(q);
+            return 30;
+        });
+        assertEquals(30 * 1805 / 300, estimate);
+        assertEquals(1, counted.size());
+        assertEquals("X", Region.parseRegion(counted.get(0).getString(VariantQueryParam.REGION.key())).getChromosome());
+
+        // Only the chromosomes from the query regions
+        counted.clear();
+        estimate = executor.estimateFromSingleChromosome(new Query(VariantQueryParam.REGION.key(), "2"), q -> {
+            counted.add(q);
+            return 50;
+        });
+        assertEquals(50, estimate);
+        assertEquals("2", Region.parseRegion(counted.get(0).getString(VariantQueryParam.REGION.key())).getChromosome());
+
+        // Queries by id are counted completely
+        counted.clear();
+        Query query = new Query(VariantQueryParam.ID.key(), "rs123");
+        estimate = executor.estimateFromSingleChromosome(query, q -> {
+            counted.add(q);
+            return 1;
+        });
+        assertEquals(1, estimate);
+        assertSame(query, counted.get(0));
+    }
+
+    @Test
+    public void testEstimateFromSingleChromosomeQueriedStudies() throws Exception {
+        DummyVariantStorageMetadataDBAdaptorFactory.clear();
+        VariantStorageMetadataManager metadataManager =
+                new VariantStorageMetadataManager(new DummyVariantStorageMetadataDBAdaptorFactory());
+        int s1 = metadataManager.createStudy("S1").getId();
+        int s2 = metadataManager.createStudy("S2").getId();
+        List<Collection<Integer>> requestedStudies = new ArrayList<>();
+        VariantQueryExecutor executor = new EstimatedExecutor(metadataManager, "e", true, -1, 0.1) {
+            @Override
+            protected Map<String, Long> getChromosomeCounts(Collection<Integer> studyIds) {
+                requestedStudies.add(studyIds);
+                return Collections.singletonMap("1", 1000L);
+            }
+        };
+
+        // Same studies as used by DBAdaptorVariantQueryExecutor#estimateReadVariants
+        executor.estimateFromSingleChromosome(new Query(), q -> 10);
+        assertEquals(new HashSet<>(Arrays.asList(s1, s2)), new HashSet<>(requestedStudies.get(0)));
+
+        executor.estimateFromSingleChromosome(new Query(VariantQueryParam.STUDY.key(), "S2"), q -> 10);
+        assertEquals(Collections.singletonList(s2), new ArrayList<>(requestedStudies.get(1)));
+
+        executor.estimateFromSingleChromosome(new Query(VariantQueryParam.STUDY.key(), "S1,S2"), q -> 10);
+        assertEquals(new HashSet<>(Arrays.asList(s1, s2)), new HashSet<>(requestedStudies.get(2)));
+    }
+
+    @Test
+    public void testEstimateRegionsCount() throws Exception {
+        DummyVariantStorageMetadataDBAdaptorFactory.clear();
+        VariantStorageMetadataManager metadataManager =
+                new VariantStorageMetadataManager(new DummyVariantStorageMetadataDBAdaptorFactory());
+        int studyId = metadataManager.createStudy("S").getId();
+        metadataManager.updateStudyMetadata("S", sm -> {
+            sm.getVariantHeader().getComplexLines().add(contig("chr1", "100000"));
+            sm.getVariantHeader().getComplexLines().add(contig("2", "1000000"));
+            sm.getVariantHeader().getComplexLines().add(contig("X", "."));
+            return sm;
+        });
+        VariantQueryExecutor executor = new EstimatedExecutor(metadataManager, "e", true, -1, 0.1);
+        Map<String, Long> lengths = executor.getChromosomeLengths(Collections.singletonList(studyId));
+        Map<String, Long> expectedLengths = new HashMap<>();
+        expectedLengths.put("1", 100000L);
+        expectedLengths.put("2", 1000000L);
+        assertEquals(expectedLengths, lengths);
+
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("1", 1000L);
+        counts.put("2", 1000L);
+        counts.put("X", 3100L);
+        // Density of each chromosome
+        assertEquals(100, VariantQueryExecutor.estimateRegionsCount(counts, lengths, Region.parseRegions("1:1-10000")));
+        assertEquals(10, VariantQueryExecutor.estimateRegionsCount(counts, lengths, Region.parseRegions("2:1-10000")));
+        assertEquals(110, VariantQueryExecutor.estimateRegionsCount(counts, lengths, Region.parseRegions("1:1-10000,2:1-10000")));
+        // Never more than the variants of the chromosome
+        assertEquals(1000, VariantQueryExecutor.estimateRegionsCount(counts, lengths, Region.parseRegions("1")));
+        // Without length, use the density of the genome
+        assertEquals(5100 * 1000000L / VariantQueryExecutor.GENOME_LENGTH,
+                VariantQueryExecutor.estimateRegionsCount(counts, lengths, Region.parseRegions("X:1-1000000")));
+    }
+
+    private static VariantFileHeaderComplexLine contig(String id, String length) {
+        return new VariantFileHeaderComplexLine("contig", id, null, null, null, Collections.singletonMap("length", length));
+    }
+
+    private static class EstimatedExecutor extends VariantQueryExecutor {
+        private final boolean canUse;
+        private final long estimatedVariants;
+        private final double costPerVariant;
+
+        EstimatedExecutor(String id, boolean canUse, long estimatedVariants, double costPerVariant) {
+            this(null, id, canUse, estimatedVariants, costPerVariant);
+        }
+
+        EstimatedExecutor(VariantStorageMetadataManager metadataManager, String id, boolean canUse, long estimatedVariants,
+                          double costPerVariant) {
+            super(metadataManager, id, new ObjectMap());
+            this.canUse = canUse;
+            this.estimatedVariants = estimatedVariants;
+            this.costPerVariant = costPerVariant;
+        }
+
+        @Override
+        public boolean canUseThisExecutor(Query query, QueryOptions options) {
+            return canUse;
+        }
+
+        @Override
+        public long estimateReadVariants(Query query, QueryOptions options) {
+            return estimatedVariants;
+        }
+
+        @Override
+        public double getDefaultCostPerVariant() {
+            return costPerVariant;
+        }
+
+        @Override
+        protected Object getOrIterator(Query query, QueryOptions options, boolean iterator) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Different class, so the statistics are not shared with EstimatedExecutor
+    private static class SlowExecutor extends EstimatedExecutor {
+        SlowExecutor(String id, boolean canUse, long estimatedVariants, double costPerVariant) {
+            super(id, canUse, estimatedVariants, costPerVariant);
+        }
+    }
+}
@@ -74,6 +74,16 @@ public class SolrQueryParserTest {
         assertEquals(flDefault1 + "&q=*:*&fq=xrefs:\"rs574335987\"", solrQuery.toString());
     }
 
+    @Test
+    public void exportSearchExpression() {
+        Query query = new Query();
+        query.put(ANNOT_XREF.key(), "rs574335987");
+
+        SolrQuery solrQuery = solrQueryParser.parse(query, new QueryOptions());
+        assertEquals("search(myCollection, q=\"*:*\", fq=\"xrefs:\\\"rs574335987\\\"\", fl=\"id\", sort=\"id asc\", qt=\"/export\")",
+                SolrVariantIdExportIterator.buildSearchExpression("myCollection", solrQuery));
+    }
+
     @Test
     public void parseConsequenceTypeSOTerm() {
         QueryOptions queryOptions = new QueryOptions();
@@ -0,0 +1,192 @@
+package org.opencb.opencga.storage.core.variant.search.solr;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SolrVariantIdExportIteratorTest {
+
+    private static final String COLLECTION = "variants";
+    private static final List<String> IDS = Arrays.asList("1:100:A:C", "1:200:A:T", "2:300:G:C", "3:400:T:A", "X:500:C:G");
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private final AtomicReference<SolrParams> requestParams = new AtomicReference<>();
+    private CloseableInputStream inputStream;
+
+    @Test
+    public void testExport() throws Exception {
+        SolrClient solrClient = mockSolrClient(SolrClient.class, exportResponse(IDS));
+        try (SolrVariantIdExportIterator iterator = newIterator(solrClient, -1, 0)) {
+            assertEquals(IDS, readAll(iterator));
+            assertFalse(iterator.hasNext());
+            // Stream closed on EOF
+            assertTrue(inputStream.closed);
+        }
+
+        SolrParams params = requestParams.get();
+        assertEquals(SolrVariantIdExportIterator.EXPORT_HANDLER, params.get(CommonParams.QT));
+        assertEquals("id", params.get(CommonParams.FL));
+        assertEquals("id asc", params.get(CommonParams.SORT));
+        assertEquals("type:SNV", params.get(CommonParams.FQ));
+    }
+
+    @Test
+    public void testStreamEOF() throws Exception {
+        // The "/stream" handler ends with an EOF tuple
+        SolrClient solrClient = mockSolrClient(CloudSolrClient.class, streamResponse(IDS, "{\"EOF\":true,\"RESPONSE_TIME\":5}"));
+        try (SolrVariantIdExportIterator iterator = newIterator(solrClient, -1, 0)) {
+            assertEquals(IDS, readAll(iterator));
+            assertFalse(iterator.hasNext());
+            assertTrue(inputStream.closed);
+        }
+
+        SolrParams params = requestParams.get();
+        assertEquals(SolrVariantIdExportIterator.STREAM_HANDLER, params.get(CommonParams.QT));
+        assertEquals(SolrVariantIdExportIterator.buildSearchExpression(COLLECTION, newSolrQuery()), params.get("expr"));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        SolrClient solrClient = mockSolrClient(SolrClient.class, exportResponse(Collections.emptyList()));
+        try (SolrVariantIdExportIterator iterator = newIterator(solrClient, 10, 0)) {
+            assertFalse(iterator.hasNext());
+            assertTrue(inputStream.closed);
+        }
+    }
+
+    @Test
+    public void testExceptionTuple() throws Exception {
+        // Exception tuples are also marked as EOF. Must not be taken as a regular end of stream
+        SolrClient solrClient = mockSolrClient(CloudSolrClient.class,
+                streamResponse(IDS.subList(0, 2), "{\"EXCEPTION\":\"Boom\",\"EOF\":true}"));
+        SolrVariantIdExportIterator iterator = newIterator(solrClient, -1, 0);
+        assertEquals(IDS.get(0), iterator.next());
+        assertEquals(IDS.get(1), iterator.next());
+
+        thrown.expect(VariantQueryException.class);
+        thrown.expectMessage("Boom");
+        try {
+            iterator.hasNext();
+        } finally {
+            assertTrue(inputStream.closed);
+        }
+    }
+
+    @Test
+    public void testSkipLimit() throws Exception {
+        for (int skip = 0; skip <= IDS.size() + 1; skip++) {
+            for (int limit : Arrays.asList(-1, 0, 1, 2, 10)) {
+                String message = "skip=" + skip + ", limit=" + limit;
+                SolrClient solrClient = mockSolrClient(SolrClient.class, exportResponse(IDS));
+                List<String> expected = IDS.subList(Math.min(skip, IDS.size()), IDS.size());
+                if (limit >= 0) {
+                    expected = expected.subList(0, Math.min(limit, expected.size()));
+                }
+                try (SolrVariantIdExportIterator iterator = newIterator(solrClient, limit, skip)) {
+                    assertEquals(message, expected, readAll(iterator));
+                    // Stream closed once the limit is reached
+                    assertFalse(message, iterator.hasNext());
+                    assertTrue(message, inputStream.closed);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        SolrClient solrClient = mockSolrClient(SolrClient.class, exportResponse(IDS));
+        SolrVariantIdExportIterator iterator = newIterator(solrClient, -1, 0);
+        assertEquals(IDS.get(0), iterator.next());
+        assertFalse(inputStream.closed);
+
+        iterator.close();
+        assertTrue(inputStream.closed);
+        assertEquals(1, inputStream.closeCount);
+        assertFalse(iterator.hasNext());
+        // Close is idempotent
+        iterator.close();
+        assertEquals(1, inputStream.closeCount);
+    }
+
+    private SolrVariantIdExportIterator newIterator(SolrClient solrClient, int limit, int skip) throws Exception {
+        return new SolrVariantIdExportIterator(solrClient, COLLECTION, newSolrQuery(), limit, skip);
+    }
+
+    private static SolrQuery newSolrQuery() {
+        SolrQuery solrQuery = new SolrQuery("*:*");
+        solrQuery.addFilterQuery("type:SNV");
+        return solrQuery;
+    }
+
+    private <T extends SolrClient> T mockSolrClient(Class<T> clientClass, String response) throws Exception {
+        T solrClient = mock(clientClass);
+        doAnswer(invocation -> {
+            SolrRequest<?> request = invocation.getArgument(0);
+            requestParams.set(request.getParams());
+            inputStream = new CloseableInputStream(response);
+            NamedList<Object> namedList = new NamedList<>();
+            namedList.add("stream", inputStream);
+            return namedList;
+        }).when(solrClient).request(any(SolrRequest.class), eq(COLLECTION));
+        return solrClient;
+    }
+
+    private static String exportResponse(List<String> ids) {
+        return "{\"responseHeader\":{\"status\":0},\"response\":{\"numFound\":" + ids.size() + ",\"docs\":["
+                + docs(ids) + "]}}";
+    }
+
+    private static String streamResponse(List<String> ids, String lastTuple) {
+        String docs = docs(ids);
+        return "{\"result-set\":{\"docs\":[" + docs + (docs.isEmpty() ? "" : ",") + lastTuple + "]}}";
+    }
+
+    private static String docs(List<String> ids) {
+        return ids.stream().map(id -> "{\"id\":\"" + id + "\"}").collect(Collectors.joining(","));
+    }
+
+    private static List<String> readAll(SolrVariantIdExportIterator iterator) {
+        List<String> ids = new ArrayList<>();
+        iterator.forEachRemaining(ids::add);
+        return ids;
+    }
+
+    private static class CloseableInputStream extends ByteArrayInputStream {
+        private boolean closed;
+        private int closeCount;
+
+        CloseableInputStream(String content) {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            closeCount++;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.opencb.opencga.storage.core.variant.search.solr;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.ProgressLogger;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.solr.SolrManager;
+import org.opencb.opencga.storage.core.exceptions.VariantSearchException;
+import org.opencb.opencga.storage.core.variant.VariantStorageBaseTest;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageTest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.*;
+
+public class VariantSearchLoadTest extends VariantStorageBaseTest implements DummyVariantStorageTest {
+
+    private static final String COLLECTION = "test";
+    private static final int NUM_VARIANTS = 95;
+
+    private VariantSearchManager variantSearchManager;
+    private SolrClient solrClient;
+    // Number of documents sent to the search engine
+    private AtomicInteger added;
+    // Number of documents sent before the last commit
+    private AtomicInteger committed;
+    private AtomicInteger commits;
+
+    @Before
+    public void setUp() throws Exception {
+        variantStorageEngine.getConfiguration().getSearch().setInsertBatchSize(10);
+        variantSearchManager = new VariantSearchManager(metadataManager, variantStorageEngine.getConfiguration());
+
+        added = new AtomicInteger();
+        committed = new AtomicInteger();
+        commits = new AtomicInteger();
+        solrClient = mock(SolrClient.class);
+        when(solrClient.addBeans(eq(COLLECTION), anyCollection(), anyInt())).then(invocation -> {
+            added.addAndGet(invocation.<Collection<?>>getArgument(1).size());
+            return new UpdateResponse();
+        });
+        when(solrClient.commit(COLLECTION)).then(invocation -> {
+            committed.set(added.get());
+            commits.incrementAndGet();
+            return new UpdateResponse();
+        });
+        variantSearchManager.setSolrManager(new SolrManager(solrClient, "localhost", "core", 10000));
+    }
+
+    @Test
+    public void testLoadCommitBatch() throws Exception {
+        CommitCheckLoadListener listener = load(new ObjectMap());
+
+        assertEquals(NUM_VARIANTS, added.get());
+        assertEquals(NUM_VARIANTS, listener.postLoaded.get());
+        // One commit per batch, plus the final commit
+        assertEquals(NUM_VARIANTS / 10 + 1 + 1, commits.get());
+        verify(solrClient, atLeastOnce()).addBeans(eq(COLLECTION), anyCollection(), eq(-1));
+    }
+
+    @Test
+    public void testLoadCommitDocs() throws Exception {
+        CommitCheckLoadListener listener = load(new ObjectMap()
+                .append(SEARCH_LOAD_COMMIT_POLICY.key(), VariantSearchManager.CommitPolicy.DOCS)
+                .append(SEARCH_LOAD_COMMIT_DOCS.key(), 30));
+
+        assertEquals(NUM_VARIANTS, added.get());
+        assertEquals(NUM_VARIANTS, listener.postLoaded.get());
+        // One commit every 3 batches, plus the final commit
+        assertEquals(NUM_VARIANTS / 30 + 1, commits.get());
+    }
+
+    @Test
+    public void testLoadCommitTime() throws Exception {
+        CommitCheckLoadListener listener = load(new ObjectMap()
+                .append(SEARCH_LOAD_COMMIT_POLICY.key(), VariantSearchManager.CommitPolicy.TIME)
+                .append(SEARCH_LOAD_COMMIT_WITHIN.key(), 5000)
+                .append(SEARCH_LOAD_COMMIT_DOCS.key(), 1000));
+
+        assertEquals(NUM_VARIANTS, added.get());
+        assertEquals(NUM_VARIANTS, listener.postLoaded.get());
+        // Only the final commit
+        assertEquals(1, commits.get());
+        verify(solrClient, atLeastOnce()).addBeans(eq(COLLECTION), anyCollection(), eq(5000));
+    }
+
+    @Test
+    public void testLoadFailDoNotMarkUncommitted() throws Exception {
+        when(solrClient.commit(COLLECTION)).thenThrow(new IllegalStateException("Commit failed"));
+
+        CommitCheckLoadListener listener = new CommitCheckLoadListener();
+        try {
+            variantSearchManager.load(COLLECTION, variants(), new ProgressLogger(""), listener, new ObjectMap());
+            fail("Expected load to fail");
+        } catch (VariantSearchException | RuntimeException e) {
+            // Expected
+        }
+        assertEquals(0, listener.postLoaded.get());
+    }
+
+    private CommitCheckLoadListener load(ObjectMap options) throws VariantSearchException {
+        CommitCheckLoadListener listener = new CommitCheckLoadListener();
+        VariantSearchLoadResult result = variantSearchManager.load(COLLECTION, variants(), new ProgressLogger(""), listener,
+                options.append(SEARCH_LOAD_THREADS.key(), 4));
+        assertEquals(NUM_VARIANTS, result.getNumProcessedVariants());
+        assertEquals(NUM_VARIANTS, result.getNumLoadedVariants());
+        return listener;
+    }
+
+    private static VariantDBIterator variants() {
+        List<Variant> variants = new ArrayList<>(NUM_VARIANTS);
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            variants.add(new Variant("1", 1000 + i, "A", "C"));
+        }
+        return VariantDBIterator.wrapper(variants.iterator());
+    }
+
+    /**
+     * Check that only committed variants are marked as synchronized.
+     */
+    private class CommitCheckLoadListener extends VariantSearchLoadListener {
+        private final AtomicInteger postLoaded = new AtomicInteger();
+
+        CommitCheckLoadListener() {
+            super(null, true);
+        }
+
+        @Override
+        protected void processAlreadySynchronizedVariants(List<Variant> alreadySynchronizedVariants) {
+        }
+
+        @Override
+        public void postLoad(List<Variant> variantList) {
+            assertTrue("Variants marked as synchronized before being committed",
+                    postLoaded.addAndGet(variantList.size()) <= committed.get());
+        }
+    }
+}
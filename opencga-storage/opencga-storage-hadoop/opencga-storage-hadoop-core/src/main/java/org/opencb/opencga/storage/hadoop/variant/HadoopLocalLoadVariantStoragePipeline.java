@@ -50,6 +50,7 @@ import org.opencb.opencga.storage.hadoop.variant.archive.VariantHBaseArchiveData
 import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexDBAdaptor;
 import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexDBLoader;
 import org.opencb.opencga.storage.hadoop.variant.load.VariantHadoopDBWriter;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLog;
 import org.opencb.opencga.storage.hadoop.variant.transform.VariantSliceReader;
 import org.opencb.opencga.storage.hadoop.variant.transform.VariantToVcfSliceConverterTask;
 import org.slf4j.Logger;
@@ -538,12 +539,15 @@ public class HadoopLocalLoadVariantStoragePipeline extends HadoopVariantStorageP
         boolean excludeGenotypes = getOptions().getBoolean(
                 EXCLUDE_GENOTYPES.key(),
                 EXCLUDE_GENOTYPES.defaultValue());
+        SecondaryIndexChangeLog changeLog = new SecondaryIndexChangeLog(dbAdaptor);
+        changeLog.removeCheckpointIfInactive(getOptions());
         return new VariantHadoopDBWriter(
                 dbAdaptor.getCredentials().getTable(),
                 getStudyId(),
                 getFileId(),
                 getMetadataManager(),
-                dbAdaptor.getHBaseManager(), includeReferenceVariantsData, excludeGenotypes);
+                dbAdaptor.getHBaseManager(), includeReferenceVariantsData, excludeGenotypes,
+                changeLog.newWriter(getOptions()));
     }
 
     protected static class GroupedVariantsTask implements Task<ImmutablePair<Long, List<Variant>>, Object> {
@@ -96,6 +96,7 @@ import org.opencb.opencga.storage.hadoop.variant.io.HadoopVariantExporter;
 import org.opencb.opencga.storage.hadoop.variant.score.HadoopVariantScoreLoader;
 import org.opencb.opencga.storage.hadoop.variant.score.HadoopVariantScoreRemover;
 import org.opencb.opencga.storage.hadoop.variant.search.HadoopVariantSearchLoadListener;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLog;
 import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexPendingVariantsManager;
 import org.opencb.opencga.storage.hadoop.variant.stats.HadoopDefaultVariantStatisticsManager;
 import org.opencb.opencga.storage.hadoop.variant.stats.HadoopMRVariantStatisticsManager;
@@ -371,9 +372,24 @@ public class HadoopVariantStorageEngine extends VariantStorageEngine implements
     public VariantSearchLoadResult secondaryIndex(Query query, QueryOptions queryOptions, boolean overwrite)
             throws StorageEngineException, IOException, VariantSearchException {
         queryOptions = queryOptions == null ? new QueryOptions() : new QueryOptions(queryOptions);
-
-        new SecondaryIndexPendingVariantsManager(getDBAdaptor())
-                .discoverPending(getMRExecutor(), overwrite, getMergedOptions(queryOptions));
+        ObjectMap options = getMergedOptions(queryOptions);
+
+        SecondaryIndexChangeLog changeLog = new SecondaryIndexChangeLog(getDBAdaptor());
+        boolean changeLogActive = SecondaryIndexChangeLog.isActive(options);
+        boolean partialIndex = isValidParam(query, REGION);
+        if (changeLogActive && !overwrite && !partialIndex && changeLog.isComplete()) {
+            logger.info("Discover pending variants from the secondary index change log");
+            changeLog.moveToPending(options);
+        } else {
+            long discoveryStart = System.currentTimeMillis();
+            new SecondaryIndexPendingVariantsManager(getDBAdaptor())
+                    .discoverPending(getMRExecutor(), overwrite, options);
+            if (!changeLogActive) {
+                changeLog.removeCheckpoint();
+            } else if (!partialIndex) {
+                changeLog.setCheckpoint(discoveryStart);
+            }
+        }
 
         return super.secondaryIndex(query, queryOptions, overwrite);
     }
@@ -573,6 +589,8 @@ public class HadoopVariantStorageEngine extends VariantStorageEngine implements
         TaskMetadata task = preRemoveFiles(study, files);
         List<Integer> fileIds = task.getFileIds();
         final int studyId = metadataManager.getStudyId(study);
+        // Removed variants are not written to the secondary index change log
+        new SecondaryIndexChangeLog(dbAdaptor).removeCheckpoint();
 
 //        // Pre delete
 //        scm.lockAndUpdate(studyId, sc -> {
@@ -736,6 +754,8 @@ public class HadoopVariantStorageEngine extends VariantStorageEngine implements
     public void loadVariantScore(URI scoreFile, String study, String scoreName, String cohort1, String cohort2,
                                  VariantScoreFormatDescriptor descriptor, ObjectMap options)
             throws StorageEngineException {
+        // Variant scores are not written to the secondary index change log
+        new SecondaryIndexChangeLog(getDBAdaptor()).removeCheckpoint();
         new HadoopVariantScoreLoader(getDBAdaptor(), ioConnectorProvider)
                 .loadVariantScore(scoreFile, study, scoreName, cohort1, cohort2, descriptor, options);
     }
@@ -743,6 +763,7 @@ public class HadoopVariantStorageEngine extends VariantStorageEngine implements
     @Override
     public void deleteVariantScore(String study, String scoreName, ObjectMap options)
             throws StorageEngineException {
+        new SecondaryIndexChangeLog(getDBAdaptor()).removeCheckpoint();
         new HadoopVariantScoreRemover(getDBAdaptor(), getMRExecutor())
                 .remove(study, scoreName, options);
     }
@@ -851,7 +872,7 @@ public class HadoopVariantStorageEngine extends VariantStorageEngine implements
             dbAdaptor.set(null);
         }
         if (sampleIndexDBAdaptor.get() != null) {
-//            sampleIndexDBAdaptor.get().close();
+            sampleIndexDBAdaptor.get().close();
             sampleIndexDBAdaptor.set(null);
         }
         if (tableNameGenerator != null) {
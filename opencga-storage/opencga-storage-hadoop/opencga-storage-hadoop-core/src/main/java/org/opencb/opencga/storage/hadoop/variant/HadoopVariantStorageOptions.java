@@ -3,6 +3,8 @@ package org.opencb.opencga.storage.hadoop.variant;
 import org.apache.hadoop.hbase.io.compress.Compression;
 import org.opencb.opencga.core.config.ConfigurationOption;
 
+import java.util.concurrent.TimeUnit;
+
 public enum HadoopVariantStorageOptions implements ConfigurationOption {
 
 
@@ -11,6 +13,11 @@ public enum HadoopVariantStorageOptions implements ConfigurationOption {
     EXPECTED_FILES_NUMBER("expected_files_number", 5000),
     EXPECTED_SAMPLES_NUMBER("expected_samples_number"),
     DBADAPTOR_PHOENIX_FETCH_SIZE("storage.hadoop.phoenix.fetchSize", -1),
+    // Threads converting HBase results into variants, shared by all the native HBase iterators. 0 to convert in the caller thread
+    DBADAPTOR_SCAN_CONVERTER_THREADS("storage.hadoop.dbadaptor.scan.converter.threads", 8),
+    DBADAPTOR_SCAN_CONVERTER_CHUNK_SIZE("storage.hadoop.dbadaptor.scan.converter.chunkSize", 100),
+    // Max number of chunks submitted for conversion by each iterator. Prevents a single query from taking all the threads
+    DBADAPTOR_SCAN_CONVERTER_CHUNKS_IN_FLIGHT("storage.hadoop.dbadaptor.scan.converter.chunksInFlight", 2),
 
     /////////////////////////
     // MapReduce configuration
@@ -66,6 +73,13 @@ public enum HadoopVariantStorageOptions implements ConfigurationOption {
     VARIANT_TABLE_LOAD_REFERENCE("storage.hadoop.variant.table.load.reference", false),
     PENDING_SECONDARY_INDEX_TABLE_COMPRESSION("storage.hadoop.pendingSecondaryIndex.table.compression",
             Compression.Algorithm.SNAPPY.getName()),
+    // Log the variants modified by load, annotation and stats operations, so the secondary index
+    // can be synchronized without scanning the whole variants table
+    SEARCH_INDEX_CHANGE_LOG("storage.hadoop.searchIndex.changeLog", false),
+    SEARCH_INDEX_CHANGE_LOG_BATCH_SIZE("storage.hadoop.searchIndex.changeLog.batchSize", 1000),
+    // Change log entries whose modification is not found in the variants table after this delay (millis) come from
+    // failed operations, and are discarded
+    SEARCH_INDEX_CHANGE_LOG_MAX_WRITE_DELAY("storage.hadoop.searchIndex.changeLog.maxWriteDelay", TimeUnit.DAYS.toMillis(1)),
 
     /////////////////////////
     // Archive table configuration
@@ -89,6 +103,11 @@ public enum HadoopVariantStorageOptions implements ConfigurationOption {
     SAMPLE_INDEX_BUILD_MAX_SAMPLES_PER_MR("storage.hadoop.sampleIndex.build.maxSamplesPerMR", 5000),
     SAMPLE_INDEX_ANNOTATION_MAX_SAMPLES_PER_MR("storage.hadoop.sampleIndex.annotation.maxSamplesPerMR", 5000),
     SAMPLE_INDEX_FAMILY_MAX_TRIOS_PER_MR("storage.hadoop.sampleIndex.family.maxTriosPerMR", 1000),
+    // Requires the opencga-storage-hadoop-core jar in the region servers classpath
+    SAMPLE_INDEX_QUERY_SERVER_SIDE_FILTER("storage.hadoop.sampleIndex.query.serverSideFilter", false),
+    SAMPLE_INDEX_QUERY_PARALLEL("storage.hadoop.sampleIndex.query.parallel", false),
+    SAMPLE_INDEX_QUERY_PARALLEL_THREADS("storage.hadoop.sampleIndex.query.parallel.threads", 8),
+    SAMPLE_INDEX_QUERY_PARALLEL_MAX_BATCH_SIZE("storage.hadoop.sampleIndex.query.parallel.maxBatchSize", 10000),
 
     /////////////////////////
     // Annotation index table  configuration
@@ -96,6 +115,14 @@ public enum HadoopVariantStorageOptions implements ConfigurationOption {
     ANNOTATION_INDEX_TABLE_COMPRESSION("storage.hadoop.annotationIndex.table.compression", Compression.Algorithm.SNAPPY.getName()),
     PENDING_ANNOTATION_TABLE_COMPRESSION("storage.hadoop.pendingAnnotation.table.compression", Compression.Algorithm.SNAPPY.getName()),
 
+    /////////////////////////
+    // Export configuration
+    /////////////////////////
+    // Parquet row group size, in bytes. Each row group stores min/max statistics, used by readers to skip row groups.
+    EXPORT_PARQUET_ROW_GROUP_SIZE("storage.hadoop.export.parquet.rowGroupSize", 128 * 1024 * 1024), // 128MB
+    EXPORT_PARQUET_PAGE_SIZE("storage.hadoop.export.parquet.pageSize", 1024 * 1024), // 1MB
+    EXPORT_PARQUET_DICTIONARY("storage.hadoop.export.parquet.dictionary", true),
+
     /////////////////////////
     // Other
     /////////////////////////
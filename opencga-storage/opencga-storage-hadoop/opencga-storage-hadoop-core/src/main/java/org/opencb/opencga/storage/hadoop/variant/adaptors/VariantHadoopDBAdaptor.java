@@ -17,6 +17,7 @@
 package org.opencb.opencga.storage.hadoop.variant.adaptors;
 
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.hadoop.conf.Configuration;
@@ -76,6 +77,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -107,6 +110,7 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
     private final int phoenixFetchSize;
     private boolean clientSideSkip;
     private HBaseManager hBaseManager;
+    private ExecutorService scanConverterExecutor;
 
     public VariantHadoopDBAdaptor(HBaseManager hBaseManager, HBaseCredentials credentials, StorageConfiguration configuration,
                                   Configuration conf, HBaseVariantTableNameGenerator tableNameGenerator)
@@ -221,8 +225,33 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
         this.studyConfigurationManager.set(variantStorageMetadataManager);
     }
 
+    /**
+     * Executor converting the results of all the native HBase iterators. Created on first use.
+     *
+     * @return Shared executor, or null if the conversion runs in the caller thread
+     */
+    private synchronized ExecutorService getScanConverterExecutor() {
+        if (scanConverterExecutor == null) {
+            int threads = configuration.getInt(
+                    HadoopVariantStorageOptions.DBADAPTOR_SCAN_CONVERTER_THREADS.key(),
+                    HadoopVariantStorageOptions.DBADAPTOR_SCAN_CONVERTER_THREADS.defaultValue());
+            if (threads <= 0) {
+                return null;
+            }
+            scanConverterExecutor = Executors.newFixedThreadPool(threads,
+                    new ThreadFactoryBuilder().setNameFormat("variant-hbase-scan-convert-%d").setDaemon(true).build());
+        }
+        return scanConverterExecutor;
+    }
+
     @Override
     public void close() throws IOException {
+        synchronized (this) {
+            if (scanConverterExecutor != null) {
+                scanConverterExecutor.shutdownNow();
+                scanConverterExecutor = null;
+            }
+        }
         this.hBaseManager.close();
         try {
            close(this.phoenixCon.getAndSet(null));
@@ -406,8 +435,14 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
                 }
             }).iterator();
 
+            int chunkSize = configuration.getInt(
+                    HadoopVariantStorageOptions.DBADAPTOR_SCAN_CONVERTER_CHUNK_SIZE.key(),
+                    HadoopVariantStorageOptions.DBADAPTOR_SCAN_CONVERTER_CHUNK_SIZE.defaultValue());
+            int chunksInFlight = configuration.getInt(
+                    HadoopVariantStorageOptions.DBADAPTOR_SCAN_CONVERTER_CHUNKS_IN_FLIGHT.key(),
+                    HadoopVariantStorageOptions.DBADAPTOR_SCAN_CONVERTER_CHUNKS_IN_FLIGHT.defaultValue());
             VariantHBaseScanIterator iterator = new VariantHBaseScanIterator(
-                    resScans, metadataManager, converterConfiguration, options);
+                    resScans, metadataManager, converterConfiguration, options, getScanConverterExecutor(), chunkSize, chunksInFlight);
 
             // Client side skip!
             int skip = options.getInt(QueryOptions.SKIP, -1);
@@ -21,6 +21,7 @@ import org.apache.hadoop.hbase.client.ResultScanner;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
 import org.opencb.opencga.storage.hadoop.variant.converters.HBaseToVariantConverter;
 import org.opencb.opencga.storage.hadoop.variant.converters.HBaseVariantConverterConfiguration;
@@ -28,41 +29,60 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created on 23/11/15.
  *
+ * Results are read from the scanners in the caller thread, in chunks, and converted into variants by a shared executor.
+ * Up to maxChunksInFlight chunks are submitted ahead, so the next chunk is fetched while the previous ones are converted.
+ * Limiting the chunks in flight per iterator keeps the executor fair between concurrent queries.
+ *
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
 public class VariantHBaseScanIterator extends VariantDBIterator {
 
-    private static final int POOL_SIZE = 4;
     private final Logger logger = LoggerFactory.getLogger(VariantHBaseScanIterator.class);
     private final Iterator<ResultScanner> resultScanners;
     private ResultScanner currentResultScanner;
     private Iterator<Result> resultIterator;
-    private Iterator<Future<Variant>> buffer = Collections.emptyIterator();
+    private Iterator<Variant> buffer = Collections.emptyIterator();
+    private final Deque<Future<List<Variant>>> pendingChunks = new ArrayDeque<>();
     private final HBaseToVariantConverter<Result> converter;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
     private long limit = Long.MAX_VALUE;
     private int count = 0;
-    private ExecutorService threadPool;
-    private AtomicLong timeConverting = new AtomicLong();
-//    private static final ExecutorService THREAD_POOL = Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
-//            .namingPattern("variant-hbase-scan-convert-%s")
-//            .build());
+    // Number of results submitted for conversion
+    private long submitted = 0;
+    private boolean exhausted = false;
+    private final AtomicLong timeConverting = new AtomicLong();
+    private final AtomicLong timeQueued = new AtomicLong();
 
+    /**
+     * @param resultScanners    Scanners to read, in order
+     * @param metadataManager   Metadata manager
+     * @param configuration     Converter configuration
+     * @param options           Query options. Only the limit is used
+     * @param executor          Shared executor to convert the results. If null, results are converted in the caller thread
+     * @param chunkSize         Number of results converted by each task
+     * @param maxChunksInFlight Max number of chunks submitted to the executor
+     */
     public VariantHBaseScanIterator(Iterator<ResultScanner> resultScanners, VariantStorageMetadataManager metadataManager,
-                                    HBaseVariantConverterConfiguration configuration, QueryOptions options) {
+                                    HBaseVariantConverterConfiguration configuration, QueryOptions options,
+                                    ExecutorService executor, int chunkSize, int maxChunksInFlight) {
         this.resultScanners = resultScanners;
         resultIterator = Collections.emptyIterator();
         converter = HBaseToVariantConverter.fromResult(metadataManager).configure(configuration);
         setLimit(options.getLong(QueryOptions.LIMIT, Long.MAX_VALUE));
-        threadPool = Executors.newFixedThreadPool(POOL_SIZE);
+        this.executor = executor;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxChunksInFlight = Math.max(1, maxChunksInFlight);
     }
 
     @Override
@@ -71,15 +91,55 @@ public class VariantHBaseScanIterator extends VariantDBIterator {
             // Limit reached
             return false;
         }
-        if (buffer.hasNext() || fetch(resultIterator::hasNext)) {
-            return true;
-        } else {
-            nextResultSet();
-            return fetch(resultIterator::hasNext);
+        while (!buffer.hasNext()) {
+            // Fetch and submit the next chunks before waiting for the current one
+            submitChunks();
+            if (pendingChunks.isEmpty()) {
+                return false;
+            }
+            buffer = waitChunk(pendingChunks.pollFirst()).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Variant next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Limit reached");
+        }
+        count++;
+        return buffer.next();
+    }
+
+    private void submitChunks() {
+        while (pendingChunks.size() < maxChunksInFlight && submitted < limit) {
+            List<Result> results = fetchResults((int) Math.min(chunkSize, limit - submitted));
+            if (results.isEmpty()) {
+                return;
+            }
+            submitted += results.size();
+            if (executor == null) {
+                pendingChunks.add(CompletableFuture.completedFuture(convertChunk(results, System.nanoTime())));
+            } else {
+                long submitTime = System.nanoTime();
+                pendingChunks.add(executor.submit(() -> convertChunk(results, submitTime)));
+            }
+        }
+    }
+
+    private List<Result> fetchResults(int size) {
+        List<Result> results = new ArrayList<>(size);
+        while (results.size() < size && !exhausted) {
+            if (fetch(resultIterator::hasNext) || nextResultSet()) {
+                results.add(fetch(resultIterator::next));
+            } else {
+                exhausted = true;
+            }
         }
+        return results;
     }
 
-    private void nextResultSet() {
+    private boolean nextResultSet() {
         while (resultScanners.hasNext()) {
             if (currentResultScanner != null) {
                 currentResultScanner.close();
@@ -87,57 +147,62 @@ public class VariantHBaseScanIterator extends VariantDBIterator {
             currentResultScanner = resultScanners.next();
             resultIterator = currentResultScanner.iterator();
             if (fetch(resultIterator::hasNext)) {
-                break;
+                return true;
             }
         }
+        return false;
     }
 
-    @Override
-    public Variant next() {
-        if (count >= limit || !hasNext()) {
-            throw new NoSuchElementException("Limit reached");
-        }
-        if (!buffer.hasNext()) {
-            int i = (int) Math.min(50, limit - count);
-            List<Future<Variant>> variants = new ArrayList<>(50);
-            while (hasNext() && i > 0) {
-                i--;
-                Result result = fetch(resultIterator::next);
-                variants.add(threadPool.submit(() -> {
-                    long start = System.nanoTime();
-                    Variant v = converter.convert(result);
-                    timeConverting.addAndGet(System.nanoTime() - start);
-                    return v;
-                }));
-            }
-            buffer = variants.iterator();
+    private List<Variant> convertChunk(List<Result> results, long submitTime) {
+        long start = System.nanoTime();
+        timeQueued.addAndGet(start - submitTime);
+        List<Variant> variants = new ArrayList<>(results.size());
+        for (Result result : results) {
+            variants.add(converter.convert(result));
         }
-        count++;
+        timeConverting.addAndGet(System.nanoTime() - start);
+        return variants;
+    }
+
+    private List<Variant> waitChunk(Future<List<Variant>> future) {
         try {
-            Future<Variant> next = buffer.next();
-            return next.get();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new IllegalStateException(e);
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw VariantQueryException.internalException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw VariantQueryException.internalException(e);
+            }
         }
     }
 
     @Override
     public void close() throws Exception {
         super.close();
-        double timeConverting = getTimeConverting() / 1000000.0;
-        logger.debug("Close variant iterator. Fetch = {}ms, Convert = {}ms (total)   ~{}ms/thread",
+        for (Future<List<Variant>> pendingChunk : pendingChunks) {
+            pendingChunk.cancel(false);
+        }
+        pendingChunks.clear();
+        logger.debug("Close variant iterator. Fetch = {}ms, Convert = {}ms, Queued = {}ms",
                 getTimeFetching() / 1000000.0,
-                timeConverting,
-                timeConverting / POOL_SIZE);
-        threadPool.shutdownNow();
+                timeConverting.get() / 1000000.0,
+                timeQueued.get() / 1000000.0);
         if (currentResultScanner != null) {
             currentResultScanner.close();
         }
     }
 
+    /**
+     * Time spent converting results, including the time waiting in the executor queue.
+     *
+     * @return Time in nanoseconds
+     */
     @Override
     public long getTimeConverting() {
-        return super.timeConverting + timeConverting.get();
+        return super.timeConverting + timeConverting.get() + timeQueued.get();
     }
 
     @Override
@@ -153,12 +218,17 @@ public class VariantHBaseScanIterator extends VariantDBIterator {
         this.limit = limit < 0 ? Long.MAX_VALUE : limit;
     }
 
+    /**
+     * Skip results without converting them. Must be called before starting the iteration.
+     *
+     * @param skip Number of results to skip
+     */
     public void skip(int skip) {
-        if (skip > 0) {
-            while (hasNext() && skip > 0) {
-                skip--;
-                fetch(resultIterator::next);
-            }
+        if (submitted > 0) {
+            throw new IllegalStateException("Unable to skip results after starting the iteration");
+        }
+        while (skip > 0 && !fetchResults(1).isEmpty()) {
+            skip--;
         }
     }
 }
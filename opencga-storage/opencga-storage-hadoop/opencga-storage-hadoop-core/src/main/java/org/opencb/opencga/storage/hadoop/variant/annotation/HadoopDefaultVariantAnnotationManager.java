@@ -50,8 +50,10 @@ import org.opencb.opencga.storage.hadoop.variant.converters.annotation.VariantAn
 import org.opencb.opencga.storage.hadoop.variant.executors.MRExecutor;
 import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexAnnotationLoader;
 import org.opencb.opencga.storage.hadoop.variant.pending.PendingVariantsReader;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLog;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.*;
 
 /**
@@ -180,18 +182,34 @@ public class HadoopDefaultVariantAnnotationManager extends DefaultVariantAnnotat
         return params.getBoolean(SKIP_PENDING_VARIANTS_TO_ANNOTATE_TABLE, false);
     }
 
+    @Override
+    public void loadVariantAnnotation(URI uri, ObjectMap params) throws IOException, StorageEngineException {
+        SecondaryIndexChangeLog changeLog = new SecondaryIndexChangeLog(dbAdaptor);
+        if (useHBaseWriter(params)) {
+            changeLog.removeCheckpointIfInactive(params);
+        } else {
+            // The Phoenix annotation loader does not write to the secondary index change log
+            changeLog.removeCheckpoint();
+        }
+        super.loadVariantAnnotation(uri, params);
+    }
+
+    private boolean useHBaseWriter(ObjectMap params) {
+        return VariantPhoenixSchema.DEFAULT_TABLE_TYPE == PTableType.VIEW
+                || params.getBoolean(HadoopVariantStorageOptions.VARIANT_TABLE_INDEXES_SKIP.key(), false);
+    }
+
     @Override
     protected ParallelTaskRunner<VariantAnnotation, ?> buildLoadAnnotationParallelTaskRunner(
             DataReader<VariantAnnotation> reader, ParallelTaskRunner.Config config, ProgressLogger progressLogger, ObjectMap params) {
 
-        if (VariantPhoenixSchema.DEFAULT_TABLE_TYPE == PTableType.VIEW
-                || params.getBoolean(HadoopVariantStorageOptions.VARIANT_TABLE_INDEXES_SKIP.key(), false)) {
+        if (useHBaseWriter(params)) {
             int currentAnnotationId = dbAdaptor.getMetadataManager().getProjectMetadata()
                     .getAnnotation().getCurrent().getId();
             VariantAnnotationToHBaseConverter hBaseConverter =
                     new VariantAnnotationToHBaseConverter(currentAnnotationId, progressLogger);
 
-            VariantAnnotationHadoopDBWriter writer = new VariantAnnotationHadoopDBWriter(dbAdaptor);
+            VariantAnnotationHadoopDBWriter writer = new VariantAnnotationHadoopDBWriter(dbAdaptor, params);
             return new ParallelTaskRunner<>(reader, hBaseConverter, writer, config);
         } else {
             return new ParallelTaskRunner<>(reader,
@@ -2,6 +2,7 @@ package org.opencb.opencga.storage.hadoop.variant.annotation;
 
 import com.google.common.base.Throwables;
 import org.apache.hadoop.hbase.client.Put;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.hadoop.utils.HBaseDataWriter;
 import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
@@ -10,6 +11,8 @@ import org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenix
 import org.opencb.opencga.storage.hadoop.variant.annotation.pending.AnnotationPendingVariantsManager;
 import org.opencb.opencga.storage.hadoop.variant.pending.PendingVariantsDBCleaner;
 import org.opencb.opencga.storage.hadoop.variant.search.HadoopVariantSearchIndexUtils;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLog;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLogWriter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,19 +30,27 @@ public class VariantAnnotationHadoopDBWriter extends HBaseDataWriter<Put> {
     private final byte[] columnFamily;
     private final List<byte[]> loadedVariants = new ArrayList<>(PENDING_VARIANTS_BUFFER_SIZE);
     private final PendingVariantsDBCleaner pendingVariantsCleaner;
-
+    private final SecondaryIndexChangeLogWriter changeLogWriter;
 
     public VariantAnnotationHadoopDBWriter(VariantHadoopDBAdaptor dbAdaptor) {
+        this(dbAdaptor, new ObjectMap());
+    }
+
+    public VariantAnnotationHadoopDBWriter(VariantHadoopDBAdaptor dbAdaptor, ObjectMap options) {
         super(dbAdaptor.getHBaseManager(), dbAdaptor.getTableNameGenerator().getVariantTableName());
         this.columnFamily = GenomeHelper.COLUMN_FAMILY_BYTES;
 
         pendingVariantsCleaner = new AnnotationPendingVariantsManager(hBaseManager, dbAdaptor.getTableNameGenerator()).cleaner();
+        changeLogWriter = new SecondaryIndexChangeLog(dbAdaptor).newWriter(options);
         schemaManager = new VariantPhoenixSchemaManager(dbAdaptor);
     }
 
     @Override
     public boolean open() {
         super.open();
+        if (changeLogWriter != null) {
+            changeLogWriter.open();
+        }
         return pendingVariantsCleaner.open();
     }
 
@@ -52,6 +63,9 @@ public class VariantAnnotationHadoopDBWriter extends HBaseDataWriter<Put> {
             throw Throwables.propagate(e);
         }
         pendingVariantsCleaner.pre();
+        if (changeLogWriter != null) {
+            changeLogWriter.pre();
+        }
         return true;
     }
 
@@ -60,12 +74,18 @@ public class VariantAnnotationHadoopDBWriter extends HBaseDataWriter<Put> {
         super.post();
         cleanPendingVariants();
         pendingVariantsCleaner.post();
+        if (changeLogWriter != null) {
+            changeLogWriter.post();
+        }
         return true;
     }
 
     @Override
     public boolean close() {
         super.close();
+        if (changeLogWriter != null) {
+            changeLogWriter.close();
+        }
         return pendingVariantsCleaner.close();
     }
 
@@ -78,6 +98,9 @@ public class VariantAnnotationHadoopDBWriter extends HBaseDataWriter<Put> {
             HadoopVariantSearchIndexUtils.addNotSyncStatus(put, columnFamily);
             loadedVariants.add(put.getRow());
         }
+        if (changeLogWriter != null) {
+            changeLogWriter.write(puts);
+        }
 
         return puts;
     }
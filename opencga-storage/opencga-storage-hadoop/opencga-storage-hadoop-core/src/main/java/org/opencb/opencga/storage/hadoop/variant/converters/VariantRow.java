@@ -27,6 +27,7 @@ import java.nio.ByteBuffer;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -400,6 +401,22 @@ public class VariantRow {
 
         String getSampleData(int idx);
 
+        /**
+         * Get the values at the given positions of the sample data, without decoding the rest of values.
+         *
+         * @param positions     Positions to read
+         * @param missingValue  Value for negative positions, or positions out of the sample data
+         * @return              Mutable list with the values
+         */
+        default List<String> getSampleData(int[] positions, String missingValue) {
+            List<String> sampleData = getSampleData();
+            List<String> values = new ArrayList<>(positions.length);
+            for (int position : positions) {
+                values.add(position < 0 || position >= sampleData.size() ? missingValue : sampleData.get(position));
+            }
+            return values;
+        }
+
         default Float getSampleDataFloat(int idx) {
             return toFloat(getSampleData(idx));
         }
@@ -540,6 +557,16 @@ public class VariantRow {
         public String getSampleData(int idx) {
             return super.getString(idx);
         }
+
+        @Override
+        public List<String> getSampleData(int[] positions, String missingValue) {
+            int size = PArrayDataType.getArrayLength(toBytesWritable(), PVarchar.INSTANCE, null);
+            List<String> values = new ArrayList<>(positions.length);
+            for (int position : positions) {
+                values.add(position < 0 || position >= size ? missingValue : super.getString(position));
+            }
+            return values;
+        }
     }
 
     private static class BytesFileColumn extends BytesColumn implements FileColumn {
@@ -31,6 +31,7 @@ import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
 import org.opencb.opencga.storage.core.metadata.models.VariantScoreMetadata;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
@@ -129,15 +130,28 @@ public class HBaseToStudyEntryConverter extends AbstractPhoenixConverter {
         Set<Integer> studies = new HashSet<>();
         Map<Integer, Integer> fillMissing = new HashMap<>();
         Map<Integer, List<VariantRow.SampleColumn>> sampleDataMap = new HashMap<>();
-        Map<Integer, List<Pair<String, PhoenixArray>>> filesMap = new HashMap<>();
+        Map<Integer, List<VariantRow.FileColumn>> filesMap = new HashMap<>();
         Map<Integer, List<VariantStats>> stats = new HashMap<>();
         Map<Integer, List<VariantScore>> scores = new HashMap<>();
 
-        Variant variant = row.walker()
-                .onStudy(studies::add)
+        VariantRow.VariantRowWalkerBuilder walker = row.walker()
+                .onStudy(studyId -> {
+                    if (isStudyReturned(studyId)) {
+                        studies.add(studyId);
+                    }
+                })
                 .onFillMissing(fillMissing::put)
                 .onSample(sampleColumn -> {
+                    if (!isStudyReturned(sampleColumn.getStudyId())) {
+                        // Study not returned. Skip without decoding the column
+                        return;
+                    }
                     studies.add(sampleColumn.getStudyId());
+                    if (configuration.getProjection() != null
+                            && !getReturnedSampleIds(sampleColumn.getStudyId()).contains(sampleColumn.getSampleId())) {
+                        // Sample not returned. Skip without decoding the column
+                        return;
+                    }
                     List<Integer> multiFiles = getMultiFiles(sampleColumn);
                     if (!multiFiles.isEmpty()) {
                         if (sampleColumn.getFileId() == null) {
@@ -155,46 +169,60 @@ public class HBaseToStudyEntryConverter extends AbstractPhoenixConverter {
                             .add(sampleColumn);
                 })
                 .onFile(fileColumn -> {
+                    if (!isStudyReturned(fileColumn.getStudyId())) {
+                        return;
+                    }
                     studies.add(fileColumn.getStudyId());
+                    // Decoded later, only if the file is returned
                     filesMap.computeIfAbsent(fileColumn.getStudyId(), s -> new ArrayList<>())
-                            .add(Pair.of(String.valueOf(fileColumn.getFileId()), fileColumn.raw()));
-                })
-                .onCohortStats(statsColumn -> {
-                    studies.add(statsColumn.getStudyId());
-                    VariantStats variantStats = statsConverter.convert(statsColumn);
-                    variantStats.setCohortId(getCohortName(statsColumn.getStudyId(), statsColumn.getCohortId()));
-                    stats.computeIfAbsent(statsColumn.getStudyId(), s -> new ArrayList<>())
-                            .add(variantStats);
-                })
-                .onVariantScore(variantScoreColumn -> {
-                    int studyId = variantScoreColumn.getStudyId();
-                    for (VariantScoreMetadata variantScoreMetadata : getStudyMetadata(studyId).getVariantScores()) {
-                        if (variantScoreMetadata.getId() == variantScoreColumn.getScoreId()) {
-                            String cohortId1 = metadataManager.getCohortName(studyId, variantScoreMetadata.getCohortId1());
-                            String cohortId2 = variantScoreMetadata.getCohortId2() == null
-                                    ? null
-                                    : metadataManager.getCohortName(studyId, variantScoreMetadata.getCohortId2());
-                            VariantScore variantScore = new VariantScore(
-                                    variantScoreMetadata.getName(),
-                                    cohortId1,
-                                    cohortId2,
-                                    variantScoreColumn.getScore(),
-                                    variantScoreColumn.getPValue());
-                            scores.computeIfAbsent(studyId, s -> new LinkedList<>()).add(variantScore);
-                            return;
-                        }
+                            .add(fileColumn);
+                });
+        if (isIncluded(VariantField.STUDIES_STATS)) {
+            walker.onCohortStats(statsColumn -> {
+                if (!isStudyReturned(statsColumn.getStudyId())) {
+                    return;
+                }
+                studies.add(statsColumn.getStudyId());
+                VariantStats variantStats = statsConverter.convert(statsColumn);
+                variantStats.setCohortId(getCohortName(statsColumn.getStudyId(), statsColumn.getCohortId()));
+                stats.computeIfAbsent(statsColumn.getStudyId(), s -> new ArrayList<>())
+                        .add(variantStats);
+            });
+        }
+        if (isIncluded(VariantField.STUDIES_SCORES)) {
+            walker.onVariantScore(variantScoreColumn -> {
+                int studyId = variantScoreColumn.getStudyId();
+                if (!isStudyReturned(studyId)) {
+                    return;
+                }
+                for (VariantScoreMetadata variantScoreMetadata : getStudyMetadata(studyId).getVariantScores()) {
+                    if (variantScoreMetadata.getId() == variantScoreColumn.getScoreId()) {
+                        String cohortId1 = metadataManager.getCohortName(studyId, variantScoreMetadata.getCohortId1());
+                        String cohortId2 = variantScoreMetadata.getCohortId2() == null
+                                ? null
+                                : metadataManager.getCohortName(studyId, variantScoreMetadata.getCohortId2());
+                        VariantScore variantScore = new VariantScore(
+                                variantScoreMetadata.getName(),
+                                cohortId1,
+                                cohortId2,
+                                variantScoreColumn.getScore(),
+                                variantScoreColumn.getPValue());
+                        scores.computeIfAbsent(studyId, s -> new LinkedList<>()).add(variantScore);
+                        return;
                     }
-                    // This is highly unlikely
-                    throw VariantQueryException.scoreNotFound(variantScoreColumn.getScoreId(), metadataManager.getStudyName(studyId));
-                })
-                .walk();
+                }
+                // This is highly unlikely
+                throw VariantQueryException.scoreNotFound(variantScoreColumn.getScoreId(), metadataManager.getStudyName(studyId));
+            });
+        }
+        Variant variant = walker.walk();
 
         HashMap<Integer, StudyEntry> map = new HashMap<>();
         for (Integer studyId : studies) {
             int fillMissingColumnValue = fillMissing.getOrDefault(studyId, -1);
             StudyMetadata studyMetadata = getStudyMetadata(studyId);
             List<VariantRow.SampleColumn> samplesData = sampleDataMap.getOrDefault(studyId, Collections.emptyList());
-            List<Pair<String, PhoenixArray>> files = filesMap.getOrDefault(studyId, Collections.emptyList());
+            List<VariantRow.FileColumn> files = filesMap.getOrDefault(studyId, Collections.emptyList());
 
             StudyEntry studyEntry = convert(samplesData, files, variant, studyMetadata, fillMissingColumnValue);
             studyEntry.setScores(scores.getOrDefault(studyId, Collections.emptyList()));
@@ -221,14 +249,31 @@ public class HBaseToStudyEntryConverter extends AbstractPhoenixConverter {
         return multiFiles;
     }
 
+    private boolean isStudyReturned(int studyId) {
+        return configuration.getProjection() == null || configuration.getProjection().getStudy(studyId) != null;
+    }
+
+    private boolean isIncluded(VariantField field) {
+        if (configuration.getProjection() == null) {
+            return true;
+        } else {
+            Set<VariantField> fields = configuration.getProjection().getFields();
+            return fields.contains(field) || fields.contains(field.getParent());
+        }
+    }
+
     public StudyEntry convert(List<VariantRow.SampleColumn> sampleDataMap,
                                  List<Pair<String, PhoenixArray>> filesMap,
                                  Variant variant, Integer studyId) {
-        return convert(sampleDataMap, filesMap, variant, getStudyMetadata(studyId), -1);
+        List<VariantRow.FileColumn> fileColumns = new ArrayList<>(filesMap.size());
+        for (Pair<String, PhoenixArray> pair : filesMap) {
+            fileColumns.add(new PhoenixArrayFileColumn(studyId, Integer.parseInt(pair.getKey()), pair.getValue()));
+        }
+        return convert(sampleDataMap, fileColumns, variant, getStudyMetadata(studyId), -1);
     }
 
     protected StudyEntry convert(List<VariantRow.SampleColumn> sampleDataMap,
-                                 List<Pair<String, PhoenixArray>> filesMap,
+                                 List<VariantRow.FileColumn> filesMap,
                                  Variant variant, StudyMetadata studyMetadata, int fillMissingColumnValue) {
         List<String> fixedSampleDataKeys = getFixedSampleDataKeys(studyMetadata);
         StudyEntry studyEntry = newStudyEntry(studyMetadata, fixedSampleDataKeys);
@@ -240,10 +285,8 @@ public class HBaseToStudyEntryConverter extends AbstractPhoenixConverter {
         }
 
         Map<String, List<String>> alternateFileMap = new HashMap<>();
-        for (Pair<String, PhoenixArray> pair : filesMap) {
-            String fileId = pair.getKey();
-            PhoenixArray fileColumn = pair.getValue();
-            addFileEntry(studyMetadata, variant, studyEntry, fileId, fileColumn, alternateFileMap);
+        for (VariantRow.FileColumn fileColumn : filesMap) {
+            addFileEntry(studyMetadata, variant, studyEntry, fileColumn, alternateFileMap);
         }
         addSecondaryAlternates(variant, studyEntry, studyMetadata, alternateFileMap);
 
@@ -301,7 +344,13 @@ public class HBaseToStudyEntryConverter extends AbstractPhoenixConverter {
     protected void addMainSampleDataColumn(StudyMetadata studyMetadata, StudyEntry studyEntry,
                                            int[] sampleDataKeysMap, VariantRow.SampleColumn sampleColumn) {
         int sampleId = sampleColumn.getSampleId();
-        List<String> sampleData = remapSamplesData(sampleColumn.getMutableSampleData(), sampleDataKeysMap);
+        List<String> sampleData;
+        if (sampleDataKeysMap == null) {
+            sampleData = sampleColumn.getMutableSampleData();
+        } else {
+            // Decode only the requested sample data keys
+            sampleData = sampleColumn.getSampleData(sampleDataKeysMap, UNKNOWN_SAMPLE_DATA);
+        }
         Integer gtIdx = studyEntry.getSampleDataKeyPosition("GT");
         // Replace UNKNOWN_GENOTYPE, if any
         if (gtIdx != null) {
@@ -365,37 +414,16 @@ public class HBaseToStudyEntryConverter extends AbstractPhoenixConverter {
         return formatsMap;
     }
 
-    private List<String> remapSamplesData(List<String> sampleData, int[] formatsMap) {
-        if (formatsMap == null) {
-            // Nothing to do!
-            return sampleData;
-        } else {
-            List<String> filteredSampleData = new ArrayList<>(formatsMap.length);
-            for (int i : formatsMap) {
-                if (i < 0) {
-                    filteredSampleData.add(UNKNOWN_SAMPLE_DATA);
-                } else {
-                    if (i < sampleData.size()) {
-                        filteredSampleData.add(sampleData.get(i));
-                    } else {
-                        filteredSampleData.add(UNKNOWN_SAMPLE_DATA);
-                    }
-                }
-            }
-            return filteredSampleData;
-        }
-    }
-
-    private void addFileEntry(StudyMetadata studyMetadata, Variant variant, StudyEntry studyEntry, String fileIdStr,
-                              PhoenixArray fileColumn, Map<String, List<String>> alternateFileMap) {
-        int fileId = Integer.parseInt(fileIdStr);
-        String alternateRaw = (String) (fileColumn.getElement(FILE_SEC_ALTS_IDX));
+    private void addFileEntry(StudyMetadata studyMetadata, Variant variant, StudyEntry studyEntry,
+                              VariantRow.FileColumn fileColumn, Map<String, List<String>> alternateFileMap) {
+        int fileId = fileColumn.getFileId();
+        // Only the secondary alternates are read from files not returned
+        String alternateRaw = fileColumn.getString(FILE_SEC_ALTS_IDX);
         String alternate = normalizeNonRefAlternateCoordinate(variant, alternateRaw);
         String fileName = getFileName(studyMetadata.getId(), fileId);
 
         // Add all combinations of secondary alternates, even the combination of "none secondary alternates", i.e. empty string
         alternateFileMap.computeIfAbsent(alternate, (key) -> new ArrayList<>()).add(fileName);
-        String call = (String) (fileColumn.getElement(FILE_CALL_IDX));
 
         if (configuration.getProjection() != null
                 && !configuration.getProjection().getStudy(studyMetadata.getId()).getFiles().contains(fileId)) {
@@ -406,11 +434,13 @@ public class HBaseToStudyEntryConverter extends AbstractPhoenixConverter {
             return;
         }
 
+        PhoenixArray fileArray = fileColumn.raw();
+        String call = (String) (fileArray.getElement(FILE_CALL_IDX));
         List<String> fixedAttributes = HBaseToVariantConverter.getFixedAttributes(studyMetadata);
-        HashMap<String, String> attributes = convertFileAttributes(fileColumn, fixedAttributes);
+        HashMap<String, String> attributes = convertFileAttributes(fileArray, fixedAttributes);
         OriginalCall originalCall = null;
         VariantOverlappingStatus overlappingStatus =
-                VariantOverlappingStatus.valueFromShortString((String) (fileColumn.getElement(FILE_VARIANT_OVERLAPPING_STATUS_IDX)));
+                VariantOverlappingStatus.valueFromShortString((String) (fileArray.getElement(FILE_VARIANT_OVERLAPPING_STATUS_IDX)));
         if (call != null && !call.isEmpty()) {
             int i = call.lastIndexOf(':');
             originalCall = new OriginalCall(call.substring(0, i), Integer.valueOf(call.substring(i + 1)));
@@ -1051,6 +1081,38 @@ public class HBaseToStudyEntryConverter extends AbstractPhoenixConverter {
         return metadataManager.getCohortName(studyId, cohortId);
     }
 
+    private static class PhoenixArrayFileColumn implements VariantRow.FileColumn {
+        private final int studyId;
+        private final int fileId;
+        private final PhoenixArray array;
+
+        PhoenixArrayFileColumn(int studyId, int fileId, PhoenixArray array) {
+            this.studyId = studyId;
+            this.fileId = fileId;
+            this.array = array;
+        }
+
+        @Override
+        public int getStudyId() {
+            return studyId;
+        }
+
+        @Override
+        public int getFileId() {
+            return fileId;
+        }
+
+        @Override
+        public PhoenixArray raw() {
+            return array;
+        }
+
+        @Override
+        public String getString(int idx) {
+            return idx < array.getDimensions() ? (String) array.getElement(idx) : null;
+        }
+    }
+
     private static class SampleColumnWithFileId implements VariantRow.SampleColumn {
         private final VariantRow.SampleColumn sampleColumnWithoutFile;
         private final Integer fileId;
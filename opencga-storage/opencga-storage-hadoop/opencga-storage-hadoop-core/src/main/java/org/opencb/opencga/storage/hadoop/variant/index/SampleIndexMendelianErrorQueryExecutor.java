@@ -41,6 +41,12 @@ public class SampleIndexMendelianErrorQueryExecutor extends SampleIndexVariantQu
         }
     }
 
+    @Override
+    public long estimateReadVariants(Query query, QueryOptions options) {
+        // No other executor can resolve mendelian errors. Do not compare costs.
+        return -1;
+    }
+
     @Override
     protected Object getOrIterator(Query query, QueryOptions options, boolean iterator, SampleIndexQuery sampleIndexQuery) {
 
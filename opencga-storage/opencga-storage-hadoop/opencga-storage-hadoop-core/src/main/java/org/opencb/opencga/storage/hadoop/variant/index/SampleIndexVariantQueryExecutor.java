@@ -9,6 +9,7 @@ import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.core.common.TimeUtils;
 import org.opencb.opencga.core.response.VariantQueryResult;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
@@ -72,6 +73,27 @@ public class SampleIndexVariantQueryExecutor extends AbstractTwoPhasedVariantQue
         throw new UnsupportedOperationException("Count not implemented in " + getClass());
     }
 
+    /**
+     * Number of variants from the sample index matching the query.
+     * Only one chromosome is counted. See {@link #estimateFromSingleChromosome}.
+     *
+     * @param query    Query to execute
+     * @param options  Options for the query
+     * @return         Estimated number of variants from the sample index
+     * @throws StorageEngineException if there is an error reading the metadata
+     */
+    @Override
+    public long estimateReadVariants(Query query, QueryOptions options) throws StorageEngineException {
+        // Parsing the sample index query modifies the query. Work with a copy
+        return estimateFromSingleChromosome(query, q -> primaryCount(new Query(q), options));
+    }
+
+    @Override
+    public double getDefaultCostPerVariant() {
+        // Read from the sample index, and fetch by id from the variants table
+        return 0.05;
+    }
+
     @Override
     protected long primaryCount(Query query, QueryOptions options) {
         SampleIndexQuery sampleIndexQuery = sampleIndexDBAdaptor.parseSampleIndexQuery(query);
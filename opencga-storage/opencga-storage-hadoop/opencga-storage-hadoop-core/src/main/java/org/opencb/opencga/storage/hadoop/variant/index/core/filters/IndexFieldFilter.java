@@ -17,7 +17,19 @@ public abstract class IndexFieldFilter {
 //    }
 
     public boolean readAndTest(BitBuffer bb) {
-        int code = bb.getIntPartial(indexField.getBitOffset(), indexField.getBitLength());
+        return readAndTest(bb, 0);
+    }
+
+    /**
+     * Read the field from an index element stored at the given position of the buffer, and test it.
+     * Allows testing elements from a column of fixed size elements without creating a BitBuffer for each one.
+     *
+     * @param bb        Buffer containing the index element
+     * @param bitOffset Position of the index element in the buffer
+     * @return          If the value passes the filter
+     */
+    public boolean readAndTest(BitBuffer bb, int bitOffset) {
+        int code = bb.getIntPartial(bitOffset + indexField.getBitOffset(), indexField.getBitLength());
         return test(code);
     }
 
@@ -46,7 +46,18 @@ public abstract class IndexFilter {
         exact = filters.stream().allMatch(IndexFieldFilter::isExactFilter);
     }
 
-    public abstract boolean test(BitBuffer bitBuffer);
+    public boolean test(BitBuffer bitBuffer) {
+        return test(bitBuffer, 0);
+    }
+
+    /**
+     * Test the index element stored at the given position of the buffer.
+     *
+     * @param bitBuffer Buffer containing the index element
+     * @param bitOffset Position of the index element in the buffer
+     * @return          If the index element passes the filter
+     */
+    public abstract boolean test(BitBuffer bitBuffer, int bitOffset);
 
     public IndexSchema getIndex() {
         return index;
@@ -74,9 +85,9 @@ public abstract class IndexFilter {
         }
 
         @Override
-        public boolean test(BitBuffer bitBuffer) {
+        public boolean test(BitBuffer bitBuffer, int bitOffset) {
             for (IndexFieldFilter filter : filters) {
-                if (filter.readAndTest(bitBuffer)) {
+                if (filter.readAndTest(bitBuffer, bitOffset)) {
                     // Require ANY match
                     // If any match, SUCCESS
                     return true;
@@ -94,9 +105,9 @@ public abstract class IndexFilter {
         }
 
         @Override
-        public boolean test(BitBuffer bitBuffer) {
+        public boolean test(BitBuffer bitBuffer, int bitOffset) {
             for (IndexFieldFilter filter : filters) {
-                if (!filter.readAndTest(bitBuffer)) {
+                if (!filter.readAndTest(bitBuffer, bitOffset)) {
                     // Require ALL matches.
                     // If any fail, FAIL
                     return false;
@@ -116,8 +127,8 @@ public abstract class IndexFilter {
         }
 
         @Override
-        public boolean test(BitBuffer bitBuffer) {
-            return filter.readAndTest(bitBuffer);
+        public boolean test(BitBuffer bitBuffer, int bitOffset) {
+            return filter.readAndTest(bitBuffer, bitOffset);
         }
     }
 
@@ -127,7 +138,7 @@ public abstract class IndexFilter {
         }
 
         @Override
-        public boolean test(BitBuffer bitBuffer) {
+        public boolean test(BitBuffer bitBuffer, int bitOffset) {
             return true;
         }
 
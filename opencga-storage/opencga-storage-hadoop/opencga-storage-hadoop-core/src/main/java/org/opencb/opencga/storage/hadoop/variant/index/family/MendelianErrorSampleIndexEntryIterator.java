@@ -1,11 +1,13 @@
 package org.opencb.opencga.storage.hadoop.variant.index.family;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.opencga.storage.core.io.bit.BitBuffer;
 import org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexEntry;
 import org.opencb.opencga.storage.hadoop.variant.index.sample.*;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import static org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexVariantBiConverter.split;
@@ -122,6 +124,12 @@ public class MendelianErrorSampleIndexEntryIterator implements SampleIndexEntryI
         return variant;
     }
 
+    @Override
+    public ByteBuffer nextEncodedVariant() {
+        // Mendelian error variants are stored as strings
+        return ByteBuffer.wrap(Bytes.toBytes(next().toString()));
+    }
+
     @Override
     public SampleVariantIndexEntry nextSampleVariantIndexEntry() {
         AnnotationIndexEntry annotationIndexEntry = nextAnnotationIndexEntry();
@@ -38,6 +38,7 @@ public abstract class AbstractSampleIndexEntryFilter<T> {
     private final Logger logger = LoggerFactory.getLogger(AbstractSampleIndexEntryFilter.class);
     private final List<Integer> annotationIndexPositions;
     private final SampleIndexVariantBiConverter converter;
+    private SampleIndexGtEntryBulkFilter bulkFilter;
 
     private static final boolean[] DE_NOVO_MENDELIAN_ERROR_CODES = new boolean[]{
                    /* | Code  |   Dad  | Mother | Kid  |  deNovo | */
@@ -64,6 +65,7 @@ public abstract class AbstractSampleIndexEntryFilter<T> {
     public AbstractSampleIndexEntryFilter(SingleSampleIndexQuery query, List<Region> regionsFilter) {
         this.query = query;
         converter = new SampleIndexVariantBiConverter(query.getSchema());
+        bulkFilter = new SampleIndexGtEntryBulkFilter(query);
         this.regionsFilter = regionsFilter == null || regionsFilter.isEmpty() ? null : regionsFilter;
 
         int[] countsPerBit = IndexUtils.countPerBit(new byte[]{query.getAnnotationIndex()});
@@ -76,6 +78,16 @@ public abstract class AbstractSampleIndexEntryFilter<T> {
         }
     }
 
+    /**
+     * Filter every variant one at a time, even if the entry has an annotation index. Used to validate the bulk filter.
+     *
+     * @return this
+     */
+    AbstractSampleIndexEntryFilter<T> disableBulkFilter() {
+        bulkFilter = null;
+        return this;
+    }
+
     protected abstract T getNext(SampleIndexEntryIterator variants);
 
     protected abstract Variant toVariant(T v);
@@ -134,18 +146,37 @@ public abstract class AbstractSampleIndexEntryFilter<T> {
                 && CollectionUtils.isEmpty(query.getVariantTypes())
                 && !query.isMultiFileSample();
         for (SampleIndexGtEntry gtEntry : gts.values()) {
-            MutableInt expectedResultsFromAnnotation = new MutableInt(getExpectedResultsFromAnnotation(gtEntry));
-
             SampleIndexEntryIterator variantIterator = converter.toVariantsIterator(gtEntry, countIterator);
-            ArrayList<T> variants = new ArrayList<>(variantIterator.getApproxSize());
-            while (expectedResultsFromAnnotation.intValue() > 0 && variantIterator.hasNext()) {
-                T variant = filter(variantIterator, expectedResultsFromAnnotation);
-                if (variant != null) {
-                    variants.add(variant);
-                    numVariants++;
+            ArrayList<T> variants;
+            int numCandidates = bulkFilter == null ? -1 : bulkFilter.filter(gtEntry);
+            if (numCandidates >= 0) {
+                // Only visit the variants that passed the bulk annotation filter. Skip the rest without decoding them.
+                int[] positions = bulkFilter.getPositions();
+                MutableInt expectedResultsFromAnnotation = new MutableInt(Integer.MAX_VALUE);
+                variants = new ArrayList<>(numCandidates);
+                for (int i = 0; i < numCandidates && variantIterator.hasNext(); i++) {
+                    while (variantIterator.hasNext() && variantIterator.nextIndex() < positions[i]) {
+                        variantIterator.skip();
+                    }
+                    if (variantIterator.hasNext()) {
+                        T variant = filter(variantIterator, expectedResultsFromAnnotation);
+                        if (variant != null) {
+                            variants.add(variant);
+                        }
+                    }
+                }
+            } else {
+                MutableInt expectedResultsFromAnnotation = new MutableInt(getExpectedResultsFromAnnotation(gtEntry));
+                variants = new ArrayList<>(variantIterator.getApproxSize());
+                while (expectedResultsFromAnnotation.intValue() > 0 && variantIterator.hasNext()) {
+                    T variant = filter(variantIterator, expectedResultsFromAnnotation);
+                    if (variant != null) {
+                        variants.add(variant);
+                    }
                 }
             }
             if (!variants.isEmpty()) {
+                numVariants += variants.size();
                 variantsByGt.add(variants);
             }
         }
@@ -369,6 +400,10 @@ public abstract class AbstractSampleIndexEntryFilter<T> {
     }
 
     private T filter(T v) {
+        if (regionsFilter == null && CollectionUtils.isEmpty(query.getVariantTypes())) {
+            // Nothing else to test. Do not build the variant.
+            return v;
+        }
         Variant variant = toVariant(v);
         //Test region filter (if any)
         if (filterRegion(variant)) {
@@ -0,0 +1,59 @@
+package org.opencb.opencga.storage.hadoop.variant.index.sample;
+
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SingleSampleIndexQuery;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Filter a SampleIndexEntry returning the variants as encoded in the sample index, without building Variant objects.
+ *
+ * Encoded variants are relative to the batch start, so they can only be compared with other variants from the same batch.
+ */
+public class EncodedSampleIndexEntryFilter extends AbstractSampleIndexEntryFilter<ByteBuffer> {
+
+    private final SampleIndexVariantBiConverter converter;
+    private String chromosome;
+    private int batchStart;
+
+    public EncodedSampleIndexEntryFilter(SingleSampleIndexQuery query) {
+        this(query, null);
+    }
+
+    public EncodedSampleIndexEntryFilter(SingleSampleIndexQuery query, List<Region> regions) {
+        super(query, regions);
+        converter = new SampleIndexVariantBiConverter(query.getSchema());
+    }
+
+    @Override
+    public Collection<ByteBuffer> filter(SampleIndexEntry sampleIndexEntry) {
+        // Required to build the variant, if needed
+        chromosome = sampleIndexEntry.getChromosome();
+        batchStart = sampleIndexEntry.getBatchStart();
+        return super.filter(sampleIndexEntry);
+    }
+
+    @Override
+    protected ByteBuffer getNext(SampleIndexEntryIterator variants) {
+        return variants.nextEncodedVariant();
+    }
+
+    @Override
+    protected Variant toVariant(ByteBuffer v) {
+        return converter.toVariant(chromosome, batchStart, v.array(), v.arrayOffset() + v.position());
+    }
+
+    @Override
+    protected boolean sameGenomicVariant(ByteBuffer v1, ByteBuffer v2) {
+        return v1.equals(v2);
+    }
+
+    @Override
+    protected Comparator<ByteBuffer> getComparator() {
+        return Comparator.naturalOrder();
+    }
+}
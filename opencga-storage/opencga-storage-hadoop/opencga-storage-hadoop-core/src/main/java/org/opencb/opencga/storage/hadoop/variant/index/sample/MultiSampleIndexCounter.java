@@ -0,0 +1,182 @@
+package org.opencb.opencga.storage.hadoop.variant.index.sample;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.QueryOperation;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Count the variants of a multi-sample query walking the sample index batch by batch.
+ *
+ * The scans of all the samples are advanced together, one batch (chromosome plus batch start) at a time.
+ * Variants are compared with their encoded representation in the sample index, so no Variant object is created.
+ */
+public class MultiSampleIndexCounter {
+
+    private final List<BatchCursor> cursors;
+    private final List<BatchCursor> negatedCursors;
+    private final QueryOperation operation;
+
+    public MultiSampleIndexCounter(List<BatchCursor> cursors, List<BatchCursor> negatedCursors, QueryOperation operation) {
+        this.cursors = cursors;
+        this.negatedCursors = negatedCursors;
+        this.operation = operation == null ? QueryOperation.AND : operation;
+    }
+
+    public long count() {
+        if (cursors.isEmpty()) {
+            return 0;
+        }
+        if (operation.equals(QueryOperation.OR)) {
+            return countUnion();
+        } else {
+            return countIntersect();
+        }
+    }
+
+    private long countUnion() {
+        long count = 0;
+        Set<ByteBuffer> variants = new HashSet<>();
+        while (true) {
+            byte[] batch = null;
+            for (BatchCursor cursor : cursors) {
+                if (cursor.hasNext() && (batch == null || Bytes.compareTo(cursor.getBatch(), batch) < 0)) {
+                    batch = cursor.getBatch();
+                }
+            }
+            if (batch == null) {
+                return count;
+            }
+            variants.clear();
+            for (BatchCursor cursor : cursors) {
+                if (cursor.hasNext() && Bytes.equals(cursor.getBatch(), batch)) {
+                    variants.addAll(cursor.getVariants());
+                    cursor.next();
+                }
+            }
+            count += variants.size();
+        }
+    }
+
+    private long countIntersect() {
+        long count = 0;
+        Set<ByteBuffer> variants = new HashSet<>();
+        while (true) {
+            // Find the first batch present in all the samples
+            byte[] batch = null;
+            boolean aligned = false;
+            while (!aligned) {
+                aligned = true;
+                for (BatchCursor cursor : cursors) {
+                    if (batch != null) {
+                        cursor.skipTo(batch);
+                    }
+                    if (!cursor.hasNext()) {
+                        return count;
+                    }
+                    if (batch == null) {
+                        batch = cursor.getBatch();
+                    } else if (!Bytes.equals(cursor.getBatch(), batch)) {
+                        // Cursor moved beyond the current batch. Try again with the new one
+                        batch = cursor.getBatch();
+                        aligned = false;
+                    }
+                }
+            }
+
+            // Start with the smallest set of variants
+            BatchCursor smallest = cursors.get(0);
+            for (BatchCursor cursor : cursors) {
+                if (cursor.getVariants().size() < smallest.getVariants().size()) {
+                    smallest = cursor;
+                }
+            }
+            variants.clear();
+            variants.addAll(smallest.getVariants());
+            for (BatchCursor cursor : cursors) {
+                if (cursor != smallest && !variants.isEmpty()) {
+                    variants.retainAll(cursor.getVariants());
+                }
+            }
+            for (BatchCursor cursor : negatedCursors) {
+                cursor.skipTo(batch);
+                if (!variants.isEmpty() && cursor.hasNext() && Bytes.equals(cursor.getBatch(), batch)) {
+                    variants.removeAll(cursor.getVariants());
+                }
+            }
+            count += variants.size();
+
+            for (BatchCursor cursor : cursors) {
+                cursor.next();
+            }
+        }
+    }
+
+    /**
+     * Walks through the filtered entries of a sample index scan, one batch at a time.
+     */
+    public static class BatchCursor {
+
+        private final Iterator<Result> results;
+        private final HBaseToSampleIndexConverter converter;
+        private final EncodedSampleIndexEntryFilter filter;
+        private byte[] batch;
+        private Set<ByteBuffer> variants;
+
+        public BatchCursor(ResultScanner scanner, HBaseToSampleIndexConverter converter, EncodedSampleIndexEntryFilter filter) {
+            this(scanner.iterator(), converter, filter);
+        }
+
+        public BatchCursor(Iterator<Result> results, HBaseToSampleIndexConverter converter, EncodedSampleIndexEntryFilter filter) {
+            this.results = results;
+            this.converter = converter;
+            this.filter = filter;
+            next();
+        }
+
+        public boolean hasNext() {
+            return batch != null;
+        }
+
+        /**
+         * @return Row key of the current batch, without the sample id. Sorted as in the sample index table.
+         */
+        public byte[] getBatch() {
+            return batch;
+        }
+
+        public Set<ByteBuffer> getVariants() {
+            return variants;
+        }
+
+        /**
+         * Move to the first batch equal or greater than the given one.
+         * @param batch batch to reach
+         */
+        public void skipTo(byte[] batch) {
+            while (hasNext() && Bytes.compareTo(this.batch, batch) < 0) {
+                next();
+            }
+        }
+
+        public void next() {
+            batch = null;
+            variants = null;
+            while (results.hasNext()) {
+                Result result = results.next();
+                SampleIndexEntry entry = converter.convert(result);
+                Collection<ByteBuffer> filtered = filter.filter(entry);
+                if (!filtered.isEmpty()) {
+                    byte[] row = result.getRow();
+                    batch = Arrays.copyOfRange(row, Bytes.SIZEOF_INT, row.length);
+                    variants = new HashSet<>(filtered);
+                    return;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.opencb.opencga.storage.hadoop.variant.index.sample;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a sample index iterator in background, one sample index batch at a time.
+ *
+ * Used to run concurrently the scans of all the samples from a multi-sample query. While the consumer
+ * processes one batch, the next batch is fetched by the executor. The output is still sorted, so it can be merged
+ * with the rest of samples using the usual intersect or union iterators.
+ *
+ * Only one fetch task per iterator is submitted at a time. Tasks never wait for the consumer, so a bounded
+ * executor can be shared by any number of iterators.
+ */
+public class PrefetchSampleIndexVariantDBIterator extends VariantDBIterator {
+
+    private final VariantDBIterator iterator;
+    private final ExecutorService executor;
+    private final int maxBatchSize;
+
+    private Iterator<Variant> batch;
+    private Future<List<Variant>> nextBatch;
+    // First variant of the next batch. Only accessed from the fetch task.
+    private Variant nextBatchFirstVariant;
+    private int count;
+
+    public PrefetchSampleIndexVariantDBIterator(VariantDBIterator iterator, ExecutorService executor, int maxBatchSize) {
+        this.iterator = iterator;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.batch = Collections.emptyIterator();
+        this.count = 0;
+        nextBatch = executor.submit(this::readBatch);
+    }
+
+    /**
+     * Read all the variants from the next sample index batch, up to maxBatchSize.
+     * Executed in the executor.
+     *
+     * @return Variants from the batch. Empty list if there are no more variants.
+     */
+    private List<Variant> readBatch() {
+        Variant first = nextBatchFirstVariant;
+        nextBatchFirstVariant = null;
+        if (first == null) {
+            if (!iterator.hasNext()) {
+                return Collections.emptyList();
+            }
+            first = iterator.next();
+        }
+        List<Variant> variants = new ArrayList<>();
+        variants.add(first);
+        String chromosome = first.getChromosome();
+        int batchStart = SampleIndexSchema.getChunkStart(first.getStart());
+        while (variants.size() < maxBatchSize && iterator.hasNext()) {
+            Variant variant = iterator.next();
+            if (SampleIndexSchema.getChunkStart(variant.getStart()) != batchStart || !variant.getChromosome().equals(chromosome)) {
+                nextBatchFirstVariant = variant;
+                break;
+            }
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    private List<Variant> waitNextBatch() {
+        try {
+            return nextBatch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw VariantQueryException.internalException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw VariantQueryException.internalException(e);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!batch.hasNext()) {
+            if (nextBatch == null) {
+                return false;
+            }
+            List<Variant> variants = fetch(this::waitNextBatch);
+            if (variants.isEmpty()) {
+                nextBatch = null;
+                return false;
+            }
+            // Start reading the next batch while this one is consumed
+            nextBatch = executor.submit(this::readBatch);
+            batch = variants.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Variant next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        count++;
+        return batch.next();
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (nextBatch != null) {
+            // Wait for the running task before closing the underlying iterator
+            try {
+                nextBatch.get();
+            } catch (ExecutionException ignore) {
+                // Already closing. Nothing to do
+            }
+            nextBatch = null;
+        }
+        try {
+            iterator.close();
+        } finally {
+            super.close();
+        }
+    }
+}
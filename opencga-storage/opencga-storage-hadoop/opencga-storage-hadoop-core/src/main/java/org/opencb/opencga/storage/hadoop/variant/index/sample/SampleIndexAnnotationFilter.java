@@ -0,0 +1,423 @@
+package org.opencb.opencga.storage.hadoop.variant.index.sample;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.filter.FilterBase;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.opencb.opencga.storage.core.io.bit.BitBuffer;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.hadoop.variant.index.core.filters.IndexFieldFilter;
+import org.opencb.opencga.storage.hadoop.variant.index.core.filters.IndexFilter;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleAnnotationIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SingleSampleIndexQuery;
+
+import java.io.*;
+import java.util.*;
+
+import static org.opencb.opencga.storage.hadoop.variant.index.IndexUtils.testIndex;
+import static org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexSchema.*;
+
+/**
+ * Server side filter for the SampleIndex table.
+ *
+ * Evaluates the annotation filters (summary index, consequence type, biotype and population frequency) within the
+ * region server, and removes from each row the genotype blocks without any variant passing them. Rows without
+ * genotype blocks are discarded. The client still applies the complete {@link SampleIndexEntryFilter} over the
+ * returned blocks, so this filter only needs to return a superset of the final result.
+ *
+ * The {@link IndexFieldFilter} are compiled into tables of valid codes, so the region server does not need
+ * the {@link SampleIndexSchema}. Requires this class to be available in the region servers classpath.
+ *
+ * @see org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageOptions#SAMPLE_INDEX_QUERY_SERVER_SIDE_FILTER
+ */
+public class SampleIndexAnnotationFilter extends FilterBase {
+
+    // Fields with more bits would require too large tables. Those are only filtered at the client.
+    private static final int MAX_FIELD_BIT_LENGTH = 20;
+
+    private final byte annotationIndexMask;
+    private final byte annotationIndex;
+    private final CodeFilter ctFilter;
+    private final CodeFilter btFilter;
+    private final int popFreqBitsLength;
+    private final boolean popFreqAnd;
+    private final List<CodeFilter> popFreqFilters;
+
+    // Columns of each genotype of the current row. Reused between rows to avoid allocations.
+    private final List<GtColumns> gtColumns = new ArrayList<>();
+    private int numGts;
+    private boolean filterRow;
+
+    private SampleIndexAnnotationFilter(byte annotationIndexMask, byte annotationIndex, CodeFilter ctFilter, CodeFilter btFilter,
+                                        int popFreqBitsLength, boolean popFreqAnd, List<CodeFilter> popFreqFilters) {
+        this.annotationIndexMask = annotationIndexMask;
+        this.annotationIndex = annotationIndex;
+        this.ctFilter = ctFilter;
+        this.btFilter = btFilter;
+        this.popFreqBitsLength = popFreqBitsLength;
+        this.popFreqAnd = popFreqAnd;
+        this.popFreqFilters = popFreqFilters;
+        this.filterRow = false;
+    }
+
+    /**
+     * Build the server side filter for the given query.
+     *
+     * @param query Single sample index query
+     * @return Server side filter, or null if the query does not contain any annotation filter that could be evaluated.
+     */
+    public static SampleIndexAnnotationFilter build(SingleSampleIndexQuery query) {
+        if (query.getMendelianError()) {
+            // Mendelian error queries are not split by genotype
+            return null;
+        }
+        SampleAnnotationIndexQuery annotationQuery = query.getAnnotationIndexQuery();
+        CodeFilter ctFilter = CodeFilter.build(annotationQuery.getConsequenceTypeFilter());
+        CodeFilter btFilter = CodeFilter.build(annotationQuery.getBiotypeFilter());
+
+        IndexFilter popFreqFilter = annotationQuery.getPopulationFrequencyFilter();
+        boolean popFreqAnd = popFreqFilter.getOp() != VariantQueryUtils.QueryOperation.OR;
+        List<CodeFilter> popFreqFilters = new ArrayList<>(popFreqFilter.getFilters().size());
+        for (IndexFieldFilter filter : popFreqFilter.getFilters()) {
+            CodeFilter codeFilter = CodeFilter.build(filter);
+            if (codeFilter != null) {
+                popFreqFilters.add(codeFilter);
+            } else if (!popFreqAnd) {
+                // One of the OR filters accepts any value. Can not filter by population frequency.
+                popFreqFilters.clear();
+                break;
+            }
+        }
+
+        if (query.getAnnotationIndexMask() == 0 && ctFilter == null && btFilter == null && popFreqFilters.isEmpty()) {
+            return null;
+        }
+        return new SampleIndexAnnotationFilter(query.getAnnotationIndexMask(), query.getAnnotationIndex(), ctFilter, btFilter,
+                query.getSchema().getPopFreqIndex().getBitsLength(), popFreqAnd, popFreqFilters);
+    }
+
+    // Overrides Filter.filterCell since HBase 2.0. Not annotated with @Override to compile with HBase 1.x
+    public ReturnCode filterCell(Cell cell) throws IOException {
+        // Cells are filtered by genotype at filterRowCells
+        return ReturnCode.INCLUDE;
+    }
+
+    /**
+     * Required by HBase 1.x, deprecated since HBase 2.0.
+     * @deprecated Use {@link #filterCell(Cell)}
+     */
+    @Deprecated
+    @Override
+    public ReturnCode filterKeyValue(Cell cell) throws IOException {
+        return filterCell(cell);
+    }
+
+    @Override
+    public boolean hasFilterRow() {
+        return true;
+    }
+
+    @Override
+    public void filterRowCells(List<Cell> cells) throws IOException {
+        numGts = 0;
+        for (Cell cell : cells) {
+            GtColumns columns = getGtColumns(cell, true);
+            if (columns != null) {
+                columns.add(cell);
+            }
+        }
+        int numDiscardedGts = 0;
+        for (int i = 0; i < numGts; i++) {
+            GtColumns columns = gtColumns.get(i);
+            columns.discarded = !anyMatch(columns);
+            if (columns.discarded) {
+                numDiscardedGts++;
+            }
+        }
+        if (numDiscardedGts > 0) {
+            cells.removeIf(cell -> {
+                GtColumns columns = getGtColumns(cell, false);
+                return columns != null && columns.discarded;
+            });
+        }
+        filterRow = numGts > 0 && numDiscardedGts == numGts;
+        for (int i = 0; i < numGts; i++) {
+            // Do not retain the cells of this row
+            gtColumns.get(i).clear();
+        }
+    }
+
+    @Override
+    public boolean filterRow() throws IOException {
+        return filterRow;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        filterRow = false;
+    }
+
+    /**
+     * Get the columns of the genotype of a cell from the sample index table, comparing the qualifier bytes.
+     * @param cell   Cell
+     * @param create Create the genotype columns if missing
+     * @return Genotype columns of the cell, or null if the column is not associated to any genotype.
+     */
+    private GtColumns getGtColumns(Cell cell, boolean create) {
+        byte[] array = cell.getQualifierArray();
+        int offset = cell.getQualifierOffset();
+        int length = cell.getQualifierLength();
+        if (!isGenotypeColumn(cell)) {
+            // Meta columns are like "_{TYPE}_{GT}"
+            int end = offset + length;
+            int gtOffset = -1;
+            for (int i = offset + 1; i < end; i++) {
+                if (array[i] == META_PREFIX) {
+                    gtOffset = i + 1;
+                    break;
+                }
+            }
+            if (gtOffset < 0) {
+                return null;
+            }
+            length = end - gtOffset;
+            offset = gtOffset;
+        }
+        for (int i = 0; i < numGts; i++) {
+            GtColumns columns = gtColumns.get(i);
+            if (Bytes.equals(columns.gtArray, columns.gtOffset, columns.gtLength, array, offset, length)) {
+                return columns;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        if (numGts == gtColumns.size()) {
+            gtColumns.add(new GtColumns(ctFilter != null, btFilter != null, !popFreqFilters.isEmpty()));
+        }
+        GtColumns columns = gtColumns.get(numGts++);
+        columns.gtArray = array;
+        columns.gtOffset = offset;
+        columns.gtLength = length;
+        return columns;
+    }
+
+    private boolean anyMatch(GtColumns columns) {
+        BitBuffer popFreq = columns.popFreq == null || popFreqFilters.isEmpty() ? null : new BitBuffer(columns.popFreq);
+        if (columns.annotationIndex == null) {
+            // Without the summary index, only the population frequency can be tested
+            if (popFreq == null) {
+                return true;
+            }
+            int numVariants = popFreq.getBitLength() / popFreqBitsLength;
+            for (int i = 0; i < numVariants; i++) {
+                if (testPopFreq(popFreq, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        BitBuffer ct = columns.ct == null || ctFilter == null ? null : new BitBuffer(columns.ct);
+        BitBuffer bt = columns.bt == null || btFilter == null ? null : new BitBuffer(columns.bt);
+
+        int nonIntergenicIdx = 0;
+        for (int i = 0; i < columns.annotationIndex.length; i++) {
+            byte summaryIndex = columns.annotationIndex[i];
+            boolean nonIntergenic = AbstractSampleIndexEntryFilter.isNonIntergenic(summaryIndex);
+            boolean pass = testIndex(summaryIndex, annotationIndexMask, annotationIndex);
+            if (pass && nonIntergenic) {
+                if (ct != null) {
+                    pass = ctFilter.test(ct, nonIntergenicIdx * ctFilter.bitLength);
+                }
+                if (pass && bt != null) {
+                    pass = btFilter.test(bt, nonIntergenicIdx * btFilter.bitLength);
+                }
+            }
+            if (pass && popFreq != null) {
+                pass = testPopFreq(popFreq, i);
+            }
+            if (pass) {
+                return true;
+            }
+            if (nonIntergenic) {
+                nonIntergenicIdx++;
+            }
+        }
+        return false;
+    }
+
+    private boolean testPopFreq(BitBuffer popFreq, int i) {
+        int bitOffset = i * popFreqBitsLength;
+        for (CodeFilter filter : popFreqFilters) {
+            boolean pass = filter.test(popFreq, bitOffset + filter.bitOffset);
+            if (popFreqAnd && !pass) {
+                return false;
+            } else if (!popFreqAnd && pass) {
+                return true;
+            }
+        }
+        return popFreqAnd;
+    }
+
+    @Override
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(annotationIndexMask);
+        out.writeByte(annotationIndex);
+        CodeFilter.write(out, ctFilter);
+        CodeFilter.write(out, btFilter);
+        out.writeInt(popFreqBitsLength);
+        out.writeBoolean(popFreqAnd);
+        out.writeInt(popFreqFilters.size());
+        for (CodeFilter popFreqFilter : popFreqFilters) {
+            CodeFilter.write(out, popFreqFilter);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static SampleIndexAnnotationFilter parseFrom(byte[] bytes) throws DeserializationException {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            byte annotationIndexMask = in.readByte();
+            byte annotationIndex = in.readByte();
+            CodeFilter ctFilter = CodeFilter.read(in);
+            CodeFilter btFilter = CodeFilter.read(in);
+            int popFreqBitsLength = in.readInt();
+            boolean popFreqAnd = in.readBoolean();
+            int numPopFreqFilters = in.readInt();
+            List<CodeFilter> popFreqFilters = new ArrayList<>(numPopFreqFilters);
+            for (int i = 0; i < numPopFreqFilters; i++) {
+                popFreqFilters.add(CodeFilter.read(in));
+            }
+            return new SampleIndexAnnotationFilter(annotationIndexMask, annotationIndex, ctFilter, btFilter,
+                    popFreqBitsLength, popFreqAnd, popFreqFilters);
+        } catch (IOException e) {
+            throw new DeserializationException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SampleIndexAnnotationFilter{"
+                + "annotationIndexMask=" + annotationIndexMask
+                + ", annotationIndex=" + annotationIndex
+                + ", ctFilter=" + ctFilter
+                + ", btFilter=" + btFilter
+                + ", popFreqOp=" + (popFreqAnd ? "AND" : "OR")
+                + ", popFreqFilters=" + popFreqFilters
+                + '}';
+    }
+
+    private static final class GtColumns {
+        // Only the columns used by the filter are read
+        private final boolean readCt;
+        private final boolean readBt;
+        private final boolean readPopFreq;
+
+        private byte[] gtArray;
+        private int gtOffset;
+        private int gtLength;
+        private byte[] annotationIndex;
+        private byte[] ct;
+        private byte[] bt;
+        private byte[] popFreq;
+        private boolean discarded;
+
+        private GtColumns(boolean readCt, boolean readBt, boolean readPopFreq) {
+            this.readCt = readCt;
+            this.readBt = readBt;
+            this.readPopFreq = readPopFreq;
+        }
+
+        private void add(Cell cell) {
+            if (startsWith(cell, ANNOTATION_SUMMARY_PREFIX_BYTES)) {
+                annotationIndex = CellUtil.cloneValue(cell);
+            } else if (readCt && startsWith(cell, ANNOTATION_CT_PREFIX_BYTES)) {
+                ct = CellUtil.cloneValue(cell);
+            } else if (readBt && startsWith(cell, ANNOTATION_BT_PREFIX_BYTES)) {
+                bt = CellUtil.cloneValue(cell);
+            } else if (readPopFreq && startsWith(cell, ANNOTATION_POP_FREQ_PREFIX_BYTES)) {
+                popFreq = CellUtil.cloneValue(cell);
+            }
+        }
+
+        private void clear() {
+            gtArray = null;
+            annotationIndex = null;
+            ct = null;
+            bt = null;
+            popFreq = null;
+            discarded = false;
+        }
+
+        private static boolean startsWith(Cell cell, byte[] prefix) {
+            return cell.getQualifierLength() > prefix.length && Bytes.equals(
+                    cell.getQualifierArray(), cell.getQualifierOffset(), prefix.length,
+                    prefix, 0, prefix.length);
+        }
+    }
+
+    /**
+     * Table of valid codes of an {@link IndexFieldFilter}.
+     */
+    private static final class CodeFilter {
+        private final int bitOffset;
+        private final int bitLength;
+        private final BitSet validCodes;
+
+        private CodeFilter(int bitOffset, int bitLength, BitSet validCodes) {
+            this.bitOffset = bitOffset;
+            this.bitLength = bitLength;
+            this.validCodes = validCodes;
+        }
+
+        private static CodeFilter build(IndexFieldFilter filter) {
+            int bitLength = filter.getIndex().getBitLength();
+            if (filter.isNoOp() || bitLength > MAX_FIELD_BIT_LENGTH) {
+                return null;
+            }
+            int numCodes = 1 << bitLength;
+            BitSet validCodes = new BitSet(numCodes);
+            for (int code = 0; code < numCodes; code++) {
+                if (filter.test(code)) {
+                    validCodes.set(code);
+                }
+            }
+            return new CodeFilter(filter.getIndex().getBitOffset(), bitLength, validCodes);
+        }
+
+        private boolean test(BitBuffer bitBuffer, int bitOffset) {
+            return validCodes.get(bitBuffer.getIntPartial(bitOffset, bitLength));
+        }
+
+        private static void write(DataOutputStream out, CodeFilter filter) throws IOException {
+            out.writeBoolean(filter != null);
+            if (filter != null) {
+                out.writeInt(filter.bitOffset);
+                out.writeInt(filter.bitLength);
+                byte[] validCodes = filter.validCodes.toByteArray();
+                out.writeInt(validCodes.length);
+                out.write(validCodes);
+            }
+        }
+
+        private static CodeFilter read(DataInputStream in) throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            int bitOffset = in.readInt();
+            int bitLength = in.readInt();
+            byte[] validCodes = new byte[in.readInt()];
+            in.readFully(validCodes);
+            return new CodeFilter(bitOffset, bitLength, BitSet.valueOf(validCodes));
+        }
+
+        @Override
+        public String toString() {
+            return "{offset=" + bitOffset + ", length=" + bitLength + ", validCodes=" + validCodes.cardinality() + '}';
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.opencb.opencga.storage.hadoop.variant.index.sample;
 
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.hbase.client.Get;
@@ -31,6 +32,7 @@ import org.opencb.opencga.storage.core.variant.query.VariantQueryParser;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.QueryOperation;
 import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
 import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageOptions;
 import org.opencb.opencga.storage.hadoop.variant.index.IndexUtils;
 import org.opencb.opencga.storage.hadoop.variant.index.core.filters.IndexFieldFilter;
 import org.opencb.opencga.storage.hadoop.variant.index.query.SampleAnnotationIndexQuery;
@@ -41,8 +43,11 @@ import org.opencb.opencga.storage.hadoop.variant.utils.HBaseVariantTableNameGene
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantSqlQueryParser.DEFAULT_LOADED_GENOTYPES;
@@ -53,7 +58,7 @@ import static org.opencb.opencga.storage.hadoop.variant.index.IndexUtils.EMPTY_M
  *
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
-public class SampleIndexDBAdaptor implements VariantIterable {
+public class SampleIndexDBAdaptor implements VariantIterable, Closeable {
 
     private static final String SAMPLE_INDEX_STATUS = "sampleIndexGenotypes";
     private static final String SAMPLE_INDEX_VERSION = "sampleIndexGenotypesVersion";
@@ -72,6 +77,7 @@ public class SampleIndexDBAdaptor implements VariantIterable {
 //    private final SampleIndexSchema schema;
     private final Map<Integer, SampleIndexSchema> schemas;
 //    private final HBaseToSampleIndexConverter converter;
+    private ExecutorService scanExecutor;
 
     public SampleIndexDBAdaptor(HBaseManager hBaseManager, HBaseVariantTableNameGenerator tableNameGenerator,
                                 VariantStorageMetadataManager metadataManager) {
@@ -169,7 +175,7 @@ public class SampleIndexDBAdaptor implements VariantIterable {
 
             if (query.isNegated(sample)) {
                 if (!gts.isEmpty()) {
-                    negatedIterators.add(internalIterator(query.forSample(sample, gts)));
+                    negatedIterators.add(multiSampleInternalIterator(query.forSample(sample, gts)));
                 }
                 // Skip if GTs to query is empty!
                 // Otherwise, it will return ALL genotypes instead of none
@@ -178,7 +184,7 @@ public class SampleIndexDBAdaptor implements VariantIterable {
                     // If empty, should find none. Add empty iterator for this sample
                     iterators.add(VariantDBIterator.emptyIterator());
                 } else {
-                    iterators.add(internalIterator(query.forSample(sample, gts)));
+                    iterators.add(multiSampleInternalIterator(query.forSample(sample, gts)));
                 }
             }
         }
@@ -194,6 +200,50 @@ public class SampleIndexDBAdaptor implements VariantIterable {
         return applyLimitSkip(iterator, options);
     }
 
+    /**
+     * Iterator for one of the samples of a multi-sample query.
+     * If {@link HadoopVariantStorageOptions#SAMPLE_INDEX_QUERY_PARALLEL} is enabled, the sample index is read in background,
+     * so the scans of all the samples run concurrently.
+     *
+     * @param query Single sample query
+     * @return  Sorted iterator
+     */
+    private VariantDBIterator multiSampleInternalIterator(SingleSampleIndexQuery query) {
+        SingleSampleIndexVariantDBIterator iterator = internalIterator(query);
+        if (hBaseManager.getConf().getBoolean(
+                HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PARALLEL.key(),
+                HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PARALLEL.defaultValue())) {
+            int maxBatchSize = hBaseManager.getConf().getInt(
+                    HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PARALLEL_MAX_BATCH_SIZE.key(),
+                    HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PARALLEL_MAX_BATCH_SIZE.defaultValue());
+            return new PrefetchSampleIndexVariantDBIterator(iterator, getScanExecutor(), maxBatchSize);
+        } else {
+            return iterator;
+        }
+    }
+
+    private synchronized ExecutorService getScanExecutor() {
+        if (scanExecutor == null) {
+            int threads = hBaseManager.getConf().getInt(
+                    HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PARALLEL_THREADS.key(),
+                    HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PARALLEL_THREADS.defaultValue());
+            scanExecutor = Executors.newFixedThreadPool(threads,
+                    new ThreadFactoryBuilder().setNameFormat("sample-index-scan-%d").setDaemon(true).build());
+        }
+        return scanExecutor;
+    }
+
+    /**
+     * Stop the threads prefetching the sample index scans, if any. The HBaseManager is not closed, as it is owned by the caller.
+     */
+    @Override
+    public synchronized void close() {
+        if (scanExecutor != null) {
+            scanExecutor.shutdownNow();
+            scanExecutor = null;
+        }
+    }
+
     protected VariantDBIterator applyLimitSkip(VariantDBIterator iterator, QueryOptions options) {
         int limit = options.getInt(QueryOptions.LIMIT, -1);
         int skip = options.getInt(QueryOptions.SKIP, -1);
@@ -392,11 +442,87 @@ public class SampleIndexDBAdaptor implements VariantIterable {
         if (query.getSamplesMap().size() == 1 && query.getMendelianErrorSet().isEmpty()) {
             String sample = query.getSamplesMap().keySet().iterator().next();
             return count(query.forSample(sample));
+        } else if (query.getMendelianErrorSet().isEmpty()) {
+            // Count straight from the sample index entries, without building the variants
+            return countMultiSample(query);
         } else {
             return Iterators.size(iterator(query));
         }
     }
 
+    private long countMultiSample(SampleIndexQuery query) {
+        QueryOperation operation = query.getQueryOperation();
+        List<SingleSampleIndexQuery> queries = new ArrayList<>(query.getSamplesMap().size());
+        List<SingleSampleIndexQuery> negatedQueries = new ArrayList<>(query.getSamplesMap().size());
+        for (Map.Entry<String, List<String>> entry : query.getSamplesMap().entrySet()) {
+            String sample = entry.getKey();
+            List<String> gts = entry.getValue();
+            if (query.isNegated(sample)) {
+                // Skip if GTs to query is empty!
+                // Otherwise, it will return ALL genotypes instead of none
+                if (!gts.isEmpty()) {
+                    negatedQueries.add(query.forSample(sample, gts));
+                }
+            } else if (gts.isEmpty()) {
+                // If empty, should find none.
+                if (!QueryOperation.OR.equals(operation)) {
+                    return 0;
+                }
+            } else {
+                queries.add(query.forSample(sample, gts));
+            }
+        }
+        if (queries.isEmpty()) {
+            return 0;
+        }
+
+        Collection<List<Region>> regionGroups;
+        if (CollectionUtils.isEmpty(query.getRegionGroups())) {
+            // If no regions are defined, get a list of one null element to initialize the loop.
+            regionGroups = Collections.singletonList(null);
+        } else {
+            regionGroups = query.getRegionGroups();
+        }
+
+        int studyId = toStudyId(query.getStudy());
+        String tableName = getSampleIndexTableName(studyId);
+        HBaseToSampleIndexConverter converter = newConverter(studyId);
+        logger.info("Count " + (QueryOperation.OR.equals(operation) ? "union" : "intersection") + " of " + queries.size()
+                + " sample indexes plus " + negatedQueries.size() + " negated indexes");
+        try {
+            return hBaseManager.act(tableName, table -> {
+                long count = 0;
+                for (List<Region> regions : regionGroups) {
+                    List<ResultScanner> scanners = new ArrayList<>(queries.size() + negatedQueries.size());
+                    try {
+                        List<MultiSampleIndexCounter.BatchCursor> cursors = new ArrayList<>(queries.size());
+                        for (SingleSampleIndexQuery sampleQuery : queries) {
+                            ResultScanner scanner = table.getScanner(parse(sampleQuery, regions));
+                            scanners.add(scanner);
+                            cursors.add(new MultiSampleIndexCounter.BatchCursor(scanner, converter,
+                                    buildEncodedSampleIndexEntryFilter(sampleQuery, regions)));
+                        }
+                        List<MultiSampleIndexCounter.BatchCursor> negatedCursors = new ArrayList<>(negatedQueries.size());
+                        for (SingleSampleIndexQuery sampleQuery : negatedQueries) {
+                            ResultScanner scanner = table.getScanner(parse(sampleQuery, regions));
+                            scanners.add(scanner);
+                            negatedCursors.add(new MultiSampleIndexCounter.BatchCursor(scanner, converter,
+                                    buildEncodedSampleIndexEntryFilter(sampleQuery, regions)));
+                        }
+                        count += new MultiSampleIndexCounter(cursors, negatedCursors, operation).count();
+                    } finally {
+                        for (ResultScanner scanner : scanners) {
+                            scanner.close();
+                        }
+                    }
+                }
+                return count;
+            });
+        } catch (IOException e) {
+            throw VariantQueryException.internalException(e);
+        }
+    }
+
     private long count(SingleSampleIndexQuery query) {
         Collection<List<Region>> regionGroups;
         if (CollectionUtils.isEmpty(query.getRegionGroups())) {
@@ -571,6 +697,14 @@ public class SampleIndexDBAdaptor implements VariantIterable {
         }
     }
 
+    public EncodedSampleIndexEntryFilter buildEncodedSampleIndexEntryFilter(SingleSampleIndexQuery query, List<Region> regions) {
+        if (regions == null || regions.size() == 1 && matchesWithBatch(regions.get(0))) {
+            return new EncodedSampleIndexEntryFilter(query, null);
+        } else {
+            return new EncodedSampleIndexEntryFilter(query, regions);
+        }
+    }
+
     public SampleIndexQuery parseSampleIndexQuery(Query query) {
         StudyMetadata defaultStudy = VariantQueryParser.getDefaultStudy(query, metadataManager);
         int studyId;
@@ -666,6 +800,14 @@ public class SampleIndexDBAdaptor implements VariantIterable {
             scan.addColumn(family, SampleIndexSchema.toMendelianErrorColumn());
         }
         scan.setCaching(hBaseManager.getConf().getInt("hbase.client.scanner.caching", 100));
+        if (!onlyCount && !includeAll && hBaseManager.getConf().getBoolean(
+                HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_SERVER_SIDE_FILTER.key(),
+                HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_SERVER_SIDE_FILTER.defaultValue())) {
+            SampleIndexAnnotationFilter filter = SampleIndexAnnotationFilter.build(query);
+            if (filter != null) {
+                scan.setFilter(filter);
+            }
+        }
 
         logger.info("StartRow = " + Bytes.toStringBinary(scan.getStartRow()) + " == "
                 + SampleIndexSchema.rowKeyToString(scan.getStartRow()));
@@ -677,7 +819,9 @@ public class SampleIndexDBAdaptor implements VariantIterable {
         logger.info("columns = " + scan.getFamilyMap().getOrDefault(family, Collections.emptyNavigableSet())
                 .stream().map(Bytes::toString).collect(Collectors.joining(",")));
 //        logger.info("MaxResultSize = " + scan.getMaxResultSize());
-//        logger.info("Filters = " + scan.getFilter());
+        if (scan.getFilter() != null) {
+            logger.info("Filters = " + scan.getFilter());
+        }
 //        logger.info("Batch = " + scan.getBatch());
         logger.info("Caching = " + scan.getCaching());
         printQuery(query);
@@ -292,6 +292,14 @@ public class SampleIndexEntry {
             return annotationIndex[idx + annotationIndexOffset];
         }
 
+        public int getAnnotationIndexOffset() {
+            return annotationIndexOffset;
+        }
+
+        public int getAnnotationIndexLength() {
+            return annotationIndexLength;
+        }
+
         public SampleIndexGtEntry setAnnotationIndex(byte[] annotationIndex) {
             return setAnnotationIndex(annotationIndex, 0, annotationIndex.length);
         }
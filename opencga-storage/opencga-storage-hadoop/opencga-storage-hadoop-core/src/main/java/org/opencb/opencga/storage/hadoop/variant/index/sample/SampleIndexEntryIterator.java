@@ -4,6 +4,7 @@ import org.opencb.biodata.models.variant.Variant;
 import org.opencb.opencga.storage.core.io.bit.BitBuffer;
 import org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexEntry;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 /**
@@ -29,6 +30,13 @@ public interface SampleIndexEntryIterator extends Iterator<Variant> {
      */
     Variant next();
 
+    /**
+     * Move cursor to next variant, avoiding to build the Variant object when possible.
+     * Equal variants from the same batch produce equal buffers, if returned by the same kind of iterator.
+     * @return next variant, as encoded in the sample index
+     */
+    ByteBuffer nextEncodedVariant();
+
     default SampleVariantIndexEntry nextSampleVariantIndexEntry() {
         AnnotationIndexEntry annotationIndexEntry = nextAnnotationIndexEntry();
         BitBuffer fileIndex = null;
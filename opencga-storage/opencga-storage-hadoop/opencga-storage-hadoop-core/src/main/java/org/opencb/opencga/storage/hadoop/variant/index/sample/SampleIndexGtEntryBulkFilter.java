@@ -0,0 +1,98 @@
+package org.opencb.opencga.storage.hadoop.variant.index.sample;
+
+import org.opencb.opencga.storage.core.io.bit.BitInputStream;
+import org.opencb.opencga.storage.hadoop.variant.index.core.filters.IndexFieldFilter;
+import org.opencb.opencga.storage.hadoop.variant.index.core.filters.IndexFilter;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SingleSampleIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexEntry.SampleIndexGtEntry;
+
+import static org.opencb.opencga.storage.hadoop.variant.index.IndexUtils.testIndex;
+
+/**
+ * Evaluates the fixed size annotation filters over all the variants of a {@link SampleIndexGtEntry} in one pass,
+ * reading the values directly from the underlying byte arrays.
+ *
+ * Produces the positions of the variants that may pass the filters, so the {@link AbstractSampleIndexEntryFilter}
+ * only needs to decode those variants. Filters that can not be evaluated in bulk (file, parents, ct-bt combination,
+ * clinical, region and type) are still applied one variant at a time over the candidates.
+ */
+class SampleIndexGtEntryBulkFilter {
+
+    private final SampleIndexSchema schema;
+    private final byte annotationIndexMask;
+    private final byte annotationIndex;
+    private final IndexFieldFilter ctFilter;
+    private final IndexFieldFilter btFilter;
+    private final IndexFilter popFreqFilter;
+    private final boolean active;
+    private int[] positions;
+
+    SampleIndexGtEntryBulkFilter(SingleSampleIndexQuery query) {
+        schema = query.getSchema();
+        annotationIndexMask = query.getAnnotationIndexMask();
+        annotationIndex = query.getAnnotationIndex();
+        ctFilter = query.getAnnotationIndexQuery().getConsequenceTypeFilter();
+        btFilter = query.getAnnotationIndexQuery().getBiotypeFilter();
+        popFreqFilter = query.getAnnotationIndexQuery().getPopulationFrequencyFilter();
+        // Only worth it when there is something to discard
+        active = annotationIndexMask != 0 || !ctFilter.isNoOp() || !btFilter.isNoOp() || !popFreqFilter.isNoOp();
+        positions = new int[0];
+    }
+
+    /**
+     * Find the candidate variants of the given genotype entry.
+     *
+     * @param gtEntry Genotype entry
+     * @return Number of candidates, available at {@link #getPositions()}, or -1 if the bulk filter could not be applied.
+     */
+    int filter(SampleIndexGtEntry gtEntry) {
+        if (!active || gtEntry.getAnnotationIndex() == null) {
+            return -1;
+        }
+        int numVariants = gtEntry.getAnnotationIndexLength();
+        if (positions.length < numVariants) {
+            positions = new int[numVariants];
+        }
+
+        BitInputStream ctIndex = ctFilter.isNoOp() ? null : gtEntry.getConsequenceTypeIndexStream();
+        BitInputStream btIndex = btFilter.isNoOp() ? null : gtEntry.getBiotypeIndexStream();
+        BitInputStream popFreqIndex = popFreqFilter.isNoOp() ? null : gtEntry.getPopulationFrequencyIndexStream();
+        int ctBitsLength = schema.getCtIndex().getBitsLength();
+        int btBitsLength = schema.getBiotypeIndex().getBitsLength();
+        int popFreqBitsLength = schema.getPopFreqIndex().getBitsLength();
+
+        int numCandidates = 0;
+        int nonIntergenicIdx = 0;
+        for (int i = 0; i < numVariants; i++) {
+            byte summaryIndex = gtEntry.getAnnotationIndex(i);
+            boolean nonIntergenic = AbstractSampleIndexEntryFilter.isNonIntergenic(summaryIndex);
+            boolean pass = testIndex(summaryIndex, annotationIndexMask, annotationIndex);
+            if (pass && nonIntergenic) {
+                // Intergenic variants can not be filtered by CT or BT
+                if (ctIndex != null) {
+                    pass = ctFilter.test(ctIndex.getIntPartial(nonIntergenicIdx * ctBitsLength, ctBitsLength));
+                }
+                if (pass && btIndex != null) {
+                    pass = btFilter.test(btIndex.getIntPartial(nonIntergenicIdx * btBitsLength, btBitsLength));
+                }
+            }
+            if (pass && popFreqIndex != null) {
+                pass = popFreqFilter.test(popFreqIndex, i * popFreqBitsLength);
+            }
+            if (pass) {
+                positions[numCandidates++] = i;
+            }
+            if (nonIntergenic) {
+                nonIntergenicIdx++;
+            }
+        }
+        return numCandidates;
+    }
+
+    /**
+     * @return Positions of the candidates from the last call to {@link #filter}. Only the first N values are valid.
+     */
+    int[] getPositions() {
+        return positions;
+    }
+}
@@ -13,6 +13,7 @@ import org.opencb.opencga.storage.hadoop.variant.index.family.MendelianErrorSamp
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import static org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexSchema.isGenotypeColumn;
@@ -337,8 +338,9 @@ public class SampleIndexVariantBiConverter {
             }
 
             if (popFreq != null) {
+                // Random access read. Skipped variants do not need to move the stream.
                 // TODO: Reuse BitBuffer
-                BitBuffer popFreqIndex = popFreq.readBitBuffer(schema.getPopFreqIndex().getBitsLength());
+                BitBuffer popFreqIndex = schema.getPopFreqIndex().read(popFreq, idx);
                 annotationIndexEntry.setPopFreqIndex(popFreqIndex);
             }
 
@@ -356,6 +358,27 @@ public class SampleIndexVariantBiConverter {
             return annotationIndexEntry;
         }
 
+        /**
+         * Move the sequential annotation streams over the next element without decoding the AnnotationIndexEntry.
+         * Only the CtBt combination index needs to be moved, as it has a variable length per variant.
+         * The rest of annotation columns are read with random access.
+         */
+        protected void skipAnnotationIndexEntry() {
+            if (annotationIndexEntryIdx == nextIndex()) {
+                // Already read
+                return;
+            }
+            if (ctBtIndex != null && ctIndex != null && btIndex != null && gtEntry.getAnnotationIndex() != null
+                    && AbstractSampleIndexEntryFilter.isNonIntergenic(gtEntry.getAnnotationIndex(nextIndex()))) {
+                int nextNonIntergenic = nextNonIntergenicIndex();
+                int ct = schema.getCtIndex().readFieldValue(ctIndex, nextNonIntergenic);
+                int bt = schema.getBiotypeIndex().readFieldValue(btIndex, nextNonIntergenic);
+                if (ct != 0 && bt != 0) {
+                    ctBtIndex.skip(Integer.bitCount(ct) * Integer.bitCount(bt));
+                }
+            }
+        }
+
         @Override
         public int nextNonIntergenicIndex() {
             if (gtEntry.getAnnotationIndex() == null) {
@@ -479,6 +502,11 @@ public class SampleIndexVariantBiConverter {
         public Variant next() {
             throw new NoSuchElementException("Empty iterator");
         }
+
+        @Override
+        public ByteBuffer nextEncodedVariant() {
+            throw new NoSuchElementException("Empty iterator");
+        }
     }
 
     private static final class CountSampleIndexGtEntryIterator extends SampleIndexGtEntryIterator {
@@ -505,7 +533,7 @@ public class SampleIndexVariantBiConverter {
 
         @Override
         public void skip() {
-            nextAnnotationIndexEntry(); // ensure read annotation
+            skipAnnotationIndexEntry(); // ensure annotation streams are moved
             increaseCounters();
             i++;
         }
@@ -516,6 +544,12 @@ public class SampleIndexVariantBiConverter {
             return DUMMY_VARIANT;
         }
 
+        @Override
+        public ByteBuffer nextEncodedVariant() {
+            // Only counts are available. Returning a dummy value would make all the variants equal.
+            throw new UnsupportedOperationException("Encoded variants not available from count iterators");
+        }
+
         @Override
         public int getApproxSize() {
             return count;
@@ -564,7 +598,7 @@ public class SampleIndexVariantBiConverter {
 
         @Override
         public Variant next() {
-            nextAnnotationIndexEntry(); // ensure read annotation
+            skipAnnotationIndexEntry(); // ensure annotation streams are moved
             increaseCounters();
             Variant variant;
             if (encodedRefAlt) {
@@ -576,9 +610,18 @@ public class SampleIndexVariantBiConverter {
             return variant;
         }
 
+        @Override
+        public ByteBuffer nextEncodedVariant() {
+            skipAnnotationIndexEntry(); // ensure annotation streams are moved
+            increaseCounters();
+            ByteBuffer encodedVariant = ByteBuffer.wrap(bytes, currentOffset, variantLength).slice();
+            movePointer();
+            return encodedVariant;
+        }
+
         @Override
         public void skip() {
-            nextAnnotationIndexEntry(); // ensure read annotation
+            skipAnnotationIndexEntry(); // ensure annotation streams are moved
             increaseCounters();
             movePointer();
         }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.opencb.biodata.models.variant.metadata.VariantMetadata;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
@@ -32,8 +33,11 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.List;
 import java.util.zip.GZIPOutputStream;
 
+import static org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageOptions.*;
+
 /**
  * Created on 11/07/18.
  *
@@ -84,7 +88,12 @@ public class HadoopVariantExporter extends VariantExporter {
                 || smallQuery
                 || queryOptions.getBoolean("skipMapReduce", false)
                 || (!(ioConnector instanceof HDFSIOConnector) && !(ioConnector instanceof LocalIOConnector))) {
-            super.export(outputFileUri, outputFormat, variantsFile, variantQuery);
+            if (isParquet(outputFormat) && outputFileUri != null
+                    && (ioConnector instanceof HDFSIOConnector || ioConnector instanceof LocalIOConnector)) {
+                exportParquet(outputFileUri, outputFormat, variantsFile, variantQuery);
+            } else {
+                super.export(outputFileUri, outputFormat, variantsFile, variantQuery);
+            }
         } else {
             Path outputPath = new Path(outputFileUri);
             FileSystem fileSystem = outputPath.getFileSystem(dbAdaptor.getConfiguration());
@@ -122,6 +131,44 @@ public class HadoopVariantExporter extends VariantExporter {
 
     }
 
+    /**
+     * Export into a Parquet file without running a MapReduce job.
+     * Uses a flat column oriented schema. See {@link VariantParquetWriter}.
+     *
+     * @param outputFileUri Output file
+     * @param outputFormat  Output format. Either PARQUET or PARQUET_GZ
+     * @param variantsFile  Optional variants file.
+     * @param variantQuery  Query with the variants to export
+     * @throws IOException  If there is any IO error
+     * @throws StorageEngineException  If there is any error exporting variants
+     */
+    protected void exportParquet(URI outputFileUri, VariantWriterFactory.VariantOutputFormat outputFormat, URI variantsFile,
+                                 ParsedVariantQuery variantQuery)
+            throws IOException, StorageEngineException {
+        VariantHadoopDBAdaptor dbAdaptor = ((VariantHadoopDBAdaptor) engine.getDBAdaptor());
+        outputFileUri = VariantWriterFactory.checkOutput(outputFileUri, outputFormat);
+        ioConnectorProvider.checkWritable(outputFileUri);
+
+        ObjectMap options = new ObjectMap(engine.getOptions());
+        options.putAll(variantQuery.getInputOptions());
+        CompressionCodecName codec = outputFormat.isGzip() ? CompressionCodecName.GZIP : CompressionCodecName.UNCOMPRESSED;
+        List<VariantParquetWriter.StudyColumns> studyColumns = VariantParquetWriter.buildStudyColumns(
+                variantQuery.getProjection(), variantQuery.getQuery(), engine.getMetadataManager());
+        VariantParquetWriter writer = new VariantParquetWriter(new Path(outputFileUri), dbAdaptor.getConfiguration(), studyColumns, codec,
+                options.getInt(EXPORT_PARQUET_ROW_GROUP_SIZE.key(), EXPORT_PARQUET_ROW_GROUP_SIZE.defaultValue()),
+                options.getInt(EXPORT_PARQUET_PAGE_SIZE.key(), EXPORT_PARQUET_PAGE_SIZE.defaultValue()),
+                options.getBoolean(EXPORT_PARQUET_DICTIONARY.key(), EXPORT_PARQUET_DICTIONARY.defaultValue()));
+
+        exportData(writer, variantsFile, variantQuery.getInputQuery(), variantQuery.getInputOptions(), true);
+        exportMetadata(outputFileUri, outputFormat, variantQuery);
+        logger.info("Output file : " + outputFileUri);
+    }
+
+    private static boolean isParquet(VariantWriterFactory.VariantOutputFormat outputFormat) {
+        return outputFormat == VariantWriterFactory.VariantOutputFormat.PARQUET
+                || outputFormat == VariantWriterFactory.VariantOutputFormat.PARQUET_GZ;
+    }
+
     protected void writeMetadataInHdfs(VariantMetadata metadata, Path metadataPath, FileSystem fileSystem) throws IOException {
         ObjectMapper objectMapper = new ObjectMapper().configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
 
@@ -0,0 +1,467 @@
+package org.opencb.opencga.storage.hadoop.variant.io;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.*;
+import org.opencb.biodata.models.variant.metadata.VariantFileHeaderComplexLine;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.io.DataWriter;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjection;
+import org.opencb.opencga.storage.hadoop.variant.converters.HBaseToVariantConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes variants into a Parquet file with a flat, column oriented schema, instead of the nested {@link VariantAvro} model.
+ *
+ * Each variant is written as one row, with the main annotation values and each sample data field (e.g. GT, DP) in its own column.
+ * Low cardinality columns like consequence types, biotypes or genotypes benefit from the dictionary encoding.
+ * Variants are expected to be sorted, so the min/max statistics of each row group allow readers to skip row groups by region.
+ *
+ * The sample columns are defined from the study metadata before writing any variant. See {@link #buildStudyColumns}.
+ * Sample data fields declared in the header as a single Integer or Float are written as typed columns, the rest as strings.
+ * Studies, samples or sample data fields not defined in the schema are skipped, with a warning.
+ */
+public class VariantParquetWriter implements DataWriter<Variant> {
+
+    public static final String SEPARATOR = "__";
+    private static final Set<String> RESERVED_FIELDS = new HashSet<>(Arrays.asList(
+            "chromosome", "start", "end", "reference", "alternate", "id", "type", "length",
+            "geneNames", "consequenceTypes", "biotypes", "sift", "polyphen",
+            "gerp", "phylop", "phastCons", "caddScaled", "populationFrequencies"));
+
+    private final Path path;
+    private final Configuration conf;
+    private final CompressionCodecName codec;
+    private final int rowGroupSize;
+    private final int pageSize;
+    private final boolean enableDictionary;
+
+    private final List<StudyColumns> studyColumns;
+    private final Schema schema;
+    private final Set<String> warnings = new HashSet<>();
+    private ParquetWriter<GenericRecord> writer;
+    private long writtenVariants;
+    private final Logger logger = LoggerFactory.getLogger(VariantParquetWriter.class);
+
+    public VariantParquetWriter(Path path, Configuration conf, List<StudyColumns> studyColumns, CompressionCodecName codec,
+                                int rowGroupSize, int pageSize, boolean enableDictionary) {
+        this.path = path;
+        this.conf = conf;
+        this.studyColumns = studyColumns;
+        this.codec = codec;
+        this.rowGroupSize = rowGroupSize;
+        this.pageSize = pageSize;
+        this.enableDictionary = enableDictionary;
+        this.schema = buildSchema(studyColumns);
+    }
+
+    /**
+     * Define the sample columns of the export from the studies and samples of the query projection.
+     * The sample data fields are the ones stored for the study, filtered by {@link VariantQueryUtils#getIncludeSampleData}.
+     *
+     * @param projection      Query projection
+     * @param query           Query, to read the sample data fields to include
+     * @param metadataManager Metadata manager
+     * @return                Sample columns of each study
+     */
+    public static List<StudyColumns> buildStudyColumns(VariantQueryProjection projection, Query query,
+                                                       VariantStorageMetadataManager metadataManager) {
+        List<String> includeSampleData = VariantQueryUtils.getIncludeSampleData(query);
+        List<StudyColumns> studyColumns = new ArrayList<>();
+        for (VariantQueryProjection.StudyVariantQueryProjection study : projection.getStudies().values()) {
+            StudyMetadata studyMetadata = study.getStudyMetadata();
+            if (study.getSamples().isEmpty()) {
+                continue;
+            }
+            List<String> samples = new ArrayList<>(study.getSamples().size());
+            for (Integer sampleId : study.getSamples()) {
+                samples.add(metadataManager.getSampleName(studyMetadata.getId(), sampleId));
+            }
+            List<String> keys = new ArrayList<>(HBaseToVariantConverter.getFixedFormat(studyMetadata));
+            if (includeSampleData != null) {
+                keys.retainAll(includeSampleData);
+            }
+            if (keys.isEmpty()) {
+                continue;
+            }
+            Map<String, VariantFileHeaderComplexLine> formats = studyMetadata.getVariantHeaderLines("FORMAT");
+            List<Schema.Type> types = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                types.add(getType(formats.get(key)));
+            }
+            studyColumns.add(new StudyColumns(studyMetadata.getName(), samples, keys, types));
+        }
+        return studyColumns;
+    }
+
+    /**
+     * Only fields with one Integer or Float value are stored as numbers. The rest, including the genotype, are stored as strings.
+     *
+     * @param line FORMAT header line
+     * @return     Avro type of the column
+     */
+    private static Schema.Type getType(VariantFileHeaderComplexLine line) {
+        if (line == null || !Objects.equals(line.getNumber(), "1")) {
+            return Schema.Type.STRING;
+        } else if ("Integer".equals(line.getType())) {
+            return Schema.Type.INT;
+        } else if ("Float".equals(line.getType())) {
+            return Schema.Type.FLOAT;
+        } else {
+            return Schema.Type.STRING;
+        }
+    }
+
+    @Override
+    public boolean pre() {
+        writtenVariants = 0;
+        try {
+            writer = new AvroParquetWriter<>(path, schema, codec, rowGroupSize, pageSize, enableDictionary, conf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean write(List<Variant> batch) {
+        try {
+            for (Variant variant : batch) {
+                writer.write(convert(variant));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writtenVariants += batch.size();
+        return true;
+    }
+
+    @Override
+    public boolean close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            logger.info("Written " + writtenVariants + " variants into " + path);
+        }
+        return true;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    static Schema buildSchema(List<StudyColumns> studyColumns) {
+        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder
+                .record("VariantParquetRecord").namespace(VariantParquetWriter.class.getPackage().getName())
+                .fields()
+                .requiredString("chromosome")
+                .requiredInt("start")
+                .requiredInt("end")
+                .requiredString("reference")
+                .requiredString("alternate")
+                .optionalString("id")
+                .requiredString("type")
+                .requiredInt("length")
+                .name("geneNames").type().optional().array().items().stringType()
+                .name("consequenceTypes").type().optional().array().items().stringType()
+                .name("biotypes").type().optional().array().items().stringType()
+                .optionalDouble("sift")
+                .optionalDouble("polyphen")
+                .optionalDouble("gerp")
+                .optionalDouble("phylop")
+                .optionalDouble("phastCons")
+                .optionalDouble("caddScaled")
+                .name("populationFrequencies").type().optional().map().values().floatType();
+
+        Set<String> fieldNames = new HashSet<>(RESERVED_FIELDS);
+        boolean multiStudy = studyColumns.size() > 1;
+        for (StudyColumns study : studyColumns) {
+            String prefix = multiStudy ? study.getStudyShortName() + SEPARATOR : "";
+            for (String sample : study.samples) {
+                for (int k = 0; k < study.keys.size(); k++) {
+                    String key = study.keys.get(k);
+                    String fieldName = toFieldName(prefix + sample + SEPARATOR + key);
+                    int i = 1;
+                    String uniqueFieldName = fieldName;
+                    while (!fieldNames.add(uniqueFieldName)) {
+                        uniqueFieldName = fieldName + '_' + i++;
+                    }
+                    fields = fields.name(uniqueFieldName)
+                            .doc("study=" + study.study + ", sample=" + sample + ", field=" + key)
+                            .type().optional().type(Schema.create(study.types.get(k)));
+                }
+            }
+        }
+        return fields.endRecord();
+    }
+
+    /**
+     * Avro field names must start with [A-Za-z_] and contain only [A-Za-z0-9_].
+     *
+     * @param name Column name
+     * @return     Valid avro field name
+     */
+    static String toFieldName(String name) {
+        StringBuilder sb = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            sb.append('_');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+                sb.append(c);
+            } else {
+                sb.append('_');
+            }
+        }
+        return sb.toString();
+    }
+
+    protected GenericRecord convert(Variant variant) {
+        GenericData.Record record = new GenericData.Record(schema);
+        int idx = 0;
+        record.put(idx++, variant.getChromosome());
+        record.put(idx++, variant.getStart());
+        record.put(idx++, variant.getEnd());
+        record.put(idx++, variant.getReference());
+        record.put(idx++, variant.getAlternate());
+        record.put(idx++, variant.getId());
+        record.put(idx++, variant.getType().toString());
+        record.put(idx++, variant.getLength());
+        idx = convertAnnotation(variant.getAnnotation(), record, idx);
+
+        checkUnknownStudies(variant);
+        for (StudyColumns study : studyColumns) {
+            StudyEntry studyEntry = variant.getStudy(study.study);
+            int[] keyPositions = null;
+            Map<String, Integer> samplesPosition = null;
+            if (studyEntry != null && studyEntry.getSamples() != null) {
+                if (!Objects.equals(study.lastSampleDataKeys, studyEntry.getSampleDataKeys())
+                        && studyEntry.getSampleDataKeys() != null) {
+                    checkUnknownKeys(study, studyEntry.getSampleDataKeys());
+                }
+                keyPositions = study.getKeyPositions(studyEntry.getSampleDataKeys());
+                samplesPosition = studyEntry.getSamplesPosition();
+                if (samplesPosition.size() > study.samples.size()) {
+                    warn("Skipping samples from study '" + study.study + "' not defined in the schema: "
+                            + samplesPosition.keySet().stream().filter(s -> !study.samples.contains(s)).limit(10)
+                            .collect(Collectors.toList()));
+                }
+            }
+            for (String sample : study.samples) {
+                List<String> data = null;
+                if (samplesPosition != null) {
+                    Integer samplePosition = samplesPosition.get(sample);
+                    if (samplePosition != null && samplePosition < studyEntry.getSamples().size()) {
+                        data = studyEntry.getSamples().get(samplePosition).getData();
+                    }
+                }
+                for (int k = 0; k < study.keys.size(); k++) {
+                    String value = null;
+                    if (data != null && keyPositions[k] >= 0 && keyPositions[k] < data.size()) {
+                        value = data.get(keyPositions[k]);
+                    }
+                    record.put(idx++, toValue(value, study.types.get(k)));
+                }
+            }
+        }
+        return record;
+    }
+
+    private Object toValue(String value, Schema.Type type) {
+        if (value == null || type == Schema.Type.STRING) {
+            return value;
+        }
+        if (value.isEmpty() || value.equals(".")) {
+            return null;
+        }
+        try {
+            if (type == Schema.Type.INT) {
+                return Integer.valueOf(value);
+            } else {
+                return Float.valueOf(value);
+            }
+        } catch (NumberFormatException e) {
+            warn("Skipping values not matching the " + type + " type of the header, e.g. '" + value + "'");
+            return null;
+        }
+    }
+
+    private void checkUnknownStudies(Variant variant) {
+        if (variant.getStudies().size() > studyColumns.size()) {
+            for (StudyEntry studyEntry : variant.getStudies()) {
+                if (studyColumns.stream().noneMatch(study -> study.study.equals(studyEntry.getStudyId()))) {
+                    warn("Skipping study '" + studyEntry.getStudyId() + "' not defined in the schema");
+                }
+            }
+        }
+    }
+
+    private void checkUnknownKeys(StudyColumns study, List<String> sampleDataKeys) {
+        for (String key : sampleDataKeys) {
+            if (!study.keys.contains(key)) {
+                warn("Skipping sample data field '" + key + "' from study '" + study.study + "' not defined in the schema");
+            }
+        }
+    }
+
+    /**
+     * Log each different warning only once.
+     *
+     * @param message Warning message
+     */
+    private void warn(String message) {
+        if (warnings.add(message)) {
+            logger.warn(message);
+        }
+    }
+
+    private int convertAnnotation(VariantAnnotation annotation, GenericData.Record record, int idx) {
+        if (annotation == null) {
+            // All annotation columns are nullable. Already null in the new record.
+            return idx + 10;
+        }
+        Set<String> geneNames = new LinkedHashSet<>();
+        Set<String> consequenceTypes = new LinkedHashSet<>();
+        Set<String> biotypes = new LinkedHashSet<>();
+        Double sift = null;
+        Double polyphen = null;
+        if (annotation.getConsequenceTypes() != null) {
+            for (ConsequenceType consequenceType : annotation.getConsequenceTypes()) {
+                if (consequenceType.getGeneName() != null) {
+                    geneNames.add(consequenceType.getGeneName());
+                }
+                if (consequenceType.getBiotype() != null) {
+                    biotypes.add(consequenceType.getBiotype());
+                }
+                if (consequenceType.getSequenceOntologyTerms() != null) {
+                    for (SequenceOntologyTerm term : consequenceType.getSequenceOntologyTerms()) {
+                        consequenceTypes.add(term.getName());
+                    }
+                }
+                if (consequenceType.getProteinVariantAnnotation() != null
+                        && consequenceType.getProteinVariantAnnotation().getSubstitutionScores() != null) {
+                    for (Score score : consequenceType.getProteinVariantAnnotation().getSubstitutionScores()) {
+                        // Lowest sift and highest polyphen, the most damaging prediction
+                        if ("sift".equals(score.getSource())) {
+                            sift = sift == null ? score.getScore() : Math.min(sift, score.getScore());
+                        } else if ("polyphen".equals(score.getSource())) {
+                            polyphen = polyphen == null ? score.getScore() : Math.max(polyphen, score.getScore());
+                        }
+                    }
+                }
+            }
+        }
+        record.put(idx++, new ArrayList<>(geneNames));
+        record.put(idx++, new ArrayList<>(consequenceTypes));
+        record.put(idx++, new ArrayList<>(biotypes));
+        record.put(idx++, sift);
+        record.put(idx++, polyphen);
+        record.put(idx++, getScore(annotation.getConservation(), "gerp"));
+        record.put(idx++, getScore(annotation.getConservation(), "phylop"));
+        record.put(idx++, getScore(annotation.getConservation(), "phastCons"));
+        record.put(idx++, getScore(annotation.getFunctionalScore(), "cadd_scaled"));
+
+        Map<String, Float> populationFrequencies = null;
+        if (annotation.getPopulationFrequencies() != null) {
+            populationFrequencies = new HashMap<>(annotation.getPopulationFrequencies().size());
+            for (PopulationFrequency populationFrequency : annotation.getPopulationFrequencies()) {
+                populationFrequencies.put(populationFrequency.getStudy() + ':' + populationFrequency.getPopulation(),
+                        populationFrequency.getAltAlleleFreq());
+            }
+        }
+        record.put(idx++, populationFrequencies);
+        return idx;
+    }
+
+    private static Double getScore(List<Score> scores, String source) {
+        if (scores != null) {
+            for (Score score : scores) {
+                if (source.equals(score.getSource())) {
+                    return score.getScore();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sample columns of one study: one column for each sample and sample data field.
+     */
+    public static final class StudyColumns {
+        private final String study;
+        private final List<String> samples;
+        private final List<String> keys;
+        private final List<Schema.Type> types;
+        // Positions of the keys in the last seen list of sample data keys
+        private List<String> lastSampleDataKeys;
+        private int[] lastKeyPositions;
+
+        StudyColumns(String study, List<String> samples, List<String> keys, List<Schema.Type> types) {
+            this.study = study;
+            this.samples = new ArrayList<>(samples);
+            this.keys = new ArrayList<>(keys);
+            this.types = new ArrayList<>(types);
+        }
+
+        public String getStudy() {
+            return study;
+        }
+
+        public List<String> getSamples() {
+            return samples;
+        }
+
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        public List<Schema.Type> getTypes() {
+            return types;
+        }
+
+        /**
+         * Position of each key of the schema in the sample data keys of a variant, or -1 if missing.
+         * Variants usually share the same sample data keys, so the last result is reused.
+         *
+         * @param sampleDataKeys Sample data keys of the variant
+         * @return               Positions of the keys
+         */
+        private int[] getKeyPositions(List<String> sampleDataKeys) {
+            if (lastKeyPositions == null || !Objects.equals(lastSampleDataKeys, sampleDataKeys)) {
+                lastSampleDataKeys = sampleDataKeys == null ? null : new ArrayList<>(sampleDataKeys);
+                lastKeyPositions = new int[keys.size()];
+                for (int k = 0; k < keys.size(); k++) {
+                    lastKeyPositions[k] = sampleDataKeys == null ? -1 : sampleDataKeys.indexOf(keys.get(k));
+                }
+            }
+            return lastKeyPositions;
+        }
+
+        String getStudyShortName() {
+            int idx = study.lastIndexOf(':');
+            return idx < 0 ? study : study.substring(idx + 1);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageEngine;
 import org.opencb.opencga.storage.hadoop.variant.converters.study.StudyEntrySingleFileToHBaseConverter;
 import org.opencb.opencga.storage.hadoop.variant.converters.study.StudyEntryToHBaseConverter;
 import org.opencb.opencga.storage.hadoop.variant.search.HadoopVariantSearchIndexUtils;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLogWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +44,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class VariantHadoopDBWriter extends AbstractHBaseDataWriter<Variant, Put> {
 
     private final StudyEntryToHBaseConverter converter;
+    private final SecondaryIndexChangeLogWriter changeLogWriter;
     private final AtomicInteger skippedRefBlock = new AtomicInteger();
     private final AtomicInteger skippedRefVariants = new AtomicInteger();
     private final AtomicInteger loadedVariants = new AtomicInteger();
@@ -50,10 +52,35 @@ public class VariantHadoopDBWriter extends AbstractHBaseDataWriter<Variant, Put>
 
     public VariantHadoopDBWriter(String tableName, int studyId, int fileId, VariantStorageMetadataManager metadataManager,
                                  HBaseManager hBaseManager, boolean includeReferenceVariantsData, boolean excludeGenotypes) {
+        this(tableName, studyId, fileId, metadataManager, hBaseManager, includeReferenceVariantsData, excludeGenotypes, null);
+    }
+
+    public VariantHadoopDBWriter(String tableName, int studyId, int fileId, VariantStorageMetadataManager metadataManager,
+                                 HBaseManager hBaseManager, boolean includeReferenceVariantsData, boolean excludeGenotypes,
+                                 SecondaryIndexChangeLogWriter changeLogWriter) {
         super(hBaseManager, tableName);
         int release = metadataManager.getProjectMetadata().getRelease();
         converter = new StudyEntrySingleFileToHBaseConverter(GenomeHelper.COLUMN_FAMILY_BYTES, studyId, fileId, metadataManager, true,
                 release, includeReferenceVariantsData, excludeGenotypes);
+        this.changeLogWriter = changeLogWriter;
+    }
+
+    @Override
+    public boolean open() {
+        super.open();
+        if (changeLogWriter != null) {
+            changeLogWriter.open();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean pre() {
+        super.pre();
+        if (changeLogWriter != null) {
+            changeLogWriter.pre();
+        }
+        return true;
     }
 
     @Override
@@ -73,9 +100,30 @@ public class VariantHadoopDBWriter extends AbstractHBaseDataWriter<Variant, Put>
                 skippedRefBlock.getAndIncrement();
             }
         }
+        if (changeLogWriter != null) {
+            changeLogWriter.write(puts);
+        }
         return puts;
     }
 
+    @Override
+    public boolean post() {
+        super.post();
+        if (changeLogWriter != null) {
+            changeLogWriter.post();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean close() {
+        super.close();
+        if (changeLogWriter != null) {
+            changeLogWriter.close();
+        }
+        return true;
+    }
+
     public int getSkippedRefBlock() {
         return skippedRefBlock.get();
     }
@@ -139,6 +139,9 @@ public class SampleIndexTableRecordReader extends TableRecordReader {
         } catch (Exception e) {
             logger.error("Error closing SampleIndexIterator", e);
         }
+        if (sampleIndexDBAdaptor != null) {
+            sampleIndexDBAdaptor.close();
+        }
     }
 
     /**
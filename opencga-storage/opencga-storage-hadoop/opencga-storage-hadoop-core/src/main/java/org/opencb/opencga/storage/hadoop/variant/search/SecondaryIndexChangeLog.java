@@ -0,0 +1,370 @@
+package org.opencb.opencga.storage.hadoop.variant.search;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
+import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.adaptors.VariantHadoopDBAdaptor;
+import org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenixKeyFactory;
+import org.opencb.opencga.storage.hadoop.variant.utils.HBaseVariantTableNameGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageOptions.*;
+import static org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenixSchema.VariantColumn.INDEX_NOT_SYNC;
+import static org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenixSchema.VariantColumn.INDEX_UNKNOWN;
+
+/**
+ * Durable log of the variants modified since the last secondary index synchronization.
+ *
+ * Writers of the variants table append the row key of each modified variant (see {@link SecondaryIndexChangeLogWriter}).
+ * The change log is consumed moving the modified variants that are not synchronized to the pending secondary index table,
+ * replacing the full variants table scan of the {@link org.opencb.opencga.storage.hadoop.variant.pending.DiscoverPendingVariantsDriver}.
+ * Consumed entries are removed from the change log, so the next synchronization continues from that point.
+ *
+ * The change log can only be used if it was active since the last full discovery of pending variants. This is tracked with a
+ * checkpoint in the {@link org.opencb.opencga.storage.core.metadata.models.ProjectMetadata} attributes.
+ * Every operation marking variants as not synchronized must either write to the change log or remove the checkpoint.
+ */
+public class SecondaryIndexChangeLog {
+
+    /**
+     * Timestamp of the last full discovery of pending variants with the change log active.
+     * Stored in {@link org.opencb.opencga.storage.core.metadata.models.ProjectMetadata#getAttributes}.
+     */
+    public static final String CHECKPOINT = "search.index.changeLog.checkpoint";
+    static final byte[] CHANGE_COLUMN = Bytes.toBytes("_C");
+
+    private final HBaseManager hBaseManager;
+    private final VariantStorageMetadataManager metadataManager;
+    private final String variantsTableName;
+    private final String tableName;
+    private final String pendingTableName;
+    private static Logger logger = LoggerFactory.getLogger(SecondaryIndexChangeLog.class);
+
+    public SecondaryIndexChangeLog(VariantHadoopDBAdaptor dbAdaptor) {
+        hBaseManager = dbAdaptor.getHBaseManager();
+        metadataManager = dbAdaptor.getMetadataManager();
+        HBaseVariantTableNameGenerator tableNameGenerator = dbAdaptor.getTableNameGenerator();
+        variantsTableName = tableNameGenerator.getVariantTableName();
+        tableName = tableNameGenerator.getSecondaryIndexChangeLogTableName();
+        pendingTableName = tableNameGenerator.getPendingSecondaryIndexTableName();
+    }
+
+    public static boolean isActive(ObjectMap options) {
+        return options.getBoolean(SEARCH_INDEX_CHANGE_LOG.key(), SEARCH_INDEX_CHANGE_LOG.defaultValue());
+    }
+
+    public static boolean isActive(Configuration conf) {
+        return conf.getBoolean(SEARCH_INDEX_CHANGE_LOG.key(), SEARCH_INDEX_CHANGE_LOG.defaultValue());
+    }
+
+    /**
+     * Create a change log writer, if the change log is active.
+     *
+     * @param conf                  Configuration
+     * @param hBaseManager          HBaseManager
+     * @param tableNameGenerator    Table name generator
+     * @return  Change log writer, or null if the change log is not active
+     */
+    public static SecondaryIndexChangeLogWriter newWriter(Configuration conf, HBaseManager hBaseManager,
+                                                          HBaseVariantTableNameGenerator tableNameGenerator) {
+        if (isActive(conf)) {
+            return new SecondaryIndexChangeLogWriter(hBaseManager, tableNameGenerator.getSecondaryIndexChangeLogTableName());
+        } else {
+            return null;
+        }
+    }
+
+    public SecondaryIndexChangeLogWriter newWriter(ObjectMap options) {
+        if (isActive(options)) {
+            return new SecondaryIndexChangeLogWriter(hBaseManager, tableName);
+        } else {
+            return null;
+        }
+    }
+
+    public boolean hasCheckpoint() {
+        return metadataManager.getProjectMetadata().getAttributes().getLong(CHECKPOINT, 0) > 0;
+    }
+
+    /**
+     * Check if the change log contains all the variants modified since the last full discovery of pending variants.
+     *
+     * @return if the change log can replace the full discovery of pending variants
+     * @throws StorageEngineException if there is an error reading the change log table
+     */
+    public boolean isComplete() throws StorageEngineException {
+        if (!hasCheckpoint()) {
+            return false;
+        }
+        try {
+            if (!hBaseManager.tableExists(tableName)) {
+                // Entries written since the checkpoint are lost
+                logger.warn("Missing secondary index change log table '{}'", tableName);
+                return false;
+            }
+        } catch (IOException e) {
+            throw new StorageEngineException("Error reading secondary index change log '" + tableName + "'", e);
+        }
+        return true;
+    }
+
+    /**
+     * Register a full discovery of pending variants. Entries previous to the discovery are removed.
+     *
+     * @param discoveryStart Start time of the full discovery
+     * @throws StorageEngineException if there is an error updating the change log
+     */
+    public void setCheckpoint(long discoveryStart) throws StorageEngineException {
+        clear(discoveryStart);
+        metadataManager.updateProjectMetadata(projectMetadata -> {
+            projectMetadata.getAttributes().put(CHECKPOINT, discoveryStart);
+            return projectMetadata;
+        });
+    }
+
+    /**
+     * Invalidate the change log. The next synchronization will require a full discovery of pending variants.
+     * Used by operations modifying the variants table without writing to the change log.
+     *
+     * @throws StorageEngineException if there is an error updating the metadata
+     */
+    public void removeCheckpoint() throws StorageEngineException {
+        removeCheckpoint(metadataManager);
+    }
+
+    /**
+     * Invalidate the change log, if not active.
+     * Used by operations that write to the change log only when it is active.
+     *
+     * @param options Options of the operation
+     * @throws StorageEngineException if there is an error updating the metadata
+     */
+    public void removeCheckpointIfInactive(ObjectMap options) throws StorageEngineException {
+        if (!isActive(options)) {
+            removeCheckpoint();
+        }
+    }
+
+    /**
+     * Invalidate the change log, if not active.
+     * Used by MapReduce drivers whose mappers write to the change log only when it is active.
+     *
+     * @param conf              Configuration of the job
+     * @param metadataManager   Metadata manager
+     * @throws StorageEngineException if there is an error updating the metadata
+     */
+    public static void removeCheckpointIfInactive(Configuration conf, VariantStorageMetadataManager metadataManager)
+            throws StorageEngineException {
+        if (!isActive(conf)) {
+            removeCheckpoint(metadataManager);
+        }
+    }
+
+    private static void removeCheckpoint(VariantStorageMetadataManager metadataManager) throws StorageEngineException {
+        if (metadataManager.getProjectMetadata().getAttributes().containsKey(CHECKPOINT)) {
+            logger.info("Invalidate secondary index change log");
+            metadataManager.updateProjectMetadata(projectMetadata -> {
+                projectMetadata.getAttributes().remove(CHECKPOINT);
+                return projectMetadata;
+            });
+        }
+    }
+
+    /**
+     * Move the variants from the change log to the pending secondary index table, if they are not synchronized.
+     *
+     * Entries are only removed from the change log once the variant modification is found in the variants table, and the
+     * pending variant has been written.
+     *
+     * @param options Options
+     * @return Number of pending variants
+     * @throws StorageEngineException if there is an error reading or writing the tables
+     */
+    public int moveToPending(ObjectMap options) throws StorageEngineException {
+        int batchSize = options.getInt(SEARCH_INDEX_CHANGE_LOG_BATCH_SIZE.key(), SEARCH_INDEX_CHANGE_LOG_BATCH_SIZE.defaultValue());
+        long maxWriteDelay = options.getLong(SEARCH_INDEX_CHANGE_LOG_MAX_WRITE_DELAY.key(),
+                SEARCH_INDEX_CHANGE_LOG_MAX_WRITE_DELAY.defaultValue());
+
+        SecondaryIndexPendingVariantsDescriptor descriptor = new SecondaryIndexPendingVariantsDescriptor();
+        Function<Result, Mutation> evaluator = descriptor.getPendingEvaluatorMapper(metadataManager, false);
+        NavigableSet<byte[]> columns = descriptor.configureScan(new Scan(), metadataManager)
+                .getFamilyMap().get(GenomeHelper.COLUMN_FAMILY_BYTES);
+        long now = System.currentTimeMillis();
+
+        int entries = 0;
+        int pending = 0;
+        try {
+            createTableIfNeeded(tableName, hBaseManager);
+            descriptor.createTableIfNeeded(pendingTableName, hBaseManager);
+            Connection connection = hBaseManager.getConnection();
+            try (Table changeLog = connection.getTable(TableName.valueOf(tableName));
+                 Table variants = connection.getTable(TableName.valueOf(variantsTableName));
+                 BufferedMutator pendingMutator = connection.getBufferedMutator(TableName.valueOf(pendingTableName));
+                 ResultScanner scanner = changeLog.getScanner(new Scan()
+                         .addColumn(GenomeHelper.COLUMN_FAMILY_BYTES, CHANGE_COLUMN)
+                         .setCaching(batchSize))) {
+                List<Cell> batch = new ArrayList<>(batchSize);
+                for (Result result : scanner) {
+                    batch.add(result.getColumnLatestCell(GenomeHelper.COLUMN_FAMILY_BYTES, CHANGE_COLUMN));
+                    if (batch.size() >= batchSize) {
+                        pending += moveToPending(batch, changeLog, variants, pendingMutator, columns, evaluator, now, maxWriteDelay);
+                        entries += batch.size();
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    pending += moveToPending(batch, changeLog, variants, pendingMutator, columns, evaluator, now, maxWriteDelay);
+                    entries += batch.size();
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageEngineException("Error reading secondary index change log '" + tableName + "'", e);
+        }
+        logger.info("Read {} entries from the secondary index change log. Found {} pending variants", entries, pending);
+        return pending;
+    }
+
+    private int moveToPending(List<Cell> batch, Table changeLog, Table variants, BufferedMutator pendingMutator,
+                              NavigableSet<byte[]> columns, Function<Result, Mutation> evaluator, long now, long maxWriteDelay)
+            throws IOException {
+        List<Get> gets = new ArrayList<>(batch.size());
+        for (Cell entry : batch) {
+            Get get = new Get(CellUtil.cloneRow(entry));
+            for (byte[] column : columns) {
+                get.addColumn(GenomeHelper.COLUMN_FAMILY_BYTES, column);
+            }
+            gets.add(get);
+        }
+        Result[] results = variants.get(gets);
+
+        int pending = 0;
+        List<Delete> consumed = new ArrayList<>(batch.size());
+        for (int i = 0; i < results.length; i++) {
+            Cell entry = batch.get(i);
+            Result result = results[i];
+            if (!result.isEmpty()) {
+                if (getSyncStatusTimestamp(result) < entry.getTimestamp()) {
+                    if (now - entry.getTimestamp() < maxWriteDelay) {
+                        // Modification not written yet. Keep the entry for the next synchronization
+                        continue;
+                    } else {
+                        logger.warn("Modification of variant {} not found after {}ms. Discard change log entry",
+                                VariantPhoenixKeyFactory.extractVariantFromVariantRowKey(result.getRow()), maxWriteDelay);
+                    }
+                }
+                Mutation mutation = evaluator.apply(result);
+                if (mutation != null) {
+                    pendingMutator.mutate(mutation);
+                    pending++;
+                }
+            }
+            // Remove only this version of the entry. Newer modifications of the same variant are kept
+            consumed.add(new Delete(CellUtil.cloneRow(entry))
+                    .addColumn(GenomeHelper.COLUMN_FAMILY_BYTES, CHANGE_COLUMN, entry.getTimestamp()));
+        }
+        // Ensure pending variants are persisted before removing the entries
+        pendingMutator.flush();
+        changeLog.delete(consumed);
+        return pending;
+    }
+
+    /**
+     * Remove all the entries previous to the given time.
+     *
+     * @param before Max timestamp, exclusive
+     * @throws StorageEngineException if there is an error updating the change log
+     */
+    public void clear(long before) throws StorageEngineException {
+        try {
+            createTableIfNeeded(tableName, hBaseManager);
+            long removed = hBaseManager.act(tableName, changeLog -> {
+                long count = 0;
+                Scan scan = new Scan()
+                        .addColumn(GenomeHelper.COLUMN_FAMILY_BYTES, CHANGE_COLUMN)
+                        .setTimeRange(0, before);
+                try (ResultScanner scanner = changeLog.getScanner(scan)) {
+                    List<Delete> deletes = new ArrayList<>();
+                    for (Result result : scanner) {
+                        Cell entry = result.getColumnLatestCell(GenomeHelper.COLUMN_FAMILY_BYTES, CHANGE_COLUMN);
+                        deletes.add(new Delete(result.getRow())
+                                .addColumn(GenomeHelper.COLUMN_FAMILY_BYTES, CHANGE_COLUMN, entry.getTimestamp()));
+                        if (deletes.size() >= 10000) {
+                            count += deletes.size();
+                            changeLog.delete(deletes);
+                            deletes = new ArrayList<>();
+                        }
+                    }
+                    count += deletes.size();
+                    changeLog.delete(deletes);
+                }
+                return count;
+            });
+            logger.info("Removed {} entries from the secondary index change log", removed);
+        } catch (IOException e) {
+            throw new StorageEngineException("Error cleaning secondary index change log '" + tableName + "'", e);
+        }
+    }
+
+    static boolean createTableIfNeeded(String tableName, HBaseManager hBaseManager) throws IOException {
+        HBaseVariantTableNameGenerator.checkValidSecondaryIndexChangeLogTableName(tableName);
+        List<byte[]> preSplits = new LinkedList<>();
+        for (int i = 1; i < 22; i++) {
+            preSplits.add(VariantPhoenixKeyFactory.generateVariantRowKey(String.valueOf(i), 0));
+        }
+        preSplits.add(VariantPhoenixKeyFactory.generateVariantRowKey("X", 0));
+        return hBaseManager.createTableIfNeeded(tableName, GenomeHelper.COLUMN_FAMILY_BYTES, preSplits,
+                Compression.getCompressionAlgorithmByName(hBaseManager.getConf().get(
+                        PENDING_SECONDARY_INDEX_TABLE_COMPRESSION.key(),
+                        PENDING_SECONDARY_INDEX_TABLE_COMPRESSION.defaultValue())));
+    }
+
+    /**
+     * Get the timestamp of the last sync status mark of a variant.
+     *
+     * @param put Mutation of the variants table
+     * @return Timestamp of the last mark, or 0 if not marked
+     */
+    static long getSyncStatusTimestamp(Put put) {
+        long ts = 0;
+        for (byte[] column : Arrays.asList(INDEX_NOT_SYNC.bytes(), INDEX_UNKNOWN.bytes())) {
+            for (Cell cell : put.get(GenomeHelper.COLUMN_FAMILY_BYTES, column)) {
+                ts = Math.max(ts, cell.getTimestamp());
+            }
+        }
+        return ts;
+    }
+
+    private static long getSyncStatusTimestamp(Result result) {
+        long ts = 0;
+        for (byte[] column : Arrays.asList(INDEX_NOT_SYNC.bytes(), INDEX_UNKNOWN.bytes())) {
+            Cell cell = result.getColumnLatestCell(GenomeHelper.COLUMN_FAMILY_BYTES, column);
+            if (cell != null) {
+                ts = Math.max(ts, cell.getTimestamp());
+            }
+        }
+        return ts;
+    }
+}
@@ -0,0 +1,52 @@
+package org.opencb.opencga.storage.hadoop.variant.search;
+
+import org.apache.hadoop.hbase.client.Put;
+import org.opencb.opencga.storage.hadoop.utils.AbstractHBaseDataWriter;
+import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
+import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.utils.HBaseVariantTableNameGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append to the secondary index change log the variants modified by a list of mutations of the variants table.
+ *
+ * The mutations must be marked with {@link HadoopVariantSearchIndexUtils#addNotSyncStatus} or
+ * {@link HadoopVariantSearchIndexUtils#addUnknownSyncStatus}. The entry is written with the timestamp of that mark,
+ * so the change log consumer can determine if the modification is already written in the variants table.
+ *
+ * This writer is thread-safe.
+ */
+public class SecondaryIndexChangeLogWriter extends AbstractHBaseDataWriter<Put, Put> {
+
+    public SecondaryIndexChangeLogWriter(HBaseManager hBaseManager, String tableName) {
+        super(hBaseManager, tableName);
+        HBaseVariantTableNameGenerator.checkValidSecondaryIndexChangeLogTableName(tableName);
+    }
+
+    @Override
+    public boolean pre() {
+        try {
+            SecondaryIndexChangeLog.createTableIfNeeded(tableName, hBaseManager);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    protected List<Put> convert(List<Put> batch) {
+        List<Put> entries = new ArrayList<>(batch.size());
+        for (Put put : batch) {
+            long ts = SecondaryIndexChangeLog.getSyncStatusTimestamp(put);
+            if (ts > 0) {
+                entries.add(new Put(put.getRow())
+                        .addColumn(GenomeHelper.COLUMN_FAMILY_BYTES, SecondaryIndexChangeLog.CHANGE_COLUMN, ts, new byte[0]));
+            }
+        }
+        return entries;
+    }
+}
@@ -27,6 +27,7 @@ import org.opencb.opencga.storage.hadoop.variant.adaptors.VariantHBaseQueryParse
 import org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenixSchema;
 import org.opencb.opencga.storage.hadoop.variant.converters.HBaseToVariantConverter;
 import org.opencb.opencga.storage.hadoop.variant.mr.VariantMapReduceUtil;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -130,6 +131,7 @@ public class VariantStatsDriver extends AbstractVariantsTableDriver {
         if (!HBaseToVariantConverter.getFixedFormat(studyMetadata).contains("GT")) {
             throw new IllegalArgumentException("Study '" + studyMetadata.getName() + "' does not have Genotypes");
         }
+        SecondaryIndexChangeLog.removeCheckpointIfInactive(getConf(), getMetadataManager());
     }
 
     @Override
@@ -14,6 +14,7 @@ import org.opencb.opencga.storage.core.metadata.models.CohortMetadata;
 import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.stats.VariantStatsWrapper;
+import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
 import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenixSchema;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenixKeyFactory;
@@ -22,6 +23,8 @@ import org.opencb.opencga.storage.hadoop.variant.metadata.HBaseVariantStorageMet
 import org.opencb.opencga.storage.hadoop.variant.mr.VariantTableHelper;
 import org.opencb.opencga.storage.hadoop.variant.mr.VariantsTableMapReduceHelper;
 import org.opencb.opencga.storage.hadoop.variant.search.HadoopVariantSearchIndexUtils;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLog;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLogWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +44,7 @@ public class VariantStatsFromResultMapper extends TableMapper<ImmutableBytesWrit
     private StudyMetadata studyMetadata;
     private VariantStatsToHBaseConverter converter;
     private Map<String, HBaseVariantStatsCalculator> calculators;
+    private SecondaryIndexChangeLogWriter changeLogWriter;
     private final Logger logger = LoggerFactory.getLogger(VariantStatsFromResultMapper.class);
     private Map<String, Integer> cohortIds;
 
@@ -85,6 +89,21 @@ public class VariantStatsFromResultMapper extends TableMapper<ImmutableBytesWrit
                         metadataManager, studyMetadata, value, statsMultiAllelic, unknownGenotype));
             }
         }
+        changeLogWriter = SecondaryIndexChangeLog.newWriter(context.getConfiguration(),
+                new HBaseManager(context.getConfiguration()), helper.getHBaseVariantTableNameGenerator());
+        if (changeLogWriter != null) {
+            changeLogWriter.open();
+            changeLogWriter.pre();
+        }
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        super.cleanup(context);
+        if (changeLogWriter != null) {
+            changeLogWriter.post();
+            changeLogWriter.close();
+        }
     }
 
 
@@ -186,6 +205,9 @@ public class VariantStatsFromResultMapper extends TableMapper<ImmutableBytesWrit
         } else {
             HadoopVariantSearchIndexUtils.addNotSyncStatus(put, GenomeHelper.COLUMN_FAMILY_BYTES);
             context.getCounter(VariantsTableMapReduceHelper.COUNTER_GROUP_NAME, "stats.put").increment(1);
+            if (changeLogWriter != null) {
+                changeLogWriter.write(Collections.singletonList(put));
+            }
             context.write(new ImmutableBytesWritable(helper.getVariantsTable()), put);
         }
     }
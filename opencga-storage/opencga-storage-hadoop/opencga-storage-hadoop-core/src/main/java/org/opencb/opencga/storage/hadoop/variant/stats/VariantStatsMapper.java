@@ -14,12 +14,15 @@ import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.stats.VariantStatisticsCalculator;
 import org.opencb.opencga.storage.core.variant.stats.VariantStatsWrapper;
+import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
 import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
 import org.opencb.opencga.storage.hadoop.variant.converters.stats.VariantStatsToHBaseConverter;
 import org.opencb.opencga.storage.hadoop.variant.mr.VariantMapper;
 import org.opencb.opencga.storage.hadoop.variant.mr.VariantTableHelper;
 import org.opencb.opencga.storage.hadoop.variant.mr.VariantsTableMapReduceHelper;
 import org.opencb.opencga.storage.hadoop.variant.search.HadoopVariantSearchIndexUtils;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLog;
+import org.opencb.opencga.storage.hadoop.variant.search.SecondaryIndexChangeLogWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +46,7 @@ public class VariantStatsMapper extends VariantMapper<ImmutableBytesWritable, Pu
     private VariantTableHelper helper;
     private StudyMetadata studyMetadata;
     private VariantStatsToHBaseConverter converter;
+    private SecondaryIndexChangeLogWriter changeLogWriter;
     private final Logger logger = LoggerFactory.getLogger(VariantStatsFromVariantRowTsvMapper.class);
 
     @Override
@@ -78,6 +82,12 @@ public class VariantStatsMapper extends VariantMapper<ImmutableBytesWritable, Pu
 
         converter = new VariantStatsToHBaseConverter(studyMetadata, cohortIds);
 
+        changeLogWriter = SecondaryIndexChangeLog.newWriter(context.getConfiguration(),
+                new HBaseManager(context.getConfiguration()), helper.getHBaseVariantTableNameGenerator());
+        if (changeLogWriter != null) {
+            changeLogWriter.open();
+            changeLogWriter.pre();
+        }
     }
 
     @Override
@@ -97,6 +107,9 @@ public class VariantStatsMapper extends VariantMapper<ImmutableBytesWritable, Pu
             } else {
                 HadoopVariantSearchIndexUtils.addNotSyncStatus(put, GenomeHelper.COLUMN_FAMILY_BYTES);
                 context.getCounter(VariantsTableMapReduceHelper.COUNTER_GROUP_NAME, "stats.put").increment(1);
+                if (changeLogWriter != null) {
+                    changeLogWriter.write(Collections.singletonList(put));
+                }
                 context.write(new ImmutableBytesWritable(helper.getVariantsTable()), put);
             }
         } catch (Exception e) {
@@ -108,6 +121,10 @@ public class VariantStatsMapper extends VariantMapper<ImmutableBytesWritable, Pu
     @Override
     protected void cleanup(Context context) throws IOException, InterruptedException {
         super.cleanup(context);
+        if (changeLogWriter != null) {
+            changeLogWriter.post();
+            changeLogWriter.close();
+        }
         if (calculator.getSkippedFiles() > 0) {
             logger.warn("Non calculated variant stats: " + calculator.getSkippedFiles());
             context.getCounter(VariantsTableMapReduceHelper.COUNTER_GROUP_NAME, "stats.skipped").increment(calculator.getSkippedFiles());
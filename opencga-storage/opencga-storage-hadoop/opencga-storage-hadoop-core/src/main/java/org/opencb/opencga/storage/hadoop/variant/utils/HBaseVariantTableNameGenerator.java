@@ -19,6 +19,7 @@ public class HBaseVariantTableNameGenerator {
     private static final String SAMPLE_SUFIX = "_variant_sample_index_";
     private static final String PENDING_ANNOTATION_SUFIX = "_pending_annotation";
     private static final String PENDING_SECONDARY_INDEX_SUFIX = "_pending_secondary_index";
+    private static final String SECONDARY_INDEX_CHANGE_LOG_SUFIX = "_secondary_index_change_log";
     private static final int MINIMUM_DB_NAME_SIZE = 1;
 
     private final String namespace;
@@ -27,6 +28,7 @@ public class HBaseVariantTableNameGenerator {
     private final String metaTableName;
     private final String pendingAnnotationTableName;
     private final String pendingSecondaryIndexTableName;
+    private final String secondaryIndexChangeLogTableName;
 
 
     public HBaseVariantTableNameGenerator(String dbName, ObjectMap options) {
@@ -47,6 +49,7 @@ public class HBaseVariantTableNameGenerator {
         metaTableName = getMetaTableName(namespace, this.dbName);
         pendingAnnotationTableName = getPendingAnnotationTableName(namespace, this.dbName);
         pendingSecondaryIndexTableName = getPendingSecondaryIndexTableName(namespace, this.dbName);
+        secondaryIndexChangeLogTableName = getSecondaryIndexChangeLogTableName(namespace, this.dbName);
     }
 
     public String getVariantTableName() {
@@ -69,6 +72,10 @@ public class HBaseVariantTableNameGenerator {
         return pendingSecondaryIndexTableName;
     }
 
+    public String getSecondaryIndexChangeLogTableName() {
+        return secondaryIndexChangeLogTableName;
+    }
+
     public String getMetaTableName() {
         return metaTableName;
     }
@@ -113,6 +120,12 @@ public class HBaseVariantTableNameGenerator {
         }
     }
 
+    public static void checkValidSecondaryIndexChangeLogTableName(String secondaryIndexChangeLogTableName) {
+        if (!validSuffix(secondaryIndexChangeLogTableName, SECONDARY_INDEX_CHANGE_LOG_SUFIX)) {
+            throw new IllegalArgumentException("Invalid secondary index change log table name : " + secondaryIndexChangeLogTableName);
+        }
+    }
+
     public static String getDBNameFromMetaTableName(String metaTableName) {
         checkValidMetaTableName(metaTableName);
         return metaTableName.substring(0, metaTableName.length() - META_SUFIX.length());
@@ -209,6 +222,10 @@ public class HBaseVariantTableNameGenerator {
         return buildTableName(namespace, dbName, PENDING_SECONDARY_INDEX_SUFIX);
     }
 
+    public static String getSecondaryIndexChangeLogTableName(String namespace, String dbName) {
+        return buildTableName(namespace, dbName, SECONDARY_INDEX_CHANGE_LOG_SUFIX);
+    }
+
     public static String getMetaTableName(String namespace, String dbName) {
         return buildTableName(namespace, dbName, META_SUFIX);
     }
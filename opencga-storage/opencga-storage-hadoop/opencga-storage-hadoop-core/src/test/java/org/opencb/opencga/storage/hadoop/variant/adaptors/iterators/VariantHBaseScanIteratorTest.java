@@ -0,0 +1,139 @@
+package org.opencb.opencga.storage.hadoop.variant.adaptors.iterators;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.FileEntry;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageMetadataDBAdaptorFactory;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjection;
+import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.converters.HBaseVariantConverterConfiguration;
+import org.opencb.opencga.storage.hadoop.variant.converters.study.StudyEntrySingleFileToHBaseConverter;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class VariantHBaseScanIteratorTest {
+
+    private static final int NUM_VARIANTS = 250;
+
+    private VariantStorageMetadataManager metadataManager;
+    private HBaseVariantConverterConfiguration configuration;
+    private List<String> expectedIds;
+    private List<List<Result>> scanners;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        DummyVariantStorageMetadataDBAdaptorFactory.clear();
+        metadataManager = new VariantStorageMetadataManager(new DummyVariantStorageMetadataDBAdaptorFactory());
+        int studyId = metadataManager.createStudy("S").getId();
+        List<String> samples = Arrays.asList("S1", "S2");
+        int fileId = metadataManager.registerFile(studyId, "F", samples);
+        metadataManager.addIndexedFiles(studyId, Collections.singletonList(fileId));
+
+        StudyEntrySingleFileToHBaseConverter toHBaseConverter = new StudyEntrySingleFileToHBaseConverter(
+                GenomeHelper.COLUMN_FAMILY_BYTES, studyId, fileId, metadataManager, false, 1, false, false);
+        expectedIds = new ArrayList<>(NUM_VARIANTS);
+        // Split the results in 3 scanners of different size
+        scanners = Arrays.asList(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            Variant variant = new Variant("1:" + (1000 + i) + ":A:C");
+            StudyEntry studyEntry = new StudyEntry("S", new ArrayList<>(), Collections.singletonList("GT"));
+            studyEntry.addSampleData("S1", Collections.singletonList("0/1"));
+            studyEntry.addSampleData("S2", Collections.singletonList("1/1"));
+            studyEntry.setFiles(new ArrayList<>(Collections.singletonList(
+                    new FileEntry("F", null, new HashMap<>(Collections.singletonMap("QUAL", "10"))))));
+            variant.addStudyEntry(studyEntry);
+
+            Put put = toHBaseConverter.convert(variant);
+            List<Cell> cells = new ArrayList<>();
+            for (Collection<Cell> familyCells : put.getFamilyCellMap().values()) {
+                cells.addAll(familyCells);
+            }
+            cells.sort(KeyValue.COMPARATOR);
+            scanners.get(i < 10 ? 0 : i < 200 ? 1 : 2).add(Result.create(cells));
+            expectedIds.add(variant.toString());
+        }
+
+        StudyMetadata studyMetadata = metadataManager.getStudyMetadata(studyId);
+        List<Integer> sampleIds = Arrays.asList(metadataManager.getSampleId(studyId, "S1"), metadataManager.getSampleId(studyId, "S2"));
+        configuration = HBaseVariantConverterConfiguration.builder()
+                .setProjection(new VariantQueryProjection(studyMetadata, sampleIds, Collections.singletonList(fileId)))
+                .build();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        assertEquals(expectedIds, readIds(newIterator(new QueryOptions(), executor, 7, 2)));
+    }
+
+    @Test
+    public void testIterateCallerThread() throws Exception {
+        assertEquals(expectedIds, readIds(newIterator(new QueryOptions(), null, 7, 2)));
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        VariantHBaseScanIterator iterator = newIterator(new QueryOptions(QueryOptions.LIMIT, 25), executor, 10, 3);
+        assertEquals(expectedIds.subList(0, 25), readIds(iterator));
+        assertEquals(25, iterator.getCount());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        VariantHBaseScanIterator iterator = newIterator(new QueryOptions(QueryOptions.LIMIT, 20), executor, 10, 2);
+        iterator.skip(195);
+        assertEquals(expectedIds.subList(195, 215), readIds(iterator));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        scanners = Arrays.asList(Collections.emptyList(), Collections.emptyList());
+        VariantHBaseScanIterator iterator = newIterator(new QueryOptions(), executor, 10, 2);
+        assertFalse(iterator.hasNext());
+        iterator.close();
+    }
+
+    private VariantHBaseScanIterator newIterator(QueryOptions options, ExecutorService executor, int chunkSize, int chunksInFlight) {
+        List<ResultScanner> resultScanners = new ArrayList<>(scanners.size());
+        for (List<Result> results : scanners) {
+            ResultScanner scanner = Mockito.mock(ResultScanner.class);
+            Mockito.when(scanner.iterator()).thenReturn(results.iterator());
+            resultScanners.add(scanner);
+        }
+        return new VariantHBaseScanIterator(resultScanners.iterator(), metadataManager, configuration, options,
+                executor, chunkSize, chunksInFlight);
+    }
+
+    private static List<String> readIds(VariantHBaseScanIterator iterator) throws Exception {
+        List<String> ids = new ArrayList<>();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next().toString());
+        }
+        iterator.close();
+        return ids;
+    }
+}
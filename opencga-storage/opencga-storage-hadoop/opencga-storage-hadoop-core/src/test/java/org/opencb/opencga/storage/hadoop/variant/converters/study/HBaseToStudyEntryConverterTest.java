@@ -1,7 +1,12 @@
 package org.opencb.opencga.storage.hadoop.variant.converters.study;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.phoenix.schema.types.PUnsignedInt;
 import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.schema.types.PVarcharArray;
 import org.apache.phoenix.schema.types.PhoenixArray;
 import org.junit.Assert;
 import org.junit.Before;
@@ -14,7 +19,13 @@ import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageMetadataDBAdaptorFactory;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjection;
+import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.PhoenixHelper;
+import org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenixKeyFactory;
+import org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantPhoenixSchema;
 import org.opencb.opencga.storage.hadoop.variant.converters.HBaseVariantConverterConfiguration;
 import org.opencb.opencga.storage.hadoop.variant.converters.VariantRow;
 
@@ -158,6 +169,128 @@ public class HBaseToStudyEntryConverterTest {
         Assert.assertEquals(s.toString(), expected, s);
     }
 
+    @Test
+    public void testGetSampleDataPositions() throws Exception {
+        VariantRow.SampleColumn sampleColumn = getSampleColumn(1, listOf("0/1", "PASS"));
+
+        Assert.assertEquals(listOf("PASS", ".", ".", "0/1"), sampleColumn.getSampleData(new int[]{1, 2, -1, 0}, "."));
+    }
+
+    @Test
+    public void testConvertSampleDataKeysOutOfSampleData() throws Exception {
+        mm.updateStudyMetadata(sm.getId(), s -> {
+            s.getAttributes().put(VariantStorageOptions.EXTRA_FORMAT_FIELDS.key(), "AD,DP");
+            return s;
+        });
+        sm = mm.getStudyMetadata(sm.getId());
+        int s1 = mm.getSampleId(sm.getId(), "S1");
+        int s2 = mm.getSampleId(sm.getId(), "S2");
+        int s3 = mm.getSampleId(sm.getId(), "S3");
+        converter = new HBaseToStudyEntryConverter(mm, null)
+                .configure(HBaseVariantConverterConfiguration.builder()
+                        .setProjection(new VariantQueryProjection(sm, Arrays.asList(s1, s3), Collections.singletonList(1)))
+                        .setSampleDataKeys(listOf("DP", "GT"))
+                        .build());
+
+        byte[] row = VariantPhoenixKeyFactory.generateVariantRowKey(new Variant("1:1000:A:C"));
+        Result result = result(
+                // Sample data shorter than the fixed sample data keys. e.g. loaded before adding the extra format fields
+                cell(row, VariantPhoenixSchema.getSampleColumn(sm.getId(), s1), sampleData("0/1")),
+                // Sample not returned
+                cell(row, VariantPhoenixSchema.getSampleColumn(sm.getId(), s2), sampleData("1/1", "5,6", "30")),
+                cell(row, VariantPhoenixSchema.getSampleColumn(sm.getId(), s3), sampleData("0/0", "3,4", "20")));
+
+        StudyEntry studyEntry = converter.convert(result).get(sm.getId());
+        Assert.assertEquals(listOf("DP", "GT"), studyEntry.getSampleDataKeys());
+        Assert.assertEquals(listOf(".", "0/1"), studyEntry.getSample("S1").getData());
+        Assert.assertEquals(listOf("20", "0/0"), studyEntry.getSample("S3").getData());
+        Assert.assertNull(studyEntry.getSample("S2"));
+    }
+
+    @Test
+    public void testConvertExcludedStudy() throws Exception {
+        int otherStudyId = mm.createStudy("S2").getId();
+        int otherFileId = mm.registerFile(otherStudyId, "f1", Arrays.asList("S10", "S11"));
+        mm.addIndexedFiles(otherStudyId, Collections.singletonList(otherFileId));
+        int s1 = mm.getSampleId(sm.getId(), "S1");
+        int s10 = mm.getSampleId(otherStudyId, "S10");
+
+        byte[] row = VariantPhoenixKeyFactory.generateVariantRowKey(new Variant("1:1000:A:C"));
+        Result result = result(
+                cell(row, VariantPhoenixSchema.getStudyColumn(sm.getId()), PUnsignedInt.INSTANCE.toBytes(0)),
+                cell(row, VariantPhoenixSchema.getSampleColumn(sm.getId(), s1), sampleData("0/1", "PASS")),
+                cell(row, VariantPhoenixSchema.getStudyColumn(otherStudyId), PUnsignedInt.INSTANCE.toBytes(0)),
+                cell(row, VariantPhoenixSchema.getSampleColumn(otherStudyId, s10), sampleData("1/1", "PASS")),
+                cell(row, VariantPhoenixSchema.getStatsColumn(otherStudyId, 1), new byte[]{1, 2, 3}));
+
+        // All studies are returned without projection
+        Assert.assertEquals(new HashSet<>(Arrays.asList(sm.getId(), otherStudyId)), converter.convert(result).keySet());
+
+        converter = new HBaseToStudyEntryConverter(mm, null)
+                .configure(HBaseVariantConverterConfiguration.builder()
+                        .setProjection(new VariantQueryProjection(mm.getStudyMetadata(sm.getId()), Collections.singletonList(s1),
+                                Collections.singletonList(1)))
+                        .build());
+        Map<Integer, StudyEntry> studies = converter.convert(result);
+        Assert.assertEquals(Collections.singleton(sm.getId()), studies.keySet());
+        Assert.assertEquals(listOf("0/1", "PASS"), studies.get(sm.getId()).getSample("S1").getData());
+    }
+
+    @Test
+    public void testConvertSkipStatsAndScores() throws Exception {
+        StudyMetadata studyMetadata = mm.getStudyMetadata(sm.getId());
+        int s1 = mm.getSampleId(sm.getId(), "S1");
+        Set<VariantField> fields = new HashSet<>(VariantField.getIncludeFields(null));
+        fields.remove(VariantField.STUDIES_STATS);
+        fields.remove(VariantField.STUDIES_SCORES);
+        converter = new HBaseToStudyEntryConverter(mm, null)
+                .configure(HBaseVariantConverterConfiguration.builder()
+                        .setProjection(new VariantQueryProjection(fields, Collections.singletonMap(sm.getId(),
+                                new VariantQueryProjection.StudyVariantQueryProjection(studyMetadata, Collections.singletonList(s1),
+                                        Collections.emptyMap(), Collections.singletonList(1), Collections.emptyList())),
+                                false, 1, 1))
+                        .build());
+
+        byte[] row = VariantPhoenixKeyFactory.generateVariantRowKey(new Variant("1:1000:A:C"));
+        // Stats and score columns can not be decoded, and the score is not defined in the study metadata
+        Result result = result(
+                cell(row, VariantPhoenixSchema.getSampleColumn(sm.getId(), s1), sampleData("0/1", "PASS")),
+                cell(row, VariantPhoenixSchema.getStatsColumn(sm.getId(), 1), new byte[]{1, 2, 3}),
+                cell(row, VariantPhoenixSchema.getVariantScoreColumn(sm.getId(), 5), new byte[]{1, 2, 3}));
+
+        StudyEntry studyEntry = converter.convert(result).get(sm.getId());
+        Assert.assertEquals(Collections.emptyList(), studyEntry.getStats());
+        Assert.assertEquals(Collections.emptyList(), studyEntry.getScores());
+        Assert.assertEquals(listOf("0/1", "PASS"), studyEntry.getSample("S1").getData());
+
+        // Decoded if included
+        converter = new HBaseToStudyEntryConverter(mm, null)
+                .configure(HBaseVariantConverterConfiguration.builder()
+                        .setProjection(new VariantQueryProjection(studyMetadata, Collections.singletonList(s1),
+                                Collections.singletonList(1)))
+                        .build());
+        try {
+            converter.convert(result);
+            Assert.fail("Expected stats and scores to be decoded");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+    }
+
+    private Result result(Cell... cells) {
+        List<Cell> list = Arrays.asList(cells);
+        list.sort(KeyValue.COMPARATOR);
+        return Result.create(list);
+    }
+
+    private Cell cell(byte[] row, PhoenixHelper.Column column, byte[] value) {
+        return new KeyValue(row, GenomeHelper.COLUMN_FAMILY_BYTES, column.bytes(), value);
+    }
+
+    private byte[] sampleData(String... values) {
+        return PVarcharArray.INSTANCE.toBytes(arrayOf(values));
+    }
+
     private VariantRow.SampleColumn getSampleColumn(int sampleId, List<String> sampleData) {
         return new VariantRow.SampleColumn() {
             @Override
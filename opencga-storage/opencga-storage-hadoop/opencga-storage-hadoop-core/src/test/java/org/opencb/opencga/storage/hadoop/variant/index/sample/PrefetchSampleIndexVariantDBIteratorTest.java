@@ -0,0 +1,70 @@
+package org.opencb.opencga.storage.hadoop.variant.index.sample;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.IntersectMultiVariantKeyIterator;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrefetchSampleIndexVariantDBIteratorTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        // Less threads than iterators
+        executor = Executors.newFixedThreadPool(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        List<Variant> variants = variants("1", 0, 3000000, 50000);
+        variants.addAll(variants("2", 10, 2500000, 100000));
+
+        for (int maxBatchSize : Arrays.asList(1, 7, 1000)) {
+            List<Variant> actual = new ArrayList<>();
+            try (VariantDBIterator iterator = new PrefetchSampleIndexVariantDBIterator(
+                    VariantDBIterator.wrapper(variants.iterator()), executor, maxBatchSize)) {
+                iterator.forEachRemaining(actual::add);
+                assertEquals(variants.size(), iterator.getCount());
+            }
+            assertEquals(variants, actual);
+        }
+    }
+
+    @Test
+    public void testIntersect() throws Exception {
+        List<Variant> variants1 = variants("1", 0, 3000000, 20000);
+        List<Variant> variants2 = variants("1", 0, 3000000, 30000);
+        List<Variant> expected = variants("1", 0, 3000000, 60000);
+
+        List<VariantDBIterator> iterators = Arrays.asList(
+                new PrefetchSampleIndexVariantDBIterator(VariantDBIterator.wrapper(variants1.iterator()), executor, 10),
+                new PrefetchSampleIndexVariantDBIterator(VariantDBIterator.wrapper(variants2.iterator()), executor, 10));
+        List<Variant> actual = new ArrayList<>();
+        try (VariantDBIterator iterator = new IntersectMultiVariantKeyIterator(iterators, Collections.emptyList())) {
+            iterator.forEachRemaining(actual::add);
+        }
+        assertEquals(expected, actual);
+    }
+
+    private List<Variant> variants(String chromosome, int start, int end, int step) {
+        List<Variant> variants = new ArrayList<>();
+        for (int i = start + 1; i < end; i += step) {
+            variants.add(new Variant(chromosome, i, "A", "T"));
+        }
+        return variants;
+    }
+}
@@ -0,0 +1,112 @@
+package org.opencb.opencga.storage.hadoop.variant.index.sample;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.opencga.core.config.storage.SampleIndexConfiguration;
+import org.opencb.opencga.core.config.storage.SampleIndexConfiguration.Population;
+import org.opencb.opencga.storage.core.variant.query.OpValue;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexConverter;
+import org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexPutBuilder;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleAnnotationIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SingleSampleIndexQuery;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexConverterTest.annot;
+import static org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexConverterTest.pf;
+
+public class SampleIndexAnnotationFilterTest {
+
+    private static final byte[] FAMILY = new byte[]{'0'};
+    private SampleIndexSchema schema;
+
+    @Before
+    public void setUp() throws Exception {
+        SampleIndexConfiguration configuration = SampleIndexConfiguration.defaultConfiguration();
+        configuration.getAnnotationIndexConfiguration().getPopulationFrequency().getPopulations().clear();
+        schema = new SampleIndexSchema(configuration
+                .addPopulation(new Population("s1", "ALL"))
+                .addPopulation(new Population("s2", "ALL")));
+    }
+
+    @Test
+    public void testNoFilter() {
+        assertNull(SampleIndexAnnotationFilter.build(getQuery(new SampleAnnotationIndexQuery(schema))));
+    }
+
+    @Test
+    public void testFilterPopFreq() throws Exception {
+        SampleIndexAnnotationFilter filter = SampleIndexAnnotationFilter.build(getQuery(popFreqQuery("s2", "<", 0.001)));
+        assertNotNull(filter);
+        // Ensure it can be sent to the region servers
+        filter = SampleIndexAnnotationFilter.parseFrom(filter.toByteArray());
+
+        Put put = new Put(new byte[]{'0'});
+        addGt(put, "0/1", 0.0, 0.5);    // Rare variant in s2
+        addGt(put, "1/1", 0.5, 0.5);    // Common variants only
+        List<Cell> cells = new ArrayList<>(put.getFamilyCellMap().get(FAMILY));
+        cells.add(cell(put, SampleIndexSchema.toGenotypeDiscrepanciesCountColumn()));
+
+        filter.reset();
+        for (Cell cell : cells) {
+            assertEquals(Filter.ReturnCode.INCLUDE, filter.filterCell(cell));
+        }
+        filter.filterRowCells(cells);
+        assertFalse(filter.filterRow());
+        Set<String> columns = cells.stream().map(c -> Bytes.toString(c.getQualifierArray(), c.getQualifierOffset(),
+                c.getQualifierLength())).collect(Collectors.toSet());
+        assertTrue(columns.contains("0/1"));
+        assertTrue(columns.contains(Bytes.toString(SampleIndexSchema.toAnnotationPopFreqIndexColumn("0/1"))));
+        assertTrue(columns.contains(Bytes.toString(SampleIndexSchema.toGenotypeDiscrepanciesCountColumn())));
+        assertFalse(columns.contains("1/1"));
+        assertFalse(columns.contains(Bytes.toString(SampleIndexSchema.toAnnotationPopFreqIndexColumn("1/1"))));
+
+        put = new Put(new byte[]{'0'});
+        addGt(put, "1/1", 0.5, 0.5);
+        cells = new ArrayList<>(put.getFamilyCellMap().get(FAMILY));
+        filter.reset();
+        filter.filterRowCells(cells);
+        assertTrue(filter.filterRow());
+    }
+
+    private void addGt(Put put, String gt, double s1, double s2) {
+        AnnotationIndexConverter converter = new AnnotationIndexConverter(schema);
+        new AnnotationIndexPutBuilder()
+                .add(converter.convert(annot(pf("s1", "ALL", s1), pf("s2", "ALL", s2))))
+                .add(converter.convert(annot(pf("s1", "ALL", 0.5), pf("s2", "ALL", 0.5))))
+                .buildAndReset(put, gt, FAMILY);
+        put.addColumn(FAMILY, SampleIndexSchema.toGenotypeColumn(gt), new byte[]{1, 2, 3});
+        put.addColumn(FAMILY, SampleIndexSchema.toGenotypeCountColumn(gt), Bytes.toBytes(2));
+    }
+
+    private Cell cell(Put put, byte[] column) {
+        put.addColumn(FAMILY, column, Bytes.toBytes(0));
+        return put.get(FAMILY, column).get(0);
+    }
+
+    private SampleAnnotationIndexQuery popFreqQuery(String study, String op, double value) {
+        return new SampleAnnotationIndexQuery(
+                new byte[2],
+                schema.getCtIndex().getField().noOpFilter(),
+                schema.getBiotypeIndex().getField().noOpFilter(),
+                schema.getCtBtIndex().getField().noOpFilter(),
+                schema.getClinicalIndexSchema().noOpFilter(),
+                schema.getPopFreqIndex().buildFilter(schema.getPopFreqIndex().getField(study, "ALL").buildFilter(new OpValue<>(op, value))));
+    }
+
+    private SingleSampleIndexQuery getQuery(SampleAnnotationIndexQuery annotationIndexQuery) {
+        return new SampleIndexQuery(schema, Collections.emptyList(), null, "study",
+                Collections.singletonMap("S1", Arrays.asList("0/1", "1/1")), Collections.emptySet(), null,
+                Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), annotationIndexQuery,
+                Collections.emptySet(), false, VariantQueryUtils.QueryOperation.AND)
+                .forSample("S1");
+    }
+}
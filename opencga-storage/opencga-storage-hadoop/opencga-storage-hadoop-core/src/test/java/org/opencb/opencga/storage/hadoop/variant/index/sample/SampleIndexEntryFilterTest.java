@@ -87,6 +87,33 @@ public class SampleIndexEntryFilterTest {
         Assert.assertEquals(4, new SampleIndexEntryFilter(query).filterAndCount(e));
     }
 
+    @Test
+    public void testPopFreqQueryWithAnnotationIndex() {
+        // Same as testPopFreqQuery, but including the annotation index, so the bulk filter is used
+        SingleSampleIndexQuery query;
+        List<String> result;
+
+        query = getSingleSampleIndexQuery(VariantQueryUtils.QueryOperation.OR,
+                buildPopulationFrequencyQuery("s2", "<", 0.001));
+        result = new SampleIndexEntryFilter(query).filter(getSampleIndexEntry1(true)).stream().map(Variant::toString).collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("1:10:A:T", "1:50:A:T"), result);
+        Assert.assertEquals(2, new SampleIndexEntryFilter(query).filterAndCount(getSampleIndexEntry1(true)));
+
+        query = getSingleSampleIndexQuery(VariantQueryUtils.QueryOperation.AND,
+                buildPopulationFrequencyQuery("s2", "<", 0.001),
+                buildPopulationFrequencyQuery("s3", "<", 0.01));
+        result = new SampleIndexEntryFilter(query).filter(getSampleIndexEntry1(true)).stream().map(Variant::toString).collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("1:50:A:T"), result);
+        Assert.assertEquals(1, new SampleIndexEntryFilter(query).filterAndCount(getSampleIndexEntry1(true)));
+
+        query = getSingleSampleIndexQuery(VariantQueryUtils.QueryOperation.OR,
+                buildPopulationFrequencyQuery("s2", "<", 0.001),
+                buildPopulationFrequencyQuery("s3", "<", 0.01));
+        result = new SampleIndexEntryFilter(query).filter(getSampleIndexEntry1(true)).stream().map(Variant::toString).collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("1:10:A:T", "1:20:A:T", "1:30:A:T", "1:50:A:T"), result);
+        Assert.assertEquals(4, new SampleIndexEntryFilter(query).filterAndCount(getSampleIndexEntry1(true)));
+    }
+
     @Test
     public void testCtBtCombinationFilter() {
         SingleSampleIndexQuery query;
@@ -117,7 +144,71 @@ public class SampleIndexEntryFilterTest {
         Assert.assertEquals(Arrays.asList("1:10:A:T", "1:20:A:T"), result);
     }
 
+    @Test
+    public void testCtQueryBulkFilter() {
+        checkBulkFilter(new Query(VariantQueryParam.ANNOT_CONSEQUENCE_TYPE.key(), "missense_variant"),
+                "1:10:A:T", "1:50:A:T");
+        checkBulkFilter(new Query(VariantQueryParam.ANNOT_CONSEQUENCE_TYPE.key(), "stop_gained,stop_lost"),
+                "1:30:A:T", "1:50:A:T");
+        checkBulkFilter(new Query(VariantQueryParam.ANNOT_CONSEQUENCE_TYPE.key(), "splice_donor_variant"));
+    }
+
+    @Test
+    public void testBtQueryBulkFilter() {
+        checkBulkFilter(new Query(VariantQueryParam.ANNOT_BIOTYPE.key(), "lincRNA"),
+                "1:40:A:T", "1:50:A:T");
+        checkBulkFilter(new Query(VariantQueryParam.ANNOT_BIOTYPE.key(), "protein_coding"),
+                "1:10:A:T", "1:30:A:T");
+        checkBulkFilter(new Query(VariantQueryParam.ANNOT_BIOTYPE.key(), "protein_coding,nonsense_mediated_decay,lincRNA"),
+                "1:10:A:T", "1:30:A:T", "1:40:A:T", "1:50:A:T");
+    }
+
+    @Test
+    public void testCtBtQueryBulkFilter() {
+        checkBulkFilter(new Query()
+                .append(VariantQueryParam.ANNOT_CONSEQUENCE_TYPE.key(), "missense_variant")
+                .append(VariantQueryParam.ANNOT_BIOTYPE.key(), "lincRNA"),
+                "1:50:A:T");
+        checkBulkFilter(new Query()
+                .append(VariantQueryParam.ANNOT_CONSEQUENCE_TYPE.key(), "start_lost")
+                .append(VariantQueryParam.ANNOT_BIOTYPE.key(), "protein_coding"),
+                "1:30:A:T");
+        // Both CT and BT match 1:30:A:T, but not in the same transcript
+        checkBulkFilter(new Query()
+                .append(VariantQueryParam.ANNOT_CONSEQUENCE_TYPE.key(), "stop_gained")
+                .append(VariantQueryParam.ANNOT_BIOTYPE.key(), "protein_coding"));
+    }
+
+    /**
+     * Compare the bulk annotation filter with the per-variant filter over {@link #getSampleIndexEntry3()}.
+     *
+     * @param query     Annotation query
+     * @param expected  Expected variants
+     */
+    private void checkBulkFilter(Query query, String... expected) {
+        SingleSampleIndexQuery sampleIndexQuery = getSingleSampleIndexQuery(query);
+
+        // Ensure the bulk filter is being used
+        Assert.assertTrue(new SampleIndexGtEntryBulkFilter(sampleIndexQuery).filter(getSampleIndexEntry3().getGtEntry("0/1")) >= 0);
+
+        List<String> bulk = new SampleIndexEntryFilter(sampleIndexQuery).filter(getSampleIndexEntry3())
+                .stream().map(Variant::toString).collect(Collectors.toList());
+        List<String> perVariant = new SampleIndexEntryFilter(sampleIndexQuery).disableBulkFilter().filter(getSampleIndexEntry3())
+                .stream().map(Variant::toString).collect(Collectors.toList());
+        Assert.assertEquals(query.toJson(), perVariant, bulk);
+        Assert.assertEquals(query.toJson(), Arrays.asList(expected), bulk);
+
+        Assert.assertEquals(query.toJson(), expected.length,
+                new SampleIndexEntryFilter(sampleIndexQuery).filterAndCount(getSampleIndexEntry3()));
+        Assert.assertEquals(query.toJson(), expected.length,
+                new SampleIndexEntryFilter(sampleIndexQuery).disableBulkFilter().filterAndCount(getSampleIndexEntry3()));
+    }
+
     private SampleIndexEntry getSampleIndexEntry1() {
+        return getSampleIndexEntry1(false);
+    }
+
+    private SampleIndexEntry getSampleIndexEntry1(boolean withAnnotationIndex) {
         AnnotationIndexConverter converter = new AnnotationIndexConverter(schema);
         //{0.001, 0.005, 0.01};
         Map<String, byte[]> map = new AnnotationIndexPutBuilder()
@@ -190,6 +281,13 @@ public class SampleIndexEntryFilterTest {
                         "1:40:A:T",
                         "1:50:A:T"
                         ));
+        if (withAnnotationIndex) {
+            entry.getGtEntry("0/1")
+                    .setAnnotationIndex(map.get("_A_0/1"))
+                    .setCtBtIndex(map.get("_CB_0/1"))
+                    .setConsequenceTypeIndex(map.get("_CT_0/1"))
+                    .setBiotypeIndex(map.get("_BT_0/1"));
+        }
         return entry;
     }
 
@@ -233,6 +331,46 @@ public class SampleIndexEntryFilterTest {
         return entry;
     }
 
+    private SampleIndexEntry getSampleIndexEntry3() {
+        AnnotationIndexConverter converter = new AnnotationIndexConverter(schema);
+
+        Map<String, byte[]> map = new AnnotationIndexPutBuilder()
+                .add(converter.convert(annot(
+                        ct("missense_variant", "protein_coding"))))
+                .add(converter.convert(annot()))
+                .add(converter.convert(annot(
+                        ct("stop_gained", "nonsense_mediated_decay"),
+                        ct("start_lost", "protein_coding"))))
+                .add(converter.convert(annot(
+                        ct("frameshift_variant", "lincRNA"))))
+                .add(converter.convert(annot(
+                        ct("stop_lost", "nonsense_mediated_decay"),
+                        ct("missense_variant", "lincRNA"))))
+                .add(converter.convert(annot()))
+                .buildAndReset(new Put(new byte[1]), "0/1", new byte[1])
+                .getFamilyCellMap()
+                .get(new byte[1])
+                .stream()
+                .collect(Collectors.toMap(cell -> Bytes.toString(CellUtil.cloneQualifier(cell)), CellUtil::cloneValue));
+
+        SampleIndexEntry entry = new SampleIndexEntry(0, "1", 0);
+        entry.getGtEntry("0/1")
+                .setAnnotationIndex(map.get("_A_0/1"))
+                .setCtBtIndex(map.get("_CB_0/1"))
+                .setConsequenceTypeIndex(map.get("_CT_0/1"))
+                .setBiotypeIndex(map.get("_BT_0/1"))
+                .setCount(6)
+                .setVariants(toBytes(
+                        "1:10:A:T",
+                        "1:20:A:T",
+                        "1:30:A:T",
+                        "1:40:A:T",
+                        "1:50:A:T",
+                        "1:60:A:T"
+                ));
+        return entry;
+    }
+
     private byte[] toBytes(String... variants) {
         return new SampleIndexVariantBiConverter(schema).toBytes(Arrays.stream(variants).map(Variant::new).collect(Collectors.toList()));
     }
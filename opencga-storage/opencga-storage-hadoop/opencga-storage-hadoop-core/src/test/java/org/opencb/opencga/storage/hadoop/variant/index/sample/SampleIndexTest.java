@@ -590,6 +590,35 @@ public class SampleIndexTest extends VariantStorageBaseTest implements HadoopVar
         }
     }
 
+    @Test
+    public void testCountMultiSample() throws StorageEngineException {
+        List<Query> queries = Arrays.asList(
+                new Query(),
+                new Query(ANNOT_BIOTYPE.key(), "protein_coding"),
+                new Query(REGION.key(), Arrays.asList(new Region("22", 36591300, 46000000), new Region("1", 1000, 16400000))),
+                new Query(REGION.key(), "chr1").append(ANNOT_CONSEQUENCE_TYPE.key(), VariantAnnotationConstants.MISSENSE_VARIANT)
+        );
+        SampleIndexDBAdaptor sampleIndexDBAdaptor = ((HadoopVariantStorageEngine) variantStorageEngine).getSampleIndexDBAdaptor();
+
+        for (String study : studies) {
+            List<String> samples = sampleNames.get(study);
+            for (String separator : Arrays.asList(";", ",")) {
+                for (Query baseQuery : queries) {
+                    Query query = new Query(baseQuery)
+                            .append(VariantQueryParam.STUDY.key(), study)
+                            .append(GENOTYPE.key(), samples.get(0) + ":0/1,1/1" + separator + samples.get(1) + ":0/1,1/1");
+                    SampleIndexQuery sampleIndexQuery = sampleIndexDBAdaptor.parseSampleIndexQuery(new Query(query));
+
+                    long actualCount = sampleIndexDBAdaptor.count(sampleIndexQuery);
+                    long expectedCount = sampleIndexDBAdaptor.iterator(sampleIndexDBAdaptor.parseSampleIndexQuery(new Query(query)))
+                            .toDataResult().getNumResults();
+                    System.out.println("query = " + query.toJson() + " , count = " + actualCount);
+                    assertEquals(query.toJson(), expectedCount, actualCount);
+                }
+            }
+        }
+    }
+
     @Test
     public void testAggregation() throws Exception {
         SampleIndexVariantAggregationExecutor executor = new SampleIndexVariantAggregationExecutor(metadataManager, ((HadoopVariantStorageEngine) variantStorageEngine).getSampleIndexDBAdaptor());
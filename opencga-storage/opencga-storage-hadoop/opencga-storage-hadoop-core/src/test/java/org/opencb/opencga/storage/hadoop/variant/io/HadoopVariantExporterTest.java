@@ -1,7 +1,11 @@
 package org.opencb.opencga.storage.hadoop.variant.io;
 
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -23,6 +27,8 @@ import org.opencb.opencga.storage.hadoop.variant.VariantHbaseTestUtils;
 import java.io.IOException;
 import java.net.URI;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
 
 /**
@@ -165,6 +171,36 @@ public class HadoopVariantExporterTest extends VariantStorageBaseTest implements
         copyToLocal(fileName, uri);
     }
 
+    @Test
+    public void exportParquetSkipMapReduce() throws Exception {
+        String fileName = "variants.flat.parquet";
+        URI uri = getOutputUri(fileName);
+        Query query = new Query(STUDY.key(), study1);
+        variantStorageEngine.exportData(uri, VariantWriterFactory.VariantOutputFormat.PARQUET, null, query,
+                new QueryOptions("skipMapReduce", true));
+
+        long numVariants = 0;
+        try (ParquetReader<GenericRecord> reader = new AvroParquetReader<>(externalResource.getConf(), new Path(uri))) {
+            GenericRecord record;
+            while ((record = reader.read()) != null) {
+                if (numVariants == 0) {
+                    // Schema defined from the study metadata, with one column for every sample of the study
+                    int studyId = variantStorageEngine.getMetadataManager().getStudyId(study1);
+                    for (Integer sampleId : variantStorageEngine.getMetadataManager().getIndexedSamples(studyId)) {
+                        String sampleName = variantStorageEngine.getMetadataManager().getSampleName(studyId, sampleId);
+                        assertNotNull(record.getSchema().getField(sampleName + "__GT"));
+                    }
+                    assertEquals(Schema.Type.UNION, record.getSchema().getField("NA12877__GT").schema().getType());
+                    assertNotNull(record.get("NA12877__GT"));
+                }
+                numVariants++;
+            }
+        }
+        assertEquals(variantStorageEngine.count(query).first().longValue(), numVariants);
+
+        copyToLocal(fileName, uri);
+    }
+
     @Test
     public void exportIndexSmallQuery() throws Exception {
         String fileName = "some_variants.sample_index.avro";
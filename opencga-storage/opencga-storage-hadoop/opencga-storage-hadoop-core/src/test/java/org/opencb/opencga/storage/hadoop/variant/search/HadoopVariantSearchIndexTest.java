@@ -1,14 +1,28 @@
 package org.opencb.opencga.storage.hadoop.variant.search;
 
 import org.junit.Rule;
+import org.junit.Test;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.common.UriUtils;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
 import org.opencb.opencga.storage.core.variant.search.VariantSearchIndexTest;
 import org.opencb.opencga.storage.core.variant.search.solr.VariantSearchLoadResult;
 import org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageTest;
 import org.opencb.opencga.storage.hadoop.variant.VariantHbaseTestUtils;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.VariantHadoopDBAdaptor;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageOptions.SEARCH_INDEX_CHANGE_LOG;
+
 /**
  * Created on 19/04/18.
  *
@@ -21,6 +35,68 @@ public class HadoopVariantSearchIndexTest extends VariantSearchIndexTest impleme
 
     private int i = 0;
 
+    @Test
+    public void testChangeLogLoadDeleteIncrementalSync() throws Exception {
+        VariantHadoopDBAdaptor dbAdaptor = getVariantStorageEngine().getDBAdaptor();
+        SecondaryIndexChangeLog changeLog = new SecondaryIndexChangeLog(dbAdaptor);
+        variantStorageEngine.getOptions().put(SEARCH_INDEX_CHANGE_LOG.key(), true);
+        StudyMetadata studyMetadata = metadataManager.createStudy("S_1");
+        variantStorageEngine.getOptions().put(VariantStorageOptions.STUDY.key(), studyMetadata.getName());
+        List<URI> inputFiles = platinumFiles(3);
+
+        variantStorageEngine.index(inputFiles.subList(0, 1), outputUri, true, true, true);
+        checkLoadResult(dbAdaptor.count(new Query()).first(), searchIndex());
+        assertTrue(changeLog.isComplete());
+        checkVariantSearchIndex(dbAdaptor);
+
+        // Incremental synchronization from the change log
+        variantStorageEngine.index(inputFiles.subList(1, 3), outputUri, true, true, true);
+        assertTrue(changeLog.isComplete());
+        searchIndex();
+        checkVariantSearchIndex(dbAdaptor);
+
+        // Removed variants are not logged. Requires a full discovery
+        variantStorageEngine.removeFiles(studyMetadata.getName(), Collections.singletonList(UriUtils.fileName(inputFiles.get(0))));
+        assertFalse(changeLog.hasCheckpoint());
+        searchIndex();
+        assertTrue(changeLog.isComplete());
+        checkVariantSearchIndex(dbAdaptor);
+    }
+
+    @Test
+    public void testChangeLogDisabledLoad() throws Exception {
+        VariantHadoopDBAdaptor dbAdaptor = getVariantStorageEngine().getDBAdaptor();
+        SecondaryIndexChangeLog changeLog = new SecondaryIndexChangeLog(dbAdaptor);
+        variantStorageEngine.getOptions().put(SEARCH_INDEX_CHANGE_LOG.key(), true);
+        StudyMetadata studyMetadata = metadataManager.createStudy("S_1");
+        variantStorageEngine.getOptions().put(VariantStorageOptions.STUDY.key(), studyMetadata.getName());
+        List<URI> inputFiles = platinumFiles(2);
+
+        variantStorageEngine.index(inputFiles.subList(0, 1), outputUri, true, true, true);
+        searchIndex();
+        assertTrue(changeLog.isComplete());
+
+        // Load without the change log
+        variantStorageEngine.getOptions().put(SEARCH_INDEX_CHANGE_LOG.key(), false);
+        variantStorageEngine.index(inputFiles.subList(1, 2), outputUri, true, true, true);
+        assertFalse(changeLog.hasCheckpoint());
+
+        variantStorageEngine.getOptions().put(SEARCH_INDEX_CHANGE_LOG.key(), true);
+        long expected = dbAdaptor.count(new Query(VariantQueryParam.FILE.key(), UriUtils.fileName(inputFiles.get(1)))).first();
+        VariantSearchLoadResult loadResult = searchIndex();
+        assertTrue(loadResult.getNumLoadedVariants() >= expected);
+        assertTrue(changeLog.isComplete());
+        checkVariantSearchIndex(dbAdaptor);
+    }
+
+    private List<URI> platinumFiles(int numFiles) throws Exception {
+        List<URI> inputFiles = new ArrayList<>();
+        for (int fileId = 12877; fileId < 12877 + numFiles; fileId++) {
+            inputFiles.add(getResourceUri("platinum/1K.end.platinum-genomes-vcf-NA" + fileId + "_S1.genome.vcf.gz"));
+        }
+        return inputFiles;
+    }
+
     @Override
     public VariantSearchLoadResult searchIndex(boolean overwrite) throws Exception {
         i++;
@@ -0,0 +1,133 @@
+package org.opencb.opencga.storage.microbenchmark;
+
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.annotation.ConsequenceTypeMappings;
+import org.opencb.biodata.models.variant.avro.*;
+
+import java.util.*;
+
+/**
+ * In-process generator of synthetic variants to be used as fixtures by the benchmarks.
+ *
+ * All the methods are deterministic for a given seed, so results from different runs are comparable.
+ */
+public final class VariantFixtures {
+
+    public static final String[] ALLELES = {"A", "C", "G", "T"};
+    public static final String[] CONSEQUENCE_TYPES = {
+            "missense_variant", "synonymous_variant", "stop_gained", "stop_lost", "start_lost",
+            "intron_variant", "3_prime_UTR_variant", "5_prime_UTR_variant", "splice_region_variant",
+            "upstream_gene_variant", "downstream_gene_variant", "intergenic_variant"};
+    public static final String[] BIOTYPES = {"protein_coding", "nonsense_mediated_decay", "lincRNA", "processed_transcript"};
+    public static final String[][] POPULATIONS = {{"1kG_phase3", "ALL"}, {"GNOMAD_GENOMES", "ALL"}};
+    public static final String[] GENOTYPES = {"0/1", "1/1", "0/0", "0/1", "./."};
+
+    private VariantFixtures() {
+    }
+
+    /**
+     * Generate sorted SNVs in the given chromosome.
+     *
+     * @param numVariants Number of variants
+     * @param chromosome  Chromosome
+     * @param start       First position
+     * @param maxDistance Max distance between two consecutive variants
+     * @param seed        Random seed
+     * @return            Sorted list of variants
+     */
+    public static List<Variant> variants(int numVariants, String chromosome, int start, int maxDistance, long seed) {
+        Random random = new Random(seed);
+        List<Variant> variants = new ArrayList<>(numVariants);
+        int position = start;
+        for (int i = 0; i < numVariants; i++) {
+            position += 1 + random.nextInt(maxDistance);
+            int ref = random.nextInt(ALLELES.length);
+            int alt = (ref + 1 + random.nextInt(ALLELES.length - 1)) % ALLELES.length;
+            variants.add(new Variant(chromosome, position, position, ALLELES[ref], ALLELES[alt]));
+        }
+        return variants;
+    }
+
+    public static void addAnnotation(List<Variant> variants, long seed) {
+        Random random = new Random(seed);
+        for (Variant variant : variants) {
+            variant.setAnnotation(annotation(variant, random));
+        }
+    }
+
+    public static VariantAnnotation annotation(Variant variant, Random random) {
+        VariantAnnotation annotation = new VariantAnnotation();
+        annotation.setChromosome(variant.getChromosome());
+        annotation.setStart(variant.getStart());
+        annotation.setEnd(variant.getEnd());
+        annotation.setReference(variant.getReference());
+        annotation.setAlternate(variant.getAlternate());
+        annotation.setId("rs" + variant.getStart());
+
+        int numCts = 1 + random.nextInt(4);
+        List<ConsequenceType> consequenceTypes = new ArrayList<>(numCts);
+        for (int i = 0; i < numCts; i++) {
+            String ct = CONSEQUENCE_TYPES[random.nextInt(CONSEQUENCE_TYPES.length)];
+            String gene = "GENE" + (variant.getStart() / 10000);
+            ConsequenceType consequenceType = new ConsequenceType();
+            consequenceType.setGeneName(gene);
+            consequenceType.setEnsemblGeneId("ENSG" + gene);
+            consequenceType.setEnsemblTranscriptId("ENST" + gene + "_" + i);
+            consequenceType.setBiotype(BIOTYPES[random.nextInt(BIOTYPES.length)]);
+            consequenceType.setTranscriptAnnotationFlags(Collections.singletonList("basic"));
+            consequenceType.setSequenceOntologyTerms(Collections.singletonList(new SequenceOntologyTerm(
+                    "SO:" + String.format("%07d", ConsequenceTypeMappings.termToAccession.get(ct)), ct)));
+            consequenceTypes.add(consequenceType);
+        }
+        annotation.setConsequenceTypes(consequenceTypes);
+
+        List<PopulationFrequency> populationFrequencies = new ArrayList<>(POPULATIONS.length);
+        for (String[] population : POPULATIONS) {
+            // Skewed towards rare variants
+            float af = (float) Math.pow(random.nextDouble(), 4);
+            PopulationFrequency pf = new PopulationFrequency();
+            pf.setStudy(population[0]);
+            pf.setPopulation(population[1]);
+            pf.setRefAllele(variant.getReference());
+            pf.setAltAllele(variant.getAlternate());
+            pf.setAltAlleleFreq(af);
+            pf.setRefAlleleFreq(1 - af);
+            populationFrequencies.add(pf);
+        }
+        annotation.setPopulationFrequencies(populationFrequencies);
+
+        annotation.setConservation(Arrays.asList(
+                new Score(random.nextDouble(), "phylop", ""),
+                new Score(random.nextDouble(), "phastCons", ""),
+                new Score(random.nextDouble(), "gerp", "")));
+        annotation.setFunctionalScore(Arrays.asList(
+                new Score(random.nextDouble() * 10, "cadd_raw", ""),
+                new Score(random.nextDouble() * 40, "cadd_scaled", "")));
+        return annotation;
+    }
+
+    public static List<String> sampleNames(int numSamples) {
+        List<String> samples = new ArrayList<>(numSamples);
+        for (int i = 0; i < numSamples; i++) {
+            samples.add("S" + i);
+        }
+        return samples;
+    }
+
+    public static void addStudyEntry(List<Variant> variants, String studyId, String fileId, List<String> samples, long seed) {
+        Random random = new Random(seed);
+        for (Variant variant : variants) {
+            StudyEntry studyEntry = new StudyEntry(studyId, new ArrayList<>(), Arrays.asList("GT", "DP"));
+            for (String sample : samples) {
+                String gt = GENOTYPES[random.nextInt(GENOTYPES.length)];
+                studyEntry.addSampleData(sample, Arrays.asList(gt, String.valueOf(random.nextInt(60))));
+            }
+            if (fileId != null) {
+                studyEntry.setFiles(new ArrayList<>(Collections.singletonList(new FileEntry(fileId, null,
+                        new HashMap<>(Collections.singletonMap("QUAL", String.valueOf(random.nextInt(1000))))))));
+            }
+            variant.addStudyEntry(studyEntry);
+        }
+    }
+}
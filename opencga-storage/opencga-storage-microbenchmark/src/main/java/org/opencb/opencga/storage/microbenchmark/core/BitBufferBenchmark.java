@@ -0,0 +1,80 @@
+package org.opencb.opencga.storage.microbenchmark.core;
+
+import org.opencb.opencga.storage.core.io.bit.BitBuffer;
+import org.opencb.opencga.storage.core.io.bit.BitInputStream;
+import org.opencb.opencga.storage.core.io.bit.BitOutputStream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write throughput of {@link BitBuffer}, {@link BitInputStream} and {@link BitOutputStream}
+ * using fields of different bit lengths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BitBufferBenchmark {
+
+    @Param({"1000", "100000"})
+    private int numValues;
+
+    @Param({"2", "5", "13"})
+    private int bitLength;
+
+    private int[] values;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        values = new int[numValues];
+        BitOutputStream os = new BitOutputStream();
+        for (int i = 0; i < numValues; i++) {
+            values[i] = random.nextInt(1 << bitLength);
+            os.write(values[i], bitLength);
+        }
+        encoded = os.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] write() {
+        BitOutputStream os = new BitOutputStream(BitBuffer.bitsToBytes(numValues * bitLength));
+        for (int value : values) {
+            os.write(value, bitLength);
+        }
+        return os.toByteArray();
+    }
+
+    @Benchmark
+    public void readStream(Blackhole bh) {
+        BitInputStream is = new BitInputStream(encoded);
+        for (int i = 0; i < numValues; i++) {
+            bh.consume(is.readIntPartial(bitLength));
+        }
+    }
+
+    @Benchmark
+    public void readRandomAccess(Blackhole bh) {
+        BitBuffer bitBuffer = new BitBuffer(encoded);
+        for (int i = 0; i < numValues; i++) {
+            bh.consume(bitBuffer.getIntPartial(i * bitLength, bitLength));
+        }
+    }
+
+    @Benchmark
+    public void readStreamSkip(Blackhole bh) {
+        // Read one of every 4 values, skipping the rest. Similar to the filtering done on the sample index.
+        BitInputStream is = new BitInputStream(encoded);
+        for (int i = 0; i + 4 <= numValues; i += 4) {
+            bh.consume(is.readIntPartial(bitLength));
+            is.skip(bitLength * 3);
+        }
+    }
+
+}
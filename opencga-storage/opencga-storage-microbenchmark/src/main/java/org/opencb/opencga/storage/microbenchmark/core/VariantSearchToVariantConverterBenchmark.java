@@ -0,0 +1,64 @@
+package org.opencb.opencga.storage.microbenchmark.core;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.variant.search.VariantSearchModel;
+import org.opencb.opencga.storage.core.variant.search.VariantSearchToVariantConverter;
+import org.opencb.opencga.storage.microbenchmark.VariantFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion cost between {@link Variant} and {@link VariantSearchModel}, in both directions.
+ * Fixtures are annotated variants with a few samples, similar to what is sent to Solr in the secondary index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariantSearchToVariantConverterBenchmark {
+
+    @Param({"1000"})
+    private int numVariants;
+
+    @Param({"0", "10"})
+    private int numSamples;
+
+    private List<Variant> variants;
+    private List<VariantSearchModel> models;
+    private VariantSearchToVariantConverter converter;
+
+    @Setup
+    public void setup() {
+        variants = VariantFixtures.variants(numVariants, "1", 10000, 1000, 0);
+        VariantFixtures.addAnnotation(variants, 1);
+        if (numSamples > 0) {
+            VariantFixtures.addStudyEntry(variants, "user@project:study", "file1.vcf", VariantFixtures.sampleNames(numSamples), 2);
+        }
+        converter = new VariantSearchToVariantConverter();
+        models = new ArrayList<>(numVariants);
+        for (Variant variant : variants) {
+            models.add(converter.convertToStorageType(variant));
+        }
+    }
+
+    @Benchmark
+    public void toVariantSearchModel(Blackhole bh) {
+        for (Variant variant : variants) {
+            bh.consume(converter.convertToStorageType(variant));
+        }
+    }
+
+    @Benchmark
+    public void toVariant(Blackhole bh) {
+        for (VariantSearchModel model : models) {
+            bh.consume(converter.convertToDataModelType(model));
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.opencb.opencga.storage.microbenchmark.hadoop;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageMetadataDBAdaptorFactory;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjection;
+import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.converters.HBaseVariantConverterConfiguration;
+import org.opencb.opencga.storage.hadoop.variant.converters.study.HBaseToStudyEntryConverter;
+import org.opencb.opencga.storage.hadoop.variant.converters.study.StudyEntrySingleFileToHBaseConverter;
+import org.opencb.opencga.storage.microbenchmark.VariantFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion cost from the HBase variants table row to the {@link org.opencb.biodata.models.variant.StudyEntry}, with all the samples
+ * of the study, or projecting a single sample.
+ *
+ * Rows are built in-process with the {@link StudyEntrySingleFileToHBaseConverter} used by the load, and the study metadata is kept in
+ * memory using the {@link DummyVariantStorageMetadataDBAdaptorFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HBaseToStudyEntryConverterBenchmark {
+
+    @Param({"1000"})
+    private int numVariants;
+
+    @Param({"10", "100"})
+    private int numSamples;
+
+    private List<Result> results;
+    private HBaseToStudyEntryConverter converter;
+    private HBaseToStudyEntryConverter singleSampleConverter;
+
+    @Setup
+    public void setup() throws StorageEngineException {
+        DummyVariantStorageMetadataDBAdaptorFactory.clear();
+        VariantStorageMetadataManager metadataManager =
+                new VariantStorageMetadataManager(new DummyVariantStorageMetadataDBAdaptorFactory());
+        int studyId = metadataManager.createStudy("S").getId();
+        metadataManager.updateStudyMetadata(studyId, studyMetadata -> {
+            studyMetadata.getAttributes().put(VariantStorageOptions.EXTRA_FORMAT_FIELDS.key(), "DP");
+            return studyMetadata;
+        });
+        List<String> samples = VariantFixtures.sampleNames(numSamples);
+        int fileId = metadataManager.registerFile(studyId, "F", samples);
+        metadataManager.addIndexedFiles(studyId, Collections.singletonList(fileId));
+
+        List<Variant> variants = VariantFixtures.variants(numVariants, "1", 1, 100, 0);
+        VariantFixtures.addStudyEntry(variants, "S", "F", samples, 0);
+        StudyEntrySingleFileToHBaseConverter toHBaseConverter = new StudyEntrySingleFileToHBaseConverter(
+                GenomeHelper.COLUMN_FAMILY_BYTES, studyId, fileId, metadataManager, false, 1, false, false);
+        results = new ArrayList<>(numVariants);
+        for (Variant variant : variants) {
+            Put put = toHBaseConverter.convert(variant);
+            List<Cell> cells = new ArrayList<>();
+            for (Collection<Cell> familyCells : put.getFamilyCellMap().values()) {
+                cells.addAll(familyCells);
+            }
+            cells.sort(KeyValue.COMPARATOR);
+            results.add(Result.create(cells));
+        }
+
+        StudyMetadata studyMetadata = metadataManager.getStudyMetadata(studyId);
+        List<Integer> sampleIds = new ArrayList<>(numSamples);
+        for (String sample : samples) {
+            sampleIds.add(metadataManager.getSampleId(studyId, sample));
+        }
+        converter = new HBaseToStudyEntryConverter(metadataManager, null)
+                .configure(HBaseVariantConverterConfiguration.builder()
+                        .setProjection(new VariantQueryProjection(studyMetadata, sampleIds, Collections.singletonList(fileId)))
+                        .build());
+        singleSampleConverter = new HBaseToStudyEntryConverter(metadataManager, null)
+                .configure(HBaseVariantConverterConfiguration.builder()
+                        .setProjection(new VariantQueryProjection(studyMetadata, sampleIds.subList(0, 1),
+                                Collections.singletonList(fileId)))
+                        .build());
+    }
+
+    @Benchmark
+    public void convertAllSamples(Blackhole bh) {
+        for (Result result : results) {
+            bh.consume(converter.convert(result));
+        }
+    }
+
+    @Benchmark
+    public void convertSingleSample(Blackhole bh) {
+        for (Result result : results) {
+            bh.consume(singleSampleConverter.convert(result));
+        }
+    }
+
+}
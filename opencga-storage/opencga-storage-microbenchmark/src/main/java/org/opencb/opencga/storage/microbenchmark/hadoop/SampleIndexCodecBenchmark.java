@@ -0,0 +1,81 @@
+package org.opencb.opencga.storage.microbenchmark.hadoop;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantType;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.AlleleCodec;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.VariantTypeIndexCodec;
+import org.opencb.opencga.storage.microbenchmark.VariantFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding cost of the small codecs used to build the sample index: {@link AlleleCodec} and
+ * {@link VariantTypeIndexCodec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SampleIndexCodecBenchmark {
+
+    @Param({"10000"})
+    private int numValues;
+
+    private String[] references;
+    private String[] alternates;
+    private byte[] alleleCodes;
+    private VariantType[] types;
+    private VariantTypeIndexCodec typeCodec;
+
+    @Setup
+    public void setup() {
+        List<Variant> variants = VariantFixtures.variants(numValues, "1", 1, 100, 0);
+        references = new String[numValues];
+        alternates = new String[numValues];
+        alleleCodes = new byte[numValues];
+        for (int i = 0; i < numValues; i++) {
+            references[i] = variants.get(i).getReference();
+            alternates[i] = variants.get(i).getAlternate();
+            alleleCodes[i] = AlleleCodec.encode(references[i], alternates[i]);
+        }
+
+        Random random = new Random(1);
+        VariantType[] values = VariantType.values();
+        types = new VariantType[numValues];
+        for (int i = 0; i < numValues; i++) {
+            // Mostly SNVs, as in real data
+            types[i] = random.nextInt(10) < 8 ? VariantType.SNV : values[random.nextInt(values.length)];
+        }
+        typeCodec = new VariantTypeIndexCodec();
+    }
+
+    @Benchmark
+    public void alleleValidAndEncode(Blackhole bh) {
+        for (int i = 0; i < numValues; i++) {
+            if (AlleleCodec.valid(references[i], alternates[i])) {
+                bh.consume(AlleleCodec.encode(references[i], alternates[i]));
+            }
+        }
+    }
+
+    @Benchmark
+    public void alleleDecode(Blackhole bh) {
+        for (byte alleleCode : alleleCodes) {
+            bh.consume(AlleleCodec.decode(alleleCode));
+        }
+    }
+
+    @Benchmark
+    public void variantTypeEncode(Blackhole bh) {
+        for (VariantType type : types) {
+            bh.consume(typeCodec.encode(type));
+        }
+    }
+
+}
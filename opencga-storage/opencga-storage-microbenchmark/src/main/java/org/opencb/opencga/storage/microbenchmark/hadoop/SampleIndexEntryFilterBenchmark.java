@@ -0,0 +1,149 @@
+package org.opencb.opencga.storage.microbenchmark.hadoop;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantType;
+import org.opencb.opencga.storage.core.io.bit.BitBuffer;
+import org.opencb.opencga.storage.core.variant.query.OpValue;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.QueryOperation;
+import org.opencb.opencga.storage.core.variant.query.Values;
+import org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexConverter;
+import org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexPutBuilder;
+import org.opencb.opencga.storage.hadoop.variant.index.core.filters.IndexFieldFilter;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleAnnotationIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleFileIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SingleSampleIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.*;
+import org.opencb.opencga.storage.microbenchmark.VariantFixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of filtering one {@link SampleIndexEntry} with {@link SampleIndexEntryFilter}, the inner loop of every sample index query.
+ *
+ * The entry is built in memory with the same converters used when loading the sample index, so no HBase is required.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SampleIndexEntryFilterBenchmark {
+
+    private static final String STUDY = "study";
+    private static final String SAMPLE = "S1";
+    private static final String GT = "0/1";
+
+    @Param({"1000", "20000"})
+    private int numVariants;
+
+    @Param({"none", "ct", "popFreq"})
+    private String annotationFilter;
+
+    private SampleIndexEntry entry;
+    private SampleIndexEntryFilter entryFilter;
+
+    @Setup
+    public void setup() {
+        SampleIndexSchema schema = SampleIndexSchema.defaultSampleIndexSchema();
+        // All the variants must fall in the same batch
+        int maxDistance = Math.max(1, SampleIndexSchema.BATCH_SIZE / numVariants - 1);
+        List<Variant> variants = VariantFixtures.variants(numVariants, "1", 0, maxDistance, 0);
+        VariantFixtures.addAnnotation(variants, 0);
+
+        entry = new SampleIndexEntry(1, "1", 0);
+        entry.getGtEntry(GT)
+                .setCount(variants.size())
+                .setVariants(new SampleIndexVariantBiConverter(schema).toBytes(variants))
+                .setFileIndex(buildFileIndex(schema, variants));
+        setAnnotationColumns(schema, variants);
+
+        SingleSampleIndexQuery query = new SampleIndexQuery(schema, Collections.emptyList(), null, STUDY,
+                Collections.singletonMap(SAMPLE, Collections.singletonList(GT)), Collections.emptySet(), null,
+                Collections.emptyMap(), Collections.emptyMap(), Collections.<String, Values<SampleFileIndexQuery>>emptyMap(),
+                buildAnnotationQuery(schema), Collections.emptySet(), false, QueryOperation.AND)
+                .forSample(SAMPLE);
+        entryFilter = new SampleIndexEntryFilter(query);
+    }
+
+    private SampleAnnotationIndexQuery buildAnnotationQuery(SampleIndexSchema schema) {
+        switch (annotationFilter) {
+            case "none":
+                return new SampleAnnotationIndexQuery(schema);
+            case "ct":
+                return new SampleAnnotationIndexQuery(new byte[2],
+                        schema.getCtIndex().getField().buildFilter(new OpValue<>("=", Arrays.asList("missense_variant", "stop_gained"))),
+                        schema.getBiotypeIndex().getField().noOpFilter(),
+                        schema.getCtBtIndex().getField().noOpFilter(),
+                        schema.getClinicalIndexSchema().noOpFilter(),
+                        schema.getPopFreqIndex().noOpFilter());
+            case "popFreq":
+                List<IndexFieldFilter> filters = new ArrayList<>();
+                for (String[] population : VariantFixtures.POPULATIONS) {
+                    filters.add(schema.getPopFreqIndex().getField(population[0], population[1])
+                            .buildFilter(new OpValue<>("<", 0.001)));
+                }
+                return new SampleAnnotationIndexQuery(new byte[2],
+                        schema.getCtIndex().getField().noOpFilter(),
+                        schema.getBiotypeIndex().getField().noOpFilter(),
+                        schema.getCtBtIndex().getField().noOpFilter(),
+                        schema.getClinicalIndexSchema().noOpFilter(),
+                        schema.getPopFreqIndex().buildFilter(filters, QueryOperation.AND));
+            default:
+                throw new IllegalArgumentException("Unknown filter " + annotationFilter);
+        }
+    }
+
+    private static byte[] buildFileIndex(SampleIndexSchema schema, List<Variant> variants) {
+        VariantFileIndexConverter converter = new VariantFileIndexConverter(schema);
+        int bitsLength = schema.getFileIndex().getBitsLength();
+        BitBuffer fileIndex = new BitBuffer(bitsLength * variants.size());
+        Map<String, String> fileAttributes = new HashMap<>();
+        fileAttributes.put("FILTER", "PASS");
+        fileAttributes.put("QUAL", "50");
+        for (int i = 0; i < variants.size(); i++) {
+            BitBuffer value = converter.createFileIndexValue(VariantType.SNV, 0, fileAttributes,
+                    Collections.emptyMap(), Collections.emptyList());
+            fileIndex.setBitBuffer(value, i * bitsLength);
+        }
+        return fileIndex.getBuffer();
+    }
+
+    private void setAnnotationColumns(SampleIndexSchema schema, List<Variant> variants) {
+        AnnotationIndexConverter converter = new AnnotationIndexConverter(schema);
+        AnnotationIndexPutBuilder builder = new AnnotationIndexPutBuilder();
+        for (Variant variant : variants) {
+            builder.add(converter.convert(variant.getAnnotation()));
+        }
+        byte[] family = new byte[]{'0'};
+        Put put = builder.buildAndReset(new Put(new byte[]{'0'}), GT, family);
+        Map<String, byte[]> columns = new HashMap<>();
+        for (Cell cell : put.getFamilyCellMap().get(family)) {
+            columns.put(Bytes.toString(CellUtil.cloneQualifier(cell)), CellUtil.cloneValue(cell));
+        }
+        entry.getGtEntry(GT)
+                .setAnnotationIndex(columns.get(Bytes.toString(SampleIndexSchema.toAnnotationIndexColumn(GT))))
+                .setConsequenceTypeIndex(columns.get(Bytes.toString(SampleIndexSchema.toAnnotationConsequenceTypeIndexColumn(GT))))
+                .setBiotypeIndex(columns.get(Bytes.toString(SampleIndexSchema.toAnnotationBiotypeIndexColumn(GT))))
+                .setCtBtIndex(columns.get(Bytes.toString(SampleIndexSchema.toAnnotationCtBtIndexColumn(GT))))
+                .setPopulationFrequencyIndex(columns.get(Bytes.toString(SampleIndexSchema.toAnnotationPopFreqIndexColumn(GT))));
+    }
+
+    @Benchmark
+    public Collection<Variant> filter() {
+        return entryFilter.filter(entry);
+    }
+
+    @Benchmark
+    public int filterAndCount() {
+        return entryFilter.filterAndCount(entry);
+    }
+
+}
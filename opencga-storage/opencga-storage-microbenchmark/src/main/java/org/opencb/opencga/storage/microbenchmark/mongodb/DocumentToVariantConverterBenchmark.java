@@ -0,0 +1,95 @@
+package org.opencb.opencga.storage.microbenchmark.mongodb;
+
+import org.bson.Document;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageMetadataDBAdaptorFactory;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjection;
+import org.opencb.opencga.storage.microbenchmark.VariantFixtures;
+import org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageOptions;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToSamplesConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToStudyVariantEntryConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToVariantConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToVariantStatsConverter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion cost between {@link Variant} and the MongoDB {@link Document}, including the sample data of one study.
+ *
+ * The study metadata is kept in memory using the {@link DummyVariantStorageMetadataDBAdaptorFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentToVariantConverterBenchmark {
+
+    @Param({"1000"})
+    private int numVariants;
+
+    @Param({"10", "100"})
+    private int numSamples;
+
+    private List<Variant> variants;
+    private List<Document> documents;
+    private DocumentToVariantConverter converter;
+
+    @Setup
+    public void setup() throws StorageEngineException {
+        DummyVariantStorageMetadataDBAdaptorFactory.clear();
+        VariantStorageMetadataManager metadataManager =
+                new VariantStorageMetadataManager(new DummyVariantStorageMetadataDBAdaptorFactory());
+        // Use numerical names, so the ids in the StudyEntry match the ids stored in mongo
+        int studyId = metadataManager.createStudy("1").getId();
+        metadataManager.updateStudyMetadata(studyId, studyMetadata -> {
+            studyMetadata.getAttributes().put(MongoDBVariantStorageOptions.DEFAULT_GENOTYPE.key(), "0/0");
+            return studyMetadata;
+        });
+        List<String> samples = VariantFixtures.sampleNames(numSamples);
+        int fileId = metadataManager.registerFile(studyId, "1", samples);
+        metadataManager.addIndexedFiles(studyId, Collections.singletonList(fileId));
+
+        List<Integer> sampleIds = new ArrayList<>(numSamples);
+        for (String sample : samples) {
+            sampleIds.add(metadataManager.getSampleId(studyId, sample));
+        }
+        StudyMetadata studyMetadata = metadataManager.getStudyMetadata(studyId);
+        VariantQueryProjection projection = new VariantQueryProjection(studyMetadata, sampleIds, Collections.singletonList(fileId));
+
+        converter = new DocumentToVariantConverter(
+                new DocumentToStudyVariantEntryConverter(true, new DocumentToSamplesConverter(metadataManager, projection)),
+                new DocumentToVariantStatsConverter());
+
+        variants = VariantFixtures.variants(numVariants, "1", 1, 100, 0);
+        VariantFixtures.addStudyEntry(variants, String.valueOf(studyId), String.valueOf(fileId), samples, 0);
+        documents = new ArrayList<>(numVariants);
+        for (Variant variant : variants) {
+            documents.add(converter.convertToStorageType(variant));
+        }
+    }
+
+    @Benchmark
+    public void convertToStorageType(Blackhole bh) {
+        for (Variant variant : variants) {
+            bh.consume(converter.convertToStorageType(variant));
+        }
+    }
+
+    @Benchmark
+    public void convertToDataModelType(Blackhole bh) {
+        for (Document document : documents) {
+            bh.consume(converter.convertToDataModelType(document));
+        }
+    }
+
+}
@@ -37,6 +37,7 @@ import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
 import org.opencb.opencga.storage.core.metadata.models.TaskMetadata;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
@@ -52,7 +53,11 @@ import org.opencb.opencga.storage.mongodb.annotation.MongoDBVariantAnnotationMan
 import org.opencb.opencga.storage.mongodb.auth.MongoCredentials;
 import org.opencb.opencga.storage.mongodb.metadata.MongoDBVariantStorageMetadataDBAdaptorFactory;
 import org.opencb.opencga.storage.mongodb.variant.adaptors.VariantMongoDBAdaptor;
+import org.opencb.opencga.storage.mongodb.variant.converters.GenotypeSamplesCodec;
+import org.opencb.opencga.storage.mongodb.variant.index.sample.LocalSampleIndexDBAdaptor;
 import org.opencb.opencga.storage.mongodb.variant.load.MongoVariantImporter;
+import org.opencb.opencga.storage.mongodb.variant.query.LocalSampleIndexVariantQueryExecutor;
+import org.opencb.opencga.storage.mongodb.variant.query.MultiRegionVariantQueryExecutor;
 import org.opencb.opencga.storage.mongodb.variant.query.RegionVariantQueryExecutor;
 import org.opencb.opencga.storage.mongodb.variant.stats.MongoDBVariantStatisticsManager;
 import org.slf4j.Logger;
@@ -61,6 +66,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.URI;
 import java.net.UnknownHostException;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -85,6 +91,7 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
     private final AtomicReference<VariantMongoDBAdaptor> dbAdaptor = new AtomicReference<>();
     private Logger logger = LoggerFactory.getLogger(MongoDBVariantStorageEngine.class);
     private VariantStorageMetadataManager metadataManager;
+    private LocalSampleIndexDBAdaptor localSampleIndexDBAdaptor;
 
     public MongoDBVariantStorageEngine() {
     }
@@ -121,6 +128,54 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
         return new MongoDBVariantAnnotationManager(annotator, mongoDbAdaptor, ioConnectorProvider);
     }
 
+    /**
+     * Build the local sample index. Requires {@link MongoDBVariantStorageOptions#SAMPLE_INDEX_LOCAL_DIR}.
+     * The index is not updated while loading new files, so it has to be rebuilt after each load.
+     *
+     * @param study   Study
+     * @param samples List of samples. Use {@link org.opencb.opencga.storage.core.variant.query.VariantQueryUtils#ALL} to index all samples.
+     * @param options Other options
+     * @throws StorageEngineException in an error occurs
+     */
+    @Override
+    public void sampleIndex(String study, List<String> samples, ObjectMap options) throws StorageEngineException {
+        LocalSampleIndexDBAdaptor sampleIndexDBAdaptor = getLocalSampleIndexDBAdaptor();
+        if (sampleIndexDBAdaptor == null) {
+            throw new StorageEngineException("Unable to build local sample index. Missing '" + SAMPLE_INDEX_LOCAL_DIR.key() + "'");
+        }
+        VariantStorageMetadataManager metadataManager = getMetadataManager();
+        int studyId = metadataManager.getStudyId(study);
+        List<Integer> sampleIds;
+        if (samples == null || samples.isEmpty() || samples.size() == 1 && samples.get(0).equals(ALL)) {
+            sampleIds = metadataManager.getIndexedSamples(studyId);
+        } else {
+            sampleIds = new ArrayList<>(samples.size());
+            for (String sample : samples) {
+                Integer sampleId = metadataManager.getSampleId(studyId, sample, true);
+                if (sampleId == null) {
+                    throw VariantQueryException.sampleNotFound(sample, study);
+                }
+                sampleIds.add(sampleId);
+            }
+        }
+        List<String> sampleNames = new ArrayList<>(sampleIds.size());
+        for (Integer sampleId : sampleIds) {
+            sampleNames.add(metadataManager.getSampleName(studyId, sampleId));
+        }
+
+        Query query = new Query(VariantQueryParam.STUDY.key(), study)
+                .append(VariantQueryParam.INCLUDE_SAMPLE.key(), sampleNames.isEmpty() ? NONE : sampleNames)
+                .append(VariantQueryParam.INCLUDE_FILE.key(), NONE)
+                .append(VariantQueryParam.INCLUDE_SAMPLE_DATA.key(), "GT");
+        QueryOptions queryOptions = new QueryOptions(QueryOptions.SORT, true)
+                .append(QueryOptions.EXCLUDE, Arrays.asList(VariantField.ANNOTATION, VariantField.STUDIES_STATS));
+        try (VariantDBIterator iterator = iterator(query, queryOptions)) {
+            sampleIndexDBAdaptor.build(studyId, sampleIds, iterator);
+        } catch (Exception e) {
+            throw new StorageEngineException("Error building local sample index for study " + study, e);
+        }
+    }
+
     @Override
     public DataResult<List<String>> familyIndex(String study, List<List<String>> trios, ObjectMap options) throws StorageEngineException {
         VariantStorageMetadataManager metadataManager = getMetadataManager();
@@ -183,6 +238,10 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
 
     @Override
     public void removeFiles(String study, List<String> files) throws StorageEngineException {
+        if (GenotypeSamplesCodec.isBitmapEnabled(getMetadataManager().getStudyMetadata(study).getAttributes())) {
+            throw new StorageEngineException("Unable to remove files from study '" + study + "'. "
+                    + "Genotypes are encoded as bitmaps. Decode them before removing files.");
+        }
 
         TaskMetadata task = preRemoveFiles(study, files);
         List<Integer> fileIds = task.getFileIds();
@@ -205,6 +264,36 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
         }
     }
 
+    /**
+     * Rewrite the genotypes of a study, storing the samples of the most frequent genotypes as bitmaps.
+     * Bitmaps can not be updated incrementally, so the genotypes have to be decoded before loading or removing files.
+     * See {@link GenotypeSamplesCodec}.
+     *
+     * @param study     Study
+     * @param bitmap    Encode as bitmaps, or decode all the bitmaps back to arrays
+     * @throws StorageEngineException if there is an error updating the study metadata
+     */
+    @Override
+    public void encodeGenotypes(String study, boolean bitmap) throws StorageEngineException {
+        VariantStorageMetadataManager metadataManager = getMetadataManager();
+        int studyId = metadataManager.getStudyId(study);
+        if (bitmap) {
+            // Mark the study before writing any bitmap, so the queries are aware of them
+            metadataManager.updateStudyMetadata(studyId, studyMetadata -> {
+                studyMetadata.getAttributes().put(GENOTYPES_BITMAP.key(), true);
+                return studyMetadata;
+            });
+        }
+        long modified = getDBAdaptor().encodeGenotypes(studyId, bitmap);
+        logger.info("{} genotypes of {} variants from study '{}'", bitmap ? "Encoded" : "Decoded", modified, study);
+        if (!bitmap) {
+            metadataManager.updateStudyMetadata(studyId, studyMetadata -> {
+                studyMetadata.getAttributes().put(GENOTYPES_BITMAP.key(), false);
+                return studyMetadata;
+            });
+        }
+    }
+
     @Override
     public void removeStudy(String studyName) throws StorageEngineException {
         VariantStorageMetadataManager metadataManager = getMetadataManager();
@@ -445,10 +534,17 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
     protected List<VariantQueryExecutor> initVariantQueryExecutors() throws StorageEngineException {
         List<VariantQueryExecutor> executors = new ArrayList<>();
 
-        // First, detect if it's a region only query.
+        // First, detect if it's a query with many regions or genes, that can be split in chunks.
+        executors.add(new MultiRegionVariantQueryExecutor(getDBAdaptor(), getStorageEngineId(), getOptions(), this));
+        // Then, detect if it's a region only query.
         executors.add(new RegionVariantQueryExecutor(getDBAdaptor(), getStorageEngineId(), getOptions()));
         // Then, add the default executors
         executors.addAll(super.initVariantQueryExecutors());
+        if (getLocalSampleIndexDBAdaptor() != null) {
+            // Use the local sample index before falling back to the default DBAdaptor executor, which is always the last one.
+            executors.add(executors.size() - 1, new LocalSampleIndexVariantQueryExecutor(
+                    getDBAdaptor(), getLocalSampleIndexDBAdaptor(), getStorageEngineId(), getOptions()));
+        }
 
         return executors;
     }
@@ -473,6 +569,16 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
         return variantMongoDBAdaptor;
     }
 
+    public synchronized LocalSampleIndexDBAdaptor getLocalSampleIndexDBAdaptor() {
+        if (localSampleIndexDBAdaptor == null) {
+            String dir = getOptions().getString(SAMPLE_INDEX_LOCAL_DIR.key());
+            if (dir != null && !dir.isEmpty()) {
+                localSampleIndexDBAdaptor = new LocalSampleIndexDBAdaptor(getMetadataManager(), Paths.get(dir));
+            }
+        }
+        return localSampleIndexDBAdaptor;
+    }
+
     MongoCredentials getMongoCredentials() {
 
         DatabaseCredentials database = configuration.getVariantEngine(STORAGE_ENGINE_ID).getDatabase();
@@ -541,6 +647,10 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
             dbAdaptor.get().close();
             dbAdaptor.set(null);
         }
+        if (localSampleIndexDBAdaptor != null) {
+            localSampleIndexDBAdaptor.close();
+            localSampleIndexDBAdaptor = null;
+        }
         if (metadataManager != null) {
             metadataManager.close();
             metadataManager = null;
@@ -36,6 +36,19 @@ public enum MongoDBVariantStorageOptions implements ConfigurationOption {
     MERGE_IGNORE_OVERLAPPING_VARIANTS("storage.mongodb.merge.ignoreOverlappingVariants", false),   //Do not look for overlapping variants
     MERGE_PARALLEL_WRITE("storage.mongodb.merge.parallelWrite", false),
     MERGE_BATCH_SIZE("storage.mongodb.merge.batchSize", 10),          //Number of files to merge directly from first to second collection
+    // Max number of batches being written concurrently by the merge writer. Ignored with parallelWrite.
+    MERGE_WRITES_IN_FLIGHT("storage.mongodb.merge.writesInFlight", 1),
+    MERGE_TARGET_WRITE_LATENCY("storage.mongodb.merge.targetWriteLatency", 2000), // Milliseconds
+
+    // Local directory for the memory-mapped sample index. If not defined, the local sample index is not used.
+    SAMPLE_INDEX_LOCAL_DIR("storage.mongodb.sampleIndex.local.dir", null),
+
+    // Queries with at least this number of regions or genes are split in _id ranges, fetched concurrently.
+    QUERY_MULTI_REGION_THRESHOLD("storage.mongodb.query.multiRegion.threshold", 50),
+    QUERY_MULTI_REGION_THREADS("storage.mongodb.query.multiRegion.numThreads", 4),
+
+    // Study attribute. The samples of some genotypes are stored as bitmaps. See GenotypeSamplesCodec
+    GENOTYPES_BITMAP("storage.mongodb.genotypes.bitmap", false),
 
 
     EXTRA_GENOTYPE_FIELDS_COMPRESS("extra-fields.compress", true),    //Compress with gzip other sample information
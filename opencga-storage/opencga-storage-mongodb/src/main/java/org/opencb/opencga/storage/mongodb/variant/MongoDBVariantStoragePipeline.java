@@ -50,6 +50,7 @@ import org.opencb.opencga.storage.core.variant.dedup.AbstractDuplicatedVariantsR
 import org.opencb.opencga.storage.core.variant.dedup.DuplicatedVariantsResolverFactory;
 import org.opencb.opencga.storage.core.variant.transform.RemapVariantIdsTask;
 import org.opencb.opencga.storage.mongodb.variant.adaptors.VariantMongoDBAdaptor;
+import org.opencb.opencga.storage.mongodb.variant.converters.GenotypeSamplesCodec;
 import org.opencb.opencga.storage.mongodb.variant.exceptions.MongoVariantStorageEngineException;
 import org.opencb.opencga.storage.mongodb.variant.load.MongoDBVariantWriteResult;
 import org.opencb.opencga.storage.mongodb.variant.load.direct.MongoDBVariantDirectLoader;
@@ -122,6 +123,11 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
         super.securePreLoad(studyMetadata, source);
         int fileId = getFileId();
 
+        if (GenotypeSamplesCodec.isBitmapEnabled(studyMetadata.getAttributes())) {
+            throw new StorageEngineException("Unable to load files into study '" + studyMetadata.getName() + "'. "
+                    + "Genotypes are encoded as bitmaps. Decode them before loading new files.");
+        }
+
         // 1) Determine merge mode
         if (studyMetadata.getAttributes().containsKey(VariantStorageOptions.MERGE_MODE.key())
                 || studyMetadata.getAttributes().containsKey(MERGE_IGNORE_OVERLAPPING_VARIANTS.key())) {
@@ -685,6 +691,10 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
             if (isMergeParallelWrite(options)) {
                 ptrMerge = new ParallelTaskRunner<>(reader, variantMerger.then(variantLoader), null, config);
             } else {
+                variantLoader.setMaxWritesInFlight(
+                        options.getInt(MERGE_WRITES_IN_FLIGHT.key(), MERGE_WRITES_IN_FLIGHT.defaultValue()),
+                        options.getInt(MERGE_TARGET_WRITE_LATENCY.key(), MERGE_TARGET_WRITE_LATENCY.defaultValue()),
+                        TimeUnit.MILLISECONDS);
                 ptrMerge = new ParallelTaskRunner<>(reader, variantMerger, variantLoader, config);
             }
         } catch (RuntimeException e) {
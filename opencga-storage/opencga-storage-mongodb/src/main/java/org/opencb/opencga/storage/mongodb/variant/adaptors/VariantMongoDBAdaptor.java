@@ -26,6 +26,7 @@ import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.json.JsonMode;
 import org.bson.json.JsonWriterSettings;
+import org.bson.types.Binary;
 import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.variant.StudyEntry;
 import org.opencb.biodata.models.variant.Variant;
@@ -464,6 +465,56 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
         }
     }
 
+    /**
+     * Rewrite the samples of each genotype of a study using the smallest representation, or back to arrays.
+     * See {@link GenotypeSamplesCodec}.
+     *
+     * @param studyId   Study
+     * @param bitmap    Encode as bitmaps when smaller than the arrays. Otherwise, decode all the bitmaps to arrays.
+     * @return Number of modified variants
+     */
+    public long encodeGenotypes(int studyId, boolean bitmap) {
+        int batchSize = 1000;
+        Bson query = eq(DocumentToVariantConverter.STUDIES_FIELD + '.' + STUDYID_FIELD, studyId);
+        Bson projection = Projections.include(
+                DocumentToVariantConverter.STUDIES_FIELD + '.' + STUDYID_FIELD,
+                DocumentToVariantConverter.STUDIES_FIELD + '.' + GENOTYPES_FIELD);
+        List<Bson> queries = new ArrayList<>(batchSize);
+        List<Bson> updates = new ArrayList<>(batchSize);
+        long modified = 0;
+        try (MongoDBIterator<Document> cursor = variantsCollection.nativeQuery()
+                .find(query, projection, new QueryOptions(MongoDBCollection.BATCH_SIZE, batchSize))) {
+            while (cursor.hasNext()) {
+                Document variant = cursor.next();
+                for (Document study : variant.getList(DocumentToVariantConverter.STUDIES_FIELD, Document.class)) {
+                    if (study.getInteger(STUDYID_FIELD) != studyId || !study.containsKey(GENOTYPES_FIELD)) {
+                        continue;
+                    }
+                    List<Bson> sets = new ArrayList<>();
+                    for (Map.Entry<String, Object> entry : study.get(GENOTYPES_FIELD, Document.class).entrySet()) {
+                        List<Integer> sampleIds = GenotypeSamplesCodec.decode(entry.getValue());
+                        Object value = bitmap ? GenotypeSamplesCodec.encode(sampleIds) : sampleIds;
+                        if ((value instanceof Binary) != (entry.getValue() instanceof Binary)) {
+                            sets.add(set(DocumentToVariantConverter.STUDIES_FIELD + ".$." + GENOTYPES_FIELD + '.' + entry.getKey(),
+                                    value));
+                        }
+                    }
+                    if (!sets.isEmpty()) {
+                        queries.add(and(eq("_id", variant.getString("_id")),
+                                eq(DocumentToVariantConverter.STUDIES_FIELD + '.' + STUDYID_FIELD, studyId)));
+                        updates.add(combine(sets));
+                    }
+                }
+                if (queries.size() == batchSize || (!cursor.hasNext() && !queries.isEmpty())) {
+                    modified += variantsCollection.update(queries, updates, new QueryOptions()).getNumUpdated();
+                    queries.clear();
+                    updates.clear();
+                }
+            }
+        }
+        return modified;
+    }
+
     private long removeEmptyVariantsFromStage(int studyId) {
         Bson purgeQuery = eq(StageDocumentToVariantConverter.STUDY_FILE_FIELD, Collections.emptyList());
         return getStageCollection(studyId).remove(purgeQuery, new QueryOptions(MULTI, true)).getNumDeleted();
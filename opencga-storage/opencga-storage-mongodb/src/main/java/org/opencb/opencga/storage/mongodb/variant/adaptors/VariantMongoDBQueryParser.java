@@ -70,6 +70,8 @@ import static org.opencb.opencga.storage.mongodb.variant.converters.DocumentToVa
 public class VariantMongoDBQueryParser {
 
     public static final String OVERLAPPED_FILES_ONLY = "overlappedFilesOnly";
+    // Internal param. Regions of the genes to query, set only for the chunks of a MultiRegionVariantQueryExecutor query
+    public static final String CHUNK_GENE_REGIONS = "chunkGeneRegions";
     public static final VariantStringIdConverter STRING_ID_CONVERTER = new VariantStringIdConverter();
     protected static Logger logger = LoggerFactory.getLogger(VariantMongoDBQueryParser.class);
     private final VariantStorageMetadataManager metadataManager;
@@ -157,6 +159,14 @@ public class VariantMongoDBQueryParser {
                 }
             }
 
+            if (!variantQueryXref.getGenes().isEmpty() && !nonGeneRegionFilter && variantQueryXref.getIds().isEmpty()
+                    && StringUtils.isNotEmpty(query.getString(CHUNK_GENE_REGIONS))) {
+                // Chunk of a gene query split by the MultiRegionVariantQueryExecutor.
+                // Genes are the only positional filter. Restrict to the regions of the chunk, so the _id index can be used.
+                List<Region> geneRegions = Region.parseRegions(query.getString(CHUNK_GENE_REGIONS), true);
+                builder.and(getRegionFilter(geneRegions, new QueryBuilder()).get());
+            }
+
             if (isValidParam(query, REFERENCE)) {
                 addQueryStringFilter(DocumentToVariantConverter.REFERENCE_FIELD, query.getString(REFERENCE.key()),
                         builder, QueryOperation.AND);
@@ -693,6 +703,8 @@ public class VariantMongoDBQueryParser {
                             GenotypeClass.UNKNOWN_GENOTYPE);
                 }
 
+                // The samples may belong to different studies. Decide the genotypes encoding of each study
+                Map<Integer, Boolean> bitmapStudies = new HashMap<>();
                 List<DBObject> genotypeQueries = new ArrayList<>(genotypesQuery.getValues().size());
 
                 for (KeyOpValue<SampleMetadata, List<String>> sampleGenotypeFilter : genotypesQuery.getValues()) {
@@ -706,6 +718,12 @@ public class VariantMongoDBQueryParser {
                     }
 
                     int sampleId = sample.getId();
+                    boolean bitmap = bitmapStudies.computeIfAbsent(sample.getStudyId(), studyId -> {
+                        StudyMetadata sampleStudy = defaultStudy != null && defaultStudy.getId() == studyId
+                                ? defaultStudy
+                                : metadataManager.getStudyMetadata(studyId);
+                        return sampleStudy != null && GenotypeSamplesCodec.isBitmapEnabled(sampleStudy.getAttributes());
+                    });
 
                     // We can not filter sample by file if one of the requested genotypes is the unknown genotype
                     boolean canFilterSampleByFile = !genotypes.contains(GenotypeClass.UNKNOWN_GENOTYPE);
@@ -778,7 +796,7 @@ public class VariantMongoDBQueryParser {
                                     String key = studyQueryPrefix
                                             + DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD
                                             + '.' + DocumentToSamplesConverter.genotypeToStorageType(otherGenotype);
-                                    genotypesBuilder.or(new BasicDBObject(key, sampleId));
+                                    genotypesBuilder.or(GenotypeSamplesCodec.containsSample(key, sampleId, bitmap));
                                 }
                             } else {
                                 QueryBuilder andBuilder = QueryBuilder.start();
@@ -789,8 +807,7 @@ public class VariantMongoDBQueryParser {
                                     String key = studyQueryPrefix
                                             + DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD
                                             + '.' + DocumentToSamplesConverter.genotypeToStorageType(otherGenotype);
-                                    andBuilder.and(new BasicDBObject(key,
-                                            new Document("$ne", sampleId)));
+                                    andBuilder.and(GenotypeSamplesCodec.notContainsSample(key, sampleId, bitmap));
                                 }
                                 genotypesBuilder.or(andBuilder.get());
                             }
@@ -800,11 +817,11 @@ public class VariantMongoDBQueryParser {
                                     + '.' + DocumentToSamplesConverter.genotypeToStorageType(genotype);
                             if (negated) {
                                 //and [ {"gt.0|1" : { $ne : <sampleId> } } ]
-                                genotypesBuilder.and(new BasicDBObject(s, new BasicDBObject("$ne", sampleId)));
+                                genotypesBuilder.and(GenotypeSamplesCodec.notContainsSample(s, sampleId, bitmap));
 
                             } else {
                                 //or [ {"gt.0|1" : <sampleId> } ]
-                                genotypesBuilder.or(new BasicDBObject(s, sampleId));
+                                genotypesBuilder.or(GenotypeSamplesCodec.containsSample(s, sampleId, bitmap));
                             }
                         }
                     }
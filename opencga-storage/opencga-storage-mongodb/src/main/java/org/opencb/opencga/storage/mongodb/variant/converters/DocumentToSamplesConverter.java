@@ -269,7 +269,7 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
                 } else {
                     genotype = genotypeToDataModelType(dbo.getKey());
                 }
-                for (Integer sampleId : (List<Integer>) dbo.getValue()) {
+                for (Integer sampleId : GenotypeSamplesCodec.decode(dbo.getValue())) {
                     if (idSamples.containsKey(sampleId)) {
                         sampleEntries.get(samplesPositionToReturn.get(idSamples.get(sampleId))).getData().set(0, genotype);
                     }
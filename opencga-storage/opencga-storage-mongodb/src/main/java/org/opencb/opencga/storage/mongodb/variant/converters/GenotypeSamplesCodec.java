@@ -0,0 +1,142 @@
+package org.opencb.opencga.storage.mongodb.variant.converters;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.types.Binary;
+import org.opencb.commons.datastore.core.ObjectMap;
+
+import java.util.*;
+
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageOptions.GENOTYPES_BITMAP;
+
+/**
+ * Encodes the list of samples of each genotype from the {@link DocumentToStudyVariantEntryConverter#GENOTYPES_FIELD}.
+ *
+ * The samples can be stored either as an array of sample ids, or as a bitmap in a binary field, where the bit N is set
+ * if the sample with id N has the genotype. Bits are numbered from the least significant bit of the first byte,
+ * the same way as the MongoDB operators $bitsAllSet and $bitsAllClear do, so the bitmaps can still be filtered
+ * by the server.
+ *
+ * The bitmap is only used when it is smaller than the array, i.e. for frequent genotypes in studies with many samples.
+ * Studies containing bitmaps are marked with the attribute "storage.mongodb.genotypes.bitmap".
+ */
+public final class GenotypeSamplesCodec {
+
+    // BSON array element overhead: type byte + index as cstring
+    private static final int ARRAY_ELEMENT_OVERHEAD = 2;
+
+    private GenotypeSamplesCodec() {
+    }
+
+    public static boolean isBitmapEnabled(ObjectMap studyAttributes) {
+        return studyAttributes != null && studyAttributes.getBoolean(GENOTYPES_BITMAP.key(), GENOTYPES_BITMAP.defaultValue());
+    }
+
+    /**
+     * Encode the samples using the smallest representation.
+     *
+     * @param sampleIds Sample ids
+     * @return Either the list of samples, or a bitmap
+     */
+    public static Object encode(Collection<Integer> sampleIds) {
+        int maxSampleId = -1;
+        long arraySize = 0;
+        for (Integer sampleId : sampleIds) {
+            if (sampleId < 0) {
+                // Can not be represented in a bitmap
+                return sampleIds;
+            }
+            maxSampleId = Math.max(maxSampleId, sampleId);
+        }
+        for (int i = 0; i < sampleIds.size(); i++) {
+            arraySize += ARRAY_ELEMENT_OVERHEAD + Integer.BYTES + stringSize(i);
+        }
+        long bitmapSize = maxSampleId / 8 + 1;
+        if (sampleIds.isEmpty() || bitmapSize >= arraySize) {
+            return sampleIds;
+        } else {
+            return toBitmap(sampleIds, maxSampleId);
+        }
+    }
+
+    /**
+     * Decode the samples from either of the representations.
+     *
+     * @param value Value from the {@link DocumentToStudyVariantEntryConverter#GENOTYPES_FIELD}
+     * @return List of sample ids
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Integer> decode(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        } else if (value instanceof Binary) {
+            byte[] bitmap = ((Binary) value).getData();
+            List<Integer> sampleIds = new ArrayList<>();
+            for (int i = 0; i < bitmap.length; i++) {
+                int b = bitmap[i] & 0xFF;
+                while (b != 0) {
+                    int bit = Integer.numberOfTrailingZeros(b);
+                    sampleIds.add(i * 8 + bit);
+                    b &= b - 1;
+                }
+            }
+            return sampleIds;
+        } else {
+            return (List<Integer>) value;
+        }
+    }
+
+    /**
+     * Filter variants where the sample has the genotype, in any of the representations.
+     *
+     * @param key       Genotype field
+     * @param sampleId  Sample id
+     * @param bitmap    If the study may contain bitmaps
+     * @return          Filter
+     */
+    public static DBObject containsSample(String key, int sampleId, boolean bitmap) {
+        if (bitmap) {
+            return new BasicDBObject("$or", Arrays.asList(
+                    new BasicDBObject(key, sampleId),
+                    bitmapFilter(key, sampleId)));
+        } else {
+            return new BasicDBObject(key, sampleId);
+        }
+    }
+
+    /**
+     * Filter variants where the sample does not have the genotype, in any of the representations.
+     *
+     * @param key       Genotype field
+     * @param sampleId  Sample id
+     * @param bitmap    If the study may contain bitmaps
+     * @return          Filter
+     */
+    public static DBObject notContainsSample(String key, int sampleId, boolean bitmap) {
+        if (bitmap) {
+            return new BasicDBObject("$nor", Arrays.asList(
+                    new BasicDBObject(key, sampleId),
+                    bitmapFilter(key, sampleId)));
+        } else {
+            return new BasicDBObject(key, new BasicDBObject("$ne", sampleId));
+        }
+    }
+
+    private static DBObject bitmapFilter(String key, int sampleId) {
+        // Check the type, or the bits of each element of the arrays would be tested
+        return new BasicDBObject(key, new BasicDBObject("$type", "binData")
+                .append("$bitsAllSet", Collections.singletonList(sampleId)));
+    }
+
+    static Binary toBitmap(Collection<Integer> sampleIds, int maxSampleId) {
+        byte[] bitmap = new byte[maxSampleId / 8 + 1];
+        for (Integer sampleId : sampleIds) {
+            bitmap[sampleId / 8] |= 1 << (sampleId % 8);
+        }
+        return new Binary(bitmap);
+    }
+
+    private static int stringSize(int i) {
+        return Integer.toString(i).length();
+    }
+}
@@ -0,0 +1,342 @@
+package org.opencb.opencga.storage.mongodb.variant.index.sample;
+
+import org.opencb.opencga.core.common.JacksonUtils;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read only sample index of one study, stored in local memory-mapped files.
+ *
+ * Variants are numbered in the order they were read while building the index. For each sample,
+ * the index contains one byte per variant with the genotype code. Genotype filters are evaluated over these arrays,
+ * resulting in a {@link BitSet} of matching variants.
+ *
+ * Files:
+ * <ul>
+ *     <li>metadata.json : {@link LocalSampleIndexMetadata}</li>
+ *     <li>variants.bin : Concatenated variant ids, as in {@link org.opencb.biodata.models.variant.Variant#toString()}</li>
+ *     <li>variants.idx : Offset of each variant id in variants.bin, as 8 byte integers. Contains numVariants + 1 values</li>
+ *     <li>sample_{sampleId}.gt : Genotype code of each variant for this sample</li>
+ * </ul>
+ *
+ * Files are mapped in chunks of up to 1GB, and addressed with long offsets, so they can be larger than 2GB.
+ * Variants are addressed with int positions, as in {@link BitSet}, so an index can not contain more than
+ * {@link #MAX_VARIANTS} variants.
+ *
+ * Readers must {@link #acquire} the index while using it. Closing the index unmaps the files once all the
+ * references have been released.
+ */
+public class LocalSampleIndex implements Closeable {
+
+    public static final String METADATA_FILE = "metadata.json";
+    public static final String VARIANTS_FILE = "variants.bin";
+    public static final String VARIANTS_INDEX_FILE = "variants.idx";
+    public static final byte NO_GENOTYPE = 0;
+    public static final int MAX_GENOTYPES = 255;
+    // variants.idx contains numVariants + 1 values
+    public static final int MAX_VARIANTS = Integer.MAX_VALUE - 1;
+    // 1GB. Multiple of 8, so a long never spans two chunks
+    private static final int DEFAULT_CHUNK_BITS = 30;
+
+    private final Path path;
+    private final LocalSampleIndexMetadata metadata;
+    private final Map<String, Integer> genotypeCodes;
+    private final Set<Integer> samples;
+    private final int chunkBits;
+    private final MappedFile variants;
+    private final MappedFile variantsIndex;
+    private final Map<Integer, MappedFile> sampleGenotypes = new ConcurrentHashMap<>();
+    // One reference is held by the index itself until closed
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private static Logger logger = LoggerFactory.getLogger(LocalSampleIndex.class);
+
+    protected LocalSampleIndex(Path path) throws IOException {
+        this(path, DEFAULT_CHUNK_BITS);
+    }
+
+    protected LocalSampleIndex(Path path, int chunkBits) throws IOException {
+        if (chunkBits < 3 || chunkBits > DEFAULT_CHUNK_BITS) {
+            throw new IllegalArgumentException("Chunk bits must be between 3 and " + DEFAULT_CHUNK_BITS + ". Got " + chunkBits);
+        }
+        this.path = path;
+        this.chunkBits = chunkBits;
+        metadata = JacksonUtils.getDefaultObjectMapper()
+                .readValue(path.resolve(METADATA_FILE).toFile(), LocalSampleIndexMetadata.class);
+        genotypeCodes = new HashMap<>();
+        for (int i = 0; i < metadata.getGenotypes().size(); i++) {
+            genotypeCodes.put(metadata.getGenotypes().get(i), i + 1);
+        }
+        samples = new HashSet<>(metadata.getSamples());
+        variants = new MappedFile(path.resolve(VARIANTS_FILE), chunkBits);
+        variantsIndex = new MappedFile(path.resolve(VARIANTS_INDEX_FILE), chunkBits);
+    }
+
+    public static LocalSampleIndex open(Path path) throws IOException {
+        return new LocalSampleIndex(path);
+    }
+
+    /**
+     * Open the index mapping the files in smaller chunks. Used to test the access across chunks.
+     *
+     * @param path      Index directory
+     * @param chunkBits Log2 of the chunk size
+     * @return          Local sample index
+     * @throws IOException on error opening the files
+     */
+    static LocalSampleIndex open(Path path, int chunkBits) throws IOException {
+        return new LocalSampleIndex(path, chunkBits);
+    }
+
+    public static String getSampleFileName(int sampleId) {
+        return "sample_" + sampleId + ".gt";
+    }
+
+    public LocalSampleIndexMetadata getMetadata() {
+        return metadata;
+    }
+
+    public int getNumVariants() {
+        return metadata.getNumVariants();
+    }
+
+    public boolean containsSample(int sampleId) {
+        return samples.contains(sampleId);
+    }
+
+    /**
+     * Find the variants where the sample has any of the given genotypes.
+     *
+     * @param sampleId  Sample
+     * @param genotypes List of genotypes. If all of them are negated, find variants with any other genotype.
+     * @return          BitSet with the position of the matching variants
+     */
+    public BitSet filter(int sampleId, Collection<String> genotypes) {
+        if (!containsSample(sampleId)) {
+            throw new IllegalArgumentException("Sample " + sampleId + " not found in local sample index " + path);
+        }
+        boolean negated = !genotypes.isEmpty() && genotypes.stream().allMatch(VariantQueryUtils::isNegated);
+        boolean[] validCodes = new boolean[MAX_GENOTYPES + 1];
+        for (String genotype : genotypes) {
+            Integer code = genotypeCodes.get(negated ? VariantQueryUtils.removeNegation(genotype) : genotype);
+            if (code != null) {
+                validCodes[code] = true;
+            }
+        }
+        if (negated) {
+            for (int i = 0; i < validCodes.length; i++) {
+                validCodes[i] = !validCodes[i];
+            }
+            // Variants without genotype never match
+            validCodes[NO_GENOTYPE] = false;
+        }
+
+        BitSet bitSet = new BitSet(getNumVariants());
+        MappedFile codes = getSampleGenotypes(sampleId);
+        for (int i = 0; i < getNumVariants(); i++) {
+            if (validCodes[codes.get(i) & 0xFF]) {
+                bitSet.set(i);
+            }
+        }
+        return bitSet;
+    }
+
+    public String getVariantId(int position) {
+        long start = variantsIndex.getLong(position * 8L);
+        long end = variantsIndex.getLong((position + 1) * 8L);
+        byte[] bytes = new byte[(int) (end - start)];
+        variants.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Iterate over the ids of the variants in the BitSet, in the order of the index.
+     *
+     * @param bitSet Variants to return
+     * @return       Iterator of variant ids
+     */
+    public Iterator<String> variantIds(BitSet bitSet) {
+        return new Iterator<String>() {
+            private int next = bitSet.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String variantId = getVariantId(next);
+                next = bitSet.nextSetBit(next + 1);
+                return variantId;
+            }
+        };
+    }
+
+    /**
+     * Acquire a reference to the index, so the files are not unmapped while in use.
+     *
+     * @return Reference to close once the index is no longer used, or null if the index is already closed
+     */
+    public Reference acquire() {
+        int refs;
+        do {
+            refs = references.get();
+            if (refs <= 0) {
+                return null;
+            }
+        } while (!references.compareAndSet(refs, refs + 1));
+        return new Reference();
+    }
+
+    /**
+     * Close the index. The files are unmapped once all the acquired references are released.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    private void release() {
+        if (references.decrementAndGet() == 0) {
+            variants.unmap();
+            variantsIndex.unmap();
+            for (MappedFile file : sampleGenotypes.values()) {
+                file.unmap();
+            }
+            sampleGenotypes.clear();
+        }
+    }
+
+    /**
+     * Release the mapped memory without waiting for the buffer to be garbage collected.
+     * The buffer must not be accessed afterwards.
+     *
+     * @param buffer Mapped buffer
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not supported by this JVM. The file is unmapped when the buffer is garbage collected
+            logger.debug("Unable to unmap buffer: " + e.getMessage());
+        }
+    }
+
+    private MappedFile getSampleGenotypes(int sampleId) {
+        return sampleGenotypes.computeIfAbsent(sampleId, id -> {
+            try {
+                return new MappedFile(path.resolve(getSampleFileName(id)), chunkBits);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Read only file mapped in chunks of 2^chunkBits bytes. A single {@link MappedByteBuffer} can not exceed 2GB.
+     * Only absolute reads are used, so it can be shared between threads.
+     */
+    private static final class MappedFile {
+        private final int chunkBits;
+        private final long chunkMask;
+        private final MappedByteBuffer[] chunks;
+
+        private MappedFile(Path file, int chunkBits) throws IOException {
+            this.chunkBits = chunkBits;
+            long chunkSize = 1L << chunkBits;
+            chunkMask = chunkSize - 1;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                int numChunks = (int) ((size + chunkMask) >>> chunkBits);
+                chunks = new MappedByteBuffer[numChunks];
+                for (int i = 0; i < numChunks; i++) {
+                    long start = ((long) i) << chunkBits;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+                }
+            }
+        }
+
+        private byte get(long position) {
+            return chunks[(int) (position >>> chunkBits)].get((int) (position & chunkMask));
+        }
+
+        /**
+         * @param position Position of the long. Must be a multiple of 8
+         * @return         Long value
+         */
+        private long getLong(long position) {
+            return chunks[(int) (position >>> chunkBits)].getLong((int) (position & chunkMask));
+        }
+
+        private void get(long position, byte[] dst) {
+            int copied = 0;
+            while (copied < dst.length) {
+                ByteBuffer chunk = chunks[(int) (position >>> chunkBits)].duplicate();
+                chunk.position((int) (position & chunkMask));
+                int length = Math.min(dst.length - copied, chunk.remaining());
+                chunk.get(dst, copied, length);
+                copied += length;
+                position += length;
+            }
+        }
+
+        private void unmap() {
+            for (MappedByteBuffer chunk : chunks) {
+                LocalSampleIndex.unmap(chunk);
+            }
+        }
+    }
+
+    /**
+     * Reference to an acquired index. Closing it more than once has no effect.
+     */
+    public final class Reference implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Reference() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LocalSampleIndex{");
+        sb.append("path=").append(path);
+        sb.append(", metadata=").append(metadata);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package org.opencb.opencga.storage.mongodb.variant.index.sample;
+
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.core.common.JacksonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.opencb.opencga.storage.mongodb.variant.index.sample.LocalSampleIndex.*;
+
+/**
+ * Write a {@link LocalSampleIndex} from a sorted iterator of variants.
+ *
+ * Variants are expected to contain the genotypes of all the samples to index.
+ */
+public class LocalSampleIndexBuilder {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final Logger logger = LoggerFactory.getLogger(LocalSampleIndexBuilder.class);
+
+    private final Path path;
+
+    /**
+     * @param path Empty directory where to write the index
+     */
+    public LocalSampleIndexBuilder(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Build the index.
+     *
+     * @param studyId   Study
+     * @param study     Study name, as in the variants {@link StudyEntry}
+     * @param samples   Samples to index. Map from sample id to sample name
+     * @param files     Files loaded in the study when starting the build. Used to detect stale indexes
+     * @param iterator  Variants to index
+     * @return          Metadata of the new index
+     * @throws IOException on error writing the files
+     */
+    public LocalSampleIndexMetadata build(int studyId, String study, LinkedHashMap<Integer, String> samples, Collection<Integer> files,
+                                          Iterator<Variant> iterator) throws IOException {
+        Files.createDirectories(path);
+        List<String> genotypes = new ArrayList<>();
+        Map<String, Byte> genotypeCodes = new HashMap<>();
+        List<OutputStream> sampleStreams = new ArrayList<>(samples.size());
+        int numVariants = 0;
+        long offset = 0;
+        try (OutputStream variantsStream = new BufferedOutputStream(Files.newOutputStream(path.resolve(VARIANTS_FILE)), BUFFER_SIZE);
+             DataOutputStream variantsIndexStream = new DataOutputStream(
+                     new BufferedOutputStream(Files.newOutputStream(path.resolve(VARIANTS_INDEX_FILE)), BUFFER_SIZE))) {
+            for (Integer sampleId : samples.keySet()) {
+                sampleStreams.add(new BufferedOutputStream(Files.newOutputStream(path.resolve(getSampleFileName(sampleId))),
+                        BUFFER_SIZE));
+            }
+
+            variantsIndexStream.writeLong(offset);
+            while (iterator.hasNext()) {
+                Variant variant = iterator.next();
+                if (numVariants == MAX_VARIANTS) {
+                    throw new IllegalStateException("Unable to build local sample index. "
+                            + "More than " + MAX_VARIANTS + " variants found in study " + study);
+                }
+                byte[] id = variant.toString().getBytes(StandardCharsets.UTF_8);
+                variantsStream.write(id);
+                offset += id.length;
+                variantsIndexStream.writeLong(offset);
+
+                StudyEntry studyEntry = variant.getStudy(study);
+                int i = 0;
+                for (String sampleName : samples.values()) {
+                    byte code = NO_GENOTYPE;
+                    String gt = studyEntry == null ? null : studyEntry.getSampleData(sampleName, "GT");
+                    if (gt != null) {
+                        Byte existingCode = genotypeCodes.get(gt);
+                        if (existingCode == null) {
+                            if (genotypes.size() == MAX_GENOTYPES) {
+                                throw new IllegalStateException("Unable to build local sample index. "
+                                        + "More than " + MAX_GENOTYPES + " different genotypes found");
+                            }
+                            genotypes.add(gt);
+                            existingCode = (byte) genotypes.size();
+                            genotypeCodes.put(gt, existingCode);
+                        }
+                        code = existingCode;
+                    }
+                    sampleStreams.get(i).write(code);
+                    i++;
+                }
+                numVariants++;
+                if (numVariants % 100000 == 0) {
+                    logger.info("Local sample index: " + numVariants + " variants indexed. Last variant : " + variant);
+                }
+            }
+        } finally {
+            for (OutputStream sampleStream : sampleStreams) {
+                sampleStream.close();
+            }
+        }
+
+        LocalSampleIndexMetadata metadata = new LocalSampleIndexMetadata()
+                .setStudyId(studyId)
+                .setNumVariants(numVariants)
+                .setSamples(new ArrayList<>(samples.keySet()))
+                .setFiles(new ArrayList<>(files))
+                .setGenotypes(genotypes);
+        // Write metadata the last, to mark the index as complete
+        JacksonUtils.getDefaultObjectMapper().writeValue(path.resolve(METADATA_FILE).toFile(), metadata);
+        logger.info("Local sample index built with " + numVariants + " variants and " + samples.size() + " samples at " + path);
+        return metadata;
+    }
+}
@@ -0,0 +1,148 @@
+package org.opencb.opencga.storage.mongodb.variant.index.sample;
+
+import org.apache.commons.io.FileUtils;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.QueryOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manage the {@link LocalSampleIndex} of all the studies, stored at a local directory.
+ *
+ * The index of each study is a snapshot of the genotypes from the moment it was built.
+ * Loading new files into the study makes the index outdated, and it won't be used until it is rebuilt.
+ */
+public class LocalSampleIndexDBAdaptor implements Closeable {
+
+    private final VariantStorageMetadataManager metadataManager;
+    private final Path path;
+    private final Map<Integer, LocalSampleIndex> indexes = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(LocalSampleIndexDBAdaptor.class);
+
+    public LocalSampleIndexDBAdaptor(VariantStorageMetadataManager metadataManager, Path path) {
+        this.metadataManager = metadataManager;
+        this.path = path;
+    }
+
+    public Path getStudyPath(int studyId) {
+        return path.resolve("study_" + studyId);
+    }
+
+    /**
+     * Build, or rebuild, the sample index of a study.
+     *
+     * @param studyId   Study
+     * @param samples   Samples to index
+     * @param variants  Sorted variants of the study, with the genotypes of the samples to index
+     * @return          Metadata of the new index
+     * @throws IOException on error writing the index
+     */
+    public LocalSampleIndexMetadata build(int studyId, List<Integer> samples, Iterator<Variant> variants) throws IOException {
+        String study = metadataManager.getStudyName(studyId);
+        LinkedHashMap<Integer, String> sampleNames = new LinkedHashMap<>();
+        for (Integer sampleId : samples) {
+            sampleNames.put(sampleId, metadataManager.getSampleName(studyId, sampleId));
+        }
+        // Get the list of files before reading any variant
+        Set<Integer> files = metadataManager.getIndexedFiles(studyId);
+
+        Path studyPath = getStudyPath(studyId);
+        Path tmpPath = studyPath.resolveSibling(studyPath.getFileName() + ".tmp");
+        if (Files.exists(tmpPath)) {
+            FileUtils.deleteDirectory(tmpPath.toFile());
+        }
+        LocalSampleIndexMetadata metadata = new LocalSampleIndexBuilder(tmpPath)
+                .build(studyId, study, sampleNames, files, variants);
+
+        // Replace the old index. Readers that acquired the old index can still read the deleted files until released.
+        synchronized (indexes) {
+            LocalSampleIndex oldIndex = indexes.remove(studyId);
+            if (oldIndex != null) {
+                oldIndex.close();
+            }
+            if (Files.exists(studyPath)) {
+                FileUtils.deleteDirectory(studyPath.toFile());
+            }
+            Files.move(tmpPath, studyPath);
+        }
+        return metadata;
+    }
+
+    /**
+     * Get the sample index of the study, if any.
+     *
+     * @param studyId Study
+     * @return        The local sample index, or null if missing or outdated
+     */
+    public LocalSampleIndex getIndex(int studyId) {
+        LocalSampleIndex index;
+        synchronized (indexes) {
+            index = indexes.get(studyId);
+            if (index == null) {
+                Path studyPath = getStudyPath(studyId);
+                if (!Files.exists(studyPath.resolve(LocalSampleIndex.METADATA_FILE))) {
+                    return null;
+                }
+                try {
+                    index = LocalSampleIndex.open(studyPath);
+                } catch (IOException e) {
+                    logger.warn("Unable to open local sample index at " + studyPath, e);
+                    return null;
+                }
+                indexes.put(studyId, index);
+            }
+        }
+        if (isOutdated(index)) {
+            logger.debug("Local sample index of study {} is outdated", studyId);
+            return null;
+        }
+        return index;
+    }
+
+    protected boolean isOutdated(LocalSampleIndex index) {
+        Set<Integer> files = metadataManager.getIndexedFiles(index.getMetadata().getStudyId());
+        return !files.equals(new HashSet<>(index.getMetadata().getFiles()));
+    }
+
+    @Override
+    public void close() {
+        synchronized (indexes) {
+            for (LocalSampleIndex index : indexes.values()) {
+                index.close();
+            }
+            indexes.clear();
+        }
+    }
+
+    /**
+     * Find the variants matching the genotype filter.
+     *
+     * @param index     Local sample index
+     * @param genotypes Map from sample id to list of genotypes, as returned by
+     *                  {@link org.opencb.opencga.storage.core.variant.query.VariantQueryUtils#parseGenotypeFilter}
+     * @param operation Operation between samples
+     * @return          BitSet with the position of the matching variants
+     */
+    public BitSet query(LocalSampleIndex index, Map<Integer, List<String>> genotypes, QueryOperation operation) {
+        BitSet bitSet = null;
+        for (Map.Entry<Integer, List<String>> entry : genotypes.entrySet()) {
+            BitSet sampleBitSet = index.filter(entry.getKey(), entry.getValue());
+            if (bitSet == null) {
+                bitSet = sampleBitSet;
+            } else if (QueryOperation.OR.equals(operation)) {
+                bitSet.or(sampleBitSet);
+            } else {
+                bitSet.and(sampleBitSet);
+            }
+        }
+        return bitSet == null ? new BitSet() : bitSet;
+    }
+}
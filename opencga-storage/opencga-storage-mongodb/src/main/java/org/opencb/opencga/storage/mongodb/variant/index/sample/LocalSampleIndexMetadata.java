@@ -0,0 +1,83 @@
+package org.opencb.opencga.storage.mongodb.variant.index.sample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Description of a {@link LocalSampleIndex}. Stored as JSON next to the index files.
+ */
+public class LocalSampleIndexMetadata {
+
+    private int studyId;
+    private int numVariants;
+    private List<Integer> samples;
+    private List<Integer> files;
+    /**
+     * Genotypes dictionary. The genotype code of each variant is the position in this list plus one.
+     * Code 0 is used for variants without genotype.
+     */
+    private List<String> genotypes;
+
+    public LocalSampleIndexMetadata() {
+        samples = new ArrayList<>();
+        files = new ArrayList<>();
+        genotypes = new ArrayList<>();
+    }
+
+    public int getStudyId() {
+        return studyId;
+    }
+
+    public LocalSampleIndexMetadata setStudyId(int studyId) {
+        this.studyId = studyId;
+        return this;
+    }
+
+    public int getNumVariants() {
+        return numVariants;
+    }
+
+    public LocalSampleIndexMetadata setNumVariants(int numVariants) {
+        this.numVariants = numVariants;
+        return this;
+    }
+
+    public List<Integer> getSamples() {
+        return samples;
+    }
+
+    public LocalSampleIndexMetadata setSamples(List<Integer> samples) {
+        this.samples = samples;
+        return this;
+    }
+
+    public List<Integer> getFiles() {
+        return files;
+    }
+
+    public LocalSampleIndexMetadata setFiles(List<Integer> files) {
+        this.files = files;
+        return this;
+    }
+
+    public List<String> getGenotypes() {
+        return genotypes;
+    }
+
+    public LocalSampleIndexMetadata setGenotypes(List<String> genotypes) {
+        this.genotypes = genotypes;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LocalSampleIndexMetadata{");
+        sb.append("studyId=").append(studyId);
+        sb.append(", numVariants=").append(numVariants);
+        sb.append(", samples=").append(samples);
+        sb.append(", files=").append(files);
+        sb.append(", genotypes=").append(genotypes);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.opencb.opencga.storage.mongodb.variant.load.variants;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.ErrorCategory;
 import com.mongodb.MongoBulkWriteException;
 import com.mongodb.bulk.BulkWriteError;
@@ -35,6 +36,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.mongodb.client.model.Filters.*;
 import static com.mongodb.client.model.Updates.*;
@@ -57,6 +59,11 @@ import static org.opencb.opencga.storage.mongodb.variant.load.stage.MongoDBVaria
  *   Sets {studyId}.{fileId} fields to NULL.
  *   Do NOT remove ($unset) the field. See {@link MongoDBVariantMerger#alreadyProcessedStageDocument}
  *
+ * Optionally, keeps several batches of operations being written concurrently. See {@link #setMaxWritesInFlight}.
+ * Each variant is produced by one single stage document, so two batches never modify the same variant, and the
+ * batches can be written in any order. The stage collection is cleaned by each batch after writing its variants,
+ * so the operation can be resumed regardless of which batches failed.
+ *
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
 public class MongoDBVariantMergeLoader implements DataWriter<MongoDBOperations> {
@@ -85,6 +92,13 @@ public class MongoDBVariantMergeLoader implements DataWriter<MongoDBOperations>
     private final Bson cleanStageDuplicated;
     private final Bson cleanStage;
 
+    // Asynchronous writes. Only accessed from the writer thread.
+    private int maxWritesInFlight = 1;
+    private long targetWriteLatencyNanos;
+    private int writesInFlight;
+    private ExecutorService writeExecutor;
+    private final Deque<Future<Long>> pendingWrites = new ArrayDeque<>();
+
     public MongoDBVariantMergeLoader(MongoDBCollection variantsCollection, MongoDBCollection stageCollection,
                                      MongoDBCollection studiesCollection, StudyMetadata studyMetadata, List<Integer> fileIds,
                                      boolean resume, boolean cleanWhileLoading, ProgressLogger progressLogger) {
@@ -119,14 +133,94 @@ public class MongoDBVariantMergeLoader implements DataWriter<MongoDBOperations>
 
     }
 
+    /**
+     * Keep up to maxWritesInFlight batches of operations being written concurrently.
+     * The actual number of writes in flight is adapted to the latency of each batch: halved when a batch takes more than
+     * the target latency, and increased by one when a batch takes less than half of the target latency.
+     *
+     * Must not be used if the method {@link #write} is called concurrently from multiple threads.
+     *
+     * @param maxWritesInFlight     Max number of batches being written. If 1, the batches are written synchronously.
+     * @param targetWriteLatency    Target latency of each batch write
+     * @param timeUnit              Time unit of the target latency
+     */
+    public void setMaxWritesInFlight(int maxWritesInFlight, long targetWriteLatency, TimeUnit timeUnit) {
+        this.maxWritesInFlight = Math.max(1, maxWritesInFlight);
+        this.targetWriteLatencyNanos = timeUnit.toNanos(targetWriteLatency);
+        this.writesInFlight = this.maxWritesInFlight;
+    }
+
     @Override
     public boolean write(List<MongoDBOperations> batch) {
+        if (maxWritesInFlight <= 1) {
+            for (MongoDBOperations mongoDBOperations : batch) {
+                executeMongoDBOperations(mongoDBOperations);
+            }
+            return true;
+        }
+        if (writeExecutor == null) {
+            writeExecutor = Executors.newFixedThreadPool(maxWritesInFlight,
+                    new ThreadFactoryBuilder().setNameFormat("mongodb-merge-write-%d").setDaemon(true).build());
+        }
         for (MongoDBOperations mongoDBOperations : batch) {
-            executeMongoDBOperations(mongoDBOperations);
+            waitPendingWrites(false);
+            pendingWrites.add(writeExecutor.submit(() -> {
+                long start = System.nanoTime();
+                executeMongoDBOperations(mongoDBOperations);
+                return System.nanoTime() - start;
+            }));
         }
         return true;
     }
 
+    /**
+     * Wait for the pending writes, and propagate any failure.
+     *
+     * @param all   Wait for all the pending writes. Otherwise, wait until a new write can be submitted.
+     */
+    private void waitPendingWrites(boolean all) {
+        Iterator<Future<Long>> iterator = pendingWrites.iterator();
+        while (iterator.hasNext()) {
+            Future<Long> future = iterator.next();
+            if (future.isDone()) {
+                iterator.remove();
+                onWriteCompleted(getWriteLatency(future));
+            }
+        }
+        while (!pendingWrites.isEmpty() && (all || pendingWrites.size() >= writesInFlight)) {
+            onWriteCompleted(getWriteLatency(pendingWrites.pollFirst()));
+        }
+    }
+
+    private long getWriteLatency(Future<Long> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    private void onWriteCompleted(long nanos) {
+        int newWritesInFlight = writesInFlight;
+        if (nanos > targetWriteLatencyNanos) {
+            newWritesInFlight = Math.max(1, writesInFlight / 2);
+        } else if (nanos < targetWriteLatencyNanos / 2) {
+            newWritesInFlight = Math.min(maxWritesInFlight, writesInFlight + 1);
+        }
+        if (newWritesInFlight != writesInFlight) {
+            logger.debug("Writes in flight {} -> {}. Batch write latency {}ms", writesInFlight, newWritesInFlight,
+                    TimeUnit.NANOSECONDS.toMillis(nanos));
+            writesInFlight = newWritesInFlight;
+        }
+    }
+
     public MongoDBVariantWriteResult getResult() {
         return result;
     }
@@ -349,9 +443,27 @@ public class MongoDBVariantMergeLoader implements DataWriter<MongoDBOperations>
 
     @Override
     public boolean post() {
+        waitPendingWrites(true);
         VariantMongoDBAdaptor.createIndexes(new QueryOptions(), variantsCollection);
         return true;
     }
+
+    @Override
+    public boolean close() {
+        if (writeExecutor != null) {
+            // Let the running writes finish, so the stage collection is consistent with the variants collection.
+            writeExecutor.shutdown();
+            try {
+                if (!writeExecutor.awaitTermination(1, TimeUnit.HOURS)) {
+                    logger.warn("Timeout waiting for pending writes");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        return true;
+    }
 //    protected void onInsertError(MongoDBOperations mongoDBOps, BulkWriteResult writeResult) {
 //        logger.error("(Inserts = " + mongoDBOps.inserts.size() + ") "
 //                + "!= (InsertedCount = " + writeResult.getInsertedCount() + ")");
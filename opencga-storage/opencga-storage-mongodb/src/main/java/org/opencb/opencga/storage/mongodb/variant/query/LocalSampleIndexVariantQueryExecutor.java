@@ -0,0 +1,268 @@
+package org.opencb.opencga.storage.mongodb.variant.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterators;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.DataResult;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.response.VariantQueryResult;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryParser;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.QueryOperation;
+import org.opencb.opencga.storage.core.variant.query.executors.VariantQueryExecutor;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjection;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjectionParser;
+import org.opencb.opencga.storage.mongodb.variant.index.sample.LocalSampleIndex;
+import org.opencb.opencga.storage.mongodb.variant.index.sample.LocalSampleIndexDBAdaptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
+import static org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.isValidParam;
+
+/**
+ * Resolve the genotype filters using the {@link LocalSampleIndex}, and fetch the matching variants by id
+ * from the {@link VariantDBAdaptor}. Avoids the per-sample scans generated for genotype filters.
+ *
+ * If the query only contains genotype filters, the count is taken directly from the index.
+ *
+ * The same query is parsed by canUseThisExecutor, estimateReadVariants, count and get. The parsed query is kept
+ * for each query instance, so the index is checked and the genotype filter is resolved only once per query.
+ */
+public class LocalSampleIndexVariantQueryExecutor extends VariantQueryExecutor {
+
+    public static final String LOCAL_SAMPLE_INDEX_SOURCE = "local_sample_index";
+    private final VariantDBAdaptor dbAdaptor;
+    private final LocalSampleIndexDBAdaptor sampleIndexDBAdaptor;
+    // Weak keys are compared by identity
+    private final Cache<Query, Optional<LocalSampleIndexQuery>> parsedQueries = CacheBuilder.newBuilder().weakKeys().build();
+    private Logger logger = LoggerFactory.getLogger(LocalSampleIndexVariantQueryExecutor.class);
+
+    public LocalSampleIndexVariantQueryExecutor(VariantDBAdaptor dbAdaptor, LocalSampleIndexDBAdaptor sampleIndexDBAdaptor,
+                                                String storageEngineId, ObjectMap options) {
+        super(dbAdaptor.getMetadataManager(), storageEngineId, options);
+        this.dbAdaptor = dbAdaptor;
+        this.sampleIndexDBAdaptor = sampleIndexDBAdaptor;
+    }
+
+    @Override
+    public boolean canUseThisExecutor(Query query, QueryOptions options) {
+        if (VariantStorageEngine.UseSearchIndex.from(options).equals(VariantStorageEngine.UseSearchIndex.YES)) {
+            // Query search index is mandatory. Can not use this executor.
+            return false;
+        }
+        return parse(query) != null;
+    }
+
+    @Override
+    public DataResult<Long> count(Query query) {
+        LocalSampleIndexQuery indexQuery = parse(query);
+        if (indexQuery != null && isFullyCoveredQuery(query)) {
+            BitSet bitSet = indexQuery.getBitSet();
+            if (bitSet != null) {
+                long count = bitSet.cardinality();
+                return new DataResult<>(0, Collections.emptyList(), 1, Collections.singletonList(count), 1);
+            }
+        }
+        return super.count(query);
+    }
+
+    @Override
+    public long estimateReadVariants(Query query, QueryOptions options) {
+        LocalSampleIndexQuery indexQuery = parse(query);
+        BitSet bitSet = indexQuery == null ? null : indexQuery.getBitSet();
+        return bitSet == null ? -1 : bitSet.cardinality();
+    }
+
+    @Override
+    public double getDefaultCostPerVariant() {
+        // Fetch by id from the variants collection
+        return 0.05;
+    }
+
+    @Override
+    protected Object getOrIterator(Query query, QueryOptions options, boolean iterator) {
+        LocalSampleIndexQuery indexQuery = parse(query);
+        if (indexQuery == null) {
+            throw new IllegalStateException("Unable to use " + getClass().getSimpleName() + " for query " + query.toJson());
+        }
+        LocalSampleIndex.Reference reference = indexQuery.index.acquire();
+        BitSet bitSet = indexQuery.getBitSet();
+        if (reference == null || bitSet == null) {
+            // The index was replaced by a concurrent build. Resolve the genotype filter from the DBAdaptor.
+            logger.info("Local sample index of study {} closed while querying. Skip local sample index",
+                    indexQuery.index.getMetadata().getStudyId());
+            if (reference != null) {
+                reference.close();
+            }
+            return iterator ? dbAdaptor.iterator(query, options) : dbAdaptor.get(query, options);
+        }
+        Query engineQuery = new Query(query);
+        options = new QueryOptions(options);
+        Iterator<String> variantIds = indexQuery.index.variantIds(bitSet);
+        // Genotype filter already resolved by the index. Do not evaluate it again.
+        // The samples and files from the genotype filter are still returned by default.
+        if (!isValidParam(engineQuery, INCLUDE_FILE)) {
+            engineQuery.put(INCLUDE_FILE.key(), getIncludeFiles(query, options));
+        }
+        if (!isValidParam(engineQuery, INCLUDE_SAMPLE)) {
+            List<String> includeSamples = VariantQueryProjectionParser.getIncludeSamplesList(query);
+            if (includeSamples != null) {
+                engineQuery.put(INCLUDE_SAMPLE.key(), includeSamples);
+            }
+        }
+        engineQuery.remove(GENOTYPE.key());
+        boolean fullyCovered = isFullyCoveredQuery(query);
+        if (fullyCovered) {
+            // Apply the pagination directly over the variant ids.
+            int skip = options.getInt(QueryOptions.SKIP, 0);
+            int limit = options.getInt(QueryOptions.LIMIT, -1);
+            if (skip > 0) {
+                Iterators.advance(variantIds, skip);
+            }
+            if (limit >= 0) {
+                variantIds = Iterators.limit(variantIds, limit);
+            }
+            options.remove(QueryOptions.SKIP);
+            options.remove(QueryOptions.LIMIT);
+        }
+        logger.debug("Local sample index query " + engineQuery.toJson() + " options " + options.toJson());
+
+        if (iterator) {
+            try {
+                // Keep the index mapped until the iterator is closed
+                return dbAdaptor.iterator(variantIds, engineQuery, options).addCloseable(reference);
+            } catch (RuntimeException e) {
+                reference.close();
+                throw e;
+            }
+        } else {
+            try {
+                boolean count = options.getBoolean(QueryOptions.COUNT, false);
+                if (fullyCovered) {
+                    options.put(QueryOptions.COUNT, false);
+                }
+                setDefaultTimeout(options);
+                VariantQueryResult<Variant> result = dbAdaptor.get(variantIds, engineQuery, options);
+                if (fullyCovered && count) {
+                    result.setApproximateCount(false);
+                    result.setNumMatches(bitSet.cardinality());
+                }
+                result.setSource(LOCAL_SAMPLE_INDEX_SOURCE + '+' + getStorageEngineId());
+                return result;
+            } finally {
+                reference.close();
+            }
+        }
+    }
+
+    /**
+     * Files returned by default for the original query, which depend on the samples from the genotype filter.
+     *
+     * @param query   Original query, with the genotype filter
+     * @param options Query options
+     * @return        List of file names, or {@link VariantQueryUtils#NONE}
+     */
+    private Object getIncludeFiles(Query query, QueryOptions options) {
+        VariantQueryProjection projection = new VariantQueryProjectionParser(getMetadataManager())
+                .parseVariantQueryProjection(query, options);
+        List<String> files = new ArrayList<>();
+        for (VariantQueryProjection.StudyVariantQueryProjection study : projection.getStudies().values()) {
+            for (Integer fileId : study.getFiles()) {
+                files.add(getMetadataManager().getFileName(study.getId(), fileId));
+            }
+        }
+        return files.isEmpty() ? VariantQueryUtils.NONE : files;
+    }
+
+    protected boolean isFullyCoveredQuery(Query query) {
+        Set<VariantQueryParam> params = VariantQueryUtils.validParams(query, true);
+        params.remove(STUDY);
+        params.remove(GENOTYPE);
+        return params.isEmpty();
+    }
+
+    /**
+     * Parse the genotype filter of the query. The filter is resolved with the local sample index on demand.
+     * The result is reused while the genotype and study filters of the query instance are not modified.
+     *
+     * @param query Query
+     * @return      Index query, or null if the local sample index can not be used for this query
+     */
+    private LocalSampleIndexQuery parse(Query query) {
+        if (!isValidParam(query, GENOTYPE)) {
+            return null;
+        }
+        String key = query.getString(GENOTYPE.key()) + '|' + query.getString(STUDY.key());
+        Optional<LocalSampleIndexQuery> parsed = parsedQueries.getIfPresent(query);
+        if (parsed == null || !parsed.map(indexQuery -> indexQuery.key.equals(key)).orElse(false)) {
+            parsed = Optional.ofNullable(parse(query, key));
+            parsedQueries.put(query, parsed);
+        }
+        return parsed.orElse(null);
+    }
+
+    private LocalSampleIndexQuery parse(Query query, String key) {
+        StudyMetadata defaultStudy = VariantQueryParser.getDefaultStudy(query, getMetadataManager());
+        if (defaultStudy == null) {
+            return null;
+        }
+        LocalSampleIndex index = sampleIndexDBAdaptor.getIndex(defaultStudy.getId());
+        if (index == null) {
+            return null;
+        }
+
+        Map<Object, List<String>> genotypesMap = new HashMap<>();
+        QueryOperation operation = VariantQueryUtils.parseGenotypeFilter(query.getString(GENOTYPE.key()), genotypesMap);
+        Map<Integer, List<String>> sampleGenotypes = new LinkedHashMap<>();
+        for (Map.Entry<Object, List<String>> entry : genotypesMap.entrySet()) {
+            Integer sampleId = getMetadataManager().getSampleId(defaultStudy.getId(), entry.getKey());
+            if (sampleId == null || !index.containsSample(sampleId)) {
+                // Sample not indexed
+                return null;
+            }
+            sampleGenotypes.put(sampleId, entry.getValue());
+        }
+        return new LocalSampleIndexQuery(key, index, sampleGenotypes, operation);
+    }
+
+    private final class LocalSampleIndexQuery {
+        private final String key;
+        private final LocalSampleIndex index;
+        private final Map<Integer, List<String>> sampleGenotypes;
+        private final QueryOperation operation;
+        private BitSet bitSet;
+
+        private LocalSampleIndexQuery(String key, LocalSampleIndex index, Map<Integer, List<String>> sampleGenotypes,
+                                      QueryOperation operation) {
+            this.key = key;
+            this.index = index;
+            this.sampleGenotypes = sampleGenotypes;
+            this.operation = operation;
+        }
+
+        /**
+         * @return BitSet with the matching variants, or null if the index was closed
+         */
+        private synchronized BitSet getBitSet() {
+            if (bitSet == null) {
+                try (LocalSampleIndex.Reference reference = index.acquire()) {
+                    if (reference == null) {
+                        return null;
+                    }
+                    bitSet = sampleIndexDBAdaptor.query(index, sampleGenotypes, operation);
+                }
+            }
+            return bitSet;
+        }
+    }
+}
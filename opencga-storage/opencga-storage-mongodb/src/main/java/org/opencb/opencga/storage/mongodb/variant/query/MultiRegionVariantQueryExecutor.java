@@ -0,0 +1,298 @@
+package org.opencb.opencga.storage.mongodb.variant.query;
+
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.response.VariantQueryResult;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.query.ParsedVariantQuery;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryParser;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.core.variant.query.executors.DBAdaptorVariantQueryExecutor;
+import org.opencb.opencga.storage.mongodb.variant.converters.VariantStringIdConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageOptions.QUERY_MULTI_REGION_THREADS;
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageOptions.QUERY_MULTI_REGION_THRESHOLD;
+import static org.opencb.opencga.storage.mongodb.variant.adaptors.VariantMongoDBQueryParser.CHUNK_GENE_REGIONS;
+
+/**
+ * Executor for queries with a large number of regions or genes, like gene panels.
+ *
+ * The regions (or the regions of the genes, obtained from CellBase) are sorted and split in consecutive chunks of
+ * non overlapping _id ranges. Each chunk is queried sorted by _id, and all the chunks are fetched concurrently.
+ * As the chunks are disjoint, the results are returned in genomic order by concatenating the chunks.
+ *
+ * Only used when regions or genes are the only positional filters, as they are combined with an OR with other
+ * filters like IDs or xrefs. The rest of filters are applied to every chunk.
+ */
+public class MultiRegionVariantQueryExecutor extends DBAdaptorVariantQueryExecutor {
+
+    private static final int CHUNK_BATCH_SIZE = 100;
+    private static final int CHUNK_BUFFER_BATCHES = 10;
+    private static final int MAX_THREADS = 32;
+    // Shared by all the queries. Chunks start in submission order, so a chunk never waits for a chunk queued after it.
+    private static final ExecutorService THREAD_POOL;
+
+    static {
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("mongodb-multi-region-%d").setDaemon(true).build());
+        // Idle threads are released after one minute
+        threadPool.allowCoreThreadTimeOut(true);
+        THREAD_POOL = threadPool;
+    }
+
+    private final VariantDBAdaptor dbAdaptor;
+    private final VariantStorageEngine engine;
+    private Logger logger = LoggerFactory.getLogger(MultiRegionVariantQueryExecutor.class);
+
+    public MultiRegionVariantQueryExecutor(VariantDBAdaptor dbAdaptor, String storageEngineId, ObjectMap options,
+                                           VariantStorageEngine engine) {
+        super(dbAdaptor, storageEngineId, options);
+        this.dbAdaptor = dbAdaptor;
+        this.engine = engine;
+    }
+
+    @Override
+    public boolean canUseThisExecutor(Query query, QueryOptions options) throws StorageEngineException {
+        if (VariantStorageEngine.UseSearchIndex.from(options).equals(VariantStorageEngine.UseSearchIndex.YES)) {
+            // Query search index is mandatory. Can not use this executor.
+            return false;
+        }
+        if (options.getBoolean(QueryOptions.COUNT, false)) {
+            // Should not require total count
+            return false;
+        }
+        if (options.containsKey(QueryOptions.SORT) && !options.getString(QueryOptions.SORT).equals(Boolean.TRUE.toString())
+                && !options.getString(QueryOptions.SORT).equals(Boolean.FALSE.toString())) {
+            // Sorted by other field
+            return false;
+        }
+        if (!super.canUseThisExecutor(query, options)) {
+            return false;
+        }
+        return getChunks(query, options) != null;
+    }
+
+    @Override
+    public double getDefaultCostPerVariant() {
+        // Sequential scans, running concurrently
+        return 0.005;
+    }
+
+    @Override
+    protected Object getOrIterator(Query query, QueryOptions options, boolean iterator) throws StorageEngineException {
+        List<Query> chunks = getChunks(query, options);
+        if (chunks == null) {
+            throw new VariantQueryException("Unable to split query " + query.toJson());
+        }
+
+        int limit = options.getInt(QueryOptions.LIMIT, -1);
+        int skip = Math.max(0, options.getInt(QueryOptions.SKIP, 0));
+        QueryOptions chunkOptions = new QueryOptions(options);
+        chunkOptions.put(QueryOptions.SORT, true);
+        chunkOptions.remove(QueryOptions.SKIP);
+        if (limit >= 0) {
+            // Each chunk does not need to return more than limit + skip variants
+            chunkOptions.put(QueryOptions.LIMIT, limit + skip);
+        }
+        logger.debug("Split query in {} chunks", chunks.size());
+
+        List<ChunkIterator> chunkIterators = new ArrayList<>(chunks.size());
+        for (Query chunk : chunks) {
+            chunkIterators.add(new ChunkIterator(THREAD_POOL, () -> dbAdaptor.iterator(chunk, new QueryOptions(chunkOptions))));
+        }
+        Iterator<Variant> variants = Iterators.concat(chunkIterators.iterator());
+        Iterators.advance(variants, skip);
+        if (limit >= 0) {
+            variants = Iterators.limit(variants, limit);
+        }
+        VariantDBIterator variantDBIterator = VariantDBIterator.wrapper(variants);
+        chunkIterators.forEach(variantDBIterator::addCloseable);
+
+        if (iterator) {
+            return variantDBIterator;
+        } else {
+            VariantQueryResult<Variant> result = VariantQueryUtils.addSamplesMetadataIfRequested(variantDBIterator.toDataResult(),
+                    query, options, getMetadataManager());
+            result.setSource(getStorageEngineId());
+            return result;
+        }
+    }
+
+    /**
+     * Split the query in chunks of consecutive non overlapping regions.
+     *
+     * @param query   Query to split
+     * @param options Query options
+     * @return List of queries, or null if the query can not be split
+     * @throws StorageEngineException if there is an error getting the regions of the genes
+     */
+    private List<Query> getChunks(Query query, QueryOptions options) throws StorageEngineException {
+        int threshold = options.getInt(QUERY_MULTI_REGION_THRESHOLD.key(),
+                getOptions().getInt(QUERY_MULTI_REGION_THRESHOLD.key(), QUERY_MULTI_REGION_THRESHOLD.defaultValue()));
+        int numChunks = options.getInt(QUERY_MULTI_REGION_THREADS.key(),
+                getOptions().getInt(QUERY_MULTI_REGION_THREADS.key(), QUERY_MULTI_REGION_THREADS.defaultValue()));
+        if (numChunks <= 1) {
+            return null;
+        }
+
+        ParsedVariantQuery.VariantQueryXref xrefs = VariantQueryParser.parseXrefs(query);
+        if (!xrefs.getIds().isEmpty() || !xrefs.getOtherXrefs().isEmpty() || !xrefs.getVariants().isEmpty()) {
+            return null;
+        }
+        boolean hasRegions = VariantQueryUtils.isValidParam(query, REGION);
+        boolean hasGenes = !xrefs.getGenes().isEmpty();
+        if (hasRegions == hasGenes
+                || StringUtils.contains(query.getString(GENE.key()), VariantQueryUtils.AND)
+                || StringUtils.contains(query.getString(ANNOT_XREF.key()), VariantQueryUtils.AND)
+                || StringUtils.isNotEmpty(query.getString(CHUNK_GENE_REGIONS))) {
+            // Either regions or genes, combined with OR
+            return null;
+        }
+
+        List<Region> regions;
+        if (hasRegions) {
+            if (query.getAsStringList(REGION.key()).size() < threshold) {
+                return null;
+            }
+            regions = Region.parseRegions(query.getString(REGION.key()), true);
+        } else {
+            Set<String> genes = new HashSet<>(xrefs.getGenes());
+            if (genes.size() < threshold) {
+                return null;
+            }
+            regions = engine.getCellBaseUtils().getGeneRegion(new ArrayList<>(genes), true);
+            if (regions.size() < genes.size()) {
+                // Some genes are missing in CellBase. Variants from these genes would be lost
+                return null;
+            }
+        }
+        regions = new ArrayList<>(VariantQueryUtils.mergeRegions(regions));
+        regions.sort(Comparator.comparing(region -> VariantStringIdConverter.buildId(region.getChromosome(), region.getStart())));
+        if (regions.size() < numChunks) {
+            return null;
+        }
+
+        List<Query> chunks = new ArrayList<>(numChunks);
+        int chunkSize = (regions.size() + numChunks - 1) / numChunks;
+        for (int i = 0; i < regions.size(); i += chunkSize) {
+            List<Region> chunkRegions = regions.subList(i, Math.min(i + chunkSize, regions.size()));
+            Query chunk = new Query(query);
+            if (hasRegions) {
+                chunk.put(REGION.key(), chunkRegions);
+            } else {
+                // Keep the gene filter, restricted to the regions of the chunk
+                chunk.put(CHUNK_GENE_REGIONS, chunkRegions);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Reads a chunk in a background thread, buffering up to {@link #CHUNK_BUFFER_BATCHES} batches of variants.
+     */
+    private static final class ChunkIterator implements Iterator<Variant>, AutoCloseable {
+
+        private final List<Variant> endOfChunk = new ArrayList<>(0);
+        private final BlockingQueue<List<Variant>> buffer = new ArrayBlockingQueue<>(CHUNK_BUFFER_BATCHES);
+        private final Future<?> future;
+        private Iterator<Variant> batch = Collections.emptyIterator();
+        private boolean exhausted;
+        private volatile boolean closed;
+        private volatile Exception error;
+
+        private ChunkIterator(ExecutorService executor, Supplier<VariantDBIterator> iteratorSupplier) {
+            future = executor.submit(() -> {
+                try (VariantDBIterator iterator = iteratorSupplier.get()) {
+                    List<Variant> variants = new ArrayList<>(CHUNK_BATCH_SIZE);
+                    while (!closed && iterator.hasNext()) {
+                        variants.add(iterator.next());
+                        if (variants.size() == CHUNK_BATCH_SIZE) {
+                            put(variants);
+                            variants = new ArrayList<>(CHUNK_BATCH_SIZE);
+                        }
+                    }
+                    if (!variants.isEmpty()) {
+                        put(variants);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    error = e;
+                }
+                try {
+                    put(endOfChunk);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        private void put(List<Variant> variants) throws InterruptedException {
+            while (!closed) {
+                if (buffer.offer(variants, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!batch.hasNext()) {
+                if (exhausted || closed) {
+                    return false;
+                }
+                List<Variant> variants;
+                try {
+                    variants = buffer.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw VariantQueryException.internalException(e);
+                }
+                if (variants == endOfChunk) {
+                    exhausted = true;
+                    if (error != null) {
+                        throw VariantQueryException.internalException(error);
+                    }
+                    return false;
+                }
+                batch = variants.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Variant next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.next();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            future.cancel(true);
+            buffer.clear();
+        }
+    }
+}
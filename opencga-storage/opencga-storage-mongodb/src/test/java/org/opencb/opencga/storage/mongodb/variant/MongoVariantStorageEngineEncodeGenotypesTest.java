@@ -0,0 +1,136 @@
+package org.opencb.opencga.storage.mongodb.variant;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.mongodb.MongoDBIterator;
+import org.opencb.opencga.core.common.UriUtils;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.VariantStorageBaseTest;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToVariantConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.GenotypeSamplesCodec;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
+import static org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.ALL;
+import static org.opencb.opencga.storage.mongodb.variant.converters.DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD;
+import static org.opencb.opencga.storage.mongodb.variant.converters.DocumentToStudyVariantEntryConverter.STUDYID_FIELD;
+
+/**
+ * Check that the genotype and sample queries return the same results before and after encoding the genotypes as bitmaps.
+ */
+public class MongoVariantStorageEngineEncodeGenotypesTest extends VariantStorageBaseTest implements MongoDBVariantStorageTest {
+
+    private static final String STUDY_1 = "s1";
+    private static final String STUDY_2 = "s2";
+    private MongoDBVariantStorageEngine engine;
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        clearDB(DB_NAME);
+        engine = getVariantStorageEngine();
+        ObjectMap params = new ObjectMap()
+                .append(VariantStorageOptions.ANNOTATE.key(), false)
+                .append(VariantStorageOptions.STATS_CALCULATE.key(), false);
+        runDefaultETL(smallInputUri, engine, new StudyMetadata(1, STUDY_1), params);
+        runDefaultETL(smallInputUri, engine, new StudyMetadata(2, STUDY_2), params);
+    }
+
+    @Test
+    public void testEncodeGenotypes() throws Exception {
+        Map<String, List<String>> expected = runQueries();
+        assertEquals(0, countBitmaps(STUDY_1));
+
+        engine.encodeGenotypes(STUDY_1, true);
+        assertTrue(GenotypeSamplesCodec.isBitmapEnabled(engine.getMetadataManager().getStudyMetadata(STUDY_1).getAttributes()));
+        assertFalse(GenotypeSamplesCodec.isBitmapEnabled(engine.getMetadataManager().getStudyMetadata(STUDY_2).getAttributes()));
+        assertTrue(countBitmaps(STUDY_1) > 0);
+        assertEquals(0, countBitmaps(STUDY_2));
+        checkQueries(expected);
+
+        // Encoding twice does not modify anything
+        engine.encodeGenotypes(STUDY_1, true);
+        checkQueries(expected);
+
+        engine.encodeGenotypes(STUDY_1, false);
+        assertFalse(GenotypeSamplesCodec.isBitmapEnabled(engine.getMetadataManager().getStudyMetadata(STUDY_1).getAttributes()));
+        assertEquals(0, countBitmaps(STUDY_1));
+        checkQueries(expected);
+    }
+
+    @Test
+    public void testRemoveFileWithBitmaps() throws Exception {
+        engine.encodeGenotypes(STUDY_1, true);
+        try {
+            engine.removeFiles(STUDY_1, Collections.singletonList(UriUtils.fileName(smallInputUri)));
+            fail("Expected " + StorageEngineException.class);
+        } catch (StorageEngineException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("bitmaps"));
+        }
+        engine.encodeGenotypes(STUDY_1, false);
+        engine.removeFiles(STUDY_1, Collections.singletonList(UriUtils.fileName(smallInputUri)));
+    }
+
+    private void checkQueries(Map<String, List<String>> expected) throws Exception {
+        Map<String, List<String>> actual = runQueries();
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, List<String>> entry : expected.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+    }
+
+    private Map<String, List<String>> runQueries() throws Exception {
+        Map<String, List<String>> results = new LinkedHashMap<>();
+        for (String study : Arrays.asList(STUDY_1, STUDY_2)) {
+            List<Query> queries = Arrays.asList(
+                    new Query(),
+                    new Query(GENOTYPE.key(), "NA19600:0|1,1|0"),
+                    new Query(GENOTYPE.key(), "NA19600:1|1;NA19660:0|1,1|0"),
+                    new Query(GENOTYPE.key(), "NA19600:1|1,NA19685:1|1"),
+                    new Query(GENOTYPE.key(), "NA19660:!1|1"),
+                    new Query(GENOTYPE.key(), "NA19661:!0|1;NA19685:1|0"),
+                    new Query(SAMPLE.key(), "NA19600"),
+                    new Query(SAMPLE.key(), "NA19600,NA19661"),
+                    new Query(SAMPLE.key(), "NA19660;NA19685"));
+            for (Query query : queries) {
+                query.append(STUDY.key(), study).append(INCLUDE_SAMPLE.key(), ALL);
+                String key = query.toJson();
+                List<Variant> variants = engine.get(new Query(query), new QueryOptions(QueryOptions.SORT, true)).getResults();
+                results.put(key, variants.stream().map(Variant::toJson).collect(Collectors.toList()));
+                results.put(key + " count", Collections.singletonList(String.valueOf(engine.count(new Query(query)).first())));
+            }
+        }
+        return results;
+    }
+
+    private long countBitmaps(String study) throws StorageEngineException {
+        int studyId = engine.getMetadataManager().getStudyId(study);
+        long bitmaps = 0;
+        try (MongoDBIterator<Document> it = engine.getDBAdaptor().getVariantsCollection().nativeQuery()
+                .find(new Document(), new QueryOptions())) {
+            while (it.hasNext()) {
+                for (Document studyDocument : it.next().getList(DocumentToVariantConverter.STUDIES_FIELD, Document.class)) {
+                    if (studyDocument.getInteger(STUDYID_FIELD) == studyId) {
+                        for (Object value : studyDocument.get(GENOTYPES_FIELD, Document.class).values()) {
+                            if (value instanceof Binary) {
+                                bitmaps++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return bitmaps;
+    }
+}
@@ -20,6 +20,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.opencb.opencga.storage.core.variant.adaptors.VariantField.*;
 import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
 import static org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.*;
@@ -83,6 +85,26 @@ public class VariantMongoDBQueryParserTest {
         return sm;
     }
 
+    @Test
+    public void testQueryGenotypeBitmapPerStudy() throws StorageEngineException {
+        metadataManager.updateStudyMetadata("study_2", studyMetadata -> {
+            studyMetadata.getAttributes().put(MongoDBVariantStorageOptions.GENOTYPES_BITMAP.key(), true);
+            return studyMetadata;
+        });
+
+        // Only the studies with bitmaps check the bitmap representation
+        Document mongoQuery = parser.parseQuery(new Query().append(STUDY.key(), "study_1").append(GENOTYPE.key(), "sample_10101:0/1"));
+        assertTrue(mongoQuery.toJson(), mongoQuery.toJson().contains("10101"));
+        assertFalse(mongoQuery.toJson(), mongoQuery.toJson().contains("$bitsAllSet"));
+
+        mongoQuery = parser.parseQuery(new Query().append(STUDY.key(), "study_2").append(GENOTYPE.key(), "sample_20001:0/1"));
+        assertTrue(mongoQuery.toJson(), mongoQuery.toJson().contains("$bitsAllSet"));
+
+        mongoQuery = parser.parseQuery(new Query().append(STUDY.key(), "study_2").append(GENOTYPE.key(), "sample_20001:!0/1"));
+        assertTrue(mongoQuery.toJson(), mongoQuery.toJson().contains("$nor"));
+        assertTrue(mongoQuery.toJson(), mongoQuery.toJson().contains("$bitsAllSet"));
+    }
+
     @Test
     public void testQuerySampleAddFile() {
         Document mongoQuery = parser.parseQuery(new Query().append(STUDY.key(), "study_1").append(SAMPLE.key(), "sample_10101"));
@@ -0,0 +1,47 @@
+package org.opencb.opencga.storage.mongodb.variant.converters;
+
+import org.bson.types.Binary;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GenotypeSamplesCodecTest {
+
+    @Test
+    public void testSparseSamples() {
+        List<Integer> sampleIds = Arrays.asList(3, 5000);
+        Object encoded = GenotypeSamplesCodec.encode(sampleIds);
+        assertSame(sampleIds, encoded);
+        assertEquals(sampleIds, GenotypeSamplesCodec.decode(encoded));
+    }
+
+    @Test
+    public void testDenseSamples() {
+        List<Integer> sampleIds = new ArrayList<>();
+        for (int i = 0; i < 2000; i += 3) {
+            sampleIds.add(i);
+        }
+        Object encoded = GenotypeSamplesCodec.encode(sampleIds);
+        assertTrue(encoded instanceof Binary);
+        assertEquals(1999 / 8 + 1, ((Binary) encoded).getData().length);
+        assertEquals(sampleIds, GenotypeSamplesCodec.decode(encoded));
+    }
+
+    @Test
+    public void testBitOrder() {
+        // Same bit order as the MongoDB operator $bitsAllSet
+        Binary bitmap = GenotypeSamplesCodec.toBitmap(Arrays.asList(0, 5, 9), 9);
+        assertArrayEquals(new byte[]{0x21, 0x02}, bitmap.getData());
+        assertEquals(Arrays.asList(0, 5, 9), GenotypeSamplesCodec.decode(bitmap));
+    }
+
+    @Test
+    public void testNegativeSamples() {
+        List<Integer> sampleIds = Arrays.asList(-1, 1, 2, 3, 4, 5, 6, 7, 8);
+        assertSame(sampleIds, GenotypeSamplesCodec.encode(sampleIds));
+    }
+}
@@ -0,0 +1,115 @@
+package org.opencb.opencga.storage.mongodb.variant.index.sample;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.QueryOperation;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LocalSampleIndexTest {
+
+    private static final String STUDY = "S_1";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private LocalSampleIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        List<Variant> variants = Arrays.asList(
+                Variant.newBuilder("1:100:A:C")
+                        .setStudyId(STUDY).setSampleDataKeys("GT").addSample("S1", "0/0").addSample("S2", "0/1").addSample("S3", "1/1").build(),
+                Variant.newBuilder("1:101:A:C")
+                        .setStudyId(STUDY).setSampleDataKeys("GT").addSample("S1", "0/1").addSample("S2", "0/1").addSample("S3", "1/1").build(),
+                Variant.newBuilder("1:102:A:C")
+                        .setStudyId(STUDY).setSampleDataKeys("GT").addSample("S1", "0/1").addSample("S2", "0/0").addSample("S3", "0/1").build(),
+                Variant.newBuilder("1:103:A:C")
+                        .setStudyId(STUDY).setSampleDataKeys("GT").addSample("S1", "0/0").addSample("S2", "0/0").addSample("S3", "0/0").build(),
+                Variant.newBuilder("2:104:A:CTT")
+                        .setStudyId(STUDY).setSampleDataKeys("GT").addSample("S1", "1/1").addSample("S2", "0|1").addSample("S3", "1/1").build()
+        );
+        LinkedHashMap<Integer, String> samples = new LinkedHashMap<>();
+        samples.put(1, "S1");
+        samples.put(2, "S2");
+        samples.put(3, "S3");
+
+        Path path = temporaryFolder.newFolder("study_1").toPath();
+        LocalSampleIndexMetadata metadata = new LocalSampleIndexBuilder(path)
+                .build(1, STUDY, samples, Arrays.asList(1, 2), variants.iterator());
+        assertEquals(5, metadata.getNumVariants());
+        assertEquals(Arrays.asList("0/0", "0/1", "1/1", "0|1"), metadata.getGenotypes());
+
+        index = LocalSampleIndex.open(path);
+    }
+
+    @Test
+    public void testSmallChunks() throws Exception {
+        // Map the files in chunks of 8 bytes, so variant ids span several chunks
+        LocalSampleIndex chunkedIndex = LocalSampleIndex.open(temporaryFolder.getRoot().toPath().resolve("study_1"), 3);
+        try {
+            for (int i = 0; i < index.getNumVariants(); i++) {
+                assertEquals(index.getVariantId(i), chunkedIndex.getVariantId(i));
+            }
+            for (int sampleId = 1; sampleId <= 3; sampleId++) {
+                for (String gt : Arrays.asList("0/0", "0/1", "1/1", "!0/0")) {
+                    List<String> gts = Collections.singletonList(gt);
+                    assertEquals(index.filter(sampleId, gts), chunkedIndex.filter(sampleId, gts));
+                }
+            }
+        } finally {
+            chunkedIndex.close();
+        }
+    }
+
+    @Test
+    public void testFilter() {
+        assertEquals(Arrays.asList("1:101:A:C", "1:102:A:C"), ids(index.filter(1, Collections.singletonList("0/1"))));
+        assertEquals(Arrays.asList("1:101:A:C", "1:102:A:C", "2:104:A:CTT"), ids(index.filter(1, Arrays.asList("0/1", "1/1"))));
+        assertEquals(Arrays.asList("1:100:A:C", "1:101:A:C", "2:104:A:CTT"), ids(index.filter(2, Arrays.asList("0/1", "0|1"))));
+        assertEquals(Arrays.asList("1:100:A:C", "1:101:A:C", "1:102:A:C", "2:104:A:CTT"),
+                ids(index.filter(3, Collections.singletonList("!0/0"))));
+        assertEquals(Collections.emptyList(), ids(index.filter(3, Collections.singletonList("1/2"))));
+    }
+
+    @Test
+    public void testQuery() {
+        LocalSampleIndexDBAdaptor dbAdaptor = new LocalSampleIndexDBAdaptor(null, temporaryFolder.getRoot().toPath());
+
+        Map<Integer, List<String>> genotypes = new LinkedHashMap<>();
+        genotypes.put(1, Arrays.asList("0/1", "1/1"));
+        genotypes.put(3, Collections.singletonList("1/1"));
+
+        assertEquals(Arrays.asList("1:101:A:C", "2:104:A:CTT"), ids(dbAdaptor.query(index, genotypes, QueryOperation.AND)));
+        assertEquals(Arrays.asList("1:100:A:C", "1:101:A:C", "1:102:A:C", "2:104:A:CTT"),
+                ids(dbAdaptor.query(index, genotypes, QueryOperation.OR)));
+    }
+
+    @Test
+    public void testClose() {
+        LocalSampleIndex.Reference reference = index.acquire();
+        assertNotNull(reference);
+        index.close();
+
+        // Still readable while acquired
+        assertEquals(Arrays.asList("1:101:A:C", "1:102:A:C"), ids(index.filter(1, Collections.singletonList("0/1"))));
+        assertNull(index.acquire());
+
+        reference.close();
+        // Closing twice does not release other references
+        reference.close();
+        index.close();
+        assertNull(index.acquire());
+    }
+
+    private List<String> ids(BitSet bitSet) {
+        List<String> ids = new ArrayList<>();
+        index.variantIds(bitSet).forEachRemaining(ids::add);
+        return ids;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.mongodb.variant.load.variants;
+
+import org.junit.Test;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.mongodb.variant.load.MongoDBVariantWriteResult;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the concurrent writes of the {@link MongoDBVariantMergeLoader}, without writing into the database.
+ */
+public class MongoDBVariantMergeLoaderTest {
+
+    private static final int NUM_OPERATIONS = 40;
+
+    @Test
+    public void testSynchronousByDefault() {
+        MockMergeLoader loader = new MockMergeLoader(0);
+        write(loader);
+
+        assertEquals(NUM_OPERATIONS, loader.executed.get());
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), loader.threads);
+        assertEquals(1, loader.maxConcurrentWrites.get());
+    }
+
+    @Test
+    public void testWritesInFlight() {
+        MockMergeLoader loader = new MockMergeLoader(20);
+        loader.setMaxWritesInFlight(4, 1, TimeUnit.HOURS);
+        write(loader);
+
+        // Every operation is written before close returns
+        assertEquals(NUM_OPERATIONS, loader.executed.get());
+        assertFalse(loader.threads.contains(Thread.currentThread().getName()));
+        assertTrue(loader.maxConcurrentWrites.get() > 1);
+        assertTrue(loader.maxConcurrentWrites.get() <= 4);
+    }
+
+    @Test
+    public void testReduceWritesInFlightOnSlowWrites() {
+        MockMergeLoader loader = new MockMergeLoader(20);
+        // Every write is slower than the target latency
+        loader.setMaxWritesInFlight(4, 1, TimeUnit.MILLISECONDS);
+        write(loader);
+
+        assertEquals(NUM_OPERATIONS, loader.executed.get());
+        // Once the window is reduced to 1, the writes do not overlap
+        for (int i = NUM_OPERATIONS / 2; i < NUM_OPERATIONS; i++) {
+            assertEquals("Operation " + i, 1, loader.concurrentWrites.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testPropagateFailure() {
+        MockMergeLoader loader = new MockMergeLoader(5);
+        loader.failAt = 3;
+        loader.setMaxWritesInFlight(4, 1, TimeUnit.HOURS);
+        try {
+            for (int i = 0; i < NUM_OPERATIONS; i++) {
+                loader.write(Collections.singletonList(new MongoDBOperations()));
+            }
+            fail("Expected the write error to be propagated");
+        } catch (IllegalStateException e) {
+            assertEquals("Write error", e.getMessage());
+        } finally {
+            loader.close();
+        }
+        assertTrue(loader.executed.get() < NUM_OPERATIONS);
+    }
+
+    private static void write(MockMergeLoader loader) {
+        for (int i = 0; i < NUM_OPERATIONS; i += 2) {
+            loader.write(Arrays.asList(new MongoDBOperations(), new MongoDBOperations()));
+        }
+        loader.close();
+    }
+
+    private static class MockMergeLoader extends MongoDBVariantMergeLoader {
+        private final long writeMillis;
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger executed = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrentWrites = new AtomicInteger();
+        private final Map<Integer, Integer> concurrentWrites = Collections.synchronizedMap(new HashMap<>());
+        private final Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+        private volatile int failAt = -1;
+
+        MockMergeLoader(long writeMillis) {
+            super(null, null, null, new StudyMetadata(1, "S"), Collections.singletonList(1), false, false, null);
+            this.writeMillis = writeMillis;
+        }
+
+        @Override
+        protected MongoDBVariantWriteResult executeMongoDBOperations(MongoDBOperations mongoDBOps) {
+            int operation = submitted.getAndIncrement();
+            int concurrent = running.incrementAndGet();
+            concurrentWrites.put(operation, concurrent);
+            maxConcurrentWrites.accumulateAndGet(concurrent, Math::max);
+            threads.add(Thread.currentThread().getName());
+            try {
+                if (operation == failAt) {
+                    throw new IllegalStateException("Write error");
+                }
+                Thread.sleep(writeMillis);
+                executed.incrementAndGet();
+                return new MongoDBVariantWriteResult();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
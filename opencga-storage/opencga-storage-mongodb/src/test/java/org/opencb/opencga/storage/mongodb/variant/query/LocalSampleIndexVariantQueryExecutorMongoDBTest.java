@@ -0,0 +1,125 @@
+package org.opencb.opencga.storage.mongodb.variant.query;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.variant.VariantStorageBaseTest;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.core.variant.query.executors.DBAdaptorVariantQueryExecutor;
+import org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEngine;
+import org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageTest;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
+import static org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.ALL;
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageOptions.SAMPLE_INDEX_LOCAL_DIR;
+
+/**
+ * Compare the results of the {@link LocalSampleIndexVariantQueryExecutor} with the {@link DBAdaptorVariantQueryExecutor}.
+ */
+public class LocalSampleIndexVariantQueryExecutorMongoDBTest extends VariantStorageBaseTest implements MongoDBVariantStorageTest {
+
+    private static boolean loaded = false;
+    private LocalSampleIndexVariantQueryExecutor sampleIndexExecutor;
+    private DBAdaptorVariantQueryExecutor dbAdaptorExecutor;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        loaded = false;
+    }
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        MongoDBVariantStorageEngine engine = getVariantStorageEngine();
+        engine.getOptions().put(SAMPLE_INDEX_LOCAL_DIR.key(), Paths.get(outputUri).resolve("local_sample_index").toString());
+        if (!loaded) {
+            clearDB(DB_NAME);
+            runDefaultETL(smallInputUri, engine, newStudyMetadata(), new ObjectMap()
+                    .append(VariantStorageOptions.ANNOTATE.key(), false)
+                    .append(VariantStorageOptions.STATS_CALCULATE.key(), false));
+            engine.sampleIndex(STUDY_NAME, Collections.singletonList(ALL), new ObjectMap());
+            loaded = true;
+        }
+        sampleIndexExecutor = new LocalSampleIndexVariantQueryExecutor(engine.getDBAdaptor(), engine.getLocalSampleIndexDBAdaptor(),
+                engine.getStorageEngineId(), engine.getOptions());
+        dbAdaptorExecutor = new DBAdaptorVariantQueryExecutor(engine.getDBAdaptor(), engine.getStorageEngineId(), engine.getOptions());
+    }
+
+    @Test
+    public void testGenotypeQueries() throws Exception {
+        for (Query query : genotypeQueries()) {
+            checkQuery(query, new QueryOptions());
+        }
+    }
+
+    @Test
+    public void testGenotypeQueriesWithOtherFilters() throws Exception {
+        for (Query query : genotypeQueries()) {
+            checkQuery(query.append(TYPE.key(), "SNV"), new QueryOptions());
+        }
+    }
+
+    @Test
+    public void testIncludeSamplesAndFiles() throws Exception {
+        for (Query query : genotypeQueries()) {
+            checkQuery(new Query(query).append(INCLUDE_SAMPLE.key(), "NA19661"), new QueryOptions());
+            checkQuery(new Query(query).append(INCLUDE_SAMPLE.key(), ALL), new QueryOptions());
+            checkQuery(new Query(query).append(INCLUDE_FILE.key(), VariantQueryUtils.NONE), new QueryOptions());
+        }
+    }
+
+    @Test
+    public void testSkipLimitCount() throws Exception {
+        for (Query query : genotypeQueries()) {
+            for (int skip : Arrays.asList(0, 5, 20)) {
+                QueryOptions options = new QueryOptions(QueryOptions.SKIP, skip).append(QueryOptions.LIMIT, 10).append(QueryOptions.COUNT, true);
+                checkQuery(query, options);
+                checkQuery(new Query(query).append(TYPE.key(), "SNV"), options);
+            }
+            assertEquals(query.toJson(), dbAdaptorExecutor.count(query).first(), sampleIndexExecutor.count(query).first());
+        }
+    }
+
+    private List<Query> genotypeQueries() {
+        return Arrays.asList(
+                new Query(GENOTYPE.key(), "NA19600:0|1,1|0"),
+                new Query(GENOTYPE.key(), "NA19600:1|1;NA19660:0|1,1|0"),
+                new Query(GENOTYPE.key(), "NA19600:1|1,NA19685:1|1"),
+                new Query(GENOTYPE.key(), "NA19660:!1|1"),
+                new Query(GENOTYPE.key(), "NA19661:1|0").append(STUDY.key(), STUDY_NAME));
+    }
+
+    private void checkQuery(Query query, QueryOptions options) throws Exception {
+        String message = query.toJson() + " " + options.toJson();
+        assertTrue(message, sampleIndexExecutor.canUseThisExecutor(query, options));
+
+        List<Variant> expected = dbAdaptorExecutor.get(new Query(query), new QueryOptions(options)).getResults();
+        List<Variant> actual = sampleIndexExecutor.get(new Query(query), new QueryOptions(options)).getResults();
+        // Same variants, in the same order, with the same samples and files
+        assertEquals(message, toJson(expected), toJson(actual));
+
+        List<Variant> actualIterator = new ArrayList<>();
+        sampleIndexExecutor.iterator(new Query(query), new QueryOptions(options)).forEachRemaining(actualIterator::add);
+        assertEquals(message, toJson(expected), toJson(actualIterator));
+
+        if (options.getBoolean(QueryOptions.COUNT)) {
+            assertEquals(message, dbAdaptorExecutor.get(new Query(query), new QueryOptions(options)).getNumMatches(),
+                    sampleIndexExecutor.get(new Query(query), new QueryOptions(options)).getNumMatches());
+        }
+    }
+
+    private static List<String> toJson(List<Variant> variants) {
+        return variants.stream().map(Variant::toJson).collect(Collectors.toList());
+    }
+}
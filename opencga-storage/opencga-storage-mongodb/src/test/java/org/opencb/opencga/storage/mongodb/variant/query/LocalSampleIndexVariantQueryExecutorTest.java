@@ -0,0 +1,232 @@
+package org.opencb.opencga.storage.mongodb.variant.query;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.response.VariantQueryResult;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageMetadataDBAdaptorFactory;
+import org.opencb.opencga.storage.mongodb.variant.index.sample.LocalSampleIndexDBAdaptor;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
+
+public class LocalSampleIndexVariantQueryExecutorTest {
+
+    private static final String STUDY = "S_1";
+    private static final int NUM_VARIANTS = 20;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Query> engineQueries = new ArrayList<>();
+    private final List<QueryOptions> engineOptions = new ArrayList<>();
+    private final List<List<String>> engineVariantIds = new ArrayList<>();
+    private final List<Variant> variants = new ArrayList<>();
+    private VariantDBAdaptor dbAdaptor;
+    private LocalSampleIndexDBAdaptor sampleIndexDBAdaptor;
+    private LocalSampleIndexVariantQueryExecutor executor;
+
+    @Before
+    public void setUp() throws Exception {
+        DummyVariantStorageMetadataDBAdaptorFactory.clear();
+        VariantStorageMetadataManager metadataManager =
+                new VariantStorageMetadataManager(new DummyVariantStorageMetadataDBAdaptorFactory());
+        int studyId = metadataManager.createStudy(STUDY).getId();
+        int fileId = metadataManager.registerFile(studyId, "file1.vcf", Arrays.asList("S1", "S2", "S3"));
+        metadataManager.addIndexedFiles(studyId, Collections.singletonList(fileId));
+        // Sample not in the local sample index
+        metadataManager.registerSamples(studyId, Collections.singletonList("S4"));
+
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            variants.add(Variant.newBuilder("1:" + (100 + i) + ":A:C")
+                    .setStudyId(STUDY)
+                    .setSampleDataKeys("GT")
+                    .addSample("S1", i % 2 == 0 ? "0/1" : "0/0")
+                    .addSample("S2", i % 3 == 0 ? "1/1" : "0/1")
+                    .addSample("S3", i % 5 == 0 ? "0/1" : "0/0")
+                    .build());
+        }
+        sampleIndexDBAdaptor = new LocalSampleIndexDBAdaptor(metadataManager, temporaryFolder.getRoot().toPath());
+        sampleIndexDBAdaptor.build(studyId, Arrays.asList(metadataManager.getSampleId(studyId, "S1"),
+                metadataManager.getSampleId(studyId, "S2"), metadataManager.getSampleId(studyId, "S3")), variants.iterator());
+
+        dbAdaptor = mock(VariantDBAdaptor.class);
+        doReturn(metadataManager).when(dbAdaptor).getMetadataManager();
+        // Fetch by id, applying limit and skip as the real DBAdaptor would do
+        doAnswer(invocation -> {
+            List<Variant> result = fetch(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return VariantDBIterator.wrapper(result.iterator());
+        }).when(dbAdaptor).iterator(any(Iterator.class), any(Query.class), any(QueryOptions.class));
+        doAnswer(invocation -> {
+            QueryOptions options = invocation.getArgument(2);
+            List<Variant> result = fetch(invocation.getArgument(0), invocation.getArgument(1), options);
+            long numMatches = options.getBoolean(QueryOptions.COUNT) ? engineVariantIds.get(engineVariantIds.size() - 1).size() : -1;
+            return new VariantQueryResult<>(0, result.size(), numMatches, Collections.emptyList(), result);
+        }).when(dbAdaptor).get(any(Iterator.class), any(Query.class), any(QueryOptions.class));
+
+        executor = new LocalSampleIndexVariantQueryExecutor(dbAdaptor, sampleIndexDBAdaptor, "mongodb", new ObjectMap());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sampleIndexDBAdaptor.close();
+    }
+
+    @Test
+    public void testCanUseThisExecutor() throws Exception {
+        assertTrue(executor.canUseThisExecutor(new Query(GENOTYPE.key(), "S1:0/1"), new QueryOptions()));
+        assertTrue(executor.canUseThisExecutor(new Query(GENOTYPE.key(), "S1:0/1;S2:1/1").append(REGION.key(), "1"),
+                new QueryOptions()));
+        assertFalse(executor.canUseThisExecutor(new Query(REGION.key(), "1"), new QueryOptions()));
+        assertFalse(executor.canUseThisExecutor(new Query(GENOTYPE.key(), "S1:0/1;S4:0/1"), new QueryOptions()));
+    }
+
+    @Test
+    public void testCountFullyCovered() throws Exception {
+        Query query = new Query(GENOTYPE.key(), "S1:0/1;S2:1/1");
+        assertTrue(executor.isFullyCoveredQuery(query));
+        assertEquals(expected(query).size(), executor.count(query).first().longValue());
+        assertEquals(expected(query).size(), executor.estimateReadVariants(query, new QueryOptions()));
+        // Count from the BitSet cardinality. No need to fetch any variant
+        verify(dbAdaptor, never()).get(any(Iterator.class), any(Query.class), any(QueryOptions.class));
+        verify(dbAdaptor, never()).iterator(any(Iterator.class), any(Query.class), any(QueryOptions.class));
+    }
+
+    @Test
+    public void testCountNotFullyCovered() throws Exception {
+        Query query = new Query(GENOTYPE.key(), "S1:0/1,S3:0/1").append(REGION.key(), "1");
+        assertFalse(executor.isFullyCoveredQuery(query));
+        assertEquals(expected(query).size(), executor.count(query).first().longValue());
+        // The other filters are evaluated by the DBAdaptor
+        assertEquals(1, engineQueries.size());
+        assertEquals("1", engineQueries.get(0).getString(REGION.key()));
+    }
+
+    @Test
+    public void testRemoveGenotypeFilter() throws Exception {
+        Query query = new Query(GENOTYPE.key(), "S1:0/1;S2:1/1");
+        List<String> result = ids(executor.get(query, new QueryOptions()).getResults());
+
+        assertEquals(expected(query), result);
+        Query engineQuery = engineQueries.get(0);
+        assertFalse(engineQuery.containsKey(GENOTYPE.key()));
+        // Samples and files from the genotype filter are still returned by default
+        assertEquals(Arrays.asList("S1", "S2"), engineQuery.getAsStringList(INCLUDE_SAMPLE.key()));
+        assertEquals(Collections.singletonList("file1.vcf"), engineQuery.getAsStringList(INCLUDE_FILE.key()));
+        // Input query not modified
+        assertTrue(query.containsKey(GENOTYPE.key()));
+        assertFalse(query.containsKey(INCLUDE_SAMPLE.key()));
+    }
+
+    @Test
+    public void testKeepIncludeSample() throws Exception {
+        executor.get(new Query(GENOTYPE.key(), "S1:0/1;S2:1/1").append(INCLUDE_SAMPLE.key(), "S3"), new QueryOptions());
+
+        assertEquals(Collections.singletonList("S3"), engineQueries.get(0).getAsStringList(INCLUDE_SAMPLE.key()));
+        assertFalse(engineQueries.get(0).containsKey(GENOTYPE.key()));
+    }
+
+    @Test
+    public void testSkipLimitFullyCovered() throws Exception {
+        Query query = new Query(GENOTYPE.key(), "S2:0/1");
+        List<String> expected = expected(query);
+        QueryOptions options = new QueryOptions(QueryOptions.SKIP, 3).append(QueryOptions.LIMIT, 4).append(QueryOptions.COUNT, true);
+
+        VariantQueryResult<Variant> result = executor.get(query, options);
+
+        assertEquals(expected.subList(3, 7), ids(result.getResults()));
+        // Pagination applied over the ids from the index
+        assertEquals(expected.subList(3, 7), engineVariantIds.get(0));
+        assertFalse(engineOptions.get(0).containsKey(QueryOptions.SKIP));
+        assertFalse(engineOptions.get(0).containsKey(QueryOptions.LIMIT));
+        assertFalse(engineOptions.get(0).getBoolean(QueryOptions.COUNT));
+        assertEquals(expected.size(), result.getNumMatches());
+        assertFalse(result.getApproximateCount());
+        assertEquals(LocalSampleIndexVariantQueryExecutor.LOCAL_SAMPLE_INDEX_SOURCE + "+mongodb", result.getSource());
+
+        // Page through all the variants
+        List<String> allPages = new ArrayList<>();
+        for (int skip = 0; skip < expected.size(); skip += 5) {
+            allPages.addAll(ids(executor.iterator(query, new QueryOptions(QueryOptions.SKIP, skip).append(QueryOptions.LIMIT, 5))));
+        }
+        assertEquals(expected, allPages);
+        assertEquals(Collections.emptyList(), ids(executor.iterator(query, new QueryOptions(QueryOptions.SKIP, expected.size()))));
+    }
+
+    @Test
+    public void testSkipLimitNotFullyCovered() throws Exception {
+        Query query = new Query(GENOTYPE.key(), "S2:0/1").append(REGION.key(), "1");
+        List<String> expected = expected(query);
+        QueryOptions options = new QueryOptions(QueryOptions.SKIP, 3).append(QueryOptions.LIMIT, 4);
+
+        List<String> result = ids(executor.iterator(query, options));
+
+        assertEquals(expected.subList(3, 7), result);
+        // All the ids are sent to the DBAdaptor, which applies the rest of filters and the pagination
+        assertEquals(expected, engineVariantIds.get(0));
+        assertEquals(3, engineOptions.get(0).getInt(QueryOptions.SKIP));
+        assertEquals(4, engineOptions.get(0).getInt(QueryOptions.LIMIT));
+    }
+
+    private List<Variant> fetch(Iterator<?> ids, Query query, QueryOptions options) {
+        List<String> idsList = new ArrayList<>();
+        ids.forEachRemaining(id -> idsList.add(id.toString()));
+        engineQueries.add(query);
+        engineOptions.add(options);
+        engineVariantIds.add(idsList);
+
+        List<Variant> result = new ArrayList<>();
+        int skip = options.getInt(QueryOptions.SKIP, 0);
+        int limit = options.getInt(QueryOptions.LIMIT, -1);
+        for (int i = skip; i < idsList.size() && (limit < 0 || result.size() < limit); i++) {
+            result.add(new Variant(idsList.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the genotype filter over the input variants. Only AND (;) or OR (,) between samples.
+     *
+     * @param query Query with a genotype filter
+     * @return      Expected variant ids
+     */
+    private List<String> expected(Query query) {
+        String genotype = query.getString(GENOTYPE.key());
+        boolean or = genotype.contains(",");
+        List<String> expected = new ArrayList<>();
+        for (Variant variant : variants) {
+            boolean pass = !or;
+            for (String filter : genotype.split(or ? "," : ";")) {
+                String[] split = filter.split(":");
+                boolean samplePass = variant.getStudy(STUDY).getSampleData(split[0], "GT").equals(split[1]);
+                pass = or ? pass || samplePass : pass && samplePass;
+            }
+            if (pass) {
+                expected.add(variant.toString());
+            }
+        }
+        return expected;
+    }
+
+    private static List<String> ids(Iterator<Variant> iterator) {
+        List<String> ids = new ArrayList<>();
+        iterator.forEachRemaining(variant -> ids.add(variant.toString()));
+        return ids;
+    }
+
+    private static List<String> ids(List<Variant> variants) {
+        return ids(variants.iterator());
+    }
+}
@@ -0,0 +1,143 @@
+package org.opencb.opencga.storage.mongodb.variant.query;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageOptions.QUERY_MULTI_REGION_THREADS;
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageOptions.QUERY_MULTI_REGION_THRESHOLD;
+import static org.opencb.opencga.storage.mongodb.variant.adaptors.VariantMongoDBQueryParser.STRING_ID_CONVERTER;
+
+public class MultiRegionVariantQueryExecutorTest {
+
+    private static final List<String> CHROMOSOMES = Arrays.asList("1", "2", "10", "X");
+
+    private final List<Variant> variants = new ArrayList<>();
+    private final List<Query> chunkQueries = Collections.synchronizedList(new ArrayList<>());
+    private final List<QueryOptions> chunkOptions = Collections.synchronizedList(new ArrayList<>());
+    private MultiRegionVariantQueryExecutor executor;
+    private List<Region> regions;
+
+    @Before
+    public void setUp() throws Exception {
+        regions = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            int start = 1000 + (i / CHROMOSOMES.size()) * 1000;
+            String chromosome = CHROMOSOMES.get(i % CHROMOSOMES.size());
+            regions.add(new Region(chromosome, start, start + 100));
+            for (int position : Arrays.asList(start, start + 50, start + 100, start + 500)) {
+                variants.add(new Variant(chromosome, position, "A", "C"));
+            }
+        }
+        // Overlapping region, to be merged with "1:1000-1100"
+        regions.add(new Region("1", 1050, 1600));
+
+        VariantDBAdaptor dbAdaptor = mock(VariantDBAdaptor.class);
+        // Return the variants from the regions of the chunk, sorted by _id, with a random delay to shuffle the chunks
+        when(dbAdaptor.iterator(any(Query.class), any(QueryOptions.class))).then(invocation -> {
+            Query query = invocation.getArgument(0);
+            QueryOptions options = invocation.getArgument(1);
+            chunkQueries.add(query);
+            chunkOptions.add(options);
+            List<Variant> result = filter(Region.parseRegions(query.getString(VariantQueryParam.REGION.key()), true));
+            if (options.getInt(QueryOptions.LIMIT, -1) >= 0) {
+                result = result.subList(0, Math.min(result.size(), options.getInt(QueryOptions.LIMIT)));
+            }
+            Thread.sleep(RandomUtils.nextInt(0, 20));
+            return VariantDBIterator.wrapper(result.iterator());
+        });
+        executor = new MultiRegionVariantQueryExecutor(dbAdaptor, "mongodb", new ObjectMap()
+                .append(QUERY_MULTI_REGION_THRESHOLD.key(), 50)
+                .append(QUERY_MULTI_REGION_THREADS.key(), 4), null);
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        Query query = new Query(VariantQueryParam.REGION.key(), regionsString(regions));
+        QueryOptions options = new QueryOptions();
+        assertTrue(executor.canUseThisExecutor(query, options));
+
+        List<String> result = ids(executor.iterator(query, options));
+
+        assertEquals(ids(filter(regions)), result);
+        assertEquals(4, chunkQueries.size());
+    }
+
+    @Test
+    public void testChunks() throws Exception {
+        Query query = new Query(VariantQueryParam.REGION.key(), regionsString(regions));
+        executor.iterator(query, new QueryOptions()).forEachRemaining(v -> { });
+
+        // Overlapping regions are merged, and every region is queried in exactly one chunk
+        List<Region> chunkRegions = new ArrayList<>();
+        for (Query chunkQuery : chunkQueries) {
+            chunkRegions.addAll(Region.parseRegions(chunkQuery.getString(VariantQueryParam.REGION.key()), true));
+        }
+        assertEquals(regions.size() - 1, chunkRegions.size());
+        assertTrue(chunkRegions.contains(new Region("1", 1000, 1600)));
+        for (QueryOptions options : chunkOptions) {
+            assertTrue(options.getBoolean(QueryOptions.SORT));
+        }
+    }
+
+    @Test
+    public void testLimitSkip() throws Exception {
+        Query query = new Query(VariantQueryParam.REGION.key(), regionsString(regions));
+        QueryOptions options = new QueryOptions(QueryOptions.LIMIT, 10).append(QueryOptions.SKIP, 25);
+
+        List<String> result = ids(executor.iterator(query, options));
+
+        assertEquals(ids(filter(regions)).subList(25, 35), result);
+        // Limit and skip applied in the client side. Each chunk returns at most limit + skip variants
+        for (QueryOptions chunkOption : chunkOptions) {
+            assertEquals(35, chunkOption.getInt(QueryOptions.LIMIT));
+            assertFalse(chunkOption.containsKey(QueryOptions.SKIP));
+        }
+    }
+
+    @Test
+    public void testCanUseThisExecutor() throws Exception {
+        assertFalse(executor.canUseThisExecutor(new Query(VariantQueryParam.REGION.key(), regionsString(regions.subList(0, 10))),
+                new QueryOptions()));
+        assertFalse(executor.canUseThisExecutor(new Query(VariantQueryParam.REGION.key(), regionsString(regions)),
+                new QueryOptions(QueryOptions.COUNT, true)));
+        assertFalse(executor.canUseThisExecutor(new Query(VariantQueryParam.REGION.key(), regionsString(regions))
+                .append(VariantQueryParam.ID.key(), "rs1234"), new QueryOptions()));
+        assertFalse(executor.canUseThisExecutor(new Query(VariantQueryParam.REGION.key(), regionsString(regions)),
+                new QueryOptions(QUERY_MULTI_REGION_THREADS.key(), 1)));
+    }
+
+    private List<Variant> filter(List<Region> regions) {
+        return variants.stream()
+                .filter(variant -> regions.stream().anyMatch(r -> r.contains(variant.getChromosome(), variant.getStart())))
+                .sorted(Comparator.comparing(STRING_ID_CONVERTER::buildId))
+                .collect(Collectors.toList());
+    }
+
+    private static String regionsString(List<Region> regions) {
+        return regions.stream().map(Region::toString).collect(Collectors.joining(","));
+    }
+
+    private static List<String> ids(Iterator<Variant> iterator) {
+        List<String> ids = new ArrayList<>();
+        iterator.forEachRemaining(variant -> ids.add(variant.toString()));
+        return ids;
+    }
+
+    private static List<String> ids(List<Variant> variants) {
+        return ids(variants.iterator());
+    }
+}